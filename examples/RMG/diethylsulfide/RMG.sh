@@ -33,5 +33,11 @@ export RMG_QM_LIBRARY=$RMG_JOB_OUTPUT/QMThermoLibrary
 # If you set "KeepQMFiles: no" in your condition file, this directory will be deleted.
 export RMG_QM_CALCS=$RMG_JOB_OUTPUT/QMfiles
 
+# Pressure-dependent network solution cache directory.
+# Default is 'PDepCache' inside the current job's output directory.
+# Making it common to all your RMG jobs will let them reuse the FAME results of identical networks
+# The number of cached networks is limited to 20000 by default; set -DRMG.pdepCacheSize=N on the java command line to change it
+export RMG_PDEP_CACHE=$RMG_JOB_OUTPUT/PDepCache
+
 # Now run RMG on the condition.txt input file.
 java -Xmx500m -jar $RMG/bin/RMG.jar condition.txt
@@ -1 +0,0 @@
-"%RMG%/bin/symmetry.exe" -final 0.0 %1
\ No newline at end of file
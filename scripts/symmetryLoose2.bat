@@ -1 +0,0 @@
-"%RMG%/bin/symmetry.exe" -primary 0.2 -final 0.1 %1
\ No newline at end of file
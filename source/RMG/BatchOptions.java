@@ -0,0 +1,73 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+import jing.rxnSys.Logger;
+
+/**
+ * Command-line options of the batch mode of {@link ThermoDataEstimator} and {@link TransportDataEstimator}:<BR>
+ * <code>-batch outputFile [-format csv|binary] [-chunk N] [-threads N]</code><BR>
+ * <BR>
+ * <LI>-chunk: number of species read and tokenized together (default 1000) <LI>-threads: size of the pool that
+ * tokenizes chunks ahead of estimation (default: number of processors) <LI>-format: binary is only supported for
+ * thermo
+ */
+public class BatchOptions {
+    String outputFile = null;
+    boolean binary = false;
+    int chunkSize = 1000;
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Return the batch options given after the input file name, or null if batch mode was not requested.
+     */
+    static BatchOptions parse(String[] args) {
+        BatchOptions options = new BatchOptions();
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                Logger.critical("Missing value for option " + args[i]);
+                System.exit(0);
+            }
+            String value = args[++i];
+            if (args[i - 1].equals("-batch"))
+                options.outputFile = value;
+            else if (args[i - 1].equals("-format")
+                    && (value.equalsIgnoreCase("csv") || value
+                            .equalsIgnoreCase("binary")))
+                options.binary = value.equalsIgnoreCase("binary");
+            else if (args[i - 1].equals("-chunk"))
+                options.chunkSize = Integer.parseInt(value);
+            else if (args[i - 1].equals("-threads"))
+                options.threads = Integer.parseInt(value);
+            else {
+                Logger.critical("Unknown option " + args[i - 1] + " " + value);
+                System.exit(0);
+            }
+        }
+        if (options.outputFile == null)
+            return null;
+        return options;
+    }
+}
@@ -0,0 +1,489 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jing.chemParser.ChemParser;
+
+/**
+ * A Chemkin mechanism (chem.inp) as read by {@link CheckForwardAndReverseRateCoefficients} and
+ * {@link CalculateReverseRateCoefficients}: the NASA-7 polynomials of the species in the THERMO section, and the
+ * Arrhenius, Chebyshev (CHEB) and pressure-dependent Arrhenius (PLOG) reactions in the REACTIONS section. The file is
+ * read the way both tools always read it:<BR>
+ * <LI>Lines containing LOW, TROE, DUP, PLOG or CHEB (in any case, except CHEB) are not reactions, wherever the word
+ * appears on the line <LI>A reaction line containing 1.0E0 0.0 0.0 (or 1.0, 0.0, 0.0 separated by tabs, as written by
+ * hand) is followed by its CHEB or PLOG parameters; it is a Chebyshev reaction if its equation contains (+m) <LI>A
+ * reaction line containing (+M), +m or +M= is a third-body or fall-off reaction, which the tools do not tabulate <LI>
+ * The NASA polynomials switch at 1000 K, and a species whose name is not found is taken to be the first species
+ * <BR>
+ * The reactions can then be tabulated on a thread pool, with the thermochemistry of every species evaluated only once
+ * per temperature by a {@link ThermoTable}.
+ */
+public class ChemkinMechanism {
+    /** The number of reactions tabulated together by one task. */
+    private static final int CHUNK = 64;
+
+    public enum Kind {
+        ARRHENIUS, CHEBYSHEV, PLOG, OTHER
+    };
+
+    /** A reaction line of the mechanism, with the parameters read after it. */
+    public static class Reaction {
+        Kind kind;
+        /** The whole reaction line, including the comment. */
+        String line;
+        /** The reaction equation. */
+        String equation;
+        boolean reversible = true;
+        int[] reactants = new int[3];
+        int[] products = new int[3];
+        int numR = 0;
+        int numP = 0;
+        // Arrhenius parameters
+        double A;
+        double n;
+        double E;
+        // Chebyshev parameters, with the coefficients stored row by row
+        double Tmin;
+        double Tmax;
+        double Pmin;
+        double Pmax;
+        int nT;
+        int nP;
+        double[] alpha;
+        // PLOG parameters, with the pressures as written in the file
+        String[] plogPressure;
+        double[] plogA;
+        double[] plogN;
+        double[] plogE;
+    }
+
+    /** Tabulates one reaction; called on the threads of a pool. */
+    public interface Tabulator {
+        /**
+         * Append the rows of the table for p_reaction to p_table, and any messages for the console to p_log.
+         */
+        void tabulate(Reaction p_reaction, StringBuilder p_table,
+                StringBuilder p_log);
+    }
+
+    /**
+     * H/RT and S/R of every species of the mechanism at each temperature of a grid, each taken from the NASA-7
+     * polynomial for that temperature:<BR>
+     * H/RT(species) = a1 + a2*T/2 + a3*T^2/3 + a4*T^3/4 + a5*T^4/5 + a6/T<BR>
+     * S/R(species) = a1*ln(T) + a2*T + a3*T^2/2 + a4*T^3/3 + a5 *T^4/4 + a7
+     */
+    public class ThermoTable {
+        final double[] T;
+        private final double[][] H_RT;
+        private final double[][] S_R;
+
+        ThermoTable(double[] p_T) {
+            T = p_T.clone();
+            int numSpecies = coeffs.size();
+            H_RT = new double[T.length][numSpecies];
+            S_R = new double[T.length][numSpecies];
+            for (int k = 0; k < T.length; k++) {
+                double Temperature = T[k];
+                // Check temperature to see which set of NASA polynomials to use
+                int c = Temperature < 1000.0 ? 0 : -7;
+                for (int s = 0; s < numSpecies; s++) {
+                    double[] a = (double[]) coeffs.get(s);
+                    H_RT[k][s] = a[c + 7] + a[c + 8] * Temperature / 2 + a[c + 9]
+                            * Temperature * Temperature / 3 + a[c + 10]
+                            * Temperature * Temperature * Temperature / 4
+                            + a[c + 11] * Temperature * Temperature * Temperature
+                            * Temperature / 5 + a[c + 12] / Temperature;
+                    S_R[k][s] = a[c + 7] * Math.log(Temperature) + a[c + 8]
+                            * Temperature + a[c + 9] * Temperature * Temperature
+                            / 2 + a[c + 10] * Temperature * Temperature
+                            * Temperature / 3 + a[c + 11] * Temperature
+                            * Temperature * Temperature * Temperature / 4
+                            + a[c + 13];
+                }
+            }
+        }
+
+        /**
+         * Return H/RT of p_reaction at the p_k-th temperature: the sum over the products less the sum over the
+         * reactants.
+         */
+        double getH_RT(Reaction p_reaction, int p_k) {
+            double H = 0;
+            double[] h = H_RT[p_k];
+            for (int i = 0; i < p_reaction.numR; i++)
+                H -= h[p_reaction.reactants[i]];
+            for (int i = 0; i < p_reaction.numP; i++)
+                H += h[p_reaction.products[i]];
+            return H;
+        }
+
+        /**
+         * Return S/R of p_reaction at the p_k-th temperature: the sum over the products less the sum over the
+         * reactants.
+         */
+        double getS_R(Reaction p_reaction, int p_k) {
+            double S = 0;
+            double[] s = S_R[p_k];
+            for (int i = 0; i < p_reaction.numR; i++)
+                S -= s[p_reaction.reactants[i]];
+            for (int i = 0; i < p_reaction.numP; i++)
+                S += s[p_reaction.products[i]];
+            return S;
+        }
+    }
+
+    /** The species names, and the position of the first species of each name. */
+    private ArrayList names = new ArrayList();
+    private HashMap speciesIndex = new HashMap();
+    /** The 14 NASA coefficients of each species, the high-temperature ones first. */
+    private ArrayList coeffs = new ArrayList();
+    /** The gas constant in the units of Ea given on the REACTIONS line. */
+    double R = 1.987;
+    ArrayList reactions = new ArrayList();
+
+    public int getSpeciesCount() {
+        return names.size();
+    }
+
+    public List getReactions() {
+        return reactions;
+    }
+
+    /**
+     * Return a table of the thermochemistry of all the species at the temperatures p_T.
+     */
+    public ThermoTable getThermoTable(double[] p_T) {
+        return new ThermoTable(p_T);
+    }
+
+    /**
+     * Read the mechanism in the Chemkin file p_fileName.
+     */
+    public static ChemkinMechanism read(String p_fileName) throws IOException {
+        ChemkinMechanism mechanism = new ChemkinMechanism();
+        BufferedReader reader = new BufferedReader(new FileReader(p_fileName));
+        try {
+            mechanism.readThermo(reader);
+            mechanism.readReactions(reader);
+        } finally {
+            reader.close();
+        }
+        return mechanism;
+    }
+
+    private void readThermo(BufferedReader p_reader) throws IOException {
+        String line = ChemParser.readMeaningfulLine(p_reader, true);
+        // Continue reading in the file until "THERMO" is read in
+        while (line != null && !line.startsWith("THERMO"))
+            line = ChemParser.readMeaningfulLine(p_reader, true);
+        if (line == null)
+            throw new IOException("No THERMO section found");
+        // This line contains the global Tmin, Tmax, Tmid
+        line = ChemParser.readMeaningfulLine(p_reader, true);
+        // This line should have thermo (or comments)
+        line = ChemParser.readMeaningfulLine(p_reader, true);
+        while (line != null && !line.equals("END")) {
+            if (!line.startsWith("!")) {
+                // Thermo data for each species stored in 4 consecutive lines
+                // The species name are stored in first 16 characters of the line in a chemkin file
+                String name = new StringTokenizer(line.substring(0, 16))
+                        .nextToken().trim();
+                double[] a = new double[14];
+                // Lines 2 and 3 hold five coefficients each, 15 characters apiece
+                for (int numLines = 0; numLines < 2; ++numLines) {
+                    line = ChemParser.readMeaningfulLine(p_reader, false);
+                    for (int numcoeffs = 0; numcoeffs < 5; ++numcoeffs) {
+                        a[5 * numLines + numcoeffs] = Double.parseDouble(line
+                                .substring(15 * numcoeffs, 15 * (numcoeffs + 1))
+                                .trim());
+                    }
+                }
+                // Line 4 holds the last four coefficients
+                line = ChemParser.readMeaningfulLine(p_reader, false);
+                for (int numcoeffs = 0; numcoeffs < 4; ++numcoeffs) {
+                    a[10 + numcoeffs] = Double.parseDouble(line.substring(
+                            15 * numcoeffs, 15 * (numcoeffs + 1)).trim());
+                }
+                if (!speciesIndex.containsKey(name))
+                    speciesIndex.put(name, new Integer(names.size()));
+                names.add(name);
+                coeffs.add(a);
+            }
+            line = ChemParser.readMeaningfulLine(p_reader, true);
+        }
+    }
+
+    private void readReactions(BufferedReader p_reader) throws IOException {
+        // Continue reading in lines till REACTIONS is found
+        String line = ChemParser.readMeaningfulLine(p_reader, true);
+        while (line != null && !line.startsWith("REACTIONS"))
+            line = ChemParser.readMeaningfulLine(p_reader, true);
+        if (line == null)
+            throw new IOException("No REACTIONS section found");
+        // Determine what units Ea is in; if none are given it is assumed to be in cal/mol
+        StringTokenizer st = new StringTokenizer(line);
+        while (st.hasMoreTokens()) {
+            String nextToken = st.nextToken().toLowerCase();
+            if (nextToken.equals("kcal/mol"))
+                R = 1.987e-3;
+            else if (nextToken.equals("kj/mol"))
+                R = 8.314e-3;
+            else if (nextToken.equals("j/mol"))
+                R = 8.314;
+        }
+        line = ChemParser.readMeaningfulLine(p_reader, true);
+        while (line != null && !line.equals("END")) {
+            String lower = line.toLowerCase();
+            if (!line.startsWith("!") && !lower.contains("low")
+                    && !lower.contains("troe") && !lower.contains("dup")
+                    && !lower.contains("plog") && !line.contains("CHEB"))
+                reactions.add(readReaction(line, p_reader));
+            line = ChemParser.readMeaningfulLine(p_reader, true);
+        }
+    }
+
+    /**
+     * Read the reaction on p_line and, for a Chebyshev or PLOG reaction, its parameters on the lines after it. The
+     * line following the last PLOG line is consumed too.
+     */
+    private Reaction readReaction(String p_line, BufferedReader p_reader)
+            throws IOException {
+        Reaction rxn = new Reaction();
+        rxn.line = p_line;
+        // 1.0E0 0.0 0.0 is the identifier for CHEB and PLOG reactions
+        if (p_line.contains("1.0E0 0.0 0.0")
+                || p_line.contains("1.000e+00 \t  0.00 \t  0.00")
+                || p_line.contains("1.0\t0.0\t0.0")) {
+            rxn.equation = new StringTokenizer(p_line).nextToken();
+            String[] reactsANDprods = rxn.equation.split("=");
+            if (rxn.equation.contains("(+m)")) {
+                rxn.kind = Kind.CHEBYSHEV;
+                // Drop the (+m) from the reactants and products
+                setSpecies(rxn, reactsANDprods[0].substring(0,
+                        reactsANDprods[0].length() - 4), reactsANDprods[1]
+                        .substring(0, reactsANDprods[1].length() - 4));
+                readChebyshev(rxn, p_reader);
+            } else {
+                rxn.kind = Kind.PLOG;
+                setSpecies(rxn, reactsANDprods[0], reactsANDprods[1]);
+                readPLOG(rxn, p_reader);
+            }
+        } else if (p_line.contains("=") && !p_line.contains("(+M)")
+                && !p_line.contains("+m") && !p_line.contains("+M=")) {
+            rxn.kind = Kind.ARRHENIUS;
+            StringTokenizer st = new StringTokenizer(p_line);
+            rxn.equation = st.nextToken();
+            if (rxn.equation.contains("=>"))
+                rxn.reversible = false;
+            rxn.A = Double.parseDouble(st.nextToken());
+            rxn.n = Double.parseDouble(st.nextToken());
+            rxn.E = Double.parseDouble(st.nextToken());
+            String[] reactsANDprods = rxn.equation.split("=");
+            setSpecies(rxn, reactsANDprods[0], reactsANDprods[1]);
+        } else {
+            rxn.kind = Kind.OTHER;
+            rxn.equation = p_line;
+        }
+        return rxn;
+    }
+
+    private void readChebyshev(Reaction p_rxn, BufferedReader p_reader)
+            throws IOException {
+        // TCHEB & PCHEB info, after any comments of the P-dep network
+        String line = ChemParser.readUncommentLine(p_reader);
+        while (line != null && line.startsWith("!"))
+            line = ChemParser.readUncommentLine(p_reader);
+        if (line == null)
+            throw new IOException("Missing TCHEB/PCHEB line for "
+                    + p_rxn.equation);
+        StringTokenizer st_cheb = new StringTokenizer(line, "/");
+        st_cheb.nextToken(); // TCHEB
+        StringTokenizer st_values = new StringTokenizer(st_cheb.nextToken());
+        p_rxn.Tmin = Double.parseDouble(st_values.nextToken());
+        p_rxn.Tmax = Double.parseDouble(st_values.nextToken());
+        st_cheb.nextToken(); // PCHEB
+        st_values = new StringTokenizer(st_cheb.nextToken());
+        p_rxn.Pmin = Double.parseDouble(st_values.nextToken());
+        p_rxn.Pmax = Double.parseDouble(st_values.nextToken());
+        // # of basis set info
+        line = ChemParser.readUncommentLine(p_reader);
+        if (line == null)
+            throw new IOException("Missing CHEB size line for "
+                    + p_rxn.equation);
+        st_cheb = new StringTokenizer(line, "/");
+        st_cheb.nextToken();
+        st_values = new StringTokenizer(st_cheb.nextToken());
+        p_rxn.nT = Integer.parseInt(st_values.nextToken());
+        p_rxn.nP = Integer.parseInt(st_values.nextToken());
+        // Extract the coefficients
+        p_rxn.alpha = new double[p_rxn.nT * p_rxn.nP];
+        int coeffCounter = 0;
+        while (coeffCounter < p_rxn.alpha.length) {
+            line = ChemParser.readUncommentLine(p_reader);
+            if (line == null)
+                throw new IOException("Missing CHEB coefficients for "
+                        + p_rxn.equation);
+            StringTokenizer st_coeffs = new StringTokenizer(line.split("/")[1]);
+            while (st_coeffs.hasMoreTokens()) {
+                p_rxn.alpha[coeffCounter] = Double.parseDouble(st_coeffs
+                        .nextToken().trim());
+                ++coeffCounter;
+            }
+        }
+    }
+
+    private void readPLOG(Reaction p_rxn, BufferedReader p_reader) {
+        ArrayList lines = new ArrayList();
+        String line = ChemParser.readUncommentLine(p_reader);
+        while (line != null && line.startsWith("PLOG")) {
+            lines.add(line);
+            line = ChemParser.readUncommentLine(p_reader);
+        }
+        int count = lines.size();
+        p_rxn.plogPressure = new String[count];
+        p_rxn.plogA = new double[count];
+        p_rxn.plogN = new double[count];
+        p_rxn.plogE = new double[count];
+        for (int i = 0; i < count; i++) {
+            StringTokenizer st_plog = new StringTokenizer(
+                    (String) lines.get(i), "/");
+            st_plog.nextToken();
+            StringTokenizer st_plog_info = new StringTokenizer(st_plog
+                    .nextToken());
+            p_rxn.plogPressure[i] = st_plog_info.nextToken();
+            p_rxn.plogA[i] = Double.parseDouble(st_plog_info.nextToken());
+            p_rxn.plogN[i] = Double.parseDouble(st_plog_info.nextToken());
+            p_rxn.plogE[i] = Double.parseDouble(st_plog_info.nextToken());
+        }
+    }
+
+    private void setSpecies(Reaction p_rxn, String p_reactants,
+            String p_products) {
+        p_rxn.reactants = determineSpeciesIndex(p_reactants);
+        p_rxn.numR = determineNumberOfSpecies(p_reactants);
+        p_rxn.products = determineSpeciesIndex(p_products);
+        p_rxn.numP = determineNumberOfSpecies(p_products);
+    }
+
+    private int[] determineSpeciesIndex(String reactsORprods) {
+        if (reactsORprods.startsWith(">"))
+            reactsORprods = reactsORprods.substring(1, reactsORprods.length());
+        int[] index = new int[3];
+        int speciesCounter = 0;
+        StringTokenizer st_reacts = new StringTokenizer(reactsORprods, "+");
+        while (st_reacts.hasMoreTokens()) {
+            String reactantString = st_reacts.nextToken();
+            boolean groupedSpecies = false;
+            if (reactantString.startsWith("2")) {
+                reactantString = reactantString.substring(1,
+                        reactantString.length());
+                groupedSpecies = true;
+            }
+            Integer position = (Integer) speciesIndex.get(reactantString);
+            if (position != null) {
+                index[speciesCounter] = position.intValue();
+                ++speciesCounter;
+                if (groupedSpecies) {
+                    index[speciesCounter] = position.intValue();
+                    ++speciesCounter;
+                }
+            } else {
+                System.err.println("Could not find thermo for species: "
+                        + reactantString);
+            }
+        }
+        return index;
+    }
+
+    private static int determineNumberOfSpecies(String reactsORprods) {
+        StringTokenizer st_reacts = new StringTokenizer(reactsORprods, "+");
+        int numSpecies = 0;
+        while (st_reacts.hasMoreTokens()) {
+            ++numSpecies;
+            String tempString = st_reacts.nextToken();
+            if (tempString.startsWith("2"))
+                ++numSpecies;
+        }
+        return numSpecies;
+    }
+
+    /**
+     * Tabulate every reaction with p_tabulator on p_threads threads, writing the rows to p_table and the messages to
+     * the console in the order of the reactions in the file, as soon as the reactions before them are done.
+     */
+    public void tabulate(final Tabulator p_tabulator, Writer p_table,
+            int p_threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(
+                p_threads, 1));
+        LinkedList chunks = new LinkedList();
+        for (int first = 0; first < reactions.size(); first += CHUNK) {
+            final List chunk = reactions.subList(first, Math.min(first + CHUNK,
+                    reactions.size()));
+            chunks.add(pool.submit(new Callable() {
+                public Object call() {
+                    StringBuilder[] output = { new StringBuilder(),
+                            new StringBuilder() };
+                    for (Iterator iter = chunk.iterator(); iter.hasNext();)
+                        p_tabulator.tabulate((Reaction) iter.next(), output[0],
+                                output[1]);
+                    return output;
+                }
+            }));
+        }
+        try {
+            for (Iterator iter = chunks.iterator(); iter.hasNext();) {
+                StringBuilder[] output = (StringBuilder[]) ((Future) iter
+                        .next()).get();
+                System.out.print(output[1]);
+                p_table.write(output[0].toString());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while tabulating the reactions");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        p_table.flush();
+    }
+}
@@ -0,0 +1,285 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Random;
+import jing.rxnSys.SolverInput;
+import jing.rxnSys.SolverOutput;
+
+/**
+ * Compares the direct and the Krylov ("DynamicSimulator: DASPK: krylov") linear solvers of daspkAUTO.exe on a
+ * synthetic core. The core has the given number of species, each with a size (a number of heavy atoms) from 1 to 6, and
+ * the given number of reversible reactions between them, picked at random among the isomerizations A = B, the
+ * associations A + B = C and the dissociations A = B + C that conserve size. The thermochemistry and the rate
+ * coefficients are random but realistic in magnitude, so the system is stiff. The same input is solved in both modes,
+ * in the ODESolver directory, and the solve times and the largest differences between the final concentrations are
+ * printed. Usage:
+ * 
+ * <pre>
+ * java DASPKBenchmark [species [reactions [end time (s) [seed]]]]
+ * </pre>
+ */
+public class DASPKBenchmark {
+    // the driver holds at most SPMAX (source/daspk/reaction.fh) state variables, the volume included
+    private static final int MAX_SPECIES = 4999;
+    private static final int MAX_SIZE = 6;
+    private static final double TEMPERATURE = 1000;// K
+    private static final double PRESSURE = 1.01325e5;// Pa
+
+    public static void main(String[] args) {
+        RMG.globalInitializeSystemProperties();
+        int speciesNumber = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int reactionNumber = args.length > 1 ? Integer.parseInt(args[1])
+                : 10 * speciesNumber;
+        double endTime = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        if (speciesNumber < 2 * MAX_SIZE || speciesNumber > MAX_SPECIES) {
+            System.out.println("The number of species must be between "
+                    + 2 * MAX_SIZE + " and " + MAX_SPECIES);
+            System.exit(1);
+        }
+        File dir = new File(System.getProperty("RMG.ODESolverDir"));
+        dir.mkdirs();
+        File solver = new File(System.getProperty("RMG.workingDirectory"),
+                "bin/daspkAUTO.exe");
+        Random random = new Random(seed);
+        double[] thermo = new double[speciesNumber];
+        int[] size = new int[speciesNumber];
+        ArrayList[] bySize = new ArrayList[MAX_SIZE + 1];
+        for (int s = 1; s <= MAX_SIZE; s++)
+            bySize[s] = new ArrayList();
+        for (int i = 0; i < speciesNumber; i++) {
+            // every size is present
+            size[i] = i < MAX_SIZE ? i + 1 : 1 + random.nextInt(MAX_SIZE);
+            bySize[size[i]].add(new Integer(i + 1));
+            // Gibbs free energy in kcal/mol, as the driver expects
+            thermo[i] = -10 * size[i] + 20 * (random.nextDouble() - 0.5);
+        }
+        SolverInput reactions = new SolverInput();
+        SolverInput rates = new SolverInput();
+        int[] ids = new int[3];
+        for (int r = 0; r < reactionNumber;) {
+            int type = random.nextInt(3);
+            int rNum, pNum;
+            if (type == 0) {
+                int s = 1 + random.nextInt(MAX_SIZE);
+                ids[0] = pick(bySize[s], random);
+                ids[1] = pick(bySize[s], random);
+                if (ids[0] == ids[1])
+                    continue;
+                rNum = 1;
+                pNum = 1;
+            } else {
+                int sa = 1 + random.nextInt(MAX_SIZE - 1);
+                int sb = 1 + random.nextInt(MAX_SIZE - sa);
+                ids[0] = pick(bySize[sa], random);
+                ids[1] = pick(bySize[sb], random);
+                ids[2] = pick(bySize[sa + sb], random);
+                rNum = type == 1 ? 2 : 1;
+                pNum = type == 1 ? 1 : 2;
+                if (type == 2) {
+                    int c = ids[2];
+                    ids[2] = ids[1];
+                    ids[1] = ids[0];
+                    ids[0] = c;
+                }
+            }
+            // nReac, nProd, three reactant and four product slots, reversible
+            reactions.addInt(rNum);
+            reactions.addInt(pNum);
+            for (int i = 0; i < 3; i++)
+                reactions.addInt(i < rNum ? ids[i] : 0);
+            for (int i = 0; i < 4; i++)
+                reactions.addInt(i < pNum ? ids[rNum + i] : 0);
+            reactions.addInt(1);
+            // rate, A, n, Ea, Keq; the driver only uses the rate, in cm3/mol/s for bimolecular reactions
+            double rate = rNum == 1 ? Math.pow(10, 3 + 6 * random.nextDouble())
+                    : Math.pow(10, 11 + 3 * random.nextDouble());
+            double dG = 0;
+            for (int i = 0; i < rNum + pNum; i++)
+                dG += (i < rNum ? -1 : 1) * thermo[ids[i] - 1];
+            rates.addDouble(rate);
+            rates.addDouble(rate);
+            rates.addDouble(0);
+            rates.addDouble(0);
+            rates.addDouble(Math.exp(-dG * 4184 / 8.314 / TEMPERATURE)
+                    * Math.pow(82.053 * TEMPERATURE, rNum - pNum));
+            r++;
+        }
+        reactions.endRecord();
+        rates.endRecord();
+        // the fuel, a quarter of the gas, is the largest species; the rest is bath gas, which isn't a species
+        double[] y = new double[speciesNumber];
+        y[MAX_SIZE - 1] = 0.25 * PRESSURE / 8.314 / TEMPERATURE * 1e-6;
+        System.out.println(String.format(
+                "Synthetic core: %d species, %d reactions, %g s",
+                speciesNumber, reactionNumber, endTime));
+        try {
+            double[] direct = new double[speciesNumber];
+            double[] krylov = new double[speciesNumber];
+            long directTime = solve(solver, dir, false, y, thermo, reactions,
+                    rates, endTime, direct);
+            long krylovTime = solve(solver, dir, true, y, thermo, reactions,
+                    rates, endTime, krylov);
+            double largest = 0;
+            for (int i = 0; i < speciesNumber; i++)
+                largest = Math.max(largest, Math.abs(direct[i]));
+            double maxAbs = 0;
+            double maxRel = 0;
+            for (int i = 0; i < speciesNumber; i++) {
+                double diff = Math.abs(krylov[i] - direct[i]);
+                maxAbs = Math.max(maxAbs, diff);
+                // relative differences only for the species that matter
+                if (Math.abs(direct[i]) > 1e-6 * largest)
+                    maxRel = Math.max(maxRel, diff / Math.abs(direct[i]));
+            }
+            System.out.println(String.format("Direct: %8.3f s", directTime / 1000.0));
+            System.out.println(String.format("Krylov: %8.3f s", krylovTime / 1000.0));
+            System.out.println(String.format(
+                    "Largest difference of the final concentrations: %.3e mol/cm3 (%.3e of the largest)",
+                    maxAbs, maxAbs / largest));
+            System.out.println(String.format(
+                    "Largest relative difference for species above 1e-6 of the largest: %.3e",
+                    maxRel));
+        } catch (IOException e) {
+            System.out.println("Error running " + solver.getPath() + ": "
+                    + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static int pick(ArrayList p_list, Random p_random) {
+        return ((Integer) p_list.get(p_random.nextInt(p_list.size())))
+                .intValue();
+    }
+
+    /**
+     * Writes SolverInput.dat as JDASPK does for a solve without sensitivities from time zero, runs the solver on it, and
+     * reads the final concentrations into p_result. Returns the wall-clock time of the run in milliseconds.
+     */
+    private static long solve(File p_solver, File p_dir, boolean p_krylov,
+            double[] p_y, double[] p_thermo, SolverInput p_reactions,
+            SolverInput p_rates, double p_endTime, double[] p_result)
+            throws IOException {
+        int nState = p_y.length;
+        int[] info = new int[30];
+        info[2] = 1;
+        info[4] = 1;
+        if (p_krylov) {
+            info[11] = 1;
+            info[14] = 1;
+        }
+        SolverInput input = new SolverInput();
+        input.addInt(nState);
+        input.addInt(nState);
+        input.addInt(-1);
+        input.addInt(1);
+        input.addInt(0);
+        input.addInt(0);
+        input.endRecord();
+        input.addDouble(0);
+        input.endRecord();
+        input.addDouble(0);
+        input.addDouble(p_endTime);
+        input.endRecord();
+        input.addDoubles(p_y, nState);
+        input.endRecord();
+        input.addDoubles(new double[nState], nState);
+        input.endRecord();
+        input.addInts(info, 30);
+        input.endRecord();
+        input.addDouble(1e-8);
+        input.addDouble(1e-20);
+        input.endRecord();
+        input.addDoubles(p_thermo, nState);
+        input.endRecord();
+        input.addDouble(TEMPERATURE);
+        input.addDouble(PRESSURE);
+        input.endRecord();
+        input.addInt(p_reactions.size() / 10);
+        input.endRecord();
+        input.append(p_reactions);
+        input.append(p_rates);
+        // no third body, Troe or Lindemann reactions
+        for (int i = 0; i < 3; i++) {
+            input.addInt(0);
+            input.endRecord();
+            input.endRecord();
+            input.endRecord();
+        }
+        // no constant concentrations
+        input.addInts(new int[nState + 1], nState + 1);
+        input.endRecord();
+        FileWriter writer = new FileWriter(new File(p_dir, "SolverInput.dat"));
+        try {
+            input.writeText(writer);
+        } finally {
+            writer.close();
+        }
+        File output = new File(p_dir, "SolverOutput.dat");
+        output.delete();
+        long start = System.currentTimeMillis();
+        ProcessBuilder builder = new ProcessBuilder(new String[] { p_solver
+                .getPath() });
+        builder.directory(p_dir);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.indexOf("IDID") >= 0 || line.indexOf("ERROR") >= 0)
+                System.out.println(line.trim());
+        }
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            throw new IOException("Interrupted");
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        SolverOutput result = new SolverOutput(output);
+        try {
+            result.nextInt();// iterations
+            if (result.nextInt() != nState)
+                throw new IOException("Unexpected solver output");
+            double time = result.nextDouble();
+            if (time < p_endTime)
+                System.out.println(String.format(
+                        "Warning: the %s solve stopped at %g s",
+                        p_krylov ? "Krylov" : "direct", time));
+            for (int i = 0; i < nState; i++)
+                p_result[i] = result.nextDouble();
+        } finally {
+            result.close();
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,159 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+import java.util.Random;
+import jing.mathTool.UncertainDouble;
+import jing.param.Pressure;
+import jing.param.Temperature;
+import jing.rxn.ArrheniusKinetics;
+import jing.rxn.ChebyshevPolynomials;
+import jing.rxn.PDepArrheniusKinetics;
+import jing.rxn.PDepRateConstant;
+import jing.rxn.PDepRateEvaluator;
+
+/**
+ * Compares the two ways of evaluating pressure-dependent rate coefficients: one call to
+ * PDepRateConstant.calculateRate(Temperature, Pressure) per rate, as before, and one PDepRateEvaluator shared by all the
+ * rates at the same conditions, as the reaction system now does. The rate coefficients are random but realistic in
+ * magnitude: Chebyshev polynomials (7 x 4 coefficients), PLOG sets of five pressures, and tables on the interpolation
+ * grid of FAME (8 temperatures x 5 pressures), or an even mix of the three. Each set is evaluated at 200 random
+ * conditions, eight times over; the time per rate of the last repetition of each mode is printed, and the rates of the
+ * two modes are checked to be identical. Usage:
+ * 
+ * <pre>
+ * java PDepRateBenchmark [rate coefficients [seed]]
+ * </pre>
+ */
+public class PDepRateBenchmark {
+    private static final int CONDITIONS = 200;
+    private static final int REPETITIONS = 8;
+    private static final String[] KINDS = { "Chebyshev", "PLOG",
+            "Interpolated", "Mixed" };
+
+    public static void main(String[] args) {
+        int rateNumber = args.length > 0 ? Integer.parseInt(args[0]) : 6000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        Temperature[] temperatures = new Temperature[8];
+        for (int i = 0; i < temperatures.length; i++)
+            temperatures[i] = new Temperature(300 + 250 * i, "K");
+        Pressure[] pressures = new Pressure[5];
+        for (int i = 0; i < pressures.length; i++)
+            pressures[i] = new Pressure(Math.pow(10, -2 + i), "bar");
+        PDepRateConstant.setTemperatures(temperatures);
+        PDepRateConstant.setPressures(pressures);
+        Random random = new Random(seed);
+        Temperature[] T = new Temperature[CONDITIONS];
+        Pressure[] P = new Pressure[CONDITIONS];
+        for (int c = 0; c < CONDITIONS; c++) {
+            T[c] = new Temperature(310 + 1680 * random.nextDouble(), "K");
+            P[c] = new Pressure(Math.pow(10, -1.9 + 3.8 * random.nextDouble()),
+                    "bar");
+        }
+        System.out.println(String.format(
+                "%d rate coefficients at %d conditions (ns per rate)",
+                rateNumber, CONDITIONS));
+        System.out.println(String.format("%-14s%10s%10s", "Kinetics",
+                "Per call", "Shared"));
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            PDepRateConstant[] k = new PDepRateConstant[rateNumber];
+            for (int i = 0; i < rateNumber; i++)
+                k[i] = make(kind == 3 ? i % 3 : kind, pressures, random);
+            double[] perCall = new double[rateNumber * CONDITIONS];
+            double[] shared = new double[rateNumber * CONDITIONS];
+            double perCallTime = 0;
+            double sharedTime = 0;
+            for (int rep = 0; rep < REPETITIONS; rep++) {
+                perCallTime = evaluate(k, T, P, false, perCall);
+                sharedTime = evaluate(k, T, P, true, shared);
+            }
+            int differences = 0;
+            for (int i = 0; i < perCall.length; i++) {
+                if (Double.doubleToLongBits(perCall[i]) != Double
+                        .doubleToLongBits(shared[i]))
+                    differences++;
+            }
+            System.out.println(String.format("%-14s%10.1f%10.1f%s",
+                    KINDS[kind], perCallTime, sharedTime,
+                    differences == 0 ? "" : "   " + differences
+                            + " rates differ!"));
+        }
+    }
+
+    /**
+     * Evaluates every rate coefficient of p_k at every condition into p_result, and returns the time per rate in ns.
+     */
+    private static double evaluate(PDepRateConstant[] p_k, Temperature[] p_T,
+            Pressure[] p_P, boolean p_shared, double[] p_result) {
+        long start = System.nanoTime();
+        int n = 0;
+        for (int c = 0; c < p_T.length; c++) {
+            if (p_shared) {
+                PDepRateEvaluator evaluator = new PDepRateEvaluator(p_T[c],
+                        p_P[c]);
+                for (int i = 0; i < p_k.length; i++)
+                    p_result[n++] = p_k[i].calculateRate(evaluator);
+            } else {
+                for (int i = 0; i < p_k.length; i++)
+                    p_result[n++] = p_k[i].calculateRate(p_T[c], p_P[c]);
+            }
+        }
+        return (System.nanoTime() - start) / (double) n;
+    }
+
+    private static PDepRateConstant make(int p_kind, Pressure[] p_pressures,
+            Random p_random) {
+        if (p_kind == 0) {
+            double[][] alpha = new double[7][4];
+            for (int i = 0; i < 7; i++) {
+                for (int j = 0; j < 4; j++)
+                    alpha[i][j] = (i == 0 && j == 0 ? 10 : 0)
+                            + p_random.nextGaussian() / (1 + i + j);
+            }
+            return new PDepRateConstant(new ChebyshevPolynomials(7,
+                    new Temperature(300, "K"), new Temperature(2000, "K"), 4,
+                    new Pressure(0.01, "bar"), new Pressure(100, "bar"), alpha));
+        } else if (p_kind == 1) {
+            PDepArrheniusKinetics plog = new PDepArrheniusKinetics(
+                    p_pressures.length);
+            for (int i = 0; i < p_pressures.length; i++) {
+                plog.setKinetics(i, p_pressures[i], new ArrheniusKinetics(
+                        new UncertainDouble(Math.pow(10,
+                                8 + 4 * p_random.nextDouble()), 0, "A"),
+                        new UncertainDouble(2 * p_random.nextDouble(), 0, "A"),
+                        new UncertainDouble(40 * p_random.nextDouble(), 0, "A"),
+                        "300-2000", 1, "PDepRateBenchmark", null));
+            }
+            return new PDepRateConstant(plog);
+        } else {
+            double[][] rates = new double[8][5];
+            for (int i = 0; i < 8; i++) {
+                for (int j = 0; j < 5; j++)
+                    rates[i][j] = Math.pow(10, 5 + 5 * p_random.nextDouble());
+            }
+            return new PDepRateConstant(rates);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+import java.util.ArrayList;
+import java.util.Random;
+import jing.chem.QMData;
+import jing.chem.QMStatMech;
+
+/**
+ * Checks the symmetry numbers, chirality and linearity found by QMStatMech against the values CanTherm (through the
+ * SYMMETRY program) gives for a set of molecules covering the cases of the search: non-planar molecules of low and high
+ * symmetry (Td, Oh, D3d, D2d, C3v, C2v), planar and linear ones, chiral ones, and a single atom. The expected values are
+ * the external symmetry numbers of the molecules' point groups, and chirality where the point group has no improper
+ * operation. Each molecule is checked on its ideal geometry and on copies with random Gaussian displacements of the
+ * coordinates, with standard deviations of 0.004 A (about the noise of an optimized MOPAC or MM4 geometry) and 0.01 A
+ * (enough to hide most operations at the first tolerance of 0.02 A, so that they are only found with the looser ones).
+ * Prints one line per check, and exits with status 1 if any fails. Usage:
+ * 
+ * <pre>
+ * java QMSymmetryCheck [seed]
+ * </pre>
+ */
+public class QMSymmetryCheck {
+    private static final double[] NOISE = { 0, 0.004, 0.01 };
+    private static Random random;
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+        for (int i = 0; i < NOISE.length; i++) {
+            double noise = NOISE[i];
+            System.out.println("Displacements of " + noise + " A");
+            // non-planar
+            check("cyclopropane (D3h)", new int[] { 6, 6, 6, 1, 1, 1, 1, 1, 1 },
+                    new double[][] { polar(0.87, 0, 0), polar(0.87, 120, 0),
+                            polar(0.87, 240, 0), polar(1.42, 0, 0.91),
+                            polar(1.42, 0, -0.91), polar(1.42, 120, 0.91),
+                            polar(1.42, 120, -0.91), polar(1.42, 240, 0.91),
+                            polar(1.42, 240, -0.91) }, noise, 6, false, false);
+            double t = 0.63;
+            check("methane (Td)", new int[] { 6, 1, 1, 1, 1 }, new double[][] {
+                    { 0, 0, 0 }, { t, t, t }, { t, -t, -t }, { -t, t, -t },
+                    { -t, -t, t } }, noise, 12, false, false);
+            check("SF6 (Oh)", new int[] { 16, 9, 9, 9, 9, 9, 9 },
+                    new double[][] { { 0, 0, 0 }, { 1.56, 0, 0 },
+                            { -1.56, 0, 0 }, { 0, 1.56, 0 }, { 0, -1.56, 0 },
+                            { 0, 0, 1.56 }, { 0, 0, -1.56 } }, noise, 24, false,
+                    false);
+            check("ethane (D3d)", new int[] { 6, 6, 1, 1, 1, 1, 1, 1 },
+                    new double[][] { { 0, 0, 0.76 }, { 0, 0, -0.76 },
+                            polar(1.02, 0, 1.16), polar(1.02, 120, 1.16),
+                            polar(1.02, 240, 1.16), polar(1.02, 60, -1.16),
+                            polar(1.02, 180, -1.16), polar(1.02, 300, -1.16) },
+                    noise, 6, false, false);
+            check("allene (D2d)", new int[] { 6, 6, 6, 1, 1, 1, 1 },
+                    new double[][] { { 0, 0, 0 }, { 0, 0, 1.31 },
+                            { 0, 0, -1.31 }, { 0.93, 0, 1.87 },
+                            { -0.93, 0, 1.87 }, { 0, 0.93, -1.87 },
+                            { 0, -0.93, -1.87 } }, noise, 4, false, false);
+            check("ammonia (C3v)", new int[] { 7, 1, 1, 1 }, new double[][] {
+                    { 0, 0, 0.1 }, polar(0.94, 0, -0.27),
+                    polar(0.94, 120, -0.27), polar(0.94, 240, -0.27) }, noise,
+                    3, false, false);
+            // chiral
+            check("CHFClBr (C1)", new int[] { 6, 1, 9, 17, 35 },
+                    new double[][] { { 0, 0, 0 }, { 0.63, 0.63, 0.63 },
+                            { 0.8, -0.8, -0.8 }, { -1.0, 1.0, -1.0 },
+                            { -1.1, -1.1, 1.1 } }, noise, 1, true, false);
+            check("H2O2 (C2)", new int[] { 8, 8, 1, 1 }, new double[][] {
+                    { 0.7, 0.1, 0 }, { -0.7, -0.1, 0 }, { 0.9, 0.5, 0.8 },
+                    { -0.9, -0.5, 0.8 } }, noise, 2, true, false);
+            // planar
+            check("water (C2v)", new int[] { 8, 1, 1 }, new double[][] {
+                    { 0, 0, 0.12 }, { 0.76, 0, -0.47 }, { -0.76, 0, -0.47 } },
+                    noise, 2, false, false);
+            check("ethylene (D2h)", new int[] { 6, 6, 1, 1, 1, 1 },
+                    new double[][] { { 0.67, 0, 0 }, { -0.67, 0, 0 },
+                            { 1.23, 0.92, 0 }, { 1.23, -0.92, 0 },
+                            { -1.23, 0.92, 0 }, { -1.23, -0.92, 0 } }, noise, 4,
+                    false, false);
+            int[] benzene = new int[12];
+            double[][] benzeneXYZ = new double[12][];
+            for (int j = 0; j < 6; j++) {
+                benzene[j] = 6;
+                benzeneXYZ[j] = polar(1.39, 60 * j, 0);
+                benzene[6 + j] = 1;
+                benzeneXYZ[6 + j] = polar(2.47, 60 * j, 0);
+            }
+            check("benzene (D6h)", benzene, benzeneXYZ, noise, 12, false, false);
+            // linear
+            check("CO2 (Dinfh)", new int[] { 6, 8, 8 }, new double[][] {
+                    { 0, 0, 0 }, { 0, 0, 1.16 }, { 0, 0, -1.16 } }, noise, 2,
+                    false, true);
+            check("HCN (Cinfv)", new int[] { 1, 6, 7 }, new double[][] {
+                    { 0, 0, -1.06 }, { 0, 0, 0 }, { 0, 0, 1.15 } }, noise, 1,
+                    false, true);
+            // a single atom has no rotational symmetry number
+            check("Ar", new int[] { 18 }, new double[][] { { 0.3, 0.2, 0.1 } },
+                    noise, 1, false, false);
+        }
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    private static void check(String p_name, int[] p_atomicNumber,
+            double[][] p_xyz, double p_noise, int p_symmetryNumber,
+            boolean p_chiral, boolean p_linear) {
+        ArrayList atomicNumber = new ArrayList();
+        ArrayList x = new ArrayList();
+        ArrayList y = new ArrayList();
+        ArrayList z = new ArrayList();
+        for (int i = 0; i < p_atomicNumber.length; i++) {
+            atomicNumber.add(new Integer(p_atomicNumber[i]));
+            x.add(new Double(p_xyz[i][0] + p_noise * random.nextGaussian()));
+            y.add(new Double(p_xyz[i][1] + p_noise * random.nextGaussian()));
+            z.add(new Double(p_xyz[i][2] + p_noise * random.nextGaussian()));
+        }
+        QMData data = new QMData(p_atomicNumber.length, atomicNumber, x, y, z,
+                0, 0, 0, new ArrayList(), 1, 1, 1);
+        QMStatMech statMech = new QMStatMech(data, p_name);
+        boolean ok = statMech.getSymmetryNumber() == p_symmetryNumber
+                && statMech.isChiral() == p_chiral
+                && statMech.isLinear() == p_linear;
+        if (!ok)
+            failures++;
+        System.out.println(String.format(
+                "%s %-20s symmetry number %2d%s%s (expected %d%s%s)", ok ? "ok  "
+                        : "FAIL", p_name, statMech.getSymmetryNumber(),
+                statMech.isChiral() ? ", chiral" : "",
+                statMech.isLinear() ? ", linear" : "", p_symmetryNumber,
+                p_chiral ? ", chiral" : "", p_linear ? ", linear" : ""));
+    }
+
+    /**
+     * Return the point at distance p_r from the z axis, at angle p_degrees around it and height p_z.
+     */
+    private static double[] polar(double p_r, double p_degrees, double p_z) {
+        return new double[] { p_r * Math.cos(Math.toRadians(p_degrees)),
+                p_r * Math.sin(Math.toRadians(p_degrees)), p_z };
+    }
+}
@@ -72,6 +72,7 @@ public class RMG {
             createFolder(System.getProperty("RMG.qmCalculationsDir"), false); // Preserving QM files between runs will
 // speed things up considerably
             createFolder(System.getProperty("RMG.qmLibraryDir"), false); // don't delete
+            createFolder(System.getProperty("RMG.pdepCacheDir"), false); // don't delete
             // The only parameter should be the path to the condition file
             String inputfile = args[0];
             System.setProperty(
@@ -223,6 +224,16 @@ public class RMG {
         Logger.info(String.format("RMG_QM_CALCS = %s (%s)", qmCalculationsDir,
                 source));
         System.setProperty("RMG.qmCalculationsDir", qmCalculationsDir);
+        // Set the P-dep solution cache directory
+        String pdepCacheDir = System.getenv("RMG_PDEP_CACHE");
+        if (pdepCacheDir == null) {
+            pdepCacheDir = new File(jobOutputDir, "PDepCache").getPath();
+            source = "default - relative to RMG_JOB_OUTPUT";
+        } else
+            source = "environment variable";
+        Logger.info(String.format("RMG_PDEP_CACHE = %s (%s)", pdepCacheDir,
+                source));
+        System.setProperty("RMG.pdepCacheDir", pdepCacheDir);
         Logger.verbose(" Derived paths:");
         // Set the directory to save problematic Fame input/output in
         String fameOutputDir = new File(jobOutputDir, "fame").getPath();
@@ -0,0 +1,101 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+import java.util.StringTokenizer;
+import jing.rxnSys.Logger;
+
+/**
+ * Command-line options of {@link CheckForwardAndReverseRateCoefficients} and {@link CalculateReverseRateCoefficients},
+ * given after the chem.inp file name:<BR>
+ * <code>[-T Tlow,Thigh,N] [-P P1,P2,...] [-threads N] [-output file]</code><BR>
+ * <BR>
+ * <LI>-T: N temperatures (K) from Thigh down to Tlow, evenly spaced in 1/T (default: that of each tool) <LI>-P: the
+ * pressures (atm) at which Chebyshev rates are evaluated (default 1 atm) <LI>-threads: number of threads tabulating
+ * reactions (default: number of processors) <LI>-output: the table written (default reverseRateCoefficients.txt)
+ */
+public class RateTableOptions {
+    double Tlow;
+    double Thigh;
+    int numT;
+    /** The pressures as given on the command line, and their values. */
+    String[] pressureString = { "1" };
+    double[] pressure = { 1 };
+    int threads = Runtime.getRuntime().availableProcessors();
+    String outputFile = "reverseRateCoefficients.txt";
+
+    /**
+     * Return the options given in args from position p_first on, with the default grid of p_numT temperatures from
+     * p_Thigh down to p_Tlow.
+     */
+    static RateTableOptions parse(String[] args, int p_first, double p_Tlow,
+            double p_Thigh, int p_numT) {
+        RateTableOptions options = new RateTableOptions();
+        options.Tlow = p_Tlow;
+        options.Thigh = p_Thigh;
+        options.numT = p_numT;
+        for (int i = p_first; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                Logger.critical("Missing value for option " + args[i]);
+                System.exit(0);
+            }
+            String value = args[++i];
+            if (args[i - 1].equals("-T")) {
+                String[] grid = value.split(",");
+                if (grid.length != 3 || Integer.parseInt(grid[2]) < 2) {
+                    Logger.critical("Expected -T Tlow,Thigh,N with N > 1 but got "
+                            + value);
+                    System.exit(0);
+                }
+                options.Tlow = Double.parseDouble(grid[0]);
+                options.Thigh = Double.parseDouble(grid[1]);
+                options.numT = Integer.parseInt(grid[2]);
+            } else if (args[i - 1].equals("-P"))
+                options.setPressures(value);
+            else if (args[i - 1].equals("-threads"))
+                options.threads = Integer.parseInt(value);
+            else if (args[i - 1].equals("-output"))
+                options.outputFile = value;
+            else {
+                Logger.critical("Unknown option " + args[i - 1] + " " + value);
+                System.exit(0);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Set the pressures to the comma-separated list p_value.
+     */
+    void setPressures(String p_value) {
+        StringTokenizer st = new StringTokenizer(p_value, ",");
+        pressureString = new String[st.countTokens()];
+        pressure = new double[pressureString.length];
+        for (int i = 0; i < pressure.length; i++) {
+            pressureString[i] = st.nextToken().trim();
+            pressure[i] = Double.parseDouble(pressureString[i]);
+        }
+    }
+}
@@ -41,9 +41,20 @@ import jing.rxnSys.*;
  * cyclics only flag <LI>max radical number for QM integer value
  */
 public class ThermoDataEstimator {
+    /**
+     * Species thermo temperatures (K) tabulated in the batch output, matching those of ThermoData.
+     */
+    private static final int[] BATCH_CP_TEMPERATURES = { 300, 400, 500, 600,
+            800, 1000, 1500 };
+    /**
+     * First bytes of the binary batch output file, followed by an int format version.
+     */
+    private static final int BATCH_BINARY_MAGIC = 0x524d4754; // "RMGT"
+
     /**
      * @param args
-     *            filename of input file
+     *            filename of input file, optionally followed by <code>-batch outputFile</code> and the batch options
+     *            <code>-format csv|binary</code>, <code>-chunk N</code> and <code>-threads N</code>
      */
     public static void main(String[] args) {
         RMG.globalInitializeSystemProperties();
@@ -66,6 +77,12 @@ public class ThermoDataEstimator {
             QMTP.connectivityCheck = qmflags.connectivityCheck.intValue();
             readAtomConstraints(reader);
             readPrimaryThermoLibrary(reader);
+            BatchOptions batch = BatchOptions.parse(args);
+            if (batch != null) {
+                generateTDPropertiesInBatch(reader, batch);
+                Logger.info("Done!\n");
+                return;
+            }
             mappedChemGraphsToNames = readChemGraphsFromFile(
                     speciesFromInputFile, reader);
         } catch (InvalidChemGraphException e) {
@@ -169,6 +186,164 @@ public class ThermoDataEstimator {
         }
     }
 
+    /**
+     * Batch mode for screening libraries too large to hold in memory: the species in the rest of the input file are
+     * streamed in chunks by a SpeciesBatchReader, which tokenizes adjacency lists on a bounded thread pool ahead of
+     * estimation. The estimation itself runs on this thread, since the group additivity trees, the GATP instance and
+     * the GATPFit and InChI processes are shared and not thread-safe. Each species is removed from the species
+     * dictionary once written, so memory use does not grow with the input. Results are written as one row per species
+     * (CSV or binary); species that fail are listed with the reason in outputFile.failures.txt, and throughput is
+     * logged after every chunk.
+     */
+    private static void generateTDPropertiesInBatch(BufferedReader reader,
+            BatchOptions batch) throws IOException {
+        SpeciesBatchReader speciesReader = new SpeciesBatchReader(reader,
+                batch.chunkSize, batch.threads);
+        BufferedWriter failures = new BufferedWriter(new FileWriter(
+                batch.outputFile + ".failures.txt"));
+        BufferedWriter csv = null;
+        DataOutputStream binary = null;
+        if (batch.binary) {
+            binary = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(batch.outputFile)));
+            binary.writeInt(BATCH_BINARY_MAGIC);
+            binary.writeInt(1);
+        } else {
+            csv = new BufferedWriter(new FileWriter(batch.outputFile));
+            csv.write("name,formula,H298 (kcal/mol),S298 (cal/mol/K)");
+            for (int i = 0; i < BATCH_CP_TEMPERATURES.length; i++)
+                csv.write(",Cp" + BATCH_CP_TEMPERATURES[i] + " (cal/mol/K)");
+            csv.write(",Tmin,Tmid,Tmax");
+            for (int i = 1; i <= 7; i++)
+                csv.write(",low a" + i);
+            for (int i = 1; i <= 7; i++)
+                csv.write(",high a" + i);
+            csv.write(",source\n");
+        }
+        long start = System.currentTimeMillis();
+        int done = 0;
+        int failed = 0;
+        Temperature T298 = new Temperature(298.0, "K");
+        try {
+            List chunk = speciesReader.nextChunk();
+            while (chunk != null) {
+                for (Iterator iter = chunk.iterator(); iter.hasNext();) {
+                    SpeciesBatchReader.Entry entry = (SpeciesBatchReader.Entry) iter
+                            .next();
+                    String name = entry.getName();
+                    try {
+                        Species spe = makeBatchSpecies(entry);
+                        ChemGraph stableChemGraph = spe.getChemGraph();
+                        ThermoData td = stableChemGraph.getThermoData();
+                        NASAThermoData nasa = spe.getNasaThermoData();
+                        double[] row = new double[2 + BATCH_CP_TEMPERATURES.length];
+                        row[0] = td.calculateH(T298);
+                        row[1] = td.calculateS(T298);
+                        for (int i = 0; i < BATCH_CP_TEMPERATURES.length; i++)
+                            row[2 + i] = td.calculateCp(BATCH_CP_TEMPERATURES[i]);
+                        String formula = stableChemGraph.getChemicalFormula();
+                        if (binary != null)
+                            writeBinaryRow(binary, name, formula, row, nasa);
+                        else
+                            writeCSVRow(csv, name, formula, row, nasa,
+                                    td.getSource());
+                        SpeciesDictionary.getInstance().remove(spe);
+                        done++;
+                    } catch (Exception e) {
+                        failures.write(name + "\t" + e.toString() + "\n");
+                        failed++;
+                    }
+                }
+                double seconds = (System.currentTimeMillis() - start) / 1000.0;
+                Logger.info(String.format(
+                        "Estimated %d species (%d failed) in %.1f s: %.1f species/s",
+                        done, failed, seconds, (done + failed)
+                                / Math.max(seconds, 1e-3)));
+                chunk = speciesReader.nextChunk();
+            }
+        } finally {
+            speciesReader.close();
+            failures.close();
+            if (binary != null)
+                binary.close();
+            if (csv != null)
+                csv.close();
+        }
+        Logger.info("Results written to " + batch.outputFile);
+        if (failed > 0)
+            Logger.warning(failed + " species failed; see "
+                    + batch.outputFile + ".failures.txt");
+    }
+
+    /**
+     * Make the species for one record of a batch input file, converting an InChI to an adjacency list first if
+     * needed.
+     */
+    static Species makeBatchSpecies(SpeciesBatchReader.Entry entry)
+            throws ForbiddenStructureException {
+        if (entry.getError() != null)
+            throw new InvalidGraphFormatException(entry.getError());
+        ParsedAdjList adjList = entry.getParsedAdjList();
+        if (adjList == null)
+            adjList = ParsedAdjList.parse(Species.inchi2AdjList(entry
+                    .getInChI()));
+        Graph g = adjList.toGraph();
+        if (g == null)
+            throw new NullGraphException();
+        return Species.make(entry.getName(), ChemGraph.make(g));
+    }
+
+    private static void writeCSVRow(BufferedWriter csv, String name,
+            String formula, double[] row, NASAThermoData nasa, String source)
+            throws IOException {
+        StringBuilder line = new StringBuilder(512);
+        line.append(quoteCSV(name)).append(',').append(formula);
+        for (int i = 0; i < row.length; i++)
+            line.append(',').append(row[i]);
+        line.append(',').append(nasa.getLowTemperature()).append(',')
+                .append(nasa.getMiddleTemperature()).append(',')
+                .append(nasa.getHighTemperature());
+        double[] low = nasa.getLowTemperatureCoefficients();
+        for (int i = 0; i < low.length; i++)
+            line.append(',').append(low[i]);
+        double[] high = nasa.getHighTemperatureCoefficients();
+        for (int i = 0; i < high.length; i++)
+            line.append(',').append(high[i]);
+        line.append(',').append(quoteCSV(source)).append('\n');
+        csv.write(line.toString());
+    }
+
+    /**
+     * One binary record: name and formula (modified UTF-8), then H298, S298 and the Cp values as doubles, then Tmin,
+     * Tmid, Tmax and the 7 low- and 7 high-temperature NASA coefficients.
+     */
+    private static void writeBinaryRow(DataOutputStream out, String name,
+            String formula, double[] row, NASAThermoData nasa)
+            throws IOException {
+        out.writeUTF(name);
+        out.writeUTF(formula);
+        for (int i = 0; i < row.length; i++)
+            out.writeDouble(row[i]);
+        out.writeDouble(nasa.getLowTemperature());
+        out.writeDouble(nasa.getMiddleTemperature());
+        out.writeDouble(nasa.getHighTemperature());
+        double[] low = nasa.getLowTemperatureCoefficients();
+        for (int i = 0; i < low.length; i++)
+            out.writeDouble(low[i]);
+        double[] high = nasa.getHighTemperatureCoefficients();
+        for (int i = 0; i < high.length; i++)
+            out.writeDouble(high[i]);
+    }
+
+    static String quoteCSV(String field) {
+        if (field == null)
+            return "";
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0
+                && field.indexOf('\n') < 0)
+            return field;
+        return "\"" + field.replace("\"", "\"\"").replace('\n', ' ') + "\"";
+    }
+
     /**
      * Create the working folders for QMTP required folders
      */
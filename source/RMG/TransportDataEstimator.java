@@ -1,15 +1,21 @@
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import jing.chem.ChemGraph;
 import jing.chem.ForbiddenStructureException;
 import jing.chem.InvalidChemGraphException;
 import jing.chem.Species;
+import jing.chem.SpeciesDictionary;
 import jing.chem.TransportData;
 import jing.chemParser.ChemParser;
+import jing.chemParser.SpeciesBatchReader;
+import jing.rxnSys.Logger;
 import jing.rxnSys.ReactionModelGenerator;
 
 public class TransportDataEstimator {
@@ -47,6 +53,11 @@ public class TransportDataEstimator {
                                 + "Line read was: " + line);
                 System.exit(0);
             }
+            BatchOptions batch = BatchOptions.parse(args);
+            if (batch != null) {
+                generateTransportDataInBatch(reader, batch);
+                return;
+            }
             line = ChemParser.readMeaningfulLine(reader, true);
             while (line != null) {
                 String speciesName = line;
@@ -92,4 +103,70 @@ public class TransportDataEstimator {
             System.exit(0);
         }
     }
+
+    /**
+     * Batch mode: stream the species in the rest of the input file through a SpeciesBatchReader and write one CSV row
+     * per species, with failures listed in outputFile.failures.txt. See ThermoDataEstimator for why estimation stays
+     * on one thread.
+     */
+    private static void generateTransportDataInBatch(BufferedReader reader,
+            BatchOptions batch) throws IOException {
+        if (batch.binary) {
+            Logger.critical("TransportDataEstimator: only CSV batch output is supported");
+            System.exit(0);
+        }
+        SpeciesBatchReader speciesReader = new SpeciesBatchReader(reader,
+                batch.chunkSize, batch.threads);
+        BufferedWriter failures = new BufferedWriter(new FileWriter(
+                batch.outputFile + ".failures.txt"));
+        BufferedWriter csv = new BufferedWriter(new FileWriter(
+                batch.outputFile));
+        csv.write("name,shape index,epsilon (K),sigma (A),dipole moment (Debye),"
+                + "polarizability (A^3),rotational relaxation number,source,comment\n");
+        long start = System.currentTimeMillis();
+        int done = 0;
+        int failed = 0;
+        try {
+            List chunk = speciesReader.nextChunk();
+            while (chunk != null) {
+                for (Iterator iter = chunk.iterator(); iter.hasNext();) {
+                    SpeciesBatchReader.Entry entry = (SpeciesBatchReader.Entry) iter
+                            .next();
+                    try {
+                        Species sp = ThermoDataEstimator
+                                .makeBatchSpecies(entry);
+                        TransportData td = sp.getChemkinTransportData();
+                        csv.write(ThermoDataEstimator.quoteCSV(entry.getName())
+                                + "," + td.getShapeIndex() + ","
+                                + td.getEpsilon() + "," + td.getSigma() + ","
+                                + td.getDipoleMoment() + ","
+                                + td.getPolarizability() + ","
+                                + td.getRotationalRelaxationCollisionNumber()
+                                + ","
+                                + ThermoDataEstimator.quoteCSV(td.getSource())
+                                + ","
+                                + ThermoDataEstimator.quoteCSV(td.getComment())
+                                + "\n");
+                        SpeciesDictionary.getInstance().remove(sp);
+                        done++;
+                    } catch (Exception e) {
+                        failures.write(entry.getName() + "\t" + e.toString()
+                                + "\n");
+                        failed++;
+                    }
+                }
+                double seconds = (System.currentTimeMillis() - start) / 1000.0;
+                Logger.info(String.format(
+                        "Estimated %d species (%d failed) in %.1f s: %.1f species/s",
+                        done, failed, seconds, (done + failed)
+                                / Math.max(seconds, 1e-3)));
+                chunk = speciesReader.nextChunk();
+            }
+        } finally {
+            speciesReader.close();
+            failures.close();
+            csv.close();
+        }
+        System.out.println("Results written to " + batch.outputFile);
+    }
 }
\ No newline at end of file
@@ -94,6 +94,26 @@ public class ChemGraph implements Matchable {
     protected GATransportP transportGAPP;
     protected boolean fromprimarythermolibrary = false;
     protected boolean isAromatic = false;
+    /**
+     * true once aromaticity has been perceived on a copy of this chemgraph, in which case isAromatic holds the result
+     */
+    protected boolean aromaticityPerceived = false;
+    /*
+     * The dictionary species that a reaction product was found to be before it was made into a ChemGraph (see
+     * make(Graph,Species)); Species.make() uses it instead of searching the dictionary again, then clears it.
+     */
+    protected Species matchedSpecies;
+    /*
+     * The reacted sites already identified in this chemgraph, per structure template (see
+     * StructureTemplate.getReactedSites); dropped whenever the graph is changed or replaced.
+     */
+    protected HashMap reactedSites;
+    /*
+     * The graph, packed into CompactStore by compact() while graph is null; getGraph() rehydrates it. hashCode() returns
+     * packedHashCode meanwhile, so the chemgraph keeps its place in hashed collections.
+     */
+    protected CompactStore.Record packedGraph;
+    protected int packedHashCode;
     protected String InChI;
     protected String InChIKey;
     protected String thermoComments = "";
@@ -145,12 +165,12 @@ public class ChemGraph implements Matchable {
         // kekulize the bonds to single double now.
         
     	// If there are no cycles, cannot be aromatic
-        if (graph.getCycleNumber() == 0)
+        if (getGraph().getCycleNumber() == 0)
             return;
 
         // check for already existing B bonds; if so, set isAromatic to true
         boolean aromatic = false;
-        Iterator arcs = graph.getArcList();
+        Iterator arcs = getGraph().getArcList();
         while (arcs.hasNext()) {
             Arc arc = (Arc) arcs.next();
             if (((Bond) arc.getElement()).isBenzene()) {
@@ -200,7 +220,9 @@ public class ChemGraph implements Matchable {
 	        	}
 	        }
         }
-        
+        getGraph().resetFingerprint();
+        aromaticityPerceived = false;
+        reactedSites = null;
         return;
     }
         
@@ -213,11 +235,11 @@ public class ChemGraph implements Matchable {
         // 3. re-perceive functional groups
         
     	// If there are no cycles, cannot be aromatic
-        if (graph.getCycleNumber() == 0)
+        if (getGraph().getCycleNumber() == 0)
             return;
 
         // check for already existing B bonds; if so, set isAromatic to true
-        Iterator arcs = graph.getArcList();
+        Iterator arcs = getGraph().getArcList();
         while (arcs.hasNext()) {
             Arc arc = (Arc) arcs.next();
             if (((Bond) arc.getElement()).isBenzene())
@@ -240,27 +262,27 @@ public class ChemGraph implements Matchable {
         // Now we reclassify the rings to avoid this problem. 
         
         boolean converged = false;
-        int[] alreadyClassified = new int[graph.getCycle().size()]; // we define a vector that remembers which rings are already defined
-        boolean[] aromaticList = new boolean[graph.getCycle().size()];
-        boolean[] updatedAromaticList = new boolean[graph.getCycle().size()];
+        int[] alreadyClassified = new int[getGraph().getCycle().size()]; // we define a vector that remembers which rings are already defined
+        boolean[] aromaticList = new boolean[getGraph().getCycle().size()];
+        boolean[] updatedAromaticList = new boolean[getGraph().getCycle().size()];
 
         while(!converged) { 
 
         // addMissingHydrogen();
-        graph.getAromatic(alreadyClassified);  // perceive aromaticity using Sandeep's algorithm
+        getGraph().getAromatic(alreadyClassified);  // perceive aromaticity using Sandeep's algorithm
         
-        aromaticList = graph.getIsAromatic();
+        aromaticList = getGraph().getIsAromatic();
 
-        int[] number_of_triple_bonds = new int[graph.getCycle().size()];
-        int[] number_of_carbon_atoms = new int[graph.getCycle().size()];
+        int[] number_of_triple_bonds = new int[getGraph().getCycle().size()];
+        int[] number_of_carbon_atoms = new int[getGraph().getCycle().size()];
  
-        for (int i = 0; i < graph.getCycle().size(); i++) {
+        for (int i = 0; i < getGraph().getCycle().size(); i++) {
         	updatedAromaticList[i]=aromaticList[i];
             }
 
         // iterate over the rings to do one final check for aromaticity; we need to do all at once before converting to
         // B bonds so that double bonds are correctly counted
-        for (int i = 0; i < graph.getCycle().size(); i++) {
+        for (int i = 0; i < getGraph().getCycle().size(); i++) {
             boolean aromatic = aromaticList[i];
     	    
             // The aromaticity check is working for almost all aromatic structures known, involving double bonds, triple bonds and heteroelements
@@ -271,7 +293,7 @@ public class ChemGraph implements Matchable {
             number_of_triple_bonds[i] = 0;
             number_of_carbon_atoms[i] = 0;
             if (aromatic) {  // if the ring is aromatic, check for exactly one double bond at each node in cycle
-                LinkedList graphComps = (LinkedList) graph.getCycle().get(i);  // get the aromatic cycle
+                LinkedList graphComps = (LinkedList) getGraph().getCycle().get(i);  // get the aromatic cycle
                 for (int numComps = 0; numComps < graphComps.size(); numComps++) {
                     GraphComponent gc = (GraphComponent) graphComps
                             .get(numComps);
@@ -322,7 +344,7 @@ public class ChemGraph implements Matchable {
         
         // check if updatedAromatic list and aromaticList are exactly same, for the classification procedure to converge
         converged=true;
-        for (int i = 0; i < graph.getCycle().size(); i++) {
+        for (int i = 0; i < getGraph().getCycle().size(); i++) {
             if(aromaticList[i] != updatedAromaticList[i] ) {
               converged=false;
               break;
@@ -332,10 +354,10 @@ public class ChemGraph implements Matchable {
         } // End of while converged
        
         // Once converged we can finally convert to B bonds
-        for (int i = 0; i < graph.getCycle().size(); i++) {
+        for (int i = 0; i < getGraph().getCycle().size(); i++) {
             boolean aromatic = aromaticList[i];
             if (aromatic) {// if it is still considered aromatic (given the above final screen) convert to B bonds
-                LinkedList graphComps = (LinkedList) graph.getCycle().get(i);// get the aromatic cycle
+                LinkedList graphComps = (LinkedList) getGraph().getCycle().get(i);// get the aromatic cycle
                 for (int numComps = 0; numComps < graphComps.size(); numComps++) {
                     GraphComponent gc = (GraphComponent) graphComps
                             .get(numComps);
@@ -354,9 +376,9 @@ public class ChemGraph implements Matchable {
          * calling the Node.updateFgElement. If this is not done, the thermodynamic properties estimation will fail to
          * assign Cb GAVs to those atoms perceived as aromatic.
          */
-        for (int i = 0; i < graph.getCycle().size(); i++) {
+        for (int i = 0; i < getGraph().getCycle().size(); i++) {
             if (aromaticList[i]) {
-                LinkedList graphComps = (LinkedList) graph.getCycle().get(i);// get the aromatic cycle
+                LinkedList graphComps = (LinkedList) getGraph().getCycle().get(i);// get the aromatic cycle
                 for (int numComps = 0; numComps < graphComps.size(); numComps++) {
                     GraphComponent gc = (GraphComponent) graphComps
                             .get(numComps);
@@ -368,6 +390,8 @@ public class ChemGraph implements Matchable {
                 isAromatic = true;
             }
         }
+        getGraph().resetFingerprint();
+        reactedSites = null;
     }
 
     /*
@@ -824,7 +848,8 @@ public class ChemGraph implements Matchable {
         Iterator cycle_iter = getGraph().getCycle().iterator();
         while (cycle_iter.hasNext()) {
             LinkedList current_cycle = (LinkedList) cycle_iter.next();
-            cycle_list.add(current_cycle);
+            // the ring structures below grow in place, so work on copies and leave the graph's SSSR intact
+            cycle_list.add(new LinkedList(current_cycle));
         }
         // if 2 graph components share at least one cycle, they belong to the same ring structure
         for (int i = 0; i <= cycle_list.size() - 1; i++) {
@@ -1005,8 +1030,6 @@ public class ChemGraph implements Matchable {
             // sn = correctSymmetryNumber(sn);
             // }
         }
-        graph.setCycle(null);
-        graph.formSSSR();
         return sn;
 // #]
     }
@@ -1421,16 +1444,20 @@ public class ChemGraph implements Matchable {
             throws FailGenerateThermoDataException {
         TDGenerator gen = null;
         ChemGraph thermo_graph = null;
-        try {
-            thermo_graph = ChemGraph.copy(this);
-        } catch (Exception e) {
-            Logger.logStackTrace(e);
-            Logger.critical(e.getMessage());
-            System.exit(0);
-        }
-        thermo_graph.determineAromaticityAndWriteBBonds();
-        if (thermo_graph.isAromatic){
-        	this.isAromatic = true;
+        // a structure already found not to be aromatic needs no B-bond copy
+        if (!aromaticityPerceived || isAromatic) {
+            try {
+                thermo_graph = ChemGraph.copy(this);
+            } catch (Exception e) {
+                Logger.logStackTrace(e);
+                Logger.critical(e.getMessage());
+                System.exit(0);
+            }
+            thermo_graph.determineAromaticityAndWriteBBonds();
+            if (thermo_graph.isAromatic){
+            	this.isAromatic = true;
+            }
+            aromaticityPerceived = true;
         }
         //System.out.println(thermo_graph.toString());
         if (TDMETHOD.toLowerCase().startsWith("benson")) {
@@ -1445,7 +1472,7 @@ public class ChemGraph implements Matchable {
         	thermoData = gen.generateThermo(thermo_graph);
         	this.thermoComments = thermo_graph.getThermoComments(); // must copy comments since we made a copy of the chemgraph
         	} 
-        if(thermo_graph.fromprimarythermolibrary) {
+        if(thermo_graph != null && thermo_graph.fromprimarythermolibrary) {
         	this.fromprimarythermolibrary = true;}
         return thermoData;
     }
@@ -1462,7 +1489,8 @@ public class ChemGraph implements Matchable {
         }
         
         // Percieve aromaticity to get the right trans
-        trans_graph.determineAromaticityAndWriteBBonds();
+        if (!aromaticityPerceived || isAromatic)
+            trans_graph.determineAromaticityAndWriteBBonds();
         
         if (transportGAPP == null)
             setDefaultTransportGAPP();
@@ -1484,7 +1512,8 @@ public class ChemGraph implements Matchable {
         }
         
         // Percieve aromaticity to get the right thermo
-        sol_graph.determineAromaticityAndWriteBBonds();
+        if (!aromaticityPerceived || isAromatic)
+            sol_graph.determineAromaticityAndWriteBBonds();
         
         // use GAPP to generate Thermo data
         try {
@@ -1562,7 +1591,7 @@ public class ChemGraph implements Matchable {
     // ## operation getAtomNumber()
     public int getAtomNumber() {
         // #[ operation getAtomNumber()
-        return getGraph().getNodeNumber();
+        return readGraph().getNodeNumber();
         // #]
     }
 
@@ -1586,7 +1615,7 @@ public class ChemGraph implements Matchable {
     public int getCarbonNumber() {
         // #[ operation getCarbonNumber()
         int cNum = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Node node = (Node) iter.next();
             Atom atom = (Atom) node.getElement();
@@ -1655,7 +1684,7 @@ public class ChemGraph implements Matchable {
     public int getHydrogenNumber() {
         // #[ operation getHydrogenNumber()
         int hNum = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Node node = (Node) iter.next();
             Atom atom = (Atom) node.getElement();
@@ -1828,7 +1857,7 @@ public class ChemGraph implements Matchable {
     public int getOxygenNumber() {
         // #[ operation getOxygenNumber()
         int oNum = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Node node = (Node) iter.next();
             Atom atom = (Atom) node.getElement();
@@ -1866,7 +1895,7 @@ public class ChemGraph implements Matchable {
     public int getRadicalNumber() {
         // #[ operation getRadicalNumber()
         int radicalNumber = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Object element = ((Node) (iter.next())).getElement();
             radicalNumber += ((Atom) element).getRadicalNumber();
@@ -1879,7 +1908,7 @@ public class ChemGraph implements Matchable {
 // radical
     public int getUnpairedRadicalNumber() {
         int radicalNumber = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Object element = ((Node) (iter.next())).getElement();
             radicalNumber += ((Atom) element).getUnpairedRadicalNumber();
@@ -1889,7 +1918,7 @@ public class ChemGraph implements Matchable {
 
     public int getSiliconNumber() {
         int siNum = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Node node = (Node) iter.next();
             Atom atom = (Atom) node.getElement();
@@ -1902,7 +1931,7 @@ public class ChemGraph implements Matchable {
 
     public int getSulfurNumber() {
         int sNum = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Node node = (Node) iter.next();
             Atom atom = (Atom) node.getElement();
@@ -1915,7 +1944,7 @@ public class ChemGraph implements Matchable {
 
     public int getChlorineNumber() {
         int ClNum = 0;
-        Iterator iter = getNodeList();
+        Iterator iter = readGraph().getNodeList();
         while (iter.hasNext()) {
             Node node = (Node) iter.next();
             Atom atom = (Atom) node.getElement();
@@ -2116,6 +2145,8 @@ public class ChemGraph implements Matchable {
     // ## operation hashCode()
     public int hashCode() {
         // #[ operation hashCode()
+        if (graph == null && packedGraph != null)
+            return packedHashCode;
         if (chemicalFormula == null)
             generateChemicalFormula();
         return chemicalFormula.hashCode() + getTripleBonds() * 300
@@ -2169,6 +2200,8 @@ public class ChemGraph implements Matchable {
     public LinkedHashSet identifyThermoMatchedSite(
             FunctionalGroup p_functionalGroup) {
         // #[ operation identifyThermoMatchedSite(FunctionalGroup)
+        if (!getFingerprint().mayMatch(p_functionalGroup.getFingerprint()))
+            return new LinkedHashSet();
         return getGraph().identifyAllUnorderedMatchedSite(
                 p_functionalGroup.getGraph());
         // #]
@@ -2196,7 +2229,7 @@ public class ChemGraph implements Matchable {
             p_chemGraph.generateChemicalFormula();
         if (!getChemicalFormula().equals(p_chemGraph.getChemicalFormula()))
             return false;
-        if (!getGraph().isEquivalent(p_chemGraph.getGraph()))
+        if (!readGraph().isEquivalent(p_chemGraph.readGraph()))
             return false;
         return true;
         // #]
@@ -2220,6 +2253,8 @@ public class ChemGraph implements Matchable {
             if (radNumber >= fg.rad_count && oNumber >= fg.O_count
                     && cNumber >= fg.C_count) {
                 Graph g = fg.getGraph();
+                if (!p_graph.getFingerprint().mayMatch(g.getFingerprint()))
+                    continue;
                 if (p_graph.isSub(g)) {
                     return true;
                 }
@@ -2319,6 +2354,8 @@ public class ChemGraph implements Matchable {
     // ## operation isSubAtCentralNodes(FunctionalGroup)
     public boolean isSubAtCentralNodes(FunctionalGroup p_functionalGroup) {
         // #[ operation isSubAtCentralNodes(FunctionalGroup)
+        if (!getFingerprint().mayMatch(p_functionalGroup.getFingerprint()))
+            return false;
         return getGraph().isSubAtCentralNodes(p_functionalGroup.getGraph());
         // #]
     }
@@ -2363,6 +2400,19 @@ public class ChemGraph implements Matchable {
         // #]
     }
 
+    /**
+     * Requires: p_graph is equivalent to a ChemGraph key of p_species in the species dictionary. Effects: make a
+     * ChemGraph for p_graph without the forbidden structure, atom limit and repOk checks, which p_species already
+     * passed when it was made, and remember p_species for Species.make(). Modifies:
+     */
+    public static ChemGraph make(Graph p_graph, Species p_species) {
+        ChemGraph cg = new ChemGraph();
+        cg.graph = p_graph;
+        cg.generateChemicalFormula();
+        cg.matchedSpecies = p_species;
+        return cg;
+    }
+
     public static ChemGraph make(Graph p_graph)
             throws InvalidChemGraphException, ForbiddenStructureException {
         // #[ operation make(Graph)
@@ -2607,7 +2657,7 @@ public class ChemGraph implements Matchable {
     public String toString() {
         // #[ operation toString()
         String s = "ChemFormula: " + getChemicalFormula() + '\n';
-        s = s + getGraph().toStringWithoutCentralID();
+        s = s + readGraph().toStringWithoutCentralID();
         return s;
         // #]
     }
@@ -2615,7 +2665,7 @@ public class ChemGraph implements Matchable {
     public String toString(int i) {
         // #[ operation toString()
         String s = "";// "ChemFormula: " + getChemicalFormula() + '\n';
-        s = s + getGraph().toStringWithoutCentralID();
+        s = s + readGraph().toStringWithoutCentralID();
         return s;
         // #]
     }
@@ -2659,7 +2709,7 @@ public class ChemGraph implements Matchable {
     // ## operation valencyOk()
     public boolean valencyOk() throws InvalidNodeElementException {
         // #[ operation valencyOk()
-        Iterator node_iter = graph.getNodeList();
+        Iterator node_iter = getGraph().getNodeList();
         while (node_iter.hasNext()) {
             Node node = (Node) node_iter.next();
             Atom atom = (Atom) node.getElement();
@@ -2703,11 +2753,91 @@ public class ChemGraph implements Matchable {
     }
 
     public Graph getGraph() {
+        if (graph == null && packedGraph != null)
+            rehydrate();
+        return graph;
+    }
+
+    /**
+     * Requires: the result is not changed. Effects: return the graph of this chemgraph for reading only; if compact()
+     * has packed it, return a copy decoded from CompactStore and leave it packed. Used where any species in the
+     * dictionary may be read (equivalence tests, atom counts, printing). Modifies:
+     */
+    Graph readGraph() {
+        if (graph == null && packedGraph != null)
+            return Graph.unpack(CompactStore.get(packedGraph));
         return graph;
     }
 
+    /**
+     * Requires: Effects: pack the graph of this chemgraph into CompactStore and drop it, with the reacted sites
+     * identified in it, from the heap; getGraph() rehydrates it. Does nothing if the graph is already packed or can't
+     * be packed. Modifies: this.graph, this.reactedSites
+     */
+    public void compact() {
+        if (graph == null)
+            return;
+        if (chemicalFormula == null)
+            generateChemicalFormula();
+        byte[] data = graph.pack();
+        if (data == null)
+            return;
+        int hash = hashCode();
+        CompactStore.Record record = CompactStore.put(this, data);
+        if (record == null)
+            return;
+        packedHashCode = hash;
+        packedGraph = record;
+        graph = null;
+        reactedSites = null;
+    }
+
+    /**
+     * Requires: Effects: unpack the graph of this chemgraph if compact() has packed it, and free its record.
+     * Modifies: this.graph
+     */
+    public void rehydrate() {
+        if (packedGraph == null)
+            return;
+        graph = Graph.unpack(CompactStore.get(packedGraph));
+        CompactStore.free(packedGraph);
+        packedGraph = null;
+    }
+
+    /**
+     * Requires: Effects: return the fingerprint of this chemgraph's graph, used to rule out functional groups before
+     * the full subgraph match. Modifies:
+     */
+    public GraphFingerprint getFingerprint() {
+        return getGraph().getFingerprint();
+    }
+
     public void setGraph(Graph p_graph) {
+        CompactStore.free(packedGraph);
+        packedGraph = null;
         graph = p_graph;
+        aromaticityPerceived = false;
+        reactedSites = null;
+    }
+
+    /**
+     * Requires: Effects: return the reacted sites stored for p_template by setReactedSites(), indexed by reactant
+     * position, or null if none are stored. Modifies:
+     */
+    public LinkedHashSet[] getReactedSites(Object p_template) {
+        if (reactedSites == null)
+            return null;
+        return (LinkedHashSet[]) reactedSites.get(p_template);
+    }
+
+    /**
+     * Requires: p_sites are sites of this chemgraph's current graph. Effects: store p_sites, indexed by reactant
+     * position, as the reacted sites of p_template in this chemgraph. Modifies: this.reactedSites
+     */
+    public void setReactedSites(Object p_template, LinkedHashSet[] p_sites) {
+        if (reactedSites == null)
+            reactedSites = new HashMap();
+        reactedSites.put(p_template, p_sites);
     }
 
     public Species getSpecies() {
@@ -2796,7 +2926,7 @@ public class ChemGraph implements Matchable {
     }
 
     public boolean containsFusedRingAtoms() {
-        return graph.getFusedRingAtoms() != null;
+        return getGraph().getFusedRingAtoms() != null;
     }
 }
 /*********************************************************************
@@ -323,6 +323,14 @@ public class FunctionalGroup implements Matchable {
         return graph;
     }
 
+    /**
+     * Return the fingerprint of this group's graph, which is built on the first match attempt and kept for the life of
+     * the group library.
+     */
+    public GraphFingerprint getFingerprint() {
+        return getGraph().getFingerprint();
+    }
+
     public void setGraph(Graph p_Graph) {
         graph = p_Graph;
     }
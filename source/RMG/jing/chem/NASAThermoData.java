@@ -26,6 +26,8 @@
 // //////////////////////////////////////////////////////////////////////////////
 package jing.chem;
 
+import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 import jing.param.GasConstant;
 import jing.param.Temperature;
@@ -42,6 +44,8 @@ public class NASAThermoData {
     protected double lowTemperature;
     protected double highTemperature;
     protected double middleTemperature;
+    // the length of the temperatures and coefficients at the start of the data made by pack()
+    public static final int COEFFICIENT_BYTES = 8 * 17;
 
     // Constructors
     // ## operation NASAThermoData(String)
@@ -134,6 +138,72 @@ public class NASAThermoData {
     public NASAThermoData() {
     }
 
+    /**
+     * Requires: Effects: encode this data for CompactStore: the three temperatures, the coefficients and the data
+     * string. unpack() rebuilds it without parsing the string. Modifies:
+     */
+    public byte[] pack() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                160 + (dataString == null ? 0 : dataString.length()));
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeDouble(lowTemperature);
+            out.writeDouble(middleTemperature);
+            out.writeDouble(highTemperature);
+            for (int i = 0; i < 7; i++) {
+                out.writeDouble(lowTemperatureCoefficients[i]);
+                out.writeDouble(highTemperatureCoefficients[i]);
+            }
+            out.writeBoolean(dataString != null);
+            if (dataString != null)
+                out.writeUTF(dataString);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream doesn't throw it
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Requires: p_data was made by pack(). Effects: return the NASA data encoded in p_data. Modifies:
+     */
+    public static NASAThermoData unpack(byte[] p_data) {
+        NASAThermoData result = new NASAThermoData();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                p_data));
+        try {
+            result.lowTemperature = in.readDouble();
+            result.middleTemperature = in.readDouble();
+            result.highTemperature = in.readDouble();
+            for (int i = 0; i < 7; i++) {
+                result.lowTemperatureCoefficients[i] = in.readDouble();
+                result.highTemperatureCoefficients[i] = in.readDouble();
+            }
+            if (in.readBoolean())
+                result.dataString = in.readUTF();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Requires: p_data holds at least the first COEFFICIENT_BYTES bytes of data made by pack(). Effects: return the
+     * NASA data encoded in p_data without its data string, which is enough to evaluate it. Modifies:
+     */
+    public static NASAThermoData unpackCoefficients(byte[] p_data) {
+        NASAThermoData result = new NASAThermoData();
+        ByteBuffer in = ByteBuffer.wrap(p_data);
+        result.lowTemperature = in.getDouble();
+        result.middleTemperature = in.getDouble();
+        result.highTemperature = in.getDouble();
+        for (int i = 0; i < 7; i++) {
+            result.lowTemperatureCoefficients[i] = in.getDouble();
+            result.highTemperatureCoefficients[i] = in.getDouble();
+        }
+        return result;
+    }
+
     // ## operation toString()
     public String toString() {
         // #[ operation toString()
@@ -203,6 +273,26 @@ public class NASAThermoData {
     public void setDataString(String p_dataString) {
         dataString = p_dataString;
     }
+
+    public double[] getLowTemperatureCoefficients() {
+        return lowTemperatureCoefficients;
+    }
+
+    public double[] getHighTemperatureCoefficients() {
+        return highTemperatureCoefficients;
+    }
+
+    public double getLowTemperature() {
+        return lowTemperature;
+    }
+
+    public double getMiddleTemperature() {
+        return middleTemperature;
+    }
+
+    public double getHighTemperature() {
+        return highTemperature;
+    }
 }
 /*********************************************************************
  * File Path : RMG\RMG\jing\chem\NASAThermoData.java
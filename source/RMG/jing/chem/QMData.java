@@ -66,13 +66,4 @@ public class QMData {
         rotCons_2 = p_rotCons_2;
         rotCons_3 = p_rotCons_3;
     }
-
-    public String getSYMMETRYinput() {
-        String geom = natoms + "\n";
-        for (int i = 0; i < natoms; i++) {
-            geom += atomicNumber.get(i) + " " + x_coor.get(i) + " "
-                    + y_coor.get(i) + " " + z_coor.get(i) + "\n";
-        }
-        return geom;
-    }
 }
@@ -27,10 +27,9 @@
 package jing.chem;
 
 import java.util.*;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -115,6 +114,21 @@ public class QMLibraryEditor {
      */
     public static void addLibraryEntry(String inChI, ThermoData qmResult,
             String qmMethod, String qmProgram) {
+        String line = getLibraryLine(inChI, qmResult, qmMethod, qmProgram);
+        // write to Library.txt
+        if (!appendLocked(libraryFile, line + newLine)) {
+            Logger.error(String.format(
+                    "Could not save species %s to QMLibrary library file %s",
+                    inChI, libraryFile.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * Returns the line of Library.txt for a species, in the format used in RMG thermo libraries, followed by the
+     * source of the calculation.
+     */
+    public static String getLibraryLine(String inChI, ThermoData qmResult,
+            String qmMethod, String qmProgram) {
         // Assumes name in thermo library doesn't have to match the name in RMG
         // Not sure how true this is..figures crossed
         // line will be the entry to add to Library.txt using the format used in RMG thermo librarys
@@ -133,34 +147,7 @@ public class QMLibraryEditor {
         line = (line + Double.toString(qmResult.getDCp()) + " ");
         // include the source of the calculation
         line = (line + qmProgram + " " + qmMethod + " Calculation");
-        // write to Library.txt
-        // write to Dictionary.txt. Try up to five times before giving up
-        int remainingTries = 5;
-        boolean succeeded = false;
-        while (remainingTries > 0 && !succeeded) {
-            try {
-                BufferedWriter libraryFileWriter = new BufferedWriter(
-                        new FileWriter(libraryFile, true));
-                libraryFileWriter.write(line + newLine);
-                libraryFileWriter.close();
-                succeeded = true;
-            } catch (IOException e) {
-                remainingTries -= 1;
-                try {
-                    Logger.warning(String
-                            .format("Couldn't write to %s. Waiting 1s then trying again.",
-                                    libraryFile.getPath()));
-                    Thread.sleep(1000); // wait 1s in case another copy of RMG has the file open
-                } catch (InterruptedException e1) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }
-        if (!succeeded) {
-            Logger.error(String.format(
-                    "Could not save species %s to QMLibrary library file %s",
-                    inChI, libraryFile.getAbsolutePath()));
-        }
+        return line;
     }
 
     /**
@@ -175,35 +162,59 @@ public class QMLibraryEditor {
         // toString(i) is used as opposed to toString because that seems to give the adjacency list
         // without prefacing it with the chemical formula
         definition = (definition + p_graph.toString(i) + newLine + newLine);
-        // write to Dictionary.txt. Try up to five times before giving up
-        int remainingTries = 5;
-        boolean succeeded = false;
-        while (remainingTries > 0 && !succeeded) {
-            try {
-                BufferedWriter dictionaryFileWriter = new BufferedWriter(
-                        new FileWriter(dictionaryFile, true));
-                dictionaryFileWriter.write(definition);
-                dictionaryFileWriter.close();
-                succeeded = true;
-            } catch (IOException e) {
-                remainingTries -= 1;
-                try {
-                    Logger.warning(String
-                            .format("Couldn't write to %s. Waiting 1s then trying again.",
-                                    dictionaryFile.getPath()));
-                    Thread.sleep(1000); // wait 1s in case another copy of RMG has the file open
-                } catch (InterruptedException e1) {
-                    Thread.currentThread().interrupt();
-                }
-            }
-        }
-        if (!succeeded) {
+        // write to Dictionary.txt
+        if (!appendLocked(dictionaryFile, definition)) {
             Logger.error(String
                     .format("Could not save species %s to QMLibrary dictionary file %s",
                             inChI, dictionaryFile.getAbsolutePath()));
         }
     }
 
+    /**
+     * Appends p_text to p_file while holding an exclusive lock on it, so that the entries of RMG jobs sharing the
+     * library are never interleaved; the lock is released by the operating system if the job dies. Returns false if
+     * the file could not be written.
+     */
+    private static boolean appendLocked(File p_file, String p_text) {
+        try {
+            FileOutputStream out = new FileOutputStream(p_file, true);
+            try {
+                out.getChannel().lock();
+                out.write(p_text.getBytes());
+            } finally {
+                out.close(); // also releases the lock
+            }
+            return true;
+        } catch (IOException e) {
+            Logger.warning(String.format("Couldn't write to %s: %s",
+                    p_file.getPath(), e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Returns the thermo data of a line of Library.txt, named by the InChI that starts the line and with the source of
+     * the calculation as comments.
+     */
+    public static ThermoData parseLibraryLine(String line) {
+        String[] result = line.split("\\s");
+        // Construct information to create instance of ThermData
+        String inChI = result[0];
+        String thermo = result[1];
+        for (int i = 2; i < 13; i++) {
+            thermo = thermo + " " + result[i];
+        }
+        int listLength = result.length;
+        String comments = result[13];
+        // check this upper bound might need to be listLength + 1 -nyee
+        for (int i = 14; i < listLength; i++) {
+            comments = comments + " " + result[i];
+        }
+        // Parse out thermoData, and include name and comments
+        ThermoData thermoData = ChemParser.parseThermoFromLibrary(thermo);
+        return new ThermoData(inChI, thermoData, comments);
+    }
+
     /**
      * 
      */
@@ -215,25 +226,8 @@ public class QMLibraryEditor {
             String line = ChemParser.readMeaningfulLine(data, true);
             LinkedHashMap<String, ThermoData> library = new LinkedHashMap<String, ThermoData>();
             while (line != null) {
-                String[] result = line.split("\\s");
-                // Construct information to create instance of ThermData
-                String inChI = result[0];
-                String thermo = result[1];
-                for (int i = 2; i < 13; i++) {
-                    thermo = thermo + " " + result[i];
-                }
-                int listLength = result.length;
-                String comments = result[13];
-                // check this upper bound might need to be listLength + 1 -nyee
-                for (int i = 14; i < listLength; i++) {
-                    comments = comments + " " + result[i];
-                }
-                // Parse out thermoData, and include name and comments
-                ThermoData thermoData = ChemParser
-                        .parseThermoFromLibrary(thermo);
-                ThermoData newThermoData = new ThermoData(inChI, thermoData,
-                        comments);
-                library.put(inChI, newThermoData);
+                ThermoData newThermoData = parseLibraryLine(line);
+                library.put(newThermoData.getName(), newThermoData);
                 line = ChemParser.readMeaningfulLine(data, true);
             }
             in.close();
@@ -0,0 +1,431 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chem;
+
+import java.util.*;
+import jing.rxnSys.Logger;
+
+/**
+ * Rigid-rotor harmonic-oscillator thermochemistry from the result of a quantum mechanics calculation (QMData): Hf298
+ * from the energy, and S298 and Cp(T) from the electronic degeneracy, translation, external rotation and vibration. The
+ * external symmetry number and the chirality, which used to be read off the point group found by the SYMMETRY program,
+ * are found here from the geometry. A symmetry operation fixes the centroid of the atoms, so it is determined by a
+ * permutation of the atoms that keeps every element, every distance to the centroid and every interatomic distance;
+ * these permutations are searched for directly. For a molecule that is not planar, each permutation is one operation,
+ * proper or improper according to whether it keeps the handedness of three atoms that are not coplanar with the
+ * centroid; the symmetry number is the number of proper ones, and the molecule is chiral if there is no improper one.
+ * For a planar (or linear) molecule, each permutation is both a proper rotation and, combined with the reflection
+ * through the plane, an improper one, so the symmetry number is the number of permutations, and the molecule is
+ * achiral.
+ */
+public class QMStatMech {
+    /**
+     * The tolerances on the distances, in Angstroms, each tried in turn; these follow the successive criteria the
+     * SYMMETRY program was run with. Noise in the geometry only hides operations, and near the tolerance it can leave
+     * a smaller group that is still closed (down to the identity alone), so the largest group found is used.
+     */
+    private static final double[] tolerance = { 0.02, 0.1, 0.2 };
+    protected QMData qmdata;
+    protected String name;
+    protected int symmetryNumber = 1;
+    protected boolean chiral = false;
+    protected boolean linear = false;
+    // the coordinates of the atoms relative to their centroid
+    private double[][] x;
+    private int[] element;
+    private double[] radius;
+    // the atoms in the order in which they are assigned in the permutation search
+    private int[] order;
+
+    // Constructors
+    /**
+     * Effects: finds the symmetry number, chirality and linearity of the geometry in p_qmdata; p_name is only used in
+     * messages.
+     */
+    public QMStatMech(QMData p_qmdata, String p_name) {
+        qmdata = p_qmdata;
+        name = p_name;
+        findSymmetry();
+    }
+
+    // ## operation calculateThermo(int)
+    /**
+     * Effects: returns the thermo data of the species at 1 bar, with an electronic ground state degeneracy of
+     * p_gdStateDegen.
+     */
+    public ThermoData calculateThermo(int p_gdStateDegen) {
+        // #[ operation calculateThermo(int)
+        double R = QMTP.R;
+        double h = QMTP.h;
+        double k = QMTP.k;
+        double c = QMTP.c;
+        double Na = QMTP.Na;
+        int natoms = qmdata.natoms;
+        double energy = qmdata.energy; // Hf298 in Hartree
+        double molmass = qmdata.molmass; // molecular mass in amu
+        ArrayList freqs = qmdata.freqs; // frequencies in cm^-1
+        double rotCons_1 = qmdata.rotCons_1;// rotational constants in (1/s)
+        double rotCons_2 = qmdata.rotCons_2;
+        double rotCons_3 = qmdata.rotCons_3;
+        double Hf298, S298, Cp300, Cp400, Cp500, Cp600, Cp800, Cp1000, Cp1500;
+        double sigmaCorr = getSigmaCorr();
+        Hf298 = energy * QMTP.Hartree_to_kcal;
+        S298 = R
+                * Math.log(p_gdStateDegen)
+                + R
+                * (3.
+                        / 2.
+                        * Math.log(2. * Math.PI * molmass
+                                / (1000. * Na * Math.pow(h, 2.))) + 5. / 2.
+                        * Math.log(k * 298.15) - Math.log(100000.) + 5. / 2.);// electronic + translation; note use of
+// 10^5 Pa for standard pressure; also note that molecular mass needs to be divided by 1000 for kg units
+        Cp300 = 5. / 2. * R;
+        Cp400 = 5. / 2. * R;
+        Cp500 = 5. / 2. * R;
+        Cp600 = 5. / 2. * R;
+        Cp800 = 5. / 2. * R;
+        Cp1000 = 5. / 2. * R;
+        Cp1500 = 5. / 2. * R;
+        if (natoms > 1) {// include statistical correction and rotational (without symmetry number, vibrational
+// contributions if species is polyatomic
+            if (linear) {// linear case
+                // determine the rotational constant (note that one of the rotcons will be zero)
+                double rotCons;
+                if (rotCons_1 > 0.0001)
+                    rotCons = rotCons_1;
+                else
+                    rotCons = rotCons_2;
+                S298 += R * sigmaCorr + R
+                        * (Math.log(k * 298.15 / (h * rotCons)) + 1) + R
+                        * calcVibS(freqs, 298.15, h, k, c);
+                Cp300 += R + R * calcVibCp(freqs, 300., h, k, c);
+                Cp400 += R + R * calcVibCp(freqs, 400., h, k, c);
+                Cp500 += R + R * calcVibCp(freqs, 500., h, k, c);
+                Cp600 += R + R * calcVibCp(freqs, 600., h, k, c);
+                Cp800 += R + R * calcVibCp(freqs, 800., h, k, c);
+                Cp1000 += R + R * calcVibCp(freqs, 1000., h, k, c);
+                Cp1500 += R + R * calcVibCp(freqs, 1500., h, k, c);
+            } else {// nonlinear case
+                S298 += R
+                        * sigmaCorr
+                        + R
+                        * (3.
+                                / 2.
+                                * Math.log(k * 298.15 / h)
+                                - 1.
+                                / 2.
+                                * Math.log(rotCons_1 * rotCons_2 * rotCons_3
+                                        / Math.PI) + 3. / 2.) + R
+                        * calcVibS(freqs, 298.15, h, k, c);
+                Cp300 += 3. / 2. * R + R * calcVibCp(freqs, 300., h, k, c);
+                Cp400 += 3. / 2. * R + R * calcVibCp(freqs, 400., h, k, c);
+                Cp500 += 3. / 2. * R + R * calcVibCp(freqs, 500., h, k, c);
+                Cp600 += 3. / 2. * R + R * calcVibCp(freqs, 600., h, k, c);
+                Cp800 += 3. / 2. * R + R * calcVibCp(freqs, 800., h, k, c);
+                Cp1000 += 3. / 2. * R + R * calcVibCp(freqs, 1000., h, k, c);
+                Cp1500 += 3. / 2. * R + R * calcVibCp(freqs, 1500., h, k, c);
+            }
+        }
+        ThermoData result = new ThermoData(Hf298, S298, Cp300, Cp400, Cp500,
+                Cp600, Cp800, Cp1000, Cp1500, 5, 1, 1, "PM3 or MM4 calculation");// this includes rough estimates of
+// uncertainty
+        return result;
+        // #]
+    }
+
+    // ## operation getSigmaCorr()
+    /**
+     * Effects: returns the statistical correction to S/R for the external rotational symmetry number (-ln(sigma)) and
+     * for chirality (+ln(2), for the two optical isomers). It is 0 for a single atom, which has no rotational partition
+     * function.
+     */
+    public double getSigmaCorr() {
+        // #[ operation getSigmaCorr()
+        if (chiral)
+            return Math.log(2.) - Math.log(symmetryNumber);
+        return -Math.log(symmetryNumber);
+        // #]
+    }
+
+    public int getSymmetryNumber() {
+        return symmetryNumber;
+    }
+
+    public boolean isChiral() {
+        return chiral;
+    }
+
+    public boolean isLinear() {
+        return linear;
+    }
+
+    // ## operation findSymmetry()
+    private void findSymmetry() {
+        // #[ operation findSymmetry()
+        int n = qmdata.natoms;
+        if (n == 1)
+            return;
+        x = new double[n][3];
+        element = new int[n];
+        radius = new double[n];
+        double[] centroid = new double[3];
+        for (int i = 0; i < n; i++) {
+            element[i] = ((Integer) qmdata.atomicNumber.get(i)).intValue();
+            x[i][0] = ((Double) qmdata.x_coor.get(i)).doubleValue();
+            x[i][1] = ((Double) qmdata.y_coor.get(i)).doubleValue();
+            x[i][2] = ((Double) qmdata.z_coor.get(i)).doubleValue();
+            for (int d = 0; d < 3; d++)
+                centroid[d] += x[i][d] / n;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int d = 0; d < 3; d++)
+                x[i][d] -= centroid[d];
+            radius[i] = norm(x[i]);
+        }
+        LinkedList best = null;
+        double bestTol = 0;
+        int bestA = -1, bestB = -1, bestC = -1;
+        for (int attempt = 0; attempt < tolerance.length; attempt++) {
+            double tol = tolerance[attempt];
+            // the reference atoms: a is the farthest from the centroid, b the farthest from the axis through a, and
+            // c the farthest from the plane through a and b
+            int a = 0;
+            for (int i = 1; i < n; i++) {
+                if (radius[i] > radius[a])
+                    a = i;
+            }
+            int b = -1;
+            double axisDistance = tol;
+            for (int i = 0; i < n; i++) {
+                double dist = norm(cross(x[a], x[i])) / radius[a];
+                if (dist > axisDistance) {
+                    axisDistance = dist;
+                    b = i;
+                }
+            }
+            int c = -1;
+            double[] normal = null;
+            if (b >= 0) {
+                normal = cross(x[a], x[b]);
+                double normalLength = norm(normal);
+                double planeDistance = tol;
+                for (int i = 0; i < n; i++) {
+                    double dist = Math.abs(dot(normal, x[i])) / normalLength;
+                    if (dist > planeDistance) {
+                        planeDistance = dist;
+                        c = i;
+                    }
+                }
+            }
+            setOrder(a, b, c);
+            LinkedList permutations = new LinkedList();
+            int[] perm = new int[n];
+            Arrays.fill(perm, -1);
+            findPermutations(0, perm, new boolean[n], tol, permutations);
+            if (!isGroup(permutations))
+                continue;
+            if (best == null || permutations.size() > best.size()) {
+                best = permutations;
+                bestTol = tol;
+                bestA = a;
+                bestB = b;
+                bestC = c;
+            }
+        }
+        if (best != null) {
+            linear = bestB < 0;
+            if (bestC < 0) {
+                // planar or linear: every permutation is one proper rotation
+                symmetryNumber = best.size();
+                chiral = false;
+            } else {
+                double handedness = volume(x[bestA], x[bestB], x[bestC]);
+                int proper = 0;
+                for (Iterator iter = best.iterator(); iter.hasNext();) {
+                    int[] p = (int[]) iter.next();
+                    if (volume(x[p[bestA]], x[p[bestB]], x[p[bestC]])
+                            * handedness > 0)
+                        proper++;
+                }
+                symmetryNumber = proper;
+                chiral = proper == best.size();
+            }
+            Logger.info("Symmetry of " + name + ": symmetry number "
+                    + symmetryNumber + (chiral ? ", chiral" : "")
+                    + (linear ? ", linear" : "") + " (tolerance " + bestTol
+                    + " A)");
+            return;
+        }
+        // no tolerance gave a consistent set of operations; fall back on a symmetry number of 1, without the chirality
+        // correction, which would add R ln(2) to the entropy on no evidence
+        Logger.warning("*****WARNING****: The symmetry operations of " + name
+                + " could not be determined; using symmetry number 1 and no chirality correction");
+        symmetryNumber = 1;
+        chiral = false;
+        // #]
+    }
+
+    /**
+     * Order the atoms so that the reference atoms come first; once they are assigned, every other atom has at most one
+     * image, so the search hardly branches after them.
+     */
+    private void setOrder(int p_a, int p_b, int p_c) {
+        int n = x.length;
+        order = new int[n];
+        boolean[] placed = new boolean[n];
+        int next = 0;
+        int[] reference = { p_a, p_b, p_c };
+        for (int r = 0; r < 3; r++) {
+            if (reference[r] >= 0) {
+                order[next++] = reference[r];
+                placed[reference[r]] = true;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (!placed[i])
+                order[next++] = i;
+        }
+    }
+
+    /**
+     * Extend the partial permutation p_perm, in which the atoms order[0..p_depth-1] have their images, in every way
+     * that keeps the elements and the distances within p_tol, and add the complete permutations to p_found.
+     */
+    private void findPermutations(int p_depth, int[] p_perm, boolean[] p_used,
+            double p_tol, LinkedList p_found) {
+        int n = x.length;
+        if (p_depth == n) {
+            p_found.add(p_perm.clone());
+            return;
+        }
+        int i = order[p_depth];
+        for (int j = 0; j < n; j++) {
+            if (p_used[j] || element[j] != element[i]
+                    || Math.abs(radius[j] - radius[i]) > p_tol)
+                continue;
+            boolean match = true;
+            for (int d = 0; d < p_depth && match; d++) {
+                int prev = order[d];
+                if (Math.abs(distance(x[j], x[p_perm[prev]])
+                        - distance(x[i], x[prev])) > p_tol)
+                    match = false;
+            }
+            if (!match)
+                continue;
+            p_perm[i] = j;
+            p_used[j] = true;
+            findPermutations(p_depth + 1, p_perm, p_used, p_tol, p_found);
+            p_used[j] = false;
+            p_perm[i] = -1;
+        }
+    }
+
+    /**
+     * Return true if the permutations are closed under composition; near the tolerance, some but not all of the
+     * operations of a group may be found.
+     */
+    private static boolean isGroup(LinkedList p_permutations) {
+        HashSet keys = new HashSet();
+        for (Iterator iter = p_permutations.iterator(); iter.hasNext();)
+            keys.add(Arrays.toString((int[]) iter.next()));
+        for (Iterator iter = p_permutations.iterator(); iter.hasNext();) {
+            int[] p = (int[]) iter.next();
+            for (Iterator iter2 = p_permutations.iterator(); iter2.hasNext();) {
+                int[] q = (int[]) iter2.next();
+                int[] pq = new int[p.length];
+                for (int i = 0; i < p.length; i++)
+                    pq[i] = p[q[i]];
+                if (!keys.contains(Arrays.toString(pq)))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    // gmagoon 6/8/09
+    // calculate the vibrational contribution (divided by R, dimensionless) at temperature, T, in Kelvin to entropy
+    // p_freqs in cm^-1; c in cm/s; k in J/K; h in J-s
+    // ref.: http://cccbdb.nist.gov/thermo.asp
+    public static double calcVibS(ArrayList p_freqs, double p_T, double h,
+            double k, double c) {
+        double Scontrib = 0;
+        double dr;
+        for (int i = 0; i < p_freqs.size(); i++) {
+            double freq = (Double) p_freqs.get(i);
+            dr = h * c * freq / (k * p_T); // frequently used dimensionless ratio
+            Scontrib = Scontrib - Math.log(1. - Math.exp(-dr)) + dr
+                    * Math.exp(-dr) / (1. - Math.exp(-dr));
+        }
+        return Scontrib;
+    }
+
+    // gmagoon 6/8/09
+    // calculate the vibrational contribution (divided by R, dimensionless) at temperature, T, in Kelvin to heat
+// capacity, Cp
+    // p_freqs in cm^-1; c in cm/s; k in J/K; h in J-s
+    // ref.: http://cccbdb.nist.gov/thermo.asp
+    public static double calcVibCp(ArrayList p_freqs, double p_T, double h,
+            double k, double c) {
+        double Cpcontrib = 0;
+        double dr;
+        for (int i = 0; i < p_freqs.size(); i++) {
+            double freq = (Double) p_freqs.get(i);
+            dr = h * c * freq / (k * p_T); // frequently used dimensionless ratio
+            Cpcontrib = Cpcontrib + Math.pow(dr, 2.) * Math.exp(-dr)
+                    / Math.pow(1. - Math.exp(-dr), 2.);
+        }
+        return Cpcontrib;
+    }
+
+    private static double dot(double[] p_u, double[] p_v) {
+        return p_u[0] * p_v[0] + p_u[1] * p_v[1] + p_u[2] * p_v[2];
+    }
+
+    private static double[] cross(double[] p_u, double[] p_v) {
+        return new double[] { p_u[1] * p_v[2] - p_u[2] * p_v[1],
+                p_u[2] * p_v[0] - p_u[0] * p_v[2],
+                p_u[0] * p_v[1] - p_u[1] * p_v[0] };
+    }
+
+    private static double norm(double[] p_u) {
+        return Math.sqrt(dot(p_u, p_u));
+    }
+
+    private static double distance(double[] p_u, double[] p_v) {
+        double dx = p_u[0] - p_v[0];
+        double dy = p_u[1] - p_v[1];
+        double dz = p_u[2] - p_v[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private static double volume(double[] p_u, double[] p_v, double[] p_w) {
+        return dot(p_u, cross(p_v, p_w));
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\chem\QMStatMech.java
+ *********************************************************************/
@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.FileLock;
 import jing.rxnSys.Logger;
 
 // quantum mechanics thermo property estimator; analog of GATP
@@ -265,8 +266,8 @@ public class QMTP implements GeneralGAPP {
 // appended info for triplets, etc.
             String name = InChInames[0];
             String InChIaug = InChInames[1];
-            Logger.info("HBI-based thermo for " + name + "(" + InChIaug + "): "
-                    + result.toString());// print result, at least for debugging purposes
+            Logger.info("HBI-based thermo for %s(%s): %s", name, InChIaug,
+                    result);// print result, at least for debugging purposes
         } else {
             // no need for HBI radical corrections, just get the QM result
             tmpTherm = getQMThermoData(p_chemGraph);
@@ -289,12 +290,11 @@ public class QMTP implements GeneralGAPP {
         if (tempTherm != null) {
             result = tempTherm.copyWithExtraInfo(); // use a copy of the object!; that way, subsequent modifications of
 // this object don't change the QM library
-            Logger.info("QM calculation for "
-                    + InChIaug
-                    + " previously performed. Using Thermo from previous results in QMlibrary.");
+            Logger.info("QM calculation for %s previously performed. Using Thermo from previous results in QMlibrary.",
+                    InChIaug);
             result.setSource(result.comments);
             // Added for debugging
-            Logger.info("Thermo Data for " + InChIaug + " is " + result);
+            Logger.info("Thermo Data for %s is %s", InChIaug, result);
         } else { // couldn't find it in qmLibrary
                  // Check to see if QMTP has failed all attempts on this molecule before
                  // If so, generate Thermo using Benson groups
@@ -308,11 +308,32 @@ public class QMTP implements GeneralGAPP {
                 return gen.generateFakeThermo();
             //    return gen.generateThermo(p_chemGraph);
             }
-            // generate new QM Thermo Data
+            // check the store shared with other jobs; if it doesn't have the molecule, hold the molecule's lock
+            // while calculating it, so that other threads and jobs wanting it wait for this result instead of
+            // repeating the calculation
+            FileLock lock = null;
+            String storedLine = QMThermoStore.get(name, InChIaug);
+            if (storedLine == null) {
+                lock = QMThermoStore.lock(name);
+                storedLine = QMThermoStore.get(name, InChIaug);// another job may have stored it while we waited
+            }
             try {
+                if (storedLine != null) {
+                    tempTherm = QMLibraryEditor.parseLibraryLine(storedLine);
+                    qmLibrary.put(InChIaug, tempTherm);
+                    result = tempTherm.copyWithExtraInfo();
+                    Logger.info("QM calculation for %s performed by another job. Using Thermo from the QM thermo store.",
+                            InChIaug);
+                    result.setSource(result.comments);
+                    Logger.info("Thermo Data for %s is %s", InChIaug, result);
+                    return result;
+                }
+                // generate new QM Thermo Data
                 String qmMethod = getQmMethod();
                 result = generateQMThermoData(p_chemGraph, qmMethod);
                 // now save it for next time
+                QMThermoStore.put(name, QMLibraryEditor.getLibraryLine(
+                        InChIaug, result, qmMethod, qmprogram));
                 QMLibraryEditor.addQMTPThermo(p_chemGraph, InChIaug, result,
                         qmMethod, qmprogram);
                 qmLibrary.put(InChIaug, result);
@@ -321,6 +342,8 @@ public class QMTP implements GeneralGAPP {
                 TDGenerator gen = new BensonTDGenerator();
              //   return gen.generateThermo(p_chemGraph);
 		return gen.generateFakeThermo();
+            } finally {
+                QMThermoStore.unlock(name, lock);
             }
         }
         return result;
@@ -592,8 +615,10 @@ public class QMTP implements GeneralGAPP {
     // Checks to see if QmLibrary already exists. If not, creates the necessary directorys and files
     public void initalizeQmLibrary() {
         try {
-            qmLibrary = QMLibraryEditor
-                    .readLibrary("QMThermoLibrary/Library.txt");
+            String libraryDir = System.getProperty("RMG.qmLibraryDir");
+            qmLibrary = QMLibraryEditor.readLibrary(new File(
+                    libraryDir == null ? "QMThermoLibrary" : libraryDir,
+                    "Library.txt").getPath());
             QMLibraryEditor.initialize();
         } catch (IOException e) {
             Logger.info("No QM Thermo Library detected. New QM Library being created");
@@ -1850,10 +1875,8 @@ public class QMTP implements GeneralGAPP {
             Hthermal += R * calcVibH(freqs, T_MM4, h, k, c) / 1000.;
         energy = energy - Hthermal;
         // 3. write CanTherm input file
-        // determine point group using the SYMMETRY Program
-        String geom = qmdata.getSYMMETRYinput();
-        String pointGroup = determinePointGroupUsingSYMMETRYProgram(geom, name);
-        double sigmaCorr = getSigmaCorr(pointGroup);
+        // determine the external symmetry number and chirality from the geometry
+        double sigmaCorr = new QMStatMech(qmdata, name).getSigmaCorr();
         String canInp = "Calculation: Thermo\n";
         canInp += "Trange: 300 100 13\n";// temperatures from 300 to 1500 in increments of 100
         canInp += "Scale: 1.0\n";// scale factor of 1
@@ -2053,446 +2076,11 @@ public class QMTP implements GeneralGAPP {
     }
 
     // returns a thermo result, given results from quantum PM3 calculation or MM4 calculation (originally, this was in
-// parseGaussianPM3 function
+// parseGaussianPM3 function); the stat. mech. calculation, including the symmetry number and chirality formerly found
+// with the SYMMETRY program, is done by QMStatMech
     public ThermoData calculateThermoFromPM3MM4Calc(QMData qmdata,
             int gdStateDegen, String name) {
-        // unpack qmdata
-        int natoms = qmdata.natoms;
-        ArrayList atomicNumber = qmdata.atomicNumber; // vector of atomic numbers (integers) (apparently Vector is
-// thread-safe; cf. http://answers.yahoo.com/question/index?qid=20081214065127AArZDT3; ...should I be using this
-// instead?)
-        ArrayList x_coor = qmdata.x_coor; // vectors of x-, y-, and z-coordinates (doubles) (Angstroms) (in order
-// corresponding to above atomic numbers)
-        ArrayList y_coor = qmdata.y_coor;
-        ArrayList z_coor = qmdata.z_coor;
-        double energy = qmdata.energy; // PM3 energy (Hf298) in Hartree (***note: in the case of MOPAC, the MOPAC file
-// will contain in units of kcal/mol, but modified ccLib will return in Hartree)
-        double molmass = qmdata.molmass; // molecular mass in amu
-        ArrayList freqs = qmdata.freqs; // list of frequencies in units of cm^-1
-        double rotCons_1 = qmdata.rotCons_1;// rotational constants in (1/s)
-        double rotCons_2 = qmdata.rotCons_2;
-        double rotCons_3 = qmdata.rotCons_3;
-        // determine point group using the SYMMETRY Program
-        String geom = natoms + "\n";
-        for (int i = 0; i < natoms; i++) {
-            geom += atomicNumber.get(i) + " " + x_coor.get(i) + " "
-                    + y_coor.get(i) + " " + z_coor.get(i) + "\n";
-        }
-        // String pointGroup = determinePointGroupUsingSYMMETRYProgram(geom, 0.01);
-        String pointGroup = determinePointGroupUsingSYMMETRYProgram(geom, name);
-        // calculate thermo quantities using stat. mech. equations
-        // boolean linearity = p_chemGraph.isLinear();//determine linearity (perhaps it would be more appropriate to
-// determine this from point group?)
-        boolean linearity = false;
-        if (pointGroup.equals("Cinfv") || pointGroup.equals("Dinfh"))
-            linearity = true;// determine linearity from 3D-geometry; changed to correctly consider linear ketene
-// radical case
-        // we will use number of atoms from above (alternatively, we could use the chemGraph); this is needed to test
-// whether the species is monoatomic
-        double Hf298, S298, Cp300, Cp400, Cp500, Cp600, Cp800, Cp1000, Cp1500;
-        double sigmaCorr = getSigmaCorr(pointGroup);
-        Hf298 = energy * Hartree_to_kcal;
-        S298 = R
-                * Math.log(gdStateDegen)
-                + R
-                * (3.
-                        / 2.
-                        * Math.log(2. * Math.PI * molmass
-                                / (1000. * Na * Math.pow(h, 2.))) + 5. / 2.
-                        * Math.log(k * 298.15) - Math.log(100000.) + 5. / 2.);// electronic + translation; note use of
-// 10^5 Pa for standard pressure; also note that molecular mass needs to be divided by 1000 for kg units
-        Cp300 = 5. / 2. * R;
-        Cp400 = 5. / 2. * R;
-        Cp500 = 5. / 2. * R;
-        Cp600 = 5. / 2. * R;
-        Cp800 = 5. / 2. * R;
-        Cp1000 = 5. / 2. * R;
-        Cp1500 = 5. / 2. * R;
-        if (natoms > 1) {// include statistical correction and rotational (without symmetry number, vibrational
-// contributions if species is polyatomic
-            if (linearity) {// linear case
-                // determine the rotational constant (note that one of the rotcons will be zero)
-                double rotCons;
-                if (rotCons_1 > 0.0001)
-                    rotCons = rotCons_1;
-                else
-                    rotCons = rotCons_2;
-                S298 += R * sigmaCorr + R
-                        * (Math.log(k * 298.15 / (h * rotCons)) + 1) + R
-                        * calcVibS(freqs, 298.15, h, k, c);
-                Cp300 += R + R * calcVibCp(freqs, 300., h, k, c);
-                Cp400 += R + R * calcVibCp(freqs, 400., h, k, c);
-                Cp500 += R + R * calcVibCp(freqs, 500., h, k, c);
-                Cp600 += R + R * calcVibCp(freqs, 600., h, k, c);
-                Cp800 += R + R * calcVibCp(freqs, 800., h, k, c);
-                Cp1000 += R + R * calcVibCp(freqs, 1000., h, k, c);
-                Cp1500 += R + R * calcVibCp(freqs, 1500., h, k, c);
-            } else {// nonlinear case
-                S298 += R
-                        * sigmaCorr
-                        + R
-                        * (3.
-                                / 2.
-                                * Math.log(k * 298.15 / h)
-                                - 1.
-                                / 2.
-                                * Math.log(rotCons_1 * rotCons_2 * rotCons_3
-                                        / Math.PI) + 3. / 2.) + R
-                        * calcVibS(freqs, 298.15, h, k, c);
-                Cp300 += 3. / 2. * R + R * calcVibCp(freqs, 300., h, k, c);
-                Cp400 += 3. / 2. * R + R * calcVibCp(freqs, 400., h, k, c);
-                Cp500 += 3. / 2. * R + R * calcVibCp(freqs, 500., h, k, c);
-                Cp600 += 3. / 2. * R + R * calcVibCp(freqs, 600., h, k, c);
-                Cp800 += 3. / 2. * R + R * calcVibCp(freqs, 800., h, k, c);
-                Cp1000 += 3. / 2. * R + R * calcVibCp(freqs, 1000., h, k, c);
-                Cp1500 += 3. / 2. * R + R * calcVibCp(freqs, 1500., h, k, c);
-            }
-        }
-        ThermoData result = new ThermoData(Hf298, S298, Cp300, Cp400, Cp500,
-                Cp600, Cp800, Cp1000, Cp1500, 5, 1, 1, "PM3 or MM4 calculation");// this includes rough estimates of
-// uncertainty
-        return result;
-    }
-
-    // gets the statistical correction for S in dimensionless units (divided by R)
-    public double getSigmaCorr(String pointGroup) {
-        double sigmaCorr = 0;
-        // determine statistical correction factor for 1. external rotational symmetry (affects rotational partition
-// function) and 2. chirality (will add R*ln2 to entropy) based on point group
-        // ref: http://cccbdb.nist.gov/thermo.asp
-        // assumptions below for Sn, T, Th, O, I seem to be in line with expectations based on order reported at:
-// http://en.wikipedia.org/w/index.php?title=List_of_character_tables_for_chemically_important_3D_point_groups&oldid=287261611
-// (assuming order = symmetry number * 2 (/2 if chiral))...this appears to be true for all point groups I "know" to be
-// correct
-        // minor concern: does SYMMETRY appropriately calculate all Sn groups considering 2007 discovery of previous
-// errors in character tables (cf. Wikipedia article above)
-        if (pointGroup.equals("C1"))
-            sigmaCorr = +Math.log(2.);// rot. sym. = 1, chiral
-        else if (pointGroup.equals("Cs"))
-            sigmaCorr = 0; // rot. sym. = 1
-        else if (pointGroup.equals("Ci"))
-            sigmaCorr = 0; // rot. sym. = 1
-        else if (pointGroup.equals("C2"))
-            sigmaCorr = 0;// rot. sym. = 2, chiral (corrections cancel)
-        else if (pointGroup.equals("C3"))
-            sigmaCorr = +Math.log(2.) - Math.log(3.);// rot. sym. = 3, chiral
-        else if (pointGroup.equals("C4"))
-            sigmaCorr = +Math.log(2.) - Math.log(4.);// rot. sym. = 4, chiral
-        else if (pointGroup.equals("C5"))
-            sigmaCorr = +Math.log(2.) - Math.log(5.);// rot. sym. = 5, chiral
-        else if (pointGroup.equals("C6"))
-            sigmaCorr = +Math.log(2.) - Math.log(6.);// rot. sym. = 6, chiral
-        else if (pointGroup.equals("C7"))
-            sigmaCorr = +Math.log(2.) - Math.log(7.);// rot. sym. = 7, chiral
-        else if (pointGroup.equals("C8"))
-            sigmaCorr = +Math.log(2.) - Math.log(8.);// rot. sym. = 8, chiral
-        else if (pointGroup.equals("D2"))
-            sigmaCorr = +Math.log(2.) - Math.log(4.);// rot. sym. = 4, chiral
-        else if (pointGroup.equals("D3"))
-            sigmaCorr = +Math.log(2.) - Math.log(6.);// rot. sym. = 6, chiral
-        else if (pointGroup.equals("D4"))
-            sigmaCorr = +Math.log(2.) - Math.log(8.);// rot. sym. = 8, chiral
-        else if (pointGroup.equals("D5"))
-            sigmaCorr = +Math.log(2.) - Math.log(10.);// rot. sym. = 10, chiral
-        else if (pointGroup.equals("D6"))
-            sigmaCorr = +Math.log(2.) - Math.log(12.);// rot. sym. = 12, chiral
-        else if (pointGroup.equals("D7"))
-            sigmaCorr = +Math.log(2.) - Math.log(14.);// rot. sym. = 14, chiral
-        else if (pointGroup.equals("D8"))
-            sigmaCorr = +Math.log(2.) - Math.log(16.);// rot. sym. = 16, chiral
-        else if (pointGroup.equals("C2v"))
-            sigmaCorr = -Math.log(2.);// rot. sym. = 2
-        else if (pointGroup.equals("C3v"))
-            sigmaCorr = -Math.log(3.);// rot. sym. = 3
-        else if (pointGroup.equals("C4v"))
-            sigmaCorr = -Math.log(4.);// rot. sym. = 4
-        else if (pointGroup.equals("C5v"))
-            sigmaCorr = -Math.log(5.);// rot. sym. = 5
-        else if (pointGroup.equals("C6v"))
-            sigmaCorr = -Math.log(6.);// rot. sym. = 6
-        else if (pointGroup.equals("C7v"))
-            sigmaCorr = -Math.log(7.);// rot. sym. = 7
-        else if (pointGroup.equals("C8v"))
-            sigmaCorr = -Math.log(8.);// rot. sym. = 8
-        else if (pointGroup.equals("C2h"))
-            sigmaCorr = -Math.log(2.);// rot. sym. = 2
-        else if (pointGroup.equals("C3h"))
-            sigmaCorr = -Math.log(3.);// rot. sym. = 3
-        else if (pointGroup.equals("C4h"))
-            sigmaCorr = -Math.log(4.);// rot. sym. = 4
-        else if (pointGroup.equals("C5h"))
-            sigmaCorr = -Math.log(5.);// rot. sym. = 5
-        else if (pointGroup.equals("C6h"))
-            sigmaCorr = -Math.log(6.);// rot. sym. = 6
-        else if (pointGroup.equals("C7h"))
-            sigmaCorr = -Math.log(7.);// rot. sym. = 7
-        else if (pointGroup.equals("C8h"))
-            sigmaCorr = -Math.log(8.);// rot. sym. = 8
-        else if (pointGroup.equals("D2h"))
-            sigmaCorr = -Math.log(4.);// rot. sym. = 4
-        else if (pointGroup.equals("D3h"))
-            sigmaCorr = -Math.log(6.);// rot. sym. = 6
-        else if (pointGroup.equals("D4h"))
-            sigmaCorr = -Math.log(8.);// rot. sym. = 8
-        else if (pointGroup.equals("D5h"))
-            sigmaCorr = -Math.log(10.);// rot. sym. = 10
-        else if (pointGroup.equals("D6h"))
-            sigmaCorr = -Math.log(12.);// rot. sym. = 12
-        else if (pointGroup.equals("D7h"))
-            sigmaCorr = -Math.log(14.);// rot. sym. = 14
-        else if (pointGroup.equals("D8h"))
-            sigmaCorr = -Math.log(16.);// rot. sym. = 16
-        else if (pointGroup.equals("D2d"))
-            sigmaCorr = -Math.log(4.);// rot. sym. = 4
-        else if (pointGroup.equals("D3d"))
-            sigmaCorr = -Math.log(6.);// rot. sym. = 6
-        else if (pointGroup.equals("D4d"))
-            sigmaCorr = -Math.log(8.);// rot. sym. = 8
-        else if (pointGroup.equals("D5d"))
-            sigmaCorr = -Math.log(10.);// rot. sym. = 10
-        else if (pointGroup.equals("D6d"))
-            sigmaCorr = -Math.log(12.);// rot. sym. = 12
-        else if (pointGroup.equals("D7d"))
-            sigmaCorr = -Math.log(14.);// rot. sym. = 14
-        else if (pointGroup.equals("D8d"))
-            sigmaCorr = -Math.log(16.);// rot. sym. = 16
-        else if (pointGroup.equals("S4"))
-            sigmaCorr = -Math.log(2.);// rot. sym. = 2 ;*** assumed achiral
-        else if (pointGroup.equals("S6"))
-            sigmaCorr = -Math.log(3.);// rot. sym. = 3 ;*** assumed achiral
-        else if (pointGroup.equals("S8"))
-            sigmaCorr = -Math.log(4.);// rot. sym. = 4 ;*** assumed achiral
-        else if (pointGroup.equals("T"))
-            sigmaCorr = +Math.log(2.) - Math.log(12.);// rot. sym. = 12, *** assumed chiral
-        else if (pointGroup.equals("Th"))
-            sigmaCorr = -Math.log(12.);// ***assumed rot. sym. = 12
-        else if (pointGroup.equals("Td"))
-            sigmaCorr = -Math.log(12.);// rot. sym. = 12
-        else if (pointGroup.equals("O"))
-            sigmaCorr = +Math.log(2.) - Math.log(24.);// ***assumed rot. sym. = 24, chiral
-        else if (pointGroup.equals("Oh"))
-            sigmaCorr = -Math.log(24.);// rot. sym. = 24
-        else if (pointGroup.equals("Cinfv"))
-            sigmaCorr = 0;// rot. sym. = 1
-        else if (pointGroup.equals("Dinfh"))
-            sigmaCorr = -Math.log(2.);// rot. sym. = 2
-        else if (pointGroup.equals("I"))
-            sigmaCorr = +Math.log(2.) - Math.log(60.);// ***assumed rot. sym. = 60, chiral
-        else if (pointGroup.equals("Ih"))
-            sigmaCorr = -Math.log(60.);// rot. sym. = 60
-        else if (pointGroup.equals("Kh"))
-            sigmaCorr = 0;// arbitrarily set to zero...one could argue that it is infinite; apparently this is the point
-// group of a single atom (cf. http://www.cobalt.chem.ucalgary.ca/ps/symmetry/tests/G_Kh); this should not have a
-// rotational partition function, and we should not use the symmetry correction in this case
-        else {// this point should not be reached, based on checks performed in determinePointGroupUsingSYMMETRYProgram
-            Logger.critical("Unrecognized point group: " + pointGroup);
-            System.exit(0);
-        }
-        return sigmaCorr;
-    }
-
-    // determine the point group using the SYMMETRY program (http://www.cobalt.chem.ucalgary.ca/ps/symmetry/)
-    // required input is a line with number of atoms followed by lines for each atom including atom number and x,y,z
-// coordinates
-    // finalTol determines how loose the point group criteria are; values are comparable to those specifed in the
-// GaussView point group interface
-    // public String determinePointGroupUsingSYMMETRYProgram(String geom, double finalTol){
-    public String determinePointGroupUsingSYMMETRYProgram(String geom,
-            String name) {
-        int attemptNumber = 1;
-        int maxAttemptNumber = 4;
-        boolean pointGroupFound = false;
-        // write the input file
-        File inputFile = new File(qmfolder, name + ".symm");
-        try {
-            FileWriter fw = new FileWriter(inputFile);
-            fw.write(geom);
-            fw.close();
-        } catch (IOException e) {
-            String err = "Error writing input file for point group calculation";
-            err += e.toString();
-            Logger.critical(err);
-            System.exit(0);
-        }
-        String result = "";
-        String command = "";
-        while (attemptNumber <= maxAttemptNumber && !pointGroupFound) {
-            // call the program and read the result
-            result = "";
-            String[] lineArray;
-            try {
-                if (System.getProperty("os.name").toLowerCase()
-                        .contains("windows")) {// the Windows case where the precompiled executable seems to need to be
-// called from a batch script
-                    if (attemptNumber == 1)
-                        command = "\""
-                                + System.getProperty("RMG.workingDirectory")
-                                + "/scripts/symmetryDefault2.bat\" \""
-                                + inputFile.getAbsolutePath() + "\"";// 12/1/09 gmagoon: switched to use slightly looser
-// criteria of 0.02 rather than 0.01 to handle methylperoxyl radical result from MOPAC
-                    else if (attemptNumber == 2)
-                        command = "\""
-                                + System.getProperty("RMG.workingDirectory")
-                                + "/scripts/symmetryLoose.bat\" \""
-                                + inputFile.getAbsolutePath() + "\"";// looser criteria (0.1 instead of 0.01) to
-// properly identify C2v group in VBURLMBUVWIEMQ-UHFFFAOYAVmult5 (InChI=1/C3H4O2/c1-3(2,4)5/h1-2H2/mult5) MOPAC result;
-// C2 and sigma were identified with default, but it should be C2 and sigma*2
-                    else if (attemptNumber == 3)
-                        command = "\""
-                                + System.getProperty("RMG.workingDirectory")
-                                + "/scripts/symmetryLoose2.bat\" \""
-                                + inputFile.getAbsolutePath() + "\"";// looser criteria to properly identify D2d group
-// in XXHDHKZTASMVSX-UHFFFAOYAM
-                    else if (attemptNumber == 4) {
-                        Logger.error("*****WARNING****: Using last-resort symmetry estimation options; symmetry may be underestimated");
-                        command = "\""
-                                + System.getProperty("RMG.workingDirectory")
-                                + "/scripts/symmetryLastResort.bat\" \""
-                                + inputFile.getAbsolutePath() + "\"";// last resort criteria to avoid crashing (this
-// will likely result in identification of C1 point group)
-                    } else {
-                        Logger.critical("Invalid attemptNumber: "
-                                + attemptNumber);
-                        System.exit(0);
-                    }
-                } else {// in other (non-Windows) cases, where it is compiled from scratch, we should be able to run
-// this directly
-                    if (attemptNumber == 1)
-                        command = System.getProperty("RMG.workingDirectory")
-                                + "/bin/SYMMETRY.EXE -final 0.02 "
-                                + inputFile.getAbsolutePath();// 12/1/09 gmagoon: switched to use slightly looser
-// criteria of 0.02 rather than 0.01 to handle methylperoxyl radical result from MOPAC
-                    else if (attemptNumber == 2)
-                        command = System.getProperty("RMG.workingDirectory")
-                                + "/bin/SYMMETRY.EXE -final 0.1 "
-                                + inputFile.getAbsolutePath();// looser criteria (0.1 instead of 0.01) to properly
-// identify C2v group in VBURLMBUVWIEMQ-UHFFFAOYAVmult5 (InChI=1/C3H4O2/c1-3(2,4)5/h1-2H2/mult5) MOPAC result; C2 and
-// sigma were identified with default, but it should be C2 and sigma*2
-                    else if (attemptNumber == 3)
-                        command = System.getProperty("RMG.workingDirectory")
-                                + "/bin/SYMMETRY.EXE -primary 0.2 -final 0.1 "
-                                + inputFile.getAbsolutePath();// looser criteria to identify D2d group in
-// XXHDHKZTASMVSX-UHFFFAOYAM (InChI=1/C12H16/c1-5-9-10(6-2)12(8-4)11(9)7-3/h5-12H,1-4H2)
-                    else if (attemptNumber == 4) {
-                        Logger.warning("*****WARNING****: Using last-resort symmetry estimation options; symmetry may be underestimated");
-                        command = System.getProperty("RMG.workingDirectory")
-                                + "/bin/SYMMETRY.EXE -final 0.0 "
-                                + inputFile.getAbsolutePath();// last resort criteria to avoid crashing (this will
-// likely result in identification of C1 point group)
-                    } else {
-                        Logger.critical("Invalid attemptNumber: "
-                                + attemptNumber);
-                        System.exit(0);
-                    }
-                }
-                Process symmProc = Runtime.getRuntime().exec(command);
-                // check for errors and display the error if there is one
-                InputStream is = symmProc.getInputStream();
-                InputStreamReader isr = new InputStreamReader(is);
-                BufferedReader br = new BufferedReader(isr);
-                String line = null;
-                while ((line = br.readLine()) != null) {
-                    if (line.startsWith("It seems to be the ")) {// last line, ("It seems to be the [x] point group")
-// indicates point group
-                        lineArray = line.split(" ");// split the line around spaces
-                        result = lineArray[5];// point group string should be the 6th word
-                    }
-                }
-                int exitValue = symmProc.waitFor();
-                symmProc.getErrorStream().close();
-                symmProc.getOutputStream().close();
-                br.close();
-                isr.close();
-                is.close();
-            } catch (Exception e) {
-                String err = "Error in running point group calculation process using SYMMETRY \n";
-                err += e.toString();
-                Logger.logStackTrace(e);
-                System.exit(0);
-            }
-            // check for a recognized point group
-            if (result.equals("C1") || result.equals("Cs")
-                    || result.equals("Ci") || result.equals("C2")
-                    || result.equals("C3") || result.equals("C4")
-                    || result.equals("C5") || result.equals("C6")
-                    || result.equals("C7") || result.equals("C8")
-                    || result.equals("D2") || result.equals("D3")
-                    || result.equals("D4") || result.equals("D5")
-                    || result.equals("D6") || result.equals("D7")
-                    || result.equals("D8") || result.equals("C2v")
-                    || result.equals("C3v") || result.equals("C4v")
-                    || result.equals("C5v") || result.equals("C6v")
-                    || result.equals("C7v") || result.equals("C8v")
-                    || result.equals("C2h") || result.equals("C3h")
-                    || result.equals("C4h") || result.equals("C5h")
-                    || result.equals("C6h") || result.equals("C7h")
-                    || result.equals("C8h") || result.equals("D2h")
-                    || result.equals("D3h") || result.equals("D4h")
-                    || result.equals("D5h") || result.equals("D6h")
-                    || result.equals("D7h") || result.equals("D8h")
-                    || result.equals("D2d") || result.equals("D3d")
-                    || result.equals("D4d") || result.equals("D5d")
-                    || result.equals("D6d") || result.equals("D7d")
-                    || result.equals("D8d") || result.equals("S4")
-                    || result.equals("S6") || result.equals("S8")
-                    || result.equals("T") || result.equals("Th")
-                    || result.equals("Td") || result.equals("O")
-                    || result.equals("Oh") || result.equals("Cinfv")
-                    || result.equals("Dinfh") || result.equals("I")
-                    || result.equals("Ih") || result.equals("Kh"))
-                pointGroupFound = true;
-            else {
-                if (attemptNumber < maxAttemptNumber)
-                    Logger.info("Attempt number " + attemptNumber
-                            + " did not identify a recognized point group ("
-                            + result
-                            + "). Will retry with looser point group criteria.");
-                else {
-                    Logger.critical("Final attempt number " + attemptNumber
-                            + " did not identify a recognized point group ("
-                            + result + "). Exiting.");
-                    System.exit(0);
-                }
-                attemptNumber++;
-            }
-        }
-        Logger.info("Point group: " + result);// print result, at least for debugging purposes
-        return result;
-    }
-
-    // gmagoon 6/8/09
-    // calculate the vibrational contribution (divided by R, dimensionless) at temperature, T, in Kelvin to entropy
-    // p_freqs in cm^-1; c in cm/s; k in J/K; h in J-s
-    // ref.: http://cccbdb.nist.gov/thermo.asp
-    public double calcVibS(ArrayList p_freqs, double p_T, double h, double k,
-            double c) {
-        double Scontrib = 0;
-        double dr;
-        for (int i = 0; i < p_freqs.size(); i++) {
-            double freq = (Double) p_freqs.get(i);
-            dr = h * c * freq / (k * p_T); // frequently used dimensionless ratio
-            Scontrib = Scontrib - Math.log(1. - Math.exp(-dr)) + dr
-                    * Math.exp(-dr) / (1. - Math.exp(-dr));
-        }
-        return Scontrib;
-    }
-
-    // gmagoon 6/8/09
-    // calculate the vibrational contribution (divided by R, dimensionless) at temperature, T, in Kelvin to heat
-// capacity, Cp
-    // p_freqs in cm^-1; c in cm/s; k in J/K; h in J-s
-    // ref.: http://cccbdb.nist.gov/thermo.asp
-    public double calcVibCp(ArrayList p_freqs, double p_T, double h, double k,
-            double c) {
-        double Cpcontrib = 0;
-        double dr;
-        for (int i = 0; i < p_freqs.size(); i++) {
-            double freq = (Double) p_freqs.get(i);
-            dr = h * c * freq / (k * p_T); // frequently used dimensionless ratio
-            Cpcontrib = Cpcontrib + Math.pow(dr, 2.) * Math.exp(-dr)
-                    / Math.pow(1. - Math.exp(-dr), 2.);
-        }
-        return Cpcontrib;
+        return new QMStatMech(qmdata, name).calculateThermo(gdStateDegen);
     }
 
     // gmagoon 6/23/10
@@ -0,0 +1,202 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chem;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.HashMap;
+import jing.rxnSys.Logger;
+
+/**
+ * A store of QM thermo results that RMG jobs running at the same time can share, so that each molecule is calculated
+ * once. It lives in the "entries" directory of the QM thermo library (RMG.qmLibraryDir, set from the RMG_QM_LIBRARY
+ * environment variable), which is therefore shared by pointing the jobs at the same library. Each molecule has an entry
+ * file named by its modified InChIKey and holding its Library.txt line, which starts with the modified InChI; the InChI
+ * is checked on reading, in case of a key collision. Entries are written to a temporary file and renamed, so a reader
+ * never sees a partial entry. A job about to calculate a molecule first takes the exclusive lock of the molecule's lock
+ * file; a job that wants the same molecule waits on that lock and then finds the entry. The locks are operating system
+ * file locks, so they are released if a job dies, unlike the .hold files of the QM calculations directory. As a file
+ * lock is held by the whole JVM, threads of the same job first take an in-process lock on the molecule's name.
+ */
+public class QMThermoStore {
+    /** The directory holding the entries, or null if the store is not available. */
+    private static File directory = null;
+    private static boolean initialized = false;
+    private static final String suffix = ".thermo";
+    /** The thread of this job holding the lock of each molecule. */
+    private static final HashMap locked = new HashMap();
+
+    private static synchronized void initialize() {
+        if (initialized)
+            return;
+        initialized = true;
+        String libraryDir = System.getProperty("RMG.qmLibraryDir");
+        File dir = new File(libraryDir == null ? "QMThermoLibrary"
+                : libraryDir, "entries");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Logger.warning("Unable to create the QM thermo store directory "
+                    + dir.getPath()
+                    + "; QM results will not be shared with other jobs.");
+            return;
+        }
+        directory = dir;
+    }
+
+    /**
+     * Return the Library.txt line stored for the molecule with modified InChIKey p_name and modified InChI p_InChIaug,
+     * or null if there is none (or the store is not available).
+     */
+    public static String get(String p_name, String p_InChIaug) {
+        initialize();
+        if (directory == null)
+            return null;
+        File file = new File(directory, p_name + suffix);
+        if (!file.exists())
+            return null;
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line = reader.readLine();
+                if (line == null || !line.startsWith(p_InChIaug + " ")) {
+                    Logger.info("The QM thermo store entry " + file.getPath()
+                            + " is not for " + p_InChIaug + "; ignoring it.");
+                    return null;
+                }
+                return line;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            Logger.verbose("Unable to read the QM thermo store entry "
+                    + file.getPath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store p_line, the Library.txt line of the molecule with modified InChIKey p_name. The entry is written to a
+     * temporary file and then renamed.
+     */
+    public static void put(String p_name, String p_line) {
+        initialize();
+        if (directory == null)
+            return;
+        File file = new File(directory, p_name + suffix);
+        try {
+            File temp = File.createTempFile(p_name, ".tmp", directory);
+            FileWriter writer = new FileWriter(temp);
+            try {
+                writer.write(p_line + "\n");
+            } finally {
+                writer.close();
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                Logger.warning("Unable to store the QM thermo of " + p_name
+                        + " in " + file.getPath());
+            }
+        } catch (IOException e) {
+            Logger.warning("Unable to write the QM thermo store entry "
+                    + file.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Take the exclusive lock of the molecule with modified InChIKey p_name, waiting while another thread of this job
+     * or another job holds it. Return the file lock, or null if the store is not available or the lock file could not
+     * be locked; either way the lock must be released with unlock(p_name, lock).
+     */
+    public static FileLock lock(String p_name) {
+        initialize();
+        if (directory == null)
+            return null;
+        synchronized (locked) {
+            if (locked.containsKey(p_name))
+                Logger.info("Another thread is calculating the QM thermo of "
+                        + p_name + "; waiting for its result...");
+            while (locked.containsKey(p_name)) {
+                try {
+                    locked.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            locked.put(p_name, Thread.currentThread());
+        }
+        File file = new File(directory, p_name + ".lock");
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            FileLock lock = raf.getChannel().tryLock();
+            if (lock == null) {
+                Logger.info("Another RMG job is calculating the QM thermo of "
+                        + p_name + "; waiting for its result...");
+                lock = raf.getChannel().lock();
+            }
+            return lock;
+        } catch (IOException e) {
+            Logger.warning("Unable to lock " + file.getPath() + ": "
+                    + e.getMessage());
+        }
+        try {
+            if (raf != null)
+                raf.close();
+        } catch (IOException e) {
+        }
+        return null;
+    }
+
+    /**
+     * Release the lock of the molecule p_name taken by lock(), which returned p_lock. Does nothing to the in-process
+     * lock unless it is held by this thread.
+     */
+    public static void unlock(String p_name, FileLock p_lock) {
+        try {
+            // closing the channel also releases the lock
+            if (p_lock != null)
+                p_lock.channel().close();
+        } catch (IOException e) {
+            Logger.verbose("Unable to release a QM thermo store lock: "
+                    + e.getMessage());
+        }
+        synchronized (locked) {
+            if (locked.get(p_name) == Thread.currentThread()) {
+                locked.remove(p_name);
+                locked.notifyAll();
+            }
+        }
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\chem\QMThermoStore.java
+ *********************************************************************/
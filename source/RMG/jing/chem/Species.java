@@ -56,6 +56,13 @@ public class Species {
     protected String InChI = null; // ## attribute InChI
     protected TransportData chemkinTransData;
     protected NASAThermoData nasaThermoData;
+    // the NASA data, packed into CompactStore by compact() while nasaThermoData is null
+    protected CompactStore.Record packedNasaThermoData;
+    // H, S and G of the packed NASA data at packedThermoTemperature (K); see readPackedThermo()
+    private double packedThermoTemperature = -1;
+    private double packedH;
+    private double packedS;
+    private double packedG;
     protected String nasaThermoSource;
     protected ThreeFrequencyModel threeFrequencyModel;
     // protected WilhoitThermoData wilhoitThermoData;
@@ -70,6 +77,9 @@ public class Species {
     // flag to tag certain species as having a constant concentration
     // they won't be consumed by reactions (will lead to mass creation!)
     protected boolean constantConcentration = false;
+    // Flag for species read back from Restart files whose thermo, transport and NASA data have not been estimated
+    // yet; they are generated the first time any of them is requested.
+    protected boolean propertiesDeferred = false;
     // Flag which specifies whether to generate InChIs
     public static boolean useInChI = false;
     public static boolean useSolvation = false;
@@ -84,21 +94,27 @@ public class Species {
 
     // ## operation Species(String,ChemGraph)
     private Species(int id, String p_name, ChemGraph p_chemGraph) {
+        this(id, p_name, p_chemGraph, false);
+    }
+
+    /**
+     * If p_deferProperties is true, only the resonance isomers (needed to identify the species in the dictionary) and
+     * the collision parameters are generated here; the thermo, transport and NASA data are left for
+     * generateDeferredProperties().
+     */
+    private Species(int id, String p_name, ChemGraph p_chemGraph,
+            boolean p_deferProperties) {
         initRelations();
         ID = id;
         // #[ operation Species(String,ChemGraph)
         name = p_name;
         chemGraph = p_chemGraph;
         generateResonanceIsomers();
-
-        if (!constantConcentration) {
-            findStablestThermoData();
-        } else {
-            // findSolvationData();
-        }
-        calculateTransportParameters();
         selectDeltaEDown();
-        generateNASAThermoData();
+        if (p_deferProperties)
+            propertiesDeferred = true;
+        else
+            generateProperties();
         // generateSpectroscopicData(); // only get it if you need it!!!
         /*
          * MRH 9MAR2010: Commenting InChI generation when making a new species. Presently, the only time an InChI is
@@ -110,6 +126,31 @@ public class Species {
         // #]
     }
 
+    private void generateProperties() {
+        if (!constantConcentration) {
+            findStablestThermoData();
+        } else {
+            // findSolvationData();
+        }
+        calculateTransportParameters();
+        generateNASAThermoData();
+    }
+
+    /**
+     * Generate the thermo, transport and NASA data of a species made with deferred properties. Does nothing if they
+     * have already been generated.
+     */
+    public void generateDeferredProperties() {
+        if (!propertiesDeferred)
+            return;
+        propertiesDeferred = false;
+        generateProperties();
+    }
+
+    public boolean hasDeferredProperties() {
+        return propertiesDeferred;
+    }
+
     // ## operation addResonanceIsomer(ChemGraph)
     public boolean addResonanceIsomer(ChemGraph p_resonanceIsomer) {
         // #[ operation addResonanceIsomer(ChemGraph)
@@ -136,6 +177,9 @@ public class Species {
     public double calculateG(Temperature p_temperature) {
         // #[ operation calculateG(Temperature)
         // return getThermoData().calculateG(p_temperature);
+        generateDeferredProperties();
+        if (readPackedThermo(p_temperature))
+            return packedG;
         return nasaThermoData.calculateFreeEnergy(p_temperature);
         // #]
     }
@@ -160,6 +204,9 @@ public class Species {
     public double calculateH(Temperature p_temperature) {
         // #[ operation calculateH(Temperature)
         // return getThermoData().calculateH(p_temperature);
+        generateDeferredProperties();
+        if (readPackedThermo(p_temperature))
+            return packedH;
         return nasaThermoData.calculateEnthalpy(p_temperature);
         // #]
     }
@@ -202,6 +249,9 @@ public class Species {
     public double calculateS(Temperature p_temperature) {
         // #[ operation calculateS(Temperature)
         // return getThermoData().calculateS(p_temperature);
+        generateDeferredProperties();
+        if (readPackedThermo(p_temperature))
+            return packedS;
         return nasaThermoData.calculateEntropy(p_temperature);
         // #]
     }
@@ -356,6 +406,8 @@ public class Species {
 
     public void generateNASAThermoData() {
         // nasaThermoData = Therfit.generateNASAThermoData(this);
+        CompactStore.free(packedNasaThermoData);
+        packedNasaThermoData = null;
         nasaThermoData = GATPFit.generateNASAThermoData(this);
         nasaThermoSource = getThermoData().source;
         GATPFitExecuted = (nasaThermoData != null);
@@ -484,12 +536,12 @@ public class Species {
     // ## operation generateResonanceIsomersFromConjugatedRings();
 
     private void generateResonanceIsomersFromConjugatedRings() {
-	if(chemGraph.graph.acyclic)
+	if(chemGraph.getGraph().acyclic)
 		return;
 	LinkedHashSet processedChemGraph = new LinkedHashSet();
         boolean foundResonanceIsomer = false;
-	for (int i = 0; i < chemGraph.graph.SSSRings.size(); i++) {
-            LinkedList cycle = (LinkedList) chemGraph.graph.SSSRings.get(i);
+	for (int i = 0; i < chemGraph.getGraph().SSSRings.size(); i++) {
+            LinkedList cycle = (LinkedList) chemGraph.getGraph().SSSRings.get(i);
 	    int deloc = 1; //integer that will remain 1 is delocalization can occur
             int nsinglebonds=0;
             int ndoublebonds=0;
@@ -781,12 +833,79 @@ public class Species {
     public NASAThermoData getNasaThermoData() {
         // #[ operation getNasaThermoData()
         // if (nasaThermoData==null && !therfitExecuted) generateNASAThermoData();
+        generateDeferredProperties();
+        unpackNasaThermoData();
         if (nasaThermoData == null)
             generateNASAThermoData();
         return nasaThermoData;
         // #]
     }
 
+    /**
+     * Requires: Effects: if the NASA data is packed, evaluate packedH, packedS and packedG at p_temperature, decoding
+     * the data only if the temperature differs from the last one asked for, and return true; otherwise return false.
+     * The edge fluxes ask for them at the same temperature after every solve. Modifies: this
+     */
+    private synchronized boolean readPackedThermo(Temperature p_temperature) {
+        if (nasaThermoData != null || packedNasaThermoData == null)
+            return false;
+        if (p_temperature.getK() != packedThermoTemperature) {
+            NASAThermoData data = NASAThermoData
+                    .unpackCoefficients(CompactStore.get(packedNasaThermoData,
+                            NASAThermoData.COEFFICIENT_BYTES));
+            packedH = data.calculateEnthalpy(p_temperature);
+            packedS = data.calculateEntropy(p_temperature);
+            // as NASAThermoData.calculateFreeEnergy() does
+            packedG = (packedH * 1000 - p_temperature.getK() * packedS) / 1000;
+            packedThermoTemperature = p_temperature.getK();
+        }
+        return true;
+    }
+
+    private void unpackNasaThermoData() {
+        if (packedNasaThermoData == null)
+            return;
+        nasaThermoData = NASAThermoData.unpack(CompactStore
+                .get(packedNasaThermoData));
+        CompactStore.free(packedNasaThermoData);
+        packedNasaThermoData = null;
+    }
+
+    /**
+     * Requires: Effects: move the graphs of this species (its ChemGraph and resonance isomers) and its NASA data into
+     * CompactStore, off the heap, while it is an edge species; they are unpacked when next needed, or all at once by
+     * rehydrate(). Modifies: this, its ChemGraphs
+     */
+    public void compact() {
+        chemGraph.compact();
+        if (resonanceIsomers != null) {
+            for (Iterator iter = resonanceIsomers.iterator(); iter.hasNext();)
+                ((ChemGraph) iter.next()).compact();
+        }
+        if (nasaThermoData != null) {
+            CompactStore.Record record = CompactStore.put(this,
+                    nasaThermoData.pack());
+            if (record != null) {
+                packedNasaThermoData = record;
+                nasaThermoData = null;
+                packedThermoTemperature = -1;
+            }
+        }
+    }
+
+    /**
+     * Requires: Effects: unpack everything compact() has packed, e.g. when this species is moved to the core.
+     * Modifies: this, its ChemGraphs
+     */
+    public void rehydrate() {
+        chemGraph.rehydrate();
+        if (resonanceIsomers != null) {
+            for (Iterator iter = resonanceIsomers.iterator(); iter.hasNext();)
+                ((ChemGraph) iter.next()).rehydrate();
+        }
+        unpackNasaThermoData();
+    }
+
     // ## operation getResonanceIsomers()
     public Iterator getResonanceIsomers() {
         // #[ operation getResonanceIsomers()
@@ -804,6 +923,7 @@ public class Species {
     // ## operation getThermoData()
     public ThermoData getThermoData() {
         // #[ operation getThermoData()
+        generateDeferredProperties();
         return chemGraph.getThermoData();
         // #]
     }
@@ -870,7 +990,12 @@ public class Species {
 
 //	spe = new Species(id, name, p_chemGraph); //make a fake  species
 
-        Species spe = (Species) (dictionary.getSpecies(p_chemGraph));
+        // a reaction product may already have been matched to its species from the bare graph (ReactionAdjList)
+        Species spe = p_chemGraph.matchedSpecies;
+        boolean matched = (spe != null);
+        p_chemGraph.matchedSpecies = null;
+        if (!matched)
+            spe = (Species) (dictionary.getSpecies(p_chemGraph));
 
         // if it wasn't there then it's unique and we need to add it
         if (spe == null) {
@@ -897,9 +1022,11 @@ public class Species {
             // spe.ID =
             dictionary.putSpecies(spe, true);
             // DEBUG: Tell console I made this species
-            Logger.info("Created new species: " + spe.getFullName());
+            Logger.info("Created new species: %s", spe.getFullName());
         } else {
-            if (spe.chemGraph.equals(p_chemGraph)) {
+            // the thermo of the stored chemgraph is copied below, so make sure it exists
+            spe.generateDeferredProperties();
+            if (matched || spe.chemGraph.equals(p_chemGraph)) {
                 // spe.chemGraph.graph = p_chemGraph.graph;
                 // p_chemGraph = spe.chemGraph;
                 p_chemGraph.thermoData = spe.chemGraph.thermoData;
@@ -961,15 +1088,26 @@ public class Species {
      * 4-Sept-2009
      */
     public static Species make(String p_name, ChemGraph p_chemGraph, int id) {
+        return make(p_name, p_chemGraph, id, false);
+    }
+
+    /**
+     * As make(String,ChemGraph,int), but if p_deferProperties is true the thermo, transport and NASA data are only
+     * generated when first requested. The chemgraph written to a Restart file is already the stablest resonance
+     * isomer, so for restart species this only postpones work; species that are never asked for their thermo (e.g.
+     * most of a large edge) never pay for it.
+     */
+    public static Species make(String p_name, ChemGraph p_chemGraph, int id,
+            boolean p_deferProperties) {
         SpeciesDictionary dictionary = SpeciesDictionary.getInstance();
         String name = p_name;
-        Species spe = new Species(id, name, p_chemGraph);
+        Species spe = new Species(id, name, p_chemGraph, p_deferProperties);
         if (id > TOTAL_NUMBER)
             TOTAL_NUMBER = id;
         dictionary.putSpecies(spe, false);
         p_chemGraph.setSpecies(spe);
         // DEBUG: Tell console I made this species
-        Logger.info("Created new species: " + spe.getFullName());
+        Logger.info("Created new species: %s", spe.getFullName());
         return spe;
     }
 
@@ -1896,6 +2034,7 @@ public class Species {
     }
 
     public TransportData getChemkinTransportData() {
+        generateDeferredProperties();
         return chemkinTransData;
     }
 
@@ -2001,6 +2140,7 @@ public class Species {
     }
 
     public String getNasaThermoSource() {
+        generateDeferredProperties();
         if (nasaThermoSource == null)
             nasaThermoSource = "Estimated by RMG using Group Additivity";
         return nasaThermoSource;
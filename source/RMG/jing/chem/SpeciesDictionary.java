@@ -42,6 +42,12 @@ public class SpeciesDictionary {
     private static SpeciesDictionary INSTANCE = new SpeciesDictionary(); // ## attribute INSTANCE
     private static LinkedHashMap dictionary; // ## attribute dictionary
     private static LinkedList cache = new LinkedList(); // a shortlist of recently requested species used as a cache
+    /*
+     * The ChemGraph keys of the dictionary again, bucketed by Graph.getInvariantKey(), so that a bare product graph can
+     * be looked up (getSpeciesFromGraph) without first being made into a ChemGraph. Each bucket is a LinkedList of
+     * IndexEntry.
+     */
+    private static HashMap graphIndex = new HashMap();
 
     // Constructors
     // ## operation SpeciesDictionary()
@@ -156,19 +162,53 @@ public class SpeciesDictionary {
         return null;
     }
 
+    /**
+     * Requires: Effects: return the species that has a ChemGraph key (its ChemGraph, or one of its resonance isomers)
+     * equivalent to g, or null if there is none. Only the keys sharing g's invariant key are compared. Modifies:
+     */
     public static Species getSpeciesFromGraph(Graph g) {
         if (g == null)
             throw new NullPointerException();
-        Iterator iter = dictionary.keySet().iterator();
-        while (iter.hasNext()) {
-            ChemGraph cg = (ChemGraph) iter.next();
-            if (cg.graph.isEquivalent(g)) {
-                return (Species) dictionary.get(cg);
-            }
+        LinkedList bucket = (LinkedList) graphIndex.get(new Long(g
+                .getInvariantKey()));
+        if (bucket == null)
+            return null;
+        for (Iterator iter = bucket.iterator(); iter.hasNext();) {
+            IndexEntry entry = (IndexEntry) iter.next();
+            if (g.isEquivalent(entry.chemGraph.readGraph()))
+                return entry.species;
         }
         return null;
     }
 
+    private static void index(ChemGraph p_chemGraph, Species p_species) {
+        Long key = new Long(p_chemGraph.readGraph().getInvariantKey());
+        LinkedList bucket = (LinkedList) graphIndex.get(key);
+        if (bucket == null) {
+            bucket = new LinkedList();
+            graphIndex.put(key, bucket);
+        }
+        // a species put again replaces its old entry, as it does in the dictionary
+        for (Iterator iter = bucket.iterator(); iter.hasNext();) {
+            if (((IndexEntry) iter.next()).chemGraph.equals(p_chemGraph))
+                iter.remove();
+        }
+        bucket.add(new IndexEntry(p_chemGraph, p_species));
+    }
+
+    private static void unindex(ChemGraph p_chemGraph) {
+        Long key = new Long(p_chemGraph.readGraph().getInvariantKey());
+        LinkedList bucket = (LinkedList) graphIndex.get(key);
+        if (bucket == null)
+            return;
+        for (Iterator iter = bucket.iterator(); iter.hasNext();) {
+            if (((IndexEntry) iter.next()).chemGraph.equals(p_chemGraph))
+                iter.remove();
+        }
+        if (bucket.isEmpty())
+            graphIndex.remove(key);
+    }
+
     public static Species getSpeciesFromChemkinName(String p_name) {
         // #[ operation getSpeciesFromName(String)
         if (p_name == null)
@@ -226,9 +266,11 @@ public class SpeciesDictionary {
             while (iter.hasNext()) {
                 Object key = iter.next();
                 dictionary.put(key, p_species);
+                index((ChemGraph) key, p_species);
             }
         } else {
             dictionary.put(p_species.getChemGraph(), p_species);
+            index(p_species.getChemGraph(), p_species);
         }
         // update the cache
         cache.add(p_species); // add to the end of the list
@@ -238,8 +280,10 @@ public class SpeciesDictionary {
 
     // ## operation remove(ChemGraph)
     public void remove(ChemGraph p_chemGraph) {
-        if (p_chemGraph != null)
+        if (p_chemGraph != null) {
             dictionary.remove(p_chemGraph);
+            unindex(p_chemGraph);
+        }
         // why don't we waint to throw an exception if we have a null pointer?
     }
 
@@ -264,6 +308,16 @@ public class SpeciesDictionary {
         return dictionary.size();
         // #]
     }
+
+    private static class IndexEntry {
+        private ChemGraph chemGraph;
+        private Species species;
+
+        private IndexEntry(ChemGraph p_chemGraph, Species p_species) {
+            chemGraph = p_chemGraph;
+            species = p_species;
+        }
+    }
 }
 /*********************************************************************
  * File Path : RMG\RMG\jing\chem\SpeciesDictionary.java
@@ -1110,6 +1110,20 @@ public class ChemParser {
         // #]
     }
 
+    /**
+     * Requires: Effects: return the lines of the next adjacency list in p_reader, i.e. the uncommented lines up to the
+     * next empty line or the end of file. The lines can be turned into a graph with ParsedAdjList. Modifies: p_reader
+     */
+    public static List readAdjListLines(BufferedReader p_reader) {
+        ArrayList lines = new ArrayList();
+        String line = readUncommentLine(p_reader);
+        while (line != null) {
+            lines.add(line);
+            line = readUncommentLine(p_reader);
+        }
+        return lines;
+    }
+
     public static Graph readAdjList(String adjlist) {
         // Initialize Graph
         Graph g = new Graph();
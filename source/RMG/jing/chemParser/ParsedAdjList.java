@@ -0,0 +1,226 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chemParser;
+
+import java.util.*;
+import jing.chem.*;
+import jing.chemUtil.*;
+
+// ## package jing::chemParser
+// ----------------------------------------------------------------------------
+// jing\chemParser\ParsedAdjList.java
+// ----------------------------------------------------------------------------
+/**
+ * The tokenized form of one adjacency list, held in flat pre-sized arrays. parse() only does string scanning and
+ * touches no shared state, so many adjacency lists can be parsed on different threads at once; toGraph() looks up the
+ * atom and bond symbols and builds the Graph in one pass with Graph.make(), and must be called from a single thread
+ * because the element dictionaries are not synchronized.
+ */
+// ## class ParsedAdjList
+public class ParsedAdjList {
+    private int nodeNumber = 0;
+    private int[] IDs;
+    private int[] centralIDs;
+    private String[] elementNames;
+    private String[] radicals;
+    private int arcNumber = 0;
+    private int[] arcNodes;
+    private String[] bondNames;
+
+    private ParsedAdjList(int p_lineNumber) {
+        IDs = new int[p_lineNumber];
+        centralIDs = new int[p_lineNumber];
+        elementNames = new String[p_lineNumber];
+        radicals = new String[p_lineNumber];
+        // a heavy atom rarely has more than four bonds, so this seldom needs to grow
+        arcNodes = new int[4 * p_lineNumber];
+        bondNames = new String[2 * p_lineNumber];
+    }
+
+    /**
+     * Requires: p_lines holds the lines of one adjacency list, without the species name and without blank lines.
+     * Effects: tokenize the lines in the same format accepted by ChemParser.readChemGraph(). As in readChemGraph(), a
+     * bond is recorded only when its other node has already been read, so each bond listed twice is stored once.
+     * Modifies:
+     */
+    public static ParsedAdjList parse(List p_lines)
+            throws InvalidGraphFormatException {
+        ParsedAdjList result = new ParsedAdjList(p_lines.size());
+        int centralID = -1;
+        for (Iterator iter = p_lines.iterator(); iter.hasNext();) {
+            String line = (String) iter.next();
+            int[] pos = { 0 };
+            String index = nextToken(line, pos);
+            if (index == null)
+                throw new InvalidGraphFormatException("empty adjacency line");
+            if (index.endsWith("."))
+                index = index.substring(0, index.length() - 1);
+            int n = result.nodeNumber;
+            try {
+                result.IDs[n] = Integer.parseInt(index);
+            } catch (NumberFormatException e) {
+                throw new InvalidGraphFormatException("node ID: " + index);
+            }
+            String name = nextToken(line, pos);
+            if ("*".equals(name)) {
+                if (centralID == -1)
+                    centralID = 1;
+                else
+                    centralID++;
+                result.centralIDs[n] = centralID;
+                name = nextToken(line, pos);
+            } else {
+                result.centralIDs[n] = -1;
+            }
+            String radical = nextToken(line, pos);
+            if (name == null || radical == null)
+                throw new InvalidGraphFormatException(line);
+            result.elementNames[n] = name;
+            result.radicals[n] = radical;
+            result.nodeNumber++;
+            // read in the bonds connected to present node site
+            String bondPair = nextToken(line, pos);
+            while (bondPair != null) {
+                bondPair = ChemParser.removeBrace(bondPair);
+                int comma = bondPair.indexOf(',');
+                if (comma < 0)
+                    throw new InvalidGraphFormatException("bond: " + bondPair);
+                int otherID;
+                try {
+                    otherID = Integer.parseInt(bondPair.substring(0, comma)
+                            .trim());
+                } catch (NumberFormatException e) {
+                    throw new InvalidGraphFormatException("bond: " + bondPair);
+                }
+                int other = result.positionOf(otherID, n);
+                if (other >= 0)
+                    result.addArc(other, n, bondPair.substring(comma + 1)
+                            .trim());
+                bondPair = nextToken(line, pos);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Requires: Effects: as parse(List), for an adjacency list held in one string with one node per line. Empty lines
+     * are skipped. Modifies:
+     */
+    public static ParsedAdjList parse(String p_adjList)
+            throws InvalidGraphFormatException {
+        ArrayList lines = new ArrayList();
+        StringTokenizer st = new StringTokenizer(p_adjList, "\r\n");
+        while (st.hasMoreTokens()) {
+            String line = st.nextToken().trim();
+            if (line.length() > 0)
+                lines.add(line);
+        }
+        return parse(lines);
+    }
+
+    /**
+     * Requires: Effects: resolve the atom and bond symbols and return the corresponding graph, or null if the
+     * adjacency list was empty. The Fg elements of the nodes are identified, as in ChemParser.readChemGraph().
+     * Modifies:
+     */
+    public Graph toGraph() throws InvalidGraphFormatException {
+        if (nodeNumber == 0)
+            return null;
+        Object[] atoms = new Object[nodeNumber];
+        for (int i = 0; i < nodeNumber; i++) {
+            Object atom = ChemParser.readChemNodeElement(elementNames[i],
+                    radicals[i]);
+            if (!(atom instanceof Atom))
+                throw new InvalidGraphFormatException("atom: "
+                        + elementNames[i]);
+            atoms[i] = atom;
+        }
+        Object[] bonds = new Object[arcNumber];
+        for (int j = 0; j < arcNumber; j++) {
+            try {
+                bonds[j] = Bond.make(bondNames[j]);
+            } catch (UnknownSymbolException e) {
+                throw new InvalidGraphFormatException("bond: " + bondNames[j]);
+            }
+        }
+        Graph g = Graph.make(IDs, atoms, centralIDs, nodeNumber, arcNodes,
+                bonds, arcNumber);
+        g.identifyFgElement();
+        return g;
+    }
+
+    public int getNodeNumber() {
+        return nodeNumber;
+    }
+
+    public int getArcNumber() {
+        return arcNumber;
+    }
+
+    private int positionOf(int p_ID, int p_before) {
+        for (int i = 0; i < p_before; i++) {
+            if (IDs[i] == p_ID)
+                return i;
+        }
+        return -1;
+    }
+
+    private void addArc(int p_node1, int p_node2, String p_bondName) {
+        if (arcNumber == bondNames.length) {
+            int[] newArcNodes = new int[2 * arcNodes.length];
+            System.arraycopy(arcNodes, 0, newArcNodes, 0, arcNodes.length);
+            arcNodes = newArcNodes;
+            String[] newBondNames = new String[2 * bondNames.length];
+            System.arraycopy(bondNames, 0, newBondNames, 0, bondNames.length);
+            bondNames = newBondNames;
+        }
+        arcNodes[2 * arcNumber] = p_node1;
+        arcNodes[2 * arcNumber + 1] = p_node2;
+        bondNames[arcNumber] = p_bondName;
+        arcNumber++;
+    }
+
+    /**
+     * Return the next whitespace-delimited token of p_line starting at p_pos[0], and advance p_pos[0] past it. Return
+     * null at the end of the line.
+     */
+    private static String nextToken(String p_line, int[] p_pos) {
+        int length = p_line.length();
+        int begin = p_pos[0];
+        while (begin < length && Character.isWhitespace(p_line.charAt(begin)))
+            begin++;
+        if (begin == length) {
+            p_pos[0] = length;
+            return null;
+        }
+        int end = begin;
+        while (end < length && !Character.isWhitespace(p_line.charAt(end)))
+            end++;
+        p_pos[0] = end;
+        return p_line.substring(begin, end);
+    }
+}
@@ -0,0 +1,160 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chemParser;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// ## package jing::chemParser
+// ----------------------------------------------------------------------------
+// jing\chemParser\SpeciesBatchReader.java
+// ----------------------------------------------------------------------------
+/**
+ * Streams a species file in chunks, for tools that estimate properties of very large numbers of species. Each record is
+ * a name line followed either by an adjacency list or by a single "InChI=..." line (a lone "InChI=..." line is its own
+ * name), and records are separated by empty lines. The file is read on the calling thread while the adjacency lists of
+ * up to one chunk per thread are tokenized ahead on a fixed thread pool, so only a bounded number of records is ever
+ * held in memory.
+ */
+// ## class SpeciesBatchReader
+public class SpeciesBatchReader {
+    private BufferedReader reader;
+    private int chunkSize;
+    private int maxPendingChunks;
+    private ExecutorService pool;
+    private LinkedList pendingChunks = new LinkedList();
+    private boolean endOfInput = false;
+
+    public SpeciesBatchReader(BufferedReader p_reader, int p_chunkSize,
+            int p_threads) {
+        reader = p_reader;
+        chunkSize = Math.max(1, p_chunkSize);
+        maxPendingChunks = Math.max(1, p_threads) + 1;
+        pool = Executors.newFixedThreadPool(Math.max(1, p_threads));
+    }
+
+    /**
+     * Return the next chunk of records, as a List of Entry in input order, or null when the input is exhausted.
+     */
+    public List nextChunk() throws IOException {
+        while (!endOfInput && pendingChunks.size() < maxPendingChunks)
+            readChunk();
+        if (pendingChunks.isEmpty())
+            return null;
+        try {
+            return (List) ((Future) pendingChunks.removeFirst()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading species");
+        } catch (ExecutionException e) {
+            throw new IOException("Couldn't read species: "
+                    + e.getCause().toString());
+        }
+    }
+
+    public void close() {
+        pool.shutdownNow();
+        try {
+            reader.close();
+        } catch (IOException e) {
+            // nothing more can be read anyway
+        }
+    }
+
+    private void readChunk() {
+        final ArrayList chunk = new ArrayList(chunkSize);
+        while (chunk.size() < chunkSize) {
+            String name = ChemParser.readMeaningfulLine(reader, true);
+            if (name == null) {
+                endOfInput = true;
+                break;
+            }
+            chunk.add(new Entry(name, ChemParser.readAdjListLines(reader)));
+        }
+        if (chunk.isEmpty())
+            return;
+        pendingChunks.add(pool.submit(new Callable() {
+            public Object call() {
+                for (Iterator iter = chunk.iterator(); iter.hasNext();)
+                    ((Entry) iter.next()).parse();
+                return chunk;
+            }
+        }));
+    }
+
+    /**
+     * One record of the species file. After parsing, exactly one of getInChI(), getParsedAdjList() and getError() is
+     * non-null.
+     */
+    public static class Entry {
+        private String name;
+        private List lines;
+        private String inchi = null;
+        private ParsedAdjList adjList = null;
+        private String error = null;
+
+        private Entry(String p_name, List p_lines) {
+            name = p_name;
+            lines = p_lines;
+        }
+
+        private void parse() {
+            if (lines.isEmpty() && name.startsWith("InChI="))
+                inchi = name;
+            else if (lines.size() == 1
+                    && ((String) lines.get(0)).startsWith("InChI="))
+                inchi = (String) lines.get(0);
+            else if (lines.isEmpty())
+                error = "no adjacency list";
+            else {
+                try {
+                    adjList = ParsedAdjList.parse(lines);
+                } catch (RuntimeException e) {
+                    error = "invalid adjacency list: " + e.getMessage();
+                }
+            }
+            lines = null;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getInChI() {
+            return inchi;
+        }
+
+        public ParsedAdjList getParsedAdjList() {
+            return adjList;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
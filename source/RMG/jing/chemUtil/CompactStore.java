@@ -0,0 +1,243 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chemUtil;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+// ## package jing::chemUtil
+// ----------------------------------------------------------------------------
+// jing\chemUtil\CompactStore.java
+// ----------------------------------------------------------------------------
+/**
+ * Off-heap storage for packed data that is only needed now and then, such as the graphs and NASA polynomials of edge
+ * species (see Species.compact()). The records are kept in direct ByteBuffers, outside the Java heap, in slots of
+ * SLOT_SIZE bytes taken from chunks of CHUNK_SIZE bytes; on the heap each record is a Record of a few dozen bytes.
+ * Every record belongs to an owner object. Its slots are reused for another record of the same size once it is freed,
+ * or once its owner has been garbage collected.<br>
+ * The store also numbers the elements of packed graphs (Atoms and Bonds, which are shared by all graphs), so that a
+ * packed graph can refer to them by index.
+ */
+// ## class CompactStore
+public class CompactStore {
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOTS_PER_CHUNK = 1 << 16;
+    private static final int CHUNK_SIZE = SLOT_SIZE * SLOTS_PER_CHUNK;
+    // the largest record, in slots; larger data isn't stored
+    private static final int MAX_RECORD_SLOTS = 4096;
+    // the most distinct elements the packed graphs can refer to
+    private static final int MAX_ELEMENT_NUMBER = Short.MAX_VALUE;
+    private static ArrayList chunks = new ArrayList();
+    // the number of slots used so far in the last chunk
+    private static int usedSlots = SLOTS_PER_CHUNK;
+    // the first slots of the free records, by record size in slots
+    private static int[][] freeRecords = new int[MAX_RECORD_SLOTS + 1][];
+    private static int[] freeRecordNumber = new int[MAX_RECORD_SLOTS + 1];
+    private static ReferenceQueue collectedOwners = new ReferenceQueue();
+    // the records that are in use, linked together so that they stay reachable while their owners are
+    private static Record liveRecords = null;
+    private static long storedBytes = 0;
+    private static ArrayList elements = new ArrayList();
+    private static IdentityHashMap elementIndex = new IdentityHashMap();
+
+    // Constructors
+    private CompactStore() {
+    }
+
+    /**
+     * Requires: Effects: store a copy of p_data for p_owner and return its record, or return null if p_data is too
+     * large to be stored. Modifies: this
+     */
+    // ## operation put(Object,byte [])
+    public static synchronized Record put(Object p_owner, byte[] p_data) {
+        // #[ operation put(Object,byte [])
+        reclaim();
+        int slots = (p_data.length + SLOT_SIZE - 1) / SLOT_SIZE;
+        if (slots == 0)
+            slots = 1;
+        if (slots > MAX_RECORD_SLOTS)
+            return null;
+        int first;
+        if (freeRecordNumber[slots] > 0) {
+            first = freeRecords[slots][--freeRecordNumber[slots]];
+        } else {
+            if (usedSlots + slots > SLOTS_PER_CHUNK) {
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE));
+                usedSlots = 0;
+            }
+            first = (chunks.size() - 1) * SLOTS_PER_CHUNK + usedSlots;
+            usedSlots += slots;
+        }
+        ByteBuffer chunk = (ByteBuffer) chunks.get(first / SLOTS_PER_CHUNK);
+        chunk.position((first % SLOTS_PER_CHUNK) * SLOT_SIZE);
+        chunk.put(p_data);
+        Record record = new Record(p_owner, first, p_data.length);
+        record.next = liveRecords;
+        if (liveRecords != null)
+            liveRecords.previous = record;
+        liveRecords = record;
+        storedBytes += p_data.length;
+        return record;
+        // #]
+    }
+
+    /**
+     * Requires: p_record has not been freed. Effects: return a copy of the data stored in p_record. Modifies:
+     */
+    // ## operation get(Record)
+    public static synchronized byte[] get(Record p_record) {
+        // #[ operation get(Record)
+        return get(p_record, p_record.length);
+        // #]
+    }
+
+    /**
+     * Requires: p_record has not been freed. Effects: return a copy of the first p_length bytes stored in p_record, or
+     * of all of them if there are fewer. Modifies:
+     */
+    // ## operation get(Record,int)
+    public static synchronized byte[] get(Record p_record, int p_length) {
+        // #[ operation get(Record,int)
+        if (p_record.first < 0)
+            throw new IllegalStateException("CompactStore record has been freed");
+        byte[] data = new byte[Math.min(p_length, p_record.length)];
+        ByteBuffer chunk = (ByteBuffer) chunks.get(p_record.first
+                / SLOTS_PER_CHUNK);
+        chunk.position((p_record.first % SLOTS_PER_CHUNK) * SLOT_SIZE);
+        chunk.get(data);
+        return data;
+        // #]
+    }
+
+    /**
+     * Requires: Effects: release the slots of p_record for reuse. Does nothing if p_record is null or already freed.
+     * Modifies: this
+     */
+    // ## operation free(Record)
+    public static synchronized void free(Record p_record) {
+        // #[ operation free(Record)
+        if (p_record == null || p_record.first < 0)
+            return;
+        p_record.clear();
+        release(p_record);
+        // #]
+    }
+
+    /**
+     * Return the number of bytes of the records that are stored.
+     */
+    public static synchronized long getStoredBytes() {
+        reclaim();
+        return storedBytes;
+    }
+
+    /**
+     * Return the number of bytes of off-heap memory taken by the store.
+     */
+    public static synchronized long getAllocatedBytes() {
+        return (long) chunks.size() * CHUNK_SIZE;
+    }
+
+    /**
+     * Requires: Effects: return the index of p_element among the elements that packed graphs refer to, adding it if
+     * it isn't there yet, or return -1 if no more elements can be added. Elements are compared by identity. Modifies:
+     * this
+     */
+    static synchronized int indexElement(Object p_element) {
+        Integer index = (Integer) elementIndex.get(p_element);
+        if (index != null)
+            return index.intValue();
+        if (elements.size() >= MAX_ELEMENT_NUMBER)
+            return -1;
+        elements.add(p_element);
+        elementIndex.put(p_element, new Integer(elements.size() - 1));
+        return elements.size() - 1;
+    }
+
+    /**
+     * Return the element with index p_index (see indexElement()).
+     */
+    static synchronized Object getElement(int p_index) {
+        return elements.get(p_index);
+    }
+
+    // free the records whose owners have been garbage collected
+    private static void reclaim() {
+        Record record;
+        while ((record = (Record) collectedOwners.poll()) != null) {
+            if (record.first >= 0)
+                release(record);
+        }
+    }
+
+    private static void release(Record p_record) {
+        int slots = (p_record.length + SLOT_SIZE - 1) / SLOT_SIZE;
+        if (slots == 0)
+            slots = 1;
+        int[] free = freeRecords[slots];
+        if (free == null) {
+            free = new int[16];
+            freeRecords[slots] = free;
+        } else if (freeRecordNumber[slots] == free.length) {
+            free = Arrays.copyOf(free, 2 * free.length);
+            freeRecords[slots] = free;
+        }
+        free[freeRecordNumber[slots]++] = p_record.first;
+        if (p_record.previous != null)
+            p_record.previous.next = p_record.next;
+        else
+            liveRecords = p_record.next;
+        if (p_record.next != null)
+            p_record.next.previous = p_record.previous;
+        p_record.previous = null;
+        p_record.next = null;
+        p_record.first = -1;
+        storedBytes -= p_record.length;
+    }
+
+    /**
+     * The heap side of a stored record: where its data is, and the owner it is freed with.
+     */
+    public static final class Record extends PhantomReference {
+        // the first slot of the record, or -1 once it is freed
+        private int first;
+        private int length;
+        private Record previous = null;
+        private Record next = null;
+
+        private Record(Object p_owner, int p_first, int p_length) {
+            super(p_owner, collectedOwners);
+            first = p_first;
+            length = p_length;
+        }
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\chemUtil\CompactStore.java
+ *********************************************************************/
@@ -28,6 +28,7 @@ package jing.chemUtil;
 
 import jing.chem.*;
 import jing.mathTool.MathTool;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import jing.rxnSys.Logger;
@@ -54,6 +55,7 @@ public class Graph {
     private ArrayList arcList;
     private LinkedHashMap nodeList;
     private boolean[] isAromatic;
+    private GraphFingerprint fingerprint = null;
 
     // Constructors
     // ## operation Graph()
@@ -67,6 +69,15 @@ public class Graph {
         centralNode = new LinkedHashMap();
     }
 
+    /**
+     * Create an empty graph whose node and arc collections are pre-sized for p_nodeNumber nodes and p_arcNumber arcs.
+     */
+    private Graph(int p_nodeNumber, int p_arcNumber) {
+        arcList = new ArrayList(p_arcNumber);
+        nodeList = new LinkedHashMap(2 * p_nodeNumber + 1);
+        centralNode = new LinkedHashMap();
+    }
+
     /**
      * Add a new arc with p_arcElement to connect those two nodes on those p_positions. if there are no nodes on those
      * p_positions, throw NotInGraphException.<br>
@@ -107,6 +118,7 @@ public class Graph {
         if (arc == null) {
             arc = new Arc(p_arcElement);
             arcList.add(arc);
+            fingerprint = null;
             connect(p_node1, arc, p_node2);
             return arc;
         } else {
@@ -197,6 +209,7 @@ public class Graph {
             throw new PositionOccupiedException("node");
         }
         updateHighestNodeID(p_position);
+        fingerprint = null;
         return node;
     }
 
@@ -218,6 +231,7 @@ public class Graph {
         Node node = new Node(p_position, p_nodeElement);
         nodeList.put(node.getID(), node);
         updateHighestNodeID(p_position);
+        fingerprint = null;
         Integer cenID = new Integer(p_centralPosition);
         node.setCentralID(cenID);
         if (p_centralPosition >= 0) {
@@ -325,6 +339,7 @@ public class Graph {
         // #[ operation clearNodeList()
         nodeList.clear();
         highestNodeID = 0;
+        fingerprint = null;
         // #]
     }
 
@@ -335,12 +350,12 @@ public class Graph {
     // ## operation combine(Graph,Graph)
     public static Graph combine(Graph p_g1, Graph p_g2) {
         // #[ operation combine(Graph,Graph)
-        Graph result;
-        Graph temp;
-        result = Graph.copy(p_g1);
-        temp = Graph.copy(p_g2);
+        Graph result = Graph.copy(p_g1);
         int nodeID = result.getHighestNodeID();
-        Iterator iter1 = temp.getNodeList();
+        // the nodes and arcs of p_g2 are copied straight into the result, not into a temporary copy of p_g2 first
+        boolean ringsPerceived = p_g2.SSSRings != null
+                && !p_g2.SSSRings.isEmpty();
+        Iterator iter1 = p_g2.getNodeList();
         while (iter1.hasNext()) {
             Node n = (Node) iter1.next();
             int newID = nodeID + n.getID().intValue();
@@ -359,17 +374,30 @@ public class Graph {
                     }
                 }
             }
-            n.setID(newID);
-            n.setCentralID(newCentralID);
             // add the ID-updated nodes into the combined graph
-            result.nodeList.put(n.getID(), n);
-            result.centralNode.put(n.getCentralID(), n);
-        }
-        Iterator iter2 = temp.getArcList();
+            Node newNode = new Node(newID, n.getElement());
+            newNode.setCentralID(newCentralID);
+            if (ringsPerceived)
+                newNode.setInCycle(n.getInCycle());
+            result.nodeList.put(newNode.getID(), newNode);
+            result.centralNode.put(newNode.getCentralID(), newNode);
+        }
+        Iterator iter2 = p_g2.getArcList();
         while (iter2.hasNext()) {
             Arc a = (Arc) iter2.next();
-            result.arcList.add(a);
-        }
+            Iterator nodeIter = a.getNeighbor();
+            Node n1 = (Node) nodeIter.next();
+            Node n2 = (Node) nodeIter.next();
+            Arc newArc = result.linkCopiedArc(a.getElement(), result
+                    .getNodeAt(nodeID + n1.getID().intValue()), result
+                    .getNodeAt(nodeID + n2.getID().intValue()));
+            if (ringsPerceived)
+                newArc.setInCycle(a.getInCycle());
+        }
+        // the rings copied from p_g1 no longer describe the combined graph; the in-cycle marks are still right
+        result.SSSRings = null;
+        result.isAromatic = null;
+        result.fingerprint = null;
         return result;
         // #]
     }
@@ -381,7 +409,12 @@ public class Graph {
     public void connect(Node p_node1, Arc p_arc, Node p_node2) {
         // #[ operation connect(Node,Arc,Node)
         if (contains(p_node1) && contains(p_arc) && contains(p_node2)) {
+            // an arc between two nodes that already have neighbours may close a ring
+            if (SSSRings != null && p_node1.getNeighborNumber() > 0
+                    && p_node2.getNeighborNumber() > 0)
+                resetRingPerception();
             p_arc.link(p_node1, p_node2);
+            fingerprint = null;
             return;
         } else
             throw new NotInGraphException();
@@ -448,13 +481,85 @@ public class Graph {
             Node n2 = (Node) iter1.next();
             if (iter1.hasNext())
                 throw new InvalidNeighborException();
-            result.addArcBetween(n1.getID().intValue(), a.getElement(), n2
-                    .getID().intValue());
+            result.linkCopiedArc(a.getElement(), result.getNodeAt(n1.getID()),
+                    result.getNodeAt(n2.getID()));
         }
+        result.copyRingPerception(p_graph);
         return result;
         // #]
     }
 
+    /**
+     * Add an arc storing p_arcElement between p_node1 and p_node2, two nodes of this graph that are known not to be
+     * linked yet because they were just copied from a valid graph. This skips the membership and duplicate-arc checks
+     * of addArcBetween(), which scan the whole node list for every arc.<br>
+     * <b>Modifies</b><br>
+     * this.arcList, p_node1, p_node2
+     */
+    private Arc linkCopiedArc(Object p_arcElement, Node p_node1, Node p_node2) {
+        Arc arc = new Arc(p_arcElement);
+        arcList.add(arc);
+        arc.link(p_node1, p_node2);
+        fingerprint = null;
+        return arc;
+    }
+
+    /**
+     * If the rings of p_graph have been perceived, give this graph, a copy of p_graph, the same SSSR, aromatic ring
+     * flags and in-cycle marks, so the ring search doesn't have to be repeated for the copy.<br>
+     * <b>Modifies</b><br>
+     * this.SSSRings, this.isAromatic, the in-cycle status of the nodes and arcs in the rings
+     */
+    private void copyRingPerception(Graph p_graph) {
+        if (p_graph.SSSRings == null || p_graph.SSSRings.isEmpty())
+            return;
+        LinkedList rings = new LinkedList();
+        for (Iterator iter = p_graph.SSSRings.iterator(); iter.hasNext();) {
+            LinkedList ring = (LinkedList) iter.next();
+            LinkedList newRing = new LinkedList();
+            for (Iterator ringIter = ring.iterator(); ringIter.hasNext();) {
+                GraphComponent gc = (GraphComponent) ringIter.next();
+                GraphComponent newGc;
+                if (gc instanceof Node) {
+                    newGc = getNodeAt(((Node) gc).getID());
+                } else {
+                    Iterator nodeIter = gc.getNeighbor();
+                    newGc = getArcBetween(
+                            getNodeAt(((Node) nodeIter.next()).getID()),
+                            getNodeAt(((Node) nodeIter.next()).getID()));
+                }
+                if (newGc == null)
+                    return;
+                newRing.add(newGc);
+            }
+            rings.add(newRing);
+        }
+        SSSRings = rings;
+        acyclic = p_graph.acyclic;
+        if (p_graph.isAromatic != null)
+            isAromatic = (boolean[]) p_graph.isAromatic.clone();
+        for (Iterator iter = rings.iterator(); iter.hasNext();) {
+            for (Iterator ringIter = ((LinkedList) iter.next()).iterator(); ringIter
+                    .hasNext();)
+                ((GraphComponent) ringIter.next()).setInCycle(true);
+        }
+    }
+
+    /**
+     * Drop the perceived rings (SSSR, aromatic ring flags and the in-cycle marks of every node and arc) after a change
+     * that may have opened or closed a ring, so that formSSSR() searches them again on next use.<br>
+     * <b>Modifies</b><br>
+     * this.SSSRings, this.isAromatic, the in-cycle status of all the nodes and arcs in this graph
+     */
+    private void resetRingPerception() {
+        SSSRings = null;
+        isAromatic = null;
+        for (Iterator iter = nodeList.values().iterator(); iter.hasNext();)
+            ((Node) iter.next()).setInCycle(false);
+        for (Iterator iter = arcList.iterator(); iter.hasNext();)
+            ((Arc) iter.next()).setInCycle(false);
+    }
+
     public static Graph copywithSSSR(Graph p_graph) throws InvalidNeighborException {
         // #[ operation copy(Graph)
         Graph result = new Graph();
@@ -484,6 +589,254 @@ public class Graph {
         // #]
     }
 
+    /**
+     * Build a graph in one pass from flat arrays, without the per-call membership checks of addNodeAt() and
+     * addArcBetween(). Node i has ID p_IDs[i], element p_nodeElements[i] and central ID p_centralIDs[i] (a value <= 0
+     * means the node is not central). Arc j connects the nodes at array positions p_arcNodes[2j] and p_arcNodes[2j+1]
+     * and stores p_arcElements[j]. Duplicate node IDs, duplicate central IDs and repeated arcs are still rejected with
+     * PositionOccupiedException.<br>
+     * <b>Modifies</b><br>
+     * nothing
+     */
+    public static Graph make(int[] p_IDs, Object[] p_nodeElements,
+            int[] p_centralIDs, int p_nodeNumber, int[] p_arcNodes,
+            Object[] p_arcElements, int p_arcNumber) {
+        Graph result = new Graph(p_nodeNumber, p_arcNumber);
+        Node[] nodes = new Node[p_nodeNumber];
+        for (int i = 0; i < p_nodeNumber; i++) {
+            Node node = new Node(p_IDs[i], p_nodeElements[i]);
+            if (result.nodeList.put(node.getID(), node) != null)
+                throw new PositionOccupiedException("node: " + "node ID = "
+                        + p_IDs[i]);
+            result.updateHighestNodeID(p_IDs[i]);
+            if (p_centralIDs[i] > 0) {
+                Integer cenID = new Integer(p_centralIDs[i]);
+                node.setCentralID(cenID);
+                if (result.centralNode.put(cenID, node) != null)
+                    throw new PositionOccupiedException("central node: "
+                            + "node ID = " + p_IDs[i] + "Central ID = "
+                            + p_centralIDs[i]);
+                result.updateHighestCentralID(p_centralIDs[i]);
+                result.updateLowestCentralID(p_centralIDs[i]);
+            }
+            nodes[i] = node;
+        }
+        for (int j = 0; j < p_arcNumber; j++) {
+            Node n1 = nodes[p_arcNodes[2 * j]];
+            Node n2 = nodes[p_arcNodes[2 * j + 1]];
+            Iterator iter = n1.getNeighbor();
+            while (iter.hasNext()) {
+                if (((Arc) iter.next()).isConnected(n2))
+                    throw new PositionOccupiedException("arc");
+            }
+            Arc arc = new Arc(p_arcElements[j]);
+            result.arcList.add(arc);
+            arc.link(n1, n2);
+        }
+        return result;
+    }
+
+    /**
+     * Encode this graph for CompactStore: the nodes in order with their IDs, elements and arcs in neighbor order, the
+     * arcs in order with the positions of their two nodes and their elements, the central nodes in order, and the
+     * perceived rings with their aromatic flags. unpack() rebuilds an identical graph from the result. Return null if
+     * this graph has state the encoding doesn't keep (central arcs, central IDs out of step with the central node map,
+     * in-cycle marks that don't match the rings) or values too large for it.<br>
+     * <b>Modifies</b><br>
+     * CompactStore's element table
+     */
+    public byte[] pack() {
+        int nodeNumber = nodeList.size();
+        int arcNumber = arcList.size();
+        if (nodeNumber > Short.MAX_VALUE || arcNumber > Short.MAX_VALUE
+                || highestNodeID > Short.MAX_VALUE
+                || highestCentralID > Short.MAX_VALUE
+                || lowestCentralID > Short.MAX_VALUE)
+            return null;
+        // node i is at position i, arc j at position -1-j
+        IdentityHashMap position = new IdentityHashMap(2 * (nodeNumber + arcNumber));
+        int i = 0;
+        int neighborNumber = 0;
+        for (Iterator iter = nodeList.values().iterator(); iter.hasNext(); i++) {
+            Node node = (Node) iter.next();
+            position.put(node, new Integer(i));
+            neighborNumber += node.getNeighborNumber();
+        }
+        // every arc is a neighbor of its two nodes
+        if (neighborNumber != 2 * arcNumber)
+            return null;
+        int j = 0;
+        for (Iterator iter = arcList.iterator(); iter.hasNext(); j++)
+            position.put(iter.next(), new Integer(-1 - j));
+        int size = 13 + 6 * nodeNumber + 10 * arcNumber + 4 * centralNode.size();
+        if (SSSRings != null) {
+            size += 2;
+            for (Iterator iter = SSSRings.iterator(); iter.hasNext();)
+                size += 2 + 2 * ((LinkedList) iter.next()).size();
+        }
+        if (isAromatic != null)
+            size += 2 + isAromatic.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short) nodeNumber);
+        buffer.putShort((short) arcNumber);
+        buffer.putShort((short) highestNodeID);
+        buffer.putShort((short) highestCentralID);
+        buffer.putShort((short) lowestCentralID);
+        buffer.put((byte) ((acyclic ? 1 : 0) | (SSSRings != null ? 2 : 0) | (isAromatic != null ? 4 : 0)));
+        int centralNumber = 0;
+        for (Iterator iter = nodeList.values().iterator(); iter.hasNext();) {
+            Node node = (Node) iter.next();
+            int ID = node.getID().intValue();
+            int centralID = node.getCentralID().intValue();
+            int element = CompactStore.indexElement(node.getElement());
+            if (ID > Short.MAX_VALUE || element < 0)
+                return null;
+            if (centralID != -1) {
+                if (centralNode.get(node.getCentralID()) != node)
+                    return null;
+                centralNumber++;
+            }
+            buffer.putShort((short) ID);
+            buffer.putShort((short) element);
+            buffer.putShort((short) node.getNeighborNumber());
+            for (Iterator arcIter = node.getNeighbor(); arcIter.hasNext();) {
+                Integer arcPosition = (Integer) position.get(arcIter.next());
+                if (arcPosition == null || arcPosition.intValue() >= 0)
+                    return null;
+                buffer.putShort(arcPosition.shortValue());
+            }
+        }
+        // the central node map holds exactly the nodes with a central ID
+        if (centralNumber != centralNode.size())
+            return null;
+        for (Iterator iter = arcList.iterator(); iter.hasNext();) {
+            Arc arc = (Arc) iter.next();
+            int element = CompactStore.indexElement(arc.getElement());
+            if (arc.getCentralID().intValue() != -1 || element < 0
+                    || arc.getNeighborNumber() != 2)
+                return null;
+            Iterator nodeIter = arc.getNeighbor();
+            Integer position1 = (Integer) position.get(nodeIter.next());
+            Integer position2 = (Integer) position.get(nodeIter.next());
+            if (position1 == null || position2 == null
+                    || position1.intValue() < 0 || position2.intValue() < 0)
+                return null;
+            buffer.putShort(position1.shortValue());
+            buffer.putShort(position2.shortValue());
+            buffer.putShort((short) element);
+        }
+        buffer.putShort((short) centralNumber);
+        for (Iterator iter = centralNode.values().iterator(); iter.hasNext();) {
+            Node node = (Node) iter.next();
+            buffer.putShort(node.getCentralID().shortValue());
+            buffer.putShort(((Integer) position.get(node)).shortValue());
+        }
+        IdentityHashMap inRing = new IdentityHashMap();
+        if (SSSRings != null) {
+            buffer.putShort((short) SSSRings.size());
+            for (Iterator iter = SSSRings.iterator(); iter.hasNext();) {
+                LinkedList ring = (LinkedList) iter.next();
+                buffer.putShort((short) ring.size());
+                for (Iterator ringIter = ring.iterator(); ringIter.hasNext();) {
+                    Object gc = ringIter.next();
+                    Integer gcPosition = (Integer) position.get(gc);
+                    if (gcPosition == null)
+                        return null;
+                    buffer.putShort(gcPosition.shortValue());
+                    inRing.put(gc, gc);
+                }
+            }
+        }
+        for (Iterator iter = position.keySet().iterator(); iter.hasNext();) {
+            GraphComponent gc = (GraphComponent) iter.next();
+            if (gc.getInCycle() != inRing.containsKey(gc))
+                return null;
+        }
+        if (isAromatic != null) {
+            buffer.putShort((short) isAromatic.length);
+            for (int k = 0; k < isAromatic.length; k++)
+                buffer.put((byte) (isAromatic[k] ? 1 : 0));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Rebuild the graph encoded by pack().<br>
+     * <b>Modifies</b><br>
+     * nothing
+     */
+    public static Graph unpack(byte[] p_data) {
+        ByteBuffer buffer = ByteBuffer.wrap(p_data);
+        int nodeNumber = buffer.getShort();
+        int arcNumber = buffer.getShort();
+        int highestNodeID = buffer.getShort();
+        int highestCentralID = buffer.getShort();
+        int lowestCentralID = buffer.getShort();
+        int flags = buffer.get();
+        int[] IDs = new int[nodeNumber];
+        Object[] nodeElements = new Object[nodeNumber];
+        int[] centralIDs = new int[nodeNumber];
+        short[][] neighbors = new short[nodeNumber][];
+        for (int i = 0; i < nodeNumber; i++) {
+            IDs[i] = buffer.getShort();
+            nodeElements[i] = CompactStore.getElement(buffer.getShort());
+            centralIDs[i] = -1;
+            neighbors[i] = new short[buffer.getShort()];
+            for (int k = 0; k < neighbors[i].length; k++)
+                neighbors[i][k] = buffer.getShort();
+        }
+        int[] arcNodes = new int[2 * arcNumber];
+        Object[] arcElements = new Object[arcNumber];
+        for (int j = 0; j < arcNumber; j++) {
+            arcNodes[2 * j] = buffer.getShort();
+            arcNodes[2 * j + 1] = buffer.getShort();
+            arcElements[j] = CompactStore.getElement(buffer.getShort());
+        }
+        Graph result = make(IDs, nodeElements, centralIDs, nodeNumber,
+                arcNodes, arcElements, arcNumber);
+        Node[] nodes = (Node[]) result.nodeList.values().toArray(
+                new Node[nodeNumber]);
+        // make() links the arcs of each node in arc order, which changes on arc removal
+        for (int i = 0; i < nodeNumber; i++) {
+            nodes[i].neighbor.clear();
+            for (int k = 0; k < neighbors[i].length; k++)
+                nodes[i].neighbor.add(result.arcList.get(-1 - neighbors[i][k]));
+        }
+        int centralNumber = buffer.getShort();
+        for (int k = 0; k < centralNumber; k++) {
+            Integer centralID = new Integer(buffer.getShort());
+            Node node = nodes[buffer.getShort()];
+            node.setCentralID(centralID);
+            result.centralNode.put(centralID, node);
+        }
+        result.highestNodeID = highestNodeID;
+        result.highestCentralID = highestCentralID;
+        result.lowestCentralID = lowestCentralID;
+        result.acyclic = (flags & 1) != 0;
+        if ((flags & 2) != 0) {
+            result.SSSRings = new LinkedList();
+            int ringNumber = buffer.getShort();
+            for (int k = 0; k < ringNumber; k++) {
+                LinkedList ring = new LinkedList();
+                int ringSize = buffer.getShort();
+                for (int m = 0; m < ringSize; m++) {
+                    int gcPosition = buffer.getShort();
+                    GraphComponent gc = (GraphComponent) (gcPosition >= 0 ? nodes[gcPosition]
+                            : result.arcList.get(-1 - gcPosition));
+                    gc.setInCycle(true);
+                    ring.add(gc);
+                }
+                result.SSSRings.add(ring);
+            }
+        }
+        if ((flags & 4) != 0) {
+            result.isAromatic = new boolean[buffer.getShort()];
+            for (int k = 0; k < result.isAromatic.length; k++)
+                result.isAromatic[k] = buffer.get() != 0;
+        }
+        return result;
+    }
+
     /*
      * /** Recursive function to identify possible cycle starting from p_node. Add identified cycle to this.cycle.<br>
      * <b>Modifies</b><br> this.cycle. visited status of nodes and arcs.
@@ -1175,6 +1528,81 @@ public class Graph {
         // #]
     }
 
+    /**
+     * Return the fingerprint of this graph, building it on first use. The fingerprint is dropped whenever nodes or arcs
+     * are added or removed; code that changes the element stored on an existing node or arc must call
+     * resetFingerprint().
+     */
+    // ## operation getFingerprint()
+    public GraphFingerprint getFingerprint() {
+        // #[ operation getFingerprint()
+        if (fingerprint == null)
+            fingerprint = GraphFingerprint.make(this);
+        return fingerprint;
+        // #]
+    }
+
+    /**
+     * Drop the cached fingerprint, so it is rebuilt from the current node and arc elements on next use.
+     */
+    // ## operation resetFingerprint()
+    public void resetFingerprint() {
+        // #[ operation resetFingerprint()
+        fingerprint = null;
+        // #]
+    }
+
+    /**
+     * Return a 64-bit key of this graph that depends only on the node and arc elements and on how they are connected,
+     * not on the node IDs, the central IDs or the order of the node and arc lists. Graphs that are isEquivalent() always
+     * get the same key; different graphs may share a key too, so a key match has to be confirmed with isEquivalent().
+     * <br>
+     * <b>Modifies</b><br>
+     * nothing
+     */
+    // ## operation getInvariantKey()
+    public long getInvariantKey() {
+        // #[ operation getInvariantKey()
+        long key = mixKey(getNodeNumber());
+        Iterator iter = getNodeList();
+        while (iter.hasNext()) {
+            Node node = (Node) iter.next();
+            // each node contributes its own element and the (bond, neighbour element) pairs around it
+            long nodeKey = mixKey(elementKey(node.getElement()));
+            Iterator arcIter = node.getNeighbor();
+            while (arcIter.hasNext()) {
+                Arc arc = (Arc) arcIter.next();
+                nodeKey += mixKey(31L * elementKey(arc.getElement())
+                        + elementKey(node.getOtherNode(arc).getElement()));
+            }
+            key += mixKey(nodeKey);
+        }
+        return key;
+        // #]
+    }
+
+    private static long elementKey(Object p_element) {
+        if (p_element instanceof ChemNodeElement)
+            return ((ChemNodeElement) p_element).getName().hashCode();
+        if (p_element instanceof Bond)
+            return ((Bond) p_element).getName().hashCode();
+        if (p_element instanceof Collection) {
+            long key = 0;
+            for (Iterator iter = ((Collection) p_element).iterator(); iter
+                    .hasNext();)
+                key += mixKey(elementKey(iter.next()));
+            return key;
+        }
+        return p_element == null ? 0 : p_element.hashCode();
+    }
+
+    private static long mixKey(long p_value) {
+        long h = p_value * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 31);
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+
     /**
      * Return the node with p_centralID as centralID in centralNode list
      */
@@ -1812,6 +2240,8 @@ public class Graph {
         // #[ operation removeArc(Arc)
         if (!contains(p_arc))
             throw new NotInGraphException();
+        if (p_arc.getInCycle())
+            resetRingPerception();
         // remove p_arc from all the node's neighbor collection if the node connect to p_arc
         Iterator iter = p_arc.getNeighbor();
         while (iter.hasNext()) {
@@ -1819,6 +2249,7 @@ public class Graph {
             node.neighbor.remove(p_arc);
         }
         arcList.remove(p_arc);
+        fingerprint = null;
         p_arc = null;
         // #]
     }
@@ -1851,6 +2282,8 @@ public class Graph {
         // #[ operation removeNode(Node)
         if (!contains(p_node))
             throw new NotInGraphException();
+        if (p_node.getInCycle())
+            resetRingPerception();
         Stack stack = new Stack();
         // find all arc linked to this removed node
         Iterator iter = p_node.getNeighbor();
@@ -1864,6 +2297,7 @@ public class Graph {
         }
         // remove this node
         nodeList.remove(p_node.getID());
+        fingerprint = null;
         if (p_node.getID().intValue() >= highestNodeID) {
             refreshHighestNodeID();
         }
@@ -1882,6 +2316,8 @@ public class Graph {
         // #[ operation removeNode(Node)
         if (!contains(p_node))
             throw new NotInGraphException();
+        if (p_node.getInCycle())
+            resetRingPerception();
         Stack stack = new Stack();
         // find all arc linked to this removed node
         Iterator iter = p_node.getNeighbor();
@@ -1895,6 +2331,7 @@ public class Graph {
         }
         // remove this node
         nodeList.remove(p_node.getID());
+        fingerprint = null;
         p_node = null;
         // #]
     }
@@ -2145,6 +2582,7 @@ public class Graph {
 
     public void clearArcList() {
         arcList.clear();
+        fingerprint = null;
     }
 
     /**
@@ -45,7 +45,7 @@ abstract public class GraphComponent {
     protected boolean inCycle = false; // ## attribute inCycle
     protected GraphComponent matchedGC = null; // ## attribute matchedGC
     protected boolean visited = false; // ## attribute visited
-    protected LinkedHashSet neighbor = null;
+    protected NeighborSet neighbor = null;
     protected Integer centralID = new Integer(-1);
 
     // Constructors
@@ -56,15 +56,15 @@ abstract public class GraphComponent {
     public GraphComponent(Object p_element) {
         {
             if (this instanceof Arc)
-                neighbor = new LinkedHashSet(3, 1);
+                neighbor = new NeighborSet(2);
             else if (this instanceof Node) {
                 if (p_element instanceof Atom) {
                     int valency = (int) (((Atom) p_element).getValency() + 1);
-                    neighbor = new LinkedHashSet(valency + 1, 1);
+                    neighbor = new NeighborSet(valency);
                 } else
-                    neighbor = new LinkedHashSet(5, 1);
+                    neighbor = new NeighborSet(4);
             } else
-                neighbor = new LinkedHashSet();
+                neighbor = new NeighborSet(4);
         }
         // #[ operation GraphComponent(Object)
         element = p_element;
@@ -73,7 +73,7 @@ abstract public class GraphComponent {
 
     public GraphComponent() {
         {
-            neighbor = new LinkedHashSet();
+            neighbor = new NeighborSet(4);
         }
     }
 
@@ -0,0 +1,256 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chemUtil;
+
+import java.util.*;
+import jing.chem.Bond;
+import jing.chem.FGElement;
+import jing.chem.FreeElectron;
+
+// ## package jing::chemUtil
+// ----------------------------------------------------------------------------
+// jing\chemUtil\GraphFingerprint.java
+// ----------------------------------------------------------------------------
+/**
+ * A compact summary of a graph's contents, used to rule out a subgraph match before the full GraphComponent.isSub
+ * search is run. The fingerprint records which chemical element types, radical orders and bond types occur in the
+ * graph, and bit masks of its functional group elements and of the (element, bond, element) environment of every arc.
+ * <br>
+ * Each is kept twice: what the graph offers when it is the graph searched in (a node with alternatives offers all of
+ * them), and what it requires when it is the pattern searched for (only fully specified nodes and arcs count, R, R!H
+ * and X require nothing). Only presence is compared, never counts: the matching does not need distinct pattern nodes
+ * to land on distinct nodes of the graph searched in, so a larger pattern can still match. The test is conservative:
+ * mayMatch() returns false only when no match is possible.
+ */
+// ## class GraphFingerprint
+public class GraphFingerprint {
+    private static final String[] ELEMENT_TYPES = { "H", "C", "O", "S", "Si",
+            "Cl" };
+    private static final String[] BOND_TYPES = { "S", "D", "T", "B" };
+    private static final int RADICAL_ORDERS = 4;
+    private boolean constrained = true;
+    private boolean wildcard = false;
+    private int offeredElements = 0;
+    private int requiredElements = 0;
+    private int offeredRadicals = 0;
+    private int requiredRadicals = 0;
+    private int offeredBonds = 0;
+    private int requiredBonds = 0;
+    private long offeredFgElements = 0;
+    private long requiredFgElements = 0;
+    private long offeredEnvironments = 0;
+    private long requiredEnvironments = 0;
+
+    // Constructors
+    private GraphFingerprint() {
+    }
+
+    /**
+     * Requires: Effects: build the fingerprint of p_graph. A graph that is not connected, or whose contents can't be
+     * read, gets an unconstrained fingerprint that never rules out a match. Modifies:
+     */
+    // ## operation make(Graph)
+    public static GraphFingerprint make(Graph p_graph) {
+        // #[ operation make(Graph)
+        GraphFingerprint fp = new GraphFingerprint();
+        try {
+            fp.fill(p_graph);
+        } catch (RuntimeException e) {
+            fp.constrained = false;
+        }
+        return fp;
+        // #]
+    }
+
+    /**
+     * Requires: this is the fingerprint of the graph searched in, p_pattern the fingerprint of the graph searched
+     * for. Effects: return false if p_pattern's graph can't be matched as a subgraph of this graph; true if it might
+     * be. Modifies:
+     */
+    // ## operation mayMatch(GraphFingerprint)
+    public boolean mayMatch(GraphFingerprint p_pattern) {
+        // #[ operation mayMatch(GraphFingerprint)
+        if (!constrained || !p_pattern.constrained || wildcard)
+            return true;
+        return (p_pattern.requiredElements & ~offeredElements) == 0
+                && (p_pattern.requiredRadicals & ~offeredRadicals) == 0
+                && (p_pattern.requiredBonds & ~offeredBonds) == 0
+                && (p_pattern.requiredFgElements & ~offeredFgElements) == 0
+                && (p_pattern.requiredEnvironments & ~offeredEnvironments) == 0;
+        // #]
+    }
+
+    private void fill(Graph p_graph) {
+        Iterator iter = p_graph.getNodeList();
+        while (iter.hasNext()) {
+            Node node = (Node) iter.next();
+            FreeElectron fe = node.getFeElement();
+            if ("X".equals(fe.getName())) {
+                wildcard = true;
+            } else {
+                offeredRadicals |= 1 << radicalIndex(fe.getOrder());
+                requiredRadicals |= 1 << radicalIndex(fe.getOrder());
+            }
+            Collection fges = alternatives(node.getFgElement());
+            if (fges == null) {
+                wildcard = true;
+                continue;
+            }
+            int type = -1;
+            for (Iterator fgIter = fges.iterator(); fgIter.hasNext();) {
+                FGElement fge = (FGElement) fgIter.next();
+                int t = elementIndex(fge);
+                offeredElements |= 1 << t;
+                offeredFgElements |= bit(fge.getName());
+                type = (type == -1 || type == t) ? t : -2;
+            }
+            // with alternatives, a pattern node still pins down its element if all alternatives agree
+            if (type >= 0)
+                requiredElements |= 1 << type;
+            if (fges.size() == 1)
+                requiredFgElements |= bit(((FGElement) fges.iterator().next())
+                        .getName());
+        }
+        iter = p_graph.getArcList();
+        while (iter.hasNext()) {
+            Arc arc = (Arc) iter.next();
+            Collection bonds = arc.getElement() instanceof Collection ? (Collection) arc
+                    .getElement() : Collections.singleton(arc.getElement());
+            Iterator nodeIter = arc.getNeighbor();
+            Collection fges1 = alternatives(((Node) nodeIter.next())
+                    .getFgElement());
+            Collection fges2 = alternatives(((Node) nodeIter.next())
+                    .getFgElement());
+            for (Iterator bondIter = bonds.iterator(); bondIter.hasNext();) {
+                String bond = ((Bond) bondIter.next()).getName();
+                offeredBonds |= 1 << bondIndex(bond);
+                if (fges1 != null && fges2 != null)
+                    offeredEnvironments |= environmentBits(fges1, bond, fges2);
+            }
+            if (bonds.size() == 1) {
+                String bond = ((Bond) bonds.iterator().next()).getName();
+                requiredBonds |= 1 << bondIndex(bond);
+                if (fges1 != null && fges1.size() == 1 && fges2 != null
+                        && fges2.size() == 1)
+                    requiredEnvironments |= environmentBits(fges1, bond, fges2);
+            }
+        }
+        // the matching walks outwards from a single node, so only a connected pattern is fully matched
+        if (countComponents(p_graph) > 1)
+            constrained = false;
+    }
+
+    /**
+     * Return the functional group elements a node element stands for, or null if it is or includes R or R!H.
+     */
+    private static Collection alternatives(Object p_fgElement) {
+        Collection fges = p_fgElement instanceof Collection ? (Collection) p_fgElement
+                : Collections.singleton(p_fgElement);
+        if (fges.isEmpty())
+            return null;
+        for (Iterator iter = fges.iterator(); iter.hasNext();) {
+            Object o = iter.next();
+            if (!(o instanceof FGElement))
+                return null;
+            String type = ((FGElement) o).getType();
+            if ("R".equals(type) || "R!H".equals(type))
+                return null;
+        }
+        return fges;
+    }
+
+    private static long environmentBits(Collection p_fges1, String p_bond,
+            Collection p_fges2) {
+        long mask = 0;
+        for (Iterator iter1 = p_fges1.iterator(); iter1.hasNext();) {
+            String name1 = ((FGElement) iter1.next()).getName();
+            for (Iterator iter2 = p_fges2.iterator(); iter2.hasNext();) {
+                String name2 = ((FGElement) iter2.next()).getName();
+                if (name1.compareTo(name2) <= 0)
+                    mask |= bit(name1 + p_bond + name2);
+                else
+                    mask |= bit(name2 + p_bond + name1);
+            }
+        }
+        return mask;
+    }
+
+    private static int countComponents(Graph p_graph) {
+        Set seen = new HashSet();
+        Stack stack = new Stack();
+        int components = 0;
+        Iterator iter = p_graph.getNodeList();
+        while (iter.hasNext()) {
+            Node start = (Node) iter.next();
+            if (!seen.add(start))
+                continue;
+            components++;
+            stack.push(start);
+            while (!stack.empty()) {
+                Node node = (Node) stack.pop();
+                Iterator arcIter = node.getNeighbor();
+                while (arcIter.hasNext()) {
+                    Node other = node.getOtherNode((Arc) arcIter.next());
+                    if (other != null && seen.add(other))
+                        stack.push(other);
+                }
+            }
+        }
+        return components;
+    }
+
+    private static long bit(String p_key) {
+        return 1L << (p_key.hashCode() & 63);
+    }
+
+    private static int elementIndex(FGElement p_fgElement) {
+        return index(ELEMENT_TYPES, p_fgElement.getType());
+    }
+
+    private static int bondIndex(String p_bond) {
+        return index(BOND_TYPES, p_bond);
+    }
+
+    private static int radicalIndex(int p_order) {
+        return (p_order >= 0 && p_order < RADICAL_ORDERS) ? p_order
+                : RADICAL_ORDERS;
+    }
+
+    /**
+     * Return the position of p_name in p_names, or the last (catch-all) slot if it is not listed.
+     */
+    private static int index(String[] p_names, String p_name) {
+        for (int i = 0; i < p_names.length; i++) {
+            if (p_names[i].equals(p_name))
+                return i;
+        }
+        return p_names.length;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\chemUtil\GraphFingerprint.java
+ *********************************************************************/
@@ -0,0 +1,124 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.chemUtil;
+
+import java.util.*;
+
+// ## package jing::chemUtil
+// ----------------------------------------------------------------------------
+// jing\chemUtil\NeighborSet.java
+// ----------------------------------------------------------------------------
+/**
+ * The neighbors of a GraphComponent, kept in insertion order in an array. GraphComponent doesn't override equals(),
+ * so the neighbors are compared by identity, as the LinkedHashSet this replaces compared them. A node has at most a
+ * few neighbors and an arc two, so a linear search is as fast as hashing, and the set takes a fraction of the memory of
+ * a LinkedHashSet, which needs a map, a hash table and an entry per neighbor. There is one GraphComponent per atom and
+ * per bond of every graph, and their neighbor sets took most of the heap used by the species of a large edge.
+ */
+// ## class NeighborSet
+class NeighborSet extends AbstractSet {
+    private Object[] element;
+    private int size = 0;
+
+    // Constructors
+    NeighborSet(int p_capacity) {
+        element = new Object[p_capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(Object p_object) {
+        return indexOf(p_object) >= 0;
+    }
+
+    public boolean add(Object p_object) {
+        if (indexOf(p_object) >= 0)
+            return false;
+        if (size == element.length)
+            element = Arrays.copyOf(element, Math.max(2, 2 * size));
+        element[size++] = p_object;
+        return true;
+    }
+
+    public boolean remove(Object p_object) {
+        int index = indexOf(p_object);
+        if (index < 0)
+            return false;
+        removeAt(index);
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(element, 0, size, null);
+        size = 0;
+    }
+
+    public Iterator iterator() {
+        return new Iterator() {
+            private int next = 0;
+            private int last = -1;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public Object next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                last = next;
+                return element[next++];
+            }
+
+            public void remove() {
+                if (last < 0)
+                    throw new IllegalStateException();
+                removeAt(last);
+                next = last;
+                last = -1;
+            }
+        };
+    }
+
+    private int indexOf(Object p_object) {
+        for (int i = 0; i < size; i++) {
+            if (element[i] == p_object)
+                return i;
+        }
+        return -1;
+    }
+
+    private void removeAt(int p_index) {
+        System.arraycopy(element, p_index + 1, element, p_index, size - p_index
+                - 1);
+        element[--size] = null;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\chemUtil\NeighborSet.java
+ *********************************************************************/
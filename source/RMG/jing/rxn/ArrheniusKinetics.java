@@ -71,8 +71,8 @@ public class ArrheniusKinetics implements Kinetics {
         E = p_E;
         TRange = p_TRange;
         rank = p_rank;
-        source = p_source;
-        comment = p_comment;
+        source = KineticsProvenance.intern(p_source);
+        comment = KineticsProvenance.intern(p_comment);
     }
 
     public ArrheniusKinetics() {
@@ -380,12 +380,12 @@ public class ArrheniusKinetics implements Kinetics {
     }
 
     public void setSource(String p_source) {
-        source = p_source;
+        source = KineticsProvenance.intern(p_source);
         return;
     }
 
     public void setComments(String p_comments) {
-        comment = p_comments;
+        comment = KineticsProvenance.intern(p_comments);
     }
 
     public void setFromPrimaryKineticLibrary(boolean p_boolean) {
@@ -82,18 +82,6 @@ public class ChebyshevPolynomials implements PDepKinetics {
     public ChebyshevPolynomials() {
     }
 
-    // ## operation calculatePAvg(Pressure)
-    private double calculatePAvg(Pressure p_pressure) {
-        // #[ operation calculatePAvg(Pressure)
-        double P = p_pressure.getAtm();
-        double Pmin = Plow.getAtm();
-        double Pmax = Pup.getAtm();
-        double result = (2 * Math.log(P) - Math.log(Pmin) - Math.log(Pmax))
-                / (Math.log(Pmax) - Math.log(Pmin));
-        return result;
-        // #]
-    }
-
     public void addChebyshevPolynomial(ChebyshevPolynomials cbp) {
         if (NP != cbp.NP || NT != cbp.NT || Plow.getAtm() != cbp.Plow.getAtm()
                 || Pup.getAtm() != cbp.Pup.getAtm()
@@ -182,36 +170,33 @@ public class ChebyshevPolynomials implements PDepKinetics {
     // ## operation calculateRate(Temperature,Pressure)
     public double calculateRate(Temperature p_temperature, Pressure p_pressure) {
         // #[ operation calculateRate(Temperature,Pressure)
-        if (p_temperature.getK() > Tup.getK()
-                || p_temperature.getK() < Tlow.getK())
+        return calculateRate(new PDepRateEvaluator(p_temperature, p_pressure));
+        // #]
+    }
+
+    /**
+     * Evaluate the polynomials at the temperature and pressure of p_rates, using the basis functions it shares between
+     * all the fits over the same temperature and pressure range.
+     */
+    double calculateRate(PDepRateEvaluator p_rates) {
+        if (p_rates.T > Tup.getK() || p_rates.T < Tlow.getK())
             throw new TOutOfRangeException();
-        if (p_pressure.getAtm() > Pup.getAtm()
-                || p_pressure.getAtm() < Plow.getAtm())
+        if (p_rates.atm > Pup.getAtm() || p_rates.atm < Plow.getAtm())
             throw new POutOfRangeException();
-        double Tavg = calculateTAvg(p_temperature);
-        double Pavg = calculatePAvg(p_pressure);
+        double[] phiT = p_rates.getTemperatureBasis(Tlow.getK(), Tup.getK(),
+                NT);
+        double[] phiP = p_rates.getPressureBasis(Plow.getAtm(), Pup.getAtm(),
+                NP);
         double result = 0;
         for (int i = 0; i < NT; i++) {
+            double[] alpha_i = alpha[i];
+            double phiT_i = phiT[i];
             for (int j = 0; j < NP; j++) {
-                result += alpha[i][j] * calculatePhi(i, Tavg)
-                        * calculatePhi(j, Pavg);
+                result += alpha_i[j] * phiT_i * phiP[j];
             }
         }
         double k = Math.pow(10, result);// changed by Sally 1/24/06
         return k;
-        // #]
-    }
-
-    // ## operation calculateTAvg(Temperature)
-    private double calculateTAvg(Temperature p_temperature) {
-        // #[ operation calculateTAvg(Temperature)
-        double T = p_temperature.getK();
-        double Tmin = Tlow.getK();
-        double Tmax = Tup.getK();
-        double result = (2.0 / T - 1.0 / Tmin - 1.0 / Tmax)
-                / (1.0 / Tmax - 1.0 / Tmin);
-        return result;
-        // #]
     }
 
     // ## operation toChemkinString()
@@ -176,6 +176,7 @@ public class FastMasterEqn implements PDepKineticsEstimator {
                 if (!isomerList0.contains(rxn.getProduct()))
                     isomerList0.add(rxn.getProduct());
             }
+            pdn.indexIsomers();
         }
         // No update needed if network is not altered
         if (pdn.getAltered() == false)
@@ -321,6 +322,15 @@ public class FastMasterEqn implements PDepKineticsEstimator {
                 System.exit(0);
             }
         }
+        // Reuse the solution of an identical network, from this job or an earlier one
+        String cacheKey = PDepSolutionCache.getKey(input, speciesList);
+        if (solveFromCache(pdn, rxnSystem, cerm, isomerList, cacheKey)) {
+            while (!pdepRatesOK)
+                runPDepCalculation(pdn, rxnSystem, cerm);
+            numGrains = 251;
+            runCount++;
+            return;
+        }
         // FAME system call
         try {
             String[] command = { dir + "/bin/fame.exe" };
@@ -384,8 +394,17 @@ public class FastMasterEqn implements PDepKineticsEstimator {
                 Logger.error(line);
             }
             stderr.close();
+            // Keep the output, so that it can be cached once it has been parsed
+            StringBuilder fameOutput = new StringBuilder();
+            fameOutput.append(line).append("\n");
+            while ((line = stdout.readLine()) != null)
+                fameOutput.append(line).append("\n");
             // Parse FAME output file and update accordingly
-            if (parseOutputStream(stdout, pdn, rxnSystem, cerm, isomerList)) {
+            boolean parsed = parseOutputStream(new BufferedReader(
+                    new StringReader(fameOutput.toString())), pdn, rxnSystem,
+                    cerm, isomerList);
+            PDepSolutionCache.put(cacheKey, fameOutput.toString());
+            if (parsed) {
                 // Reset altered flag
                 pdn.setAltered(false);
                 // Write finished indicator to console
@@ -455,6 +474,38 @@ public class FastMasterEqn implements PDepKineticsEstimator {
         runCount++;
     }
 
+    /**
+     * Updates a network from the cached FAME output of an identical network, if there is one. Output that can't be
+     * parsed is dropped from the cache, so that FAME is run instead.
+     * 
+     * @return true if the network was updated from the cache
+     */
+    private boolean solveFromCache(PDepNetwork pdn, ReactionSystem rxnSystem,
+            CoreEdgeReactionModel cerm, LinkedList<PDepIsomer> isomerList,
+            String cacheKey) {
+        String cached = PDepSolutionCache.get(cacheKey);
+        if (cached == null)
+            return false;
+        try {
+            if (parseOutputStream(new BufferedReader(new StringReader(cached)),
+                    pdn, rxnSystem, cerm, isomerList)) {
+                pdn.setAltered(false);
+                Logger.verbose("PDepNetwork #" + Integer.toString(pdn.getID())
+                        + " (" + pdn.getSpeciesType()
+                        + ") solved from the P-dep solution cache: "
+                        + pdn.getNetReactions().size() + " included and "
+                        + pdn.getNonincludedReactions().size()
+                        + " nonincluded net reactions.");
+            }
+            return true;
+        } catch (PDepException e) {
+            Logger.warning("Discarding the cached FAME output for PDepNetwork #"
+                    + Integer.toString(pdn.getID()) + ": " + e.getMessage());
+            PDepSolutionCache.remove(cacheKey);
+            return false;
+        }
+    }
+
     /**
      * Creates the input file needed by FAME that represents a pressure- dependent reaction network.
      * 
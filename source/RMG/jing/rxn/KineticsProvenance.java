@@ -0,0 +1,62 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxn;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * A registry of the source and comment strings of kinetics, so that each distinct string is stored once however many
+ * kinetics carry it. The strings of estimated kinetics are built by concatenation for every reaction, from the family
+ * name and the names of the matched tree nodes ("Average of: (...)"), so the edge holds thousands of equal copies of a
+ * few hundred distinct strings. Kinetics keep the shared instance instead of their own copy; the text is unchanged, so
+ * everything written from it is too. The registry only holds weak references, so a string is dropped once no kinetics
+ * uses it, e.g. after its reactions are pruned from the edge.
+ */
+public class KineticsProvenance {
+    /** The shared instance of each string, keyed by itself. */
+    private static final WeakHashMap registry = new WeakHashMap();
+
+    /**
+     * Return the shared string equal to p_string, registering p_string if there is none. Null is returned unchanged.
+     */
+    public static synchronized String intern(String p_string) {
+        if (p_string == null)
+            return null;
+        WeakReference ref = (WeakReference) registry.get(p_string);
+        if (ref != null) {
+            String shared = (String) ref.get();
+            if (shared != null)
+                return shared;
+        }
+        registry.put(p_string, new WeakReference(p_string));
+        return p_string;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxn\KineticsProvenance.java
+ *********************************************************************/
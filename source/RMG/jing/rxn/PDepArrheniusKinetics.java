@@ -46,6 +46,11 @@ public class PDepArrheniusKinetics implements PDepKinetics {
      */
     private ArrheniusKinetics[] kinetics;
     protected int numPressures = 0;
+    /**
+     * The common logs of the pressures in bar, and the array of pressures they were taken from.
+     */
+    private double[] logPressures = null;
+    private Pressure[] logPressuresOf = null;
 
     public PDepArrheniusKinetics(int numP) {
         pressures = new Pressure[numP];
@@ -61,6 +66,7 @@ public class PDepArrheniusKinetics implements PDepKinetics {
                             index, pressures.length));
         pressures[index] = P;
         kinetics[index] = kin;
+        logPressuresOf = null;
     }
 
     /**
@@ -73,11 +79,21 @@ public class PDepArrheniusKinetics implements PDepKinetics {
      * @return The rate coefficient evaluated at T and P
      */
     public double calculateRate(Temperature T, Pressure P) {
+        return calculateRate(new PDepRateEvaluator(T, P));
+    }
+
+    /**
+     * Calculate the rate coefficient at the temperature and pressure of p_rates, which provides the log of the
+     * pressure shared by all the PLOG rates.
+     */
+    double calculateRate(PDepRateEvaluator p_rates) {
+        Temperature T = p_rates.getTemperature();
+        double[] logP = getLogPressures();
         int index1 = -1;
         int index2 = -1;
         for (int i = 0; i < pressures.length - 1; i++) {
-            if (pressures[i].getBar() <= P.getBar()
-                    && P.getBar() <= pressures[i + 1].getBar()) {
+            if (pressures[i].getBar() <= p_rates.bar
+                    && p_rates.bar <= pressures[i + 1].getBar()) {
                 index1 = i;
                 index2 = i + 1;
                 break;
@@ -90,19 +106,19 @@ public class PDepArrheniusKinetics implements PDepKinetics {
          * highest pressure are used." We take the same approach here, but warn the user (so they can fix their input
          * file).
          */
-        if (P.getPa() < pressures[0].getPa()) {
+        if (p_rates.Pa < pressures[0].getPa()) {
             Logger.warning(String
                     .format("Tried to evaluate rate coefficient at P=%.3g Atm, which is below minimum for this PLOG rate.",
-                            P.getAtm()));
+                            p_rates.atm));
             Logger.warning(String.format(
                     "Using rate for minimum %s Atm instead",
                     pressures[0].getAtm()));
             return kinetics[0].calculateRate(T);
         }
-        if (P.getPa() > pressures[pressures.length - 1].getPa()) {
+        if (p_rates.Pa > pressures[pressures.length - 1].getPa()) {
             Logger.warning(String
                     .format("Tried to evaluate rate coefficient at P=%.3g Atm, which is above maximum for this PLOG rate.",
-                            P.getAtm()));
+                            p_rates.atm));
             Logger.warning(String.format(
                     "Using rate for maximum %s Atm instead",
                     pressures[pressures.length - 1].getAtm()));
@@ -110,9 +126,9 @@ public class PDepArrheniusKinetics implements PDepKinetics {
         }
         double logk1 = Math.log10(kinetics[index1].calculateRate(T));
         double logk2 = Math.log10(kinetics[index2].calculateRate(T));
-        double logP0 = Math.log10(P.getBar());
-        double logP1 = Math.log10(pressures[index1].getBar());
-        double logP2 = Math.log10(pressures[index2].getBar());
+        double logP0 = p_rates.log10Bar;
+        double logP1 = logP[index1];
+        double logP2 = logP[index2];
         // We can't take logarithms of k=0 and get meaningful interpolation, so we have to do something weird.
         // The approach used here is arbitrary, but at least it gives a continuous k(P) function.
         //
@@ -131,6 +147,22 @@ public class PDepArrheniusKinetics implements PDepKinetics {
         return Math.pow(10, logk0);
     }
 
+    /**
+     * Return the common logs of the pressures in bar, taking them again only if the pressures have been replaced.
+     */
+    private double[] getLogPressures() {
+        if (logPressuresOf != pressures) {
+            double[] logP = new double[pressures.length];
+            for (int i = 0; i < pressures.length; i++) {
+                if (pressures[i] != null)
+                    logP[i] = Math.log10(pressures[i].getBar());
+            }
+            logPressures = logP;
+            logPressuresOf = pressures;
+        }
+        return logPressures;
+    }
+
     public String toChemkinString(int numReac) {
         String result = "";
         for (int i = 0; i < pressures.length; i++) {
@@ -26,6 +26,8 @@
 // //////////////////////////////////////////////////////////////////////////////
 package jing.rxn;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -34,6 +36,7 @@ import jing.chem.Species;
 import jing.rxnSys.CoreEdgeReactionModel;
 import jing.rxnSys.ReactionModel;
 import jing.rxnSys.ReactionSystem;
+import jing.rxnSys.SpeciesStatus;
 import jing.rxnSys.SystemSnapshot;
 
 /**
@@ -77,6 +80,17 @@ public class PDepNetwork {
      * unimolecular isomers.
      */
     protected static LinkedList<PDepNetwork> networks = new LinkedList<PDepNetwork>();
+    /**
+     * An index from each species to the networks in PDepNetwork.networks that contain it as a unimolecular isomer,
+     * kept in the same order as PDepNetwork.networks. Networks should therefore be added and removed using
+     * addNetwork() and removeNetwork() rather than by modifying PDepNetwork.networks directly.
+     */
+    private static HashMap<Species, LinkedList<PDepNetwork>> isomerIndex = new HashMap<Species, LinkedList<PDepNetwork>>();
+    /**
+     * A count of the networks that have been added to PDepNetwork.networks, used to order the entries of the isomer
+     * index.
+     */
+    private static int addedNetworkCount = 0;
     /**
      * Set to true if RMG is ready to allow pressure-dependent networks to be created and false if not. A holdover from
      * the original PDepNetwork class.
@@ -105,6 +119,27 @@ public class PDepNetwork {
      * otherwise. Examples include changing the number of isomers or the number of path reactions.
      */
     private boolean altered;
+    /**
+     * The order in which the network was added to PDepNetwork.networks, or zero if the network is not currently in
+     * that list.
+     */
+    private int position = 0;
+    /**
+     * A count of the changes made to the isomers, reactions, and rates of the network, used to tell whether the
+     * cached leak fluxes are still valid.
+     */
+    private int modificationCount = 0;
+    /**
+     * The leak fluxes of the network as of the last call to getSpeciesLeakFluxes(). The reactions that leak out of the
+     * network are stored with the ID of the nonincluded species each one leaks to and its flux. These are reused until
+     * the network is modified or the state they were computed at (temperature, pressure, included flags, and
+     * concentrations of the leaking reactions' species) changes.
+     */
+    private int leakModificationCount = -1;
+    private PDepReaction[] leakReactions;
+    private double[] leakState;
+    private int[] leakSpeciesID;
+    private double[] leakSpeciesFlux;
 
     // ==========================================================================
     //
@@ -192,6 +227,7 @@ public class PDepNetwork {
 
     public void removeFromPathReactionList(PDepReaction pdr) {
         pathReactionList.remove(pdr);
+        modificationCount++;
         return;
     }
 
@@ -206,6 +242,7 @@ public class PDepNetwork {
 
     public void removeFromNetReactionList(PDepReaction pdr) {
         netReactionList.remove(pdr);
+        modificationCount++;
         return;
     }
 
@@ -220,6 +257,7 @@ public class PDepNetwork {
 
     public void removeFromNonincludedReactionList(PDepReaction pdr) {
         nonincludedReactionList.remove(pdr);
+        modificationCount++;
         return;
     }
 
@@ -271,6 +309,9 @@ public class PDepNetwork {
 
     public void removeFromIsomerList(PDepIsomer pdi) {
         isomerList.remove(pdi);
+        modificationCount++;
+        if (position > 0)
+            unindexIsomer(pdi);
         return;
     }
 
@@ -315,6 +356,65 @@ public class PDepNetwork {
         return false;
     }
 
+    /**
+     * Adds this network to the isomer index entry of the species of the given isomer, if the isomer is unimolecular.
+     * The entry is kept in the same order as PDepNetwork.networks.
+     * 
+     * @param isomer
+     *            The isomer to index
+     */
+    private void indexIsomer(PDepIsomer isomer) {
+        if (!isomer.isUnimolecular())
+            return;
+        Species species = isomer.getSpecies(0);
+        LinkedList<PDepNetwork> entry = isomerIndex.get(species);
+        if (entry == null) {
+            entry = new LinkedList<PDepNetwork>();
+            isomerIndex.put(species, entry);
+        } else if (entry.contains(this))
+            return;
+        int index = 0;
+        for (ListIterator<PDepNetwork> iter = entry.listIterator(); iter
+                .hasNext();) {
+            if (iter.next().position > position)
+                break;
+            index++;
+        }
+        entry.add(index, this);
+    }
+
+    /**
+     * Indexes all of the unimolecular isomers of this network, for use after the isomer list has been modified directly
+     * rather than through addIsomer().
+     */
+    void indexIsomers() {
+        if (position == 0)
+            return;
+        for (ListIterator<PDepIsomer> iter = isomerList.listIterator(); iter
+                .hasNext();)
+            indexIsomer(iter.next());
+        modificationCount++;
+    }
+
+    /**
+     * Removes this network from the isomer index entry of the species of the given isomer, unless the network still
+     * contains that species as a unimolecular isomer.
+     * 
+     * @param isomer
+     *            The isomer to remove from the index
+     */
+    private void unindexIsomer(PDepIsomer isomer) {
+        if (!isomer.isUnimolecular())
+            return;
+        Species species = isomer.getSpecies(0);
+        LinkedList<PDepNetwork> entry = isomerIndex.get(species);
+        if (entry == null || (position > 0 && contains(species)))
+            return;
+        entry.remove(this);
+        if (entry.isEmpty())
+            isomerIndex.remove(species);
+    }
+
     // ==========================================================================
     //
     // Set accessor methods
@@ -343,8 +443,11 @@ public class PDepNetwork {
                 isomerList.add(isomer);
         } else
             isomerList.add(isomer);
+        if (position > 0)
+            indexIsomer(isomer);
         // Mark network as changed so that updated rates can be determined
         altered = true;
+        modificationCount++;
     }
 
     /**
@@ -362,8 +465,10 @@ public class PDepNetwork {
                 .hasNext();) {
             PDepReaction rxn = iter.next();
             if (rxn.equals(newRxn)) {
-                if (addKinetics)
+                if (addKinetics) {
                     rxn.addAdditionalKinetics(newRxn.getKinetics()[0], 1, false);
+                    modificationCount++;
+                }
                 return;
             }
         }
@@ -371,6 +476,7 @@ public class PDepNetwork {
         pathReactionList.add(newRxn);
         // Mark network as changed so that updated rates can be determined
         altered = true;
+        modificationCount++;
     }
 
     /**
@@ -382,6 +488,7 @@ public class PDepNetwork {
      */
     public void setAltered(boolean alt) {
         altered = alt;
+        modificationCount++;
     }
 
     /**
@@ -395,6 +502,7 @@ public class PDepNetwork {
         if (!isomer.isUnimolecular() || isomer.getIncluded())
             return;
         isomer.setIncluded(true);
+        modificationCount++;
         LinkedHashSet reactionSet = isomer.generatePaths(reactionSystem);
         for (Iterator iter = reactionSet.iterator(); iter.hasNext();) {
             Reaction rxn = (Reaction) iter.next();
@@ -447,6 +555,7 @@ public class PDepNetwork {
         }
         netReactionList.clear();
         nonincludedReactionList.clear();
+        modificationCount++;
         for (int i = 0; i < reactionList.size(); i++) {
             PDepReaction forward = reactionList.get(i);
             PDepReaction reverse = (PDepReaction) forward.getReverseReaction();
@@ -513,6 +622,17 @@ public class PDepNetwork {
         return rLeak;
     }
 
+    /**
+     * Calculates the leak flux to each nonincluded species from all of the networks, indexed by species ID. Each
+     * network's contribution is reused from the previous call unless the network or the state of its leaking reactions
+     * has changed since then.
+     * 
+     * @param ss
+     *            A system snapshot (T, P, concentrations, etc.) to use to calculate the fluxes.
+     * @param cerm
+     *            The current core/edge reaction model
+     * @return The leak flux to each species, indexed by species ID
+     */
     public static double[] getSpeciesLeakFluxes(SystemSnapshot ss,
             CoreEdgeReactionModel cerm) {
         int len = cerm.getMaxSpeciesID() + 1;
@@ -522,38 +642,105 @@ public class PDepNetwork {
         for (ListIterator<PDepNetwork> iter0 = networks.listIterator(); iter0
                 .hasNext();) {
             PDepNetwork pdn = iter0.next();
-            // If there is only one path reaction (and thus only one nonincluded
-            // reaction), use the high-pressure limit rate as the flux rather than
-            // the k(T,P) value to ensure that we are considering the maximum
-            // possible flux entering the network
-            if (pdn.getPathReactions().size() == 1
-                    && pdn.getNetReactions().size() == 0) {
-                PDepReaction rxn = pdn.getPathReactions().get(0);
-                if (!rxn.getProduct().getIncluded())
-                    leakFlux[rxn.getProduct().getSpecies(0).getID()] += rxn
-                            .calculateForwardFlux(ss);
-                else if (!rxn.getReactant().getIncluded())
-                    leakFlux[rxn.getReactant().getSpecies(0).getID()] += rxn
-                            .calculateReverseFlux(ss);
+            pdn.updateLeakFluxes(ss);
+            for (int i = 0; i < pdn.leakSpeciesID.length; i++)
+                leakFlux[pdn.leakSpeciesID[i]] += pdn.leakSpeciesFlux[i];
+        }
+        return leakFlux;
+    }
+
+    /**
+     * Brings the cached leak fluxes of this network up to date with the provided system snapshot, recalculating them
+     * only if the network has been modified or the state of its leaking reactions has changed.
+     * 
+     * @param ss
+     *            A system snapshot (T, P, concentrations, etc.) to use to calculate the fluxes.
+     */
+    private void updateLeakFluxes(SystemSnapshot ss) {
+        // If there is only one path reaction (and thus only one nonincluded
+        // reaction), use the high-pressure limit rate as the flux rather than
+        // the k(T,P) value to ensure that we are considering the maximum
+        // possible flux entering the network
+        // Otherwise use the set of k(T,P) values
+        LinkedList<PDepReaction> reactionList = nonincludedReactionList;
+        if (pathReactionList.size() == 1 && netReactionList.size() == 0)
+            reactionList = pathReactionList;
+        PDepReaction[] reactions = reactionList
+                .toArray(new PDepReaction[reactionList.size()]);
+        double[] state = getLeakState(reactions, ss);
+        if (leakModificationCount == modificationCount
+                && Arrays.equals(state, leakState)
+                && reactions.length == leakReactions.length) {
+            // Net reactions are replaced by new objects whenever their rates
+            // are recalculated, so compare the reactions by identity
+            boolean unchanged = true;
+            for (int i = 0; i < reactions.length && unchanged; i++)
+                unchanged = (reactions[i] == leakReactions[i]);
+            if (unchanged)
+                return;
+        }
+        int[] speciesID = new int[reactions.length];
+        double[] speciesFlux = new double[reactions.length];
+        int count = 0;
+        for (int i = 0; i < reactions.length; i++) {
+            PDepReaction rxn = reactions[i];
+            if (reactionList == pathReactionList) {
+                if (!rxn.getProduct().getIncluded()) {
+                    speciesID[count] = rxn.getProduct().getSpecies(0).getID();
+                    speciesFlux[count++] = rxn.calculateForwardFlux(ss);
+                } else if (!rxn.getReactant().getIncluded()) {
+                    speciesID[count] = rxn.getReactant().getSpecies(0).getID();
+                    speciesFlux[count++] = rxn.calculateReverseFlux(ss);
+                }
+            } else {
+                if (rxn.getReactant().getIncluded()
+                        && !rxn.getProduct().getIncluded()) {
+                    speciesID[count] = rxn.getProduct().getSpecies(0).getID();
+                    speciesFlux[count++] = rxn.calculateForwardFlux(ss);
+                } else if (!rxn.getReactant().getIncluded()
+                        && rxn.getProduct().getIncluded()) {
+                    speciesID[count] = rxn.getReactant().getSpecies(0).getID();
+                    speciesFlux[count++] = rxn.calculateReverseFlux(ss);
+                }
             }
-            // Otherwise use the set of k(T,P) values
-            else {
-                for (ListIterator<PDepReaction> iter = pdn
-                        .getNonincludedReactions().listIterator(); iter
-                        .hasNext();) {
-                    PDepReaction rxn = iter.next();
-                    if (rxn.getReactant().getIncluded()
-                            && !rxn.getProduct().getIncluded())
-                        leakFlux[rxn.getProduct().getSpecies(0).getID()] += rxn
-                                .calculateForwardFlux(ss);
-                    else if (!rxn.getReactant().getIncluded()
-                            && rxn.getProduct().getIncluded())
-                        leakFlux[rxn.getReactant().getSpecies(0).getID()] += rxn
-                                .calculateReverseFlux(ss);
+        }
+        leakModificationCount = modificationCount;
+        leakReactions = reactions;
+        leakState = state;
+        leakSpeciesID = Arrays.copyOf(speciesID, count);
+        leakSpeciesFlux = Arrays.copyOf(speciesFlux, count);
+    }
+
+    /**
+     * Collects the state that the leak fluxes of the given reactions depend on: the temperature and pressure, and the
+     * included flags and concentrations of the reactant and product isomers of each reaction.
+     */
+    private static double[] getLeakState(PDepReaction[] reactions,
+            SystemSnapshot ss) {
+        int len = 2;
+        for (int i = 0; i < reactions.length; i++)
+            len += 2 + reactions[i].getReactant().getNumSpecies()
+                    + reactions[i].getProduct().getNumSpecies();
+        double[] state = new double[len];
+        int n = 0;
+        state[n++] = (ss.getTemperature() == null) ? 0.0 : ss
+                .getTemperature().getK();
+        state[n++] = (ss.getPressure() == null) ? 0.0 : ss.getPressure()
+                .getPa();
+        for (int i = 0; i < reactions.length; i++) {
+            PDepIsomer[] isomers = { reactions[i].getReactant(),
+                    reactions[i].getProduct() };
+            for (int j = 0; j < isomers.length; j++) {
+                state[n++] = isomers[j].getIncluded() ? 1.0 : 0.0;
+                for (int k = 0; k < isomers[j].getNumSpecies(); k++) {
+                    SpeciesStatus status = ss.getSpeciesStatus(isomers[j]
+                            .getSpecies(k));
+                    state[n++] = (status == null) ? 0.0 : status
+                            .getConcentration();
                 }
             }
         }
-        return leakFlux;
+        return state;
     }
 
     /**
@@ -653,6 +840,57 @@ public class PDepNetwork {
         return networks;
     }
 
+    /**
+     * Adds a network to the list of currently-existing pressure-dependent networks and indexes its unimolecular
+     * isomers.
+     * 
+     * @param pdn
+     *            The network to add
+     */
+    public static void addNetwork(PDepNetwork pdn) {
+        networks.add(pdn);
+        addedNetworkCount++;
+        pdn.position = addedNetworkCount;
+        pdn.indexIsomers();
+    }
+
+    /**
+     * Removes a network from the list of currently-existing pressure-dependent networks and from the isomer index.
+     * 
+     * @param pdn
+     *            The network to remove
+     */
+    public static void removeNetwork(PDepNetwork pdn) {
+        if (!networks.remove(pdn))
+            return;
+        pdn.position = 0;
+        for (ListIterator<PDepIsomer> iter = pdn.isomerList.listIterator(); iter
+                .hasNext();)
+            pdn.unindexIsomer(iter.next());
+    }
+
+    /**
+     * Returns the currently-existing networks that contain the given species as a unimolecular isomer, in the order in
+     * which they appear in PDepNetwork.networks.
+     * 
+     * @param species
+     *            The species to look for
+     * @return The networks containing species as a unimolecular isomer
+     */
+    public static LinkedList<PDepNetwork> getNetworksContaining(Species species) {
+        LinkedList<PDepNetwork> containing = new LinkedList<PDepNetwork>();
+        LinkedList<PDepNetwork> entry = isomerIndex.get(species);
+        if (entry == null)
+            return containing;
+        for (ListIterator<PDepNetwork> iter = entry.listIterator(); iter
+                .hasNext();) {
+            PDepNetwork pdn = iter.next();
+            if (pdn.position > 0 && pdn.contains(species))
+                containing.add(pdn);
+        }
+        return containing;
+    }
+
     /**
      * Used to add a reaction to the appropriate pressure-dependent network. If no such network exists, a new network is
      * created. For isomerization reactions connecting two existing networks, the networks are merged. This function is
@@ -687,17 +925,34 @@ public class PDepNetwork {
             PDepNetwork prod_pdn = null;
             Species reactant = (Species) reaction.getReactantList().get(0);
             Species product = (Species) reaction.getProductList().get(0);
-            for (ListIterator<PDepNetwork> iter = networks.listIterator(); iter
-                    .hasNext();) {
-                PDepNetwork n = iter.next();
-                if (n.contains(reactant)) {
+            // Visit the networks containing either species in the order in
+            // which they appear in the list of networks
+            LinkedList<PDepNetwork> reac_networks = getNetworksContaining(reactant);
+            LinkedList<PDepNetwork> prod_networks = getNetworksContaining(product);
+            while (!reac_networks.isEmpty() || !prod_networks.isEmpty()) {
+                PDepNetwork n = null;
+                boolean containsReactant = false;
+                boolean containsProduct = false;
+                if (prod_networks.isEmpty()
+                        || (!reac_networks.isEmpty() && reac_networks
+                                .getFirst().position <= prod_networks
+                                .getFirst().position)) {
+                    n = reac_networks.removeFirst();
+                    containsReactant = true;
+                }
+                if (!prod_networks.isEmpty()
+                        && (n == null || prod_networks.getFirst() == n)) {
+                    n = prod_networks.removeFirst();
+                    containsProduct = true;
+                }
+                if (containsReactant) {
                     if (n.getIsomer(reactant).getIncluded()) {
                         reac_pdn = n;
                         if (prod_pdn != null)
                             break; // have now found both prod_pdn and reac_pdn.
                     }
                 }
-                if (n.contains(product)) {
+                if (containsProduct) {
                     if (n.getIsomer(product).getIncluded()) {
                         prod_pdn = n;
                         if (reac_pdn != null)
@@ -713,7 +968,7 @@ public class PDepNetwork {
                 for (int i = 0; i < prod_pdn.getPathReactions().size(); i++)
                     pdn.addReaction(prod_pdn.getPathReactions().get(i), false);
                 // Also remove the second network from the list of networks
-                networks.remove(prod_pdn);
+                removeNetwork(prod_pdn);
             } else if (reac_pdn != null && prod_pdn != null
                     && reac_pdn == prod_pdn) {
                 // Both species already present as unimolecular isomers in the same network, so use that network
@@ -734,13 +989,11 @@ public class PDepNetwork {
             // If no existing network is found, a new one may be created
             // Get the appropriate pressure-dependent network
             Species reactant = (Species) reaction.getReactantList().get(0);
-            for (ListIterator<PDepNetwork> iter = networks.listIterator(); iter
-                    .hasNext();) {
+            for (ListIterator<PDepNetwork> iter = getNetworksContaining(
+                    reactant).listIterator(); iter.hasNext();) {
                 PDepNetwork n = iter.next();
-                if (n.contains(reactant)) {
-                    if (n.getIsomer(reactant).getIncluded())
-                        pdn = n;
-                }
+                if (n.getIsomer(reactant).getIncluded())
+                    pdn = n;
             }
         }
         // The above check may have caused the reaction to be reversed
@@ -753,7 +1006,7 @@ public class PDepNetwork {
             pdn = new PDepNetwork();
             PDepIsomer isomer = new PDepIsomer(species);
             pdn.addIsomer(isomer);
-            networks.add(pdn);
+            addNetwork(pdn);
         }
         // Add the reaction to the network
         PDepIsomer reactantIsomer = pdn.getIsomer(reaction.getReactantList());
@@ -946,17 +1199,16 @@ public class PDepNetwork {
      * @return true if the species is included in any existing network, false if not
      */
     public static boolean isSpeciesIncludedInAnyNetwork(Species species) {
-        for (Iterator iter = networks.iterator(); iter.hasNext();) {
+        for (Iterator iter = getNetworksContaining(species).iterator(); iter
+                .hasNext();) {
             PDepNetwork network = (PDepNetwork) iter.next();
-            if (network.contains(species)) {
-                PDepIsomer isomer = network.getIsomer(species);
-                if (isomer.isUnimolecular() && isomer.getIncluded())
-                    // We've identified a network wherein the species exists as
-                    // a unimolecular isomer, and that its path reactions have
-                    // been fully explored
-                    // This satisfies all of the conditions, so we return true
-                    return true;
-            }
+            PDepIsomer isomer = network.getIsomer(species);
+            if (isomer.isUnimolecular() && isomer.getIncluded())
+                // We've identified a network wherein the species exists as
+                // a unimolecular isomer, and that its path reactions have
+                // been fully explored
+                // This satisfies all of the conditions, so we return true
+                return true;
         }
         // No suitable match for all conditions was found, so we return false
         return false;
@@ -182,68 +182,53 @@ public class PDepRateConstant {
     // Other methods
     //
     public double calculateRate(Temperature temperature, Pressure pressure) {
+        return calculateRate(new PDepRateEvaluator(temperature, pressure));
+    }
+
+    /**
+     * Calculate the rate coefficient at the temperature and pressure of p_rates, sharing with the other rate
+     * coefficients it evaluates the Chebyshev basis, the log pressure, and the cell of the interpolation grid.
+     */
+    public double calculateRate(PDepRateEvaluator p_rates) {
         double rate = 0.0;
-        if ((TMIN != null && temperature.getK() < TMIN.getK())
-                || (TMAX != null && temperature.getK() > TMAX.getK()))
+        if ((TMIN != null && p_rates.T < TMIN.getK())
+                || (TMAX != null && p_rates.T > TMAX.getK()))
             throw new IllegalArgumentException(
                     String.format(
                             "Tried to evaluate P-dep rate coefficient at T=%.1f K but Pdep calculations only valid from %.1f to %.1f K",
-                            temperature.getK(), TMIN.getK(), TMAX.getK()));
-        if ((PMIN != null && pressure.getBar() < PMIN.getBar())
-                || (PMAX != null && pressure.getBar() > PMAX.getBar()))
+                            p_rates.T, TMIN.getK(), TMAX.getK()));
+        if ((PMIN != null && p_rates.bar < PMIN.getBar())
+                || (PMAX != null && p_rates.bar > PMAX.getBar()))
             throw new IllegalArgumentException(
                     String.format(
                             "Tried to evaluate P-dep rate coefficient at P=%.2g bar but Pdep calculations only valid from %s to %s bar",
-                            pressure.getBar(), PMIN.getBar(), PMAX.getBar()));
+                            p_rates.bar, PMIN.getBar(), PMAX.getBar()));
         if (getMode() == Mode.INTERPOLATE || getMode() == Mode.RATE) {
-            /*
-             * MRH 10Feb2010 I am initializing the t1, t2, p1, p2 indices to be zero. In the case of the temperature of
-             * interest being equal to the lowest temperature, t1 would not be re-defined (ditto for the pressure)
-             */
-            int t1 = 0, t2 = 0, p1 = 0, p2 = 0;
-            // int t1 = -1, t2 = -1, p1 = -1, p2 = -1;
-            double x = 0.0, x1 = 0.0, x2 = 0.0, y = 0.0, y1 = 0.0, y2 = 0.0;
-            double z11 = 0.0, z12 = 0.0, z21 = 0.0, z22 = 0.0;
-            for (int t = 0; t < temperatures.length - 1; t++) {
-                if (temperatures[t].getK() < temperature.getK()) {
-                    t1 = t;
-                }
-            }
-            for (int p = 0; p < pressures.length - 1; p++) {
-                if (pressures[p].getBar() < pressure.getBar()) {
-                    p1 = p;
-                }
-            }
-            x1 = 1.0 / temperatures[t1].getK();
-            t2 = t1 + 1;
-            x2 = 1.0 / temperatures[t2].getK();
+            p_rates.locate(temperatures, pressures);
+            int t1 = p_rates.t1, t2 = t1 + 1, p1 = p_rates.p1, p2 = p1 + 1;
+            double x = p_rates.x, x1 = p_rates.x1, x2 = p_rates.x2;
             if (pressures.length == 1) {
-                x = 1.0 / temperature.getK();
                 double z1 = Math.log10(rateConstants[t1][0]);
                 double z2 = Math.log10(rateConstants[t2][0]);
                 rate = (z2 - z1) * (x - x1) / (x2 - x1) + z1;
                 rate = Math.pow(10, rate);
             } else {
-                y1 = Math.log10(pressures[p1].getPa());
-                p2 = p1 + 1;
-                y2 = Math.log10(pressures[p2].getPa());
-                x = 1.0 / temperature.getK();
-                y = Math.log10(pressure.getPa());
-                z11 = Math.log10(rateConstants[t1][p1]);
-                z12 = Math.log10(rateConstants[t1][p2]);
-                z21 = Math.log10(rateConstants[t2][p1]);
-                z22 = Math.log10(rateConstants[t2][p2]);
+                double y = p_rates.y, y1 = p_rates.y1, y2 = p_rates.y2;
+                double z11 = Math.log10(rateConstants[t1][p1]);
+                double z12 = Math.log10(rateConstants[t1][p2]);
+                double z21 = Math.log10(rateConstants[t2][p1]);
+                double z22 = Math.log10(rateConstants[t2][p2]);
                 rate = (z11 * (x2 - x) * (y2 - y) + z21 * (x - x1) * (y2 - y)
                         + z12 * (x2 - x) * (y - y1) + z22 * (x - x1) * (y - y1))
                         / ((x2 - x1) * (y2 - y1));
                 rate = Math.pow(10, rate);
             }
         } else if (getMode() == Mode.CHEBYSHEV && chebyshev != null) {
-            rate = chebyshev.calculateRate(temperature, pressure);
+            rate = chebyshev.calculateRate(p_rates);
         } else if (getMode() == Mode.PDEPARRHENIUS && pDepArrhenius != null) {
             rate = 0;
             for (int i = 0; i < pDepArrhenius.length; i++) {
-                rate += pDepArrhenius[i].calculateRate(temperature, pressure);
+                rate += pDepArrhenius[i].calculateRate(p_rates);
             }
         } else {
             throw new RuntimeException(
@@ -0,0 +1,202 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxn;
+
+import jing.param.Pressure;
+import jing.param.Temperature;
+
+/**
+ * Evaluates the rate coefficients of many pressure-dependent reactions at one temperature and pressure. Everything
+ * that depends only on T and P is worked out once and shared by all of the reactions: the reduced inverse temperature
+ * and log pressure and the Chebyshev basis functions in them, the log pressure used to interpolate PLOG rates, and the
+ * position of T and P in the grid used to interpolate tabulated FAME rates. Each rate then costs only the sums and
+ * interpolation specific to its reaction. The values are the same, to the last digit, as those of
+ * PDepReaction.calculateRate(Temperature, Pressure), which is itself evaluated through a one-off PDepRateEvaluator.
+ */
+public class PDepRateEvaluator {
+    protected Temperature temperature;
+    protected Pressure pressure;
+    /** The temperature in K, and its inverse. */
+    protected double T;
+    protected double inverseT;
+    /** The pressure in Pa, bar and atm, and the common log of the pressure in bar. */
+    protected double Pa;
+    protected double bar;
+    protected double atm;
+    protected double log10Bar;
+    /** The temperature range, order and values of the last Chebyshev basis in reduced inverse temperature. */
+    private double basisTlow = Double.NaN;
+    private double basisTup = Double.NaN;
+    private int basisNT = 0;
+    private double[] basisT = new double[0];
+    /** The pressure range, order and values of the last Chebyshev basis in reduced log pressure. */
+    private double basisPlow = Double.NaN;
+    private double basisPup = Double.NaN;
+    private int basisNP = 0;
+    private double[] basisP = new double[0];
+    /**
+     * The temperature and pressure grid that the interpolation indices and coordinates below were found in, or null
+     * if they have not been found yet.
+     */
+    private Temperature[] gridTemperatures = null;
+    private Pressure[] gridPressures = null;
+    protected int t1 = 0;
+    protected int p1 = 0;
+    protected double x = 0.0;
+    protected double x1 = 0.0;
+    protected double x2 = 0.0;
+    protected double y = 0.0;
+    protected double y1 = 0.0;
+    protected double y2 = 0.0;
+
+    /**
+     * Create an evaluator of rate coefficients at the temperature p_temperature and the pressure p_pressure.
+     */
+    public PDepRateEvaluator(Temperature p_temperature, Pressure p_pressure) {
+        temperature = p_temperature;
+        pressure = p_pressure;
+        T = p_temperature.getK();
+        inverseT = 1.0 / T;
+        Pa = p_pressure.getPa();
+        bar = p_pressure.getBar();
+        atm = p_pressure.getAtm();
+        log10Bar = Math.log10(bar);
+    }
+
+    public Temperature getTemperature() {
+        return temperature;
+    }
+
+    public Pressure getPressure() {
+        return pressure;
+    }
+
+    /**
+     * Return true if this evaluator is for the temperature p_temperature and the pressure p_pressure.
+     */
+    public boolean isAt(Temperature p_temperature, Pressure p_pressure) {
+        return p_temperature.getK() == T && p_pressure.getPa() == Pa;
+    }
+
+    /**
+     * Calculate the rate coefficient of the forward reaction p_reaction at the temperature and pressure of this
+     * evaluator.
+     */
+    public double calculateRate(PDepReaction p_reaction) {
+        return p_reaction.calculateRate(this);
+    }
+
+    /**
+     * Return the Chebyshev polynomials of order 0 to p_NT - 1 in the reduced inverse temperature of a fit valid from
+     * p_Tlow to p_Tup K. The array is shared, and is only valid until the next call.
+     */
+    double[] getTemperatureBasis(double p_Tlow, double p_Tup, int p_NT) {
+        if (p_Tlow != basisTlow || p_Tup != basisTup || p_NT > basisNT) {
+            double Tavg = (2.0 / T - 1.0 / p_Tlow - 1.0 / p_Tup)
+                    / (1.0 / p_Tup - 1.0 / p_Tlow);
+            basisT = calculateBasis(Tavg, p_NT, basisT);
+            basisTlow = p_Tlow;
+            basisTup = p_Tup;
+            basisNT = p_NT;
+        }
+        return basisT;
+    }
+
+    /**
+     * Return the Chebyshev polynomials of order 0 to p_NP - 1 in the reduced log pressure of a fit valid from p_Plow
+     * to p_Pup atm. The array is shared, and is only valid until the next call.
+     */
+    double[] getPressureBasis(double p_Plow, double p_Pup, int p_NP) {
+        if (p_Plow != basisPlow || p_Pup != basisPup || p_NP > basisNP) {
+            double Pavg = (2 * Math.log(atm) - Math.log(p_Plow) - Math
+                    .log(p_Pup)) / (Math.log(p_Pup) - Math.log(p_Plow));
+            basisP = calculateBasis(Pavg, p_NP, basisP);
+            basisPlow = p_Plow;
+            basisPup = p_Pup;
+            basisNP = p_NP;
+        }
+        return basisP;
+    }
+
+    /**
+     * Fill p_basis (or a larger array, if it is too short) with the Chebyshev polynomials of order 0 to p_n - 1 at
+     * p_x, by the same recurrence as ChebyshevPolynomials uses for a single polynomial.
+     */
+    private static double[] calculateBasis(double p_x, int p_n,
+            double[] p_basis) {
+        double[] basis = p_basis.length >= p_n ? p_basis : new double[p_n];
+        for (int i = 0; i < p_n; i++) {
+            if (i == 0)
+                basis[i] = 1;
+            else if (i == 1)
+                basis[i] = p_x;
+            else
+                basis[i] = 2 * p_x * basis[i - 1] - basis[i - 2];
+        }
+        return basis;
+    }
+
+    /**
+     * Find the cell of the grid p_temperatures by p_pressures that the temperature and pressure of this evaluator lie
+     * in, setting t1 and p1 to its lower indices and x, x1, x2, y, y1 and y2 to the inverse temperatures and log
+     * pressures that PDepRateConstant interpolates between. The y coordinates are only set if there is more than one
+     * pressure.
+     */
+    void locate(Temperature[] p_temperatures, Pressure[] p_pressures) {
+        if (p_temperatures == gridTemperatures && p_pressures == gridPressures)
+            return;
+        /*
+         * MRH 10Feb2010 I am initializing the t1, t2, p1, p2 indices to be zero. In the case of the temperature of
+         * interest being equal to the lowest temperature, t1 would not be re-defined (ditto for the pressure)
+         */
+        t1 = 0;
+        p1 = 0;
+        for (int t = 0; t < p_temperatures.length - 1; t++) {
+            if (p_temperatures[t].getK() < T) {
+                t1 = t;
+            }
+        }
+        for (int p = 0; p < p_pressures.length - 1; p++) {
+            if (p_pressures[p].getBar() < bar) {
+                p1 = p;
+            }
+        }
+        x1 = 1.0 / p_temperatures[t1].getK();
+        x2 = 1.0 / p_temperatures[t1 + 1].getK();
+        x = inverseT;
+        if (p_pressures.length > 1) {
+            y1 = Math.log10(p_pressures[p1].getPa());
+            y2 = Math.log10(p_pressures[p1 + 1].getPa());
+            y = Math.log10(Pa);
+        }
+        gridTemperatures = p_temperatures;
+        gridPressures = p_pressures;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxn\PDepRateEvaluator.java
+ *********************************************************************/
@@ -375,12 +375,25 @@ public class PDepReaction extends Reaction {
      * @return The calculated rate coefficient for the forward reaction
      */
     public double calculateRate(Temperature temperature, Pressure pressure) {
+        return calculateRate(new PDepRateEvaluator(temperature, pressure));
+    }
+
+    /**
+     * Calculates the rate coefficient for the forward reaction at the temperature and pressure of p_rates, which
+     * holds the parts of the calculation shared by every reaction at those conditions.
+     * 
+     * @param p_rates
+     *            The evaluator for the temperature and pressure of interest
+     * @return The calculated rate coefficient for the forward reaction
+     */
+    public double calculateRate(PDepRateEvaluator p_rates) {
         double k = 0.0;
+        Temperature temperature = p_rates.getTemperature();
         try {
             if (pDepRate != null)
-                k = pDepRate.calculateRate(temperature, pressure);
+                k = pDepRate.calculateRate(p_rates);
             else if (hasReverseReaction() && pDepReverse.pDepRate != null)
-                k = pDepReverse.calculateRate(temperature, pressure)
+                k = pDepReverse.calculateRate(p_rates)
                         / pDepReverse.calculateKeq(temperature);
             else if (kinetics != null) {
                 for (int numKinetics = 0; numKinetics < kinetics.length; ++numKinetics) {
@@ -390,7 +403,7 @@ public class PDepReaction extends Reaction {
         } catch (RuntimeException e) {
             Logger.error(e.getMessage());
             Logger.error("Error with Reaction: "
-                    + this.toChemkinString(temperature, pressure));
+                    + this.toChemkinString(temperature, p_rates.getPressure()));
             throw e;
         }
         return k;
@@ -417,9 +430,7 @@ public class PDepReaction extends Reaction {
      * @return The determined reaction flux
      */
     public double calculateForwardFlux(SystemSnapshot ss) {
-        Temperature T = ss.getTemperature();
-        Pressure P = ss.getPressure();
-        double forwardFlux = calculateRate(T, P);
+        double forwardFlux = calculateRate(ss.getPDepRateEvaluator());
         for (ListIterator<Species> iter = reactant.getSpeciesListIterator(); iter
                 .hasNext();) {
             Species spe = iter.next();
@@ -451,9 +462,8 @@ public class PDepReaction extends Reaction {
      */
     public double calculateReverseFlux(SystemSnapshot ss) {
         if (pDepReverse != null) {
-            Temperature T = ss.getTemperature();
-            Pressure P = ss.getPressure();
-            double reverseFlux = calculateRate(T, P) / calculateKeq(T);
+            double reverseFlux = calculateRate(ss.getPDepRateEvaluator())
+                    / calculateKeq(ss.getTemperature());
             for (ListIterator<Species> iter = product.getSpeciesListIterator(); iter
                     .hasNext();) {
                 Species spe = iter.next();
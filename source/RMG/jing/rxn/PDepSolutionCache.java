@@ -0,0 +1,252 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxn;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.StringTokenizer;
+import jing.chem.Species;
+import jing.rxnSys.Logger;
+
+/**
+ * An on-disk cache of FAME output, so that a pressure-dependent network that has already been solved, in this job or in
+ * an earlier one sharing the cache directory, is not solved again. An entry is keyed by a hash of the FAME input with
+ * the species names replaced by their positions, so the key covers the isomers, the path reaction kinetics, the bath
+ * gas, the collision model and the temperature and pressure grid, but not the species IDs of a particular job. The
+ * cache lives in the directory given by the RMG.pdepCacheDir property (set from the RMG_PDEP_CACHE environment
+ * variable), and is disabled if that is not set. It is bounded to RMG.pdepCacheSize entries; the least recently used
+ * ones are deleted first.
+ */
+public class PDepSolutionCache {
+    /** Bump this when the format of the FAME input or output changes. */
+    private static final String VERSION = "PDepSolutionCache 1";
+    /** The directory holding the cache, or null if the cache is disabled. */
+    private static File directory = null;
+    /** The version stamp written at the top of every entry; also part of every key. */
+    private static String stamp = null;
+    /** The maximum number of entries in the cache directory. */
+    private static int maxEntries = 20000;
+    /** The number of entries in the cache directory, as far as this job knows. */
+    private static int entries = 0;
+    private static boolean initialized = false;
+    private static final String suffix = ".fame";
+
+    /**
+     * Open the cache directory named by the RMG.pdepCacheDir property. The version stamp combines the cache format
+     * with the size and date of the FAME executable, so that the output of a different FAME is never reused.
+     */
+    private static synchronized void initialize() {
+        if (initialized)
+            return;
+        initialized = true;
+        String path = System.getProperty("RMG.pdepCacheDir");
+        if (path == null)
+            return;
+        File dir = new File(path);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Logger.warning("Unable to create the P-dep solution cache directory "
+                    + path + "; networks will not be cached.");
+            return;
+        }
+        File fame = new File(System.getProperty("RMG.workingDirectory"),
+                "bin/fame.exe");
+        stamp = VERSION + " fame.exe " + fame.length() + " "
+                + fame.lastModified();
+        maxEntries = Integer.getInteger("RMG.pdepCacheSize", maxEntries)
+                .intValue();
+        entries = listEntries(dir).length;
+        directory = dir;
+        Logger.info(String.format(
+                "Using the P-dep solution cache in %s (%d entries)", path,
+                entries));
+    }
+
+    /**
+     * Return the key of a FAME input, or null if the cache is disabled. Every whitespace-delimited token of the input
+     * that is the full name of one of the species is replaced by that species' position in p_speciesList.
+     *
+     * @param p_input
+     *            The FAME input string of the network
+     * @param p_speciesList
+     *            The species of the network, in the order they appear in the input
+     */
+    public static String getKey(String p_input, LinkedList<Species> p_speciesList) {
+        initialize();
+        if (directory == null)
+            return null;
+        HashMap names = new HashMap();
+        for (int i = 0; i < p_speciesList.size(); i++)
+            names.put(p_speciesList.get(i).getFullName(), "#" + i);
+        StringBuilder canonical = new StringBuilder(p_input.length());
+        canonical.append(stamp).append('\n');
+        StringTokenizer lines = new StringTokenizer(p_input, "\n");
+        while (lines.hasMoreTokens()) {
+            String line = lines.nextToken();
+            // comments don't change the solution
+            if (line.startsWith("#"))
+                continue;
+            StringTokenizer tokens = new StringTokenizer(line);
+            while (tokens.hasMoreTokens()) {
+                String token = tokens.nextToken();
+                String position = (String) names.get(token);
+                canonical.append(position == null ? token : position).append(
+                        ' ');
+            }
+            canonical.append('\n');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(canonical.toString().getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder(2 * hash.length);
+            for (int i = 0; i < hash.length; i++)
+                key.append(String.format("%02x", hash[i] & 0xff));
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Return the FAME output cached under p_key, or null if there is none (or the cache is disabled).
+     */
+    public static String get(String p_key) {
+        if (p_key == null || directory == null)
+            return null;
+        File file = new File(directory, p_key + suffix);
+        if (!file.exists())
+            return null;
+        StringBuilder output = new StringBuilder();
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(file));
+            try {
+                String line = reader.readLine();
+                if (line == null || !line.equals("# " + stamp))
+                    return null;
+                while ((line = reader.readLine()) != null)
+                    output.append(line).append('\n');
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            Logger.verbose("Unable to read the P-dep solution cache entry "
+                    + file.getPath() + ": " + e.getMessage());
+            return null;
+        }
+        // keep recently used entries from being evicted
+        file.setLastModified(System.currentTimeMillis());
+        return output.toString();
+    }
+
+    /**
+     * Store the FAME output p_output under p_key. The entry is written to a temporary file and then renamed, so that
+     * jobs sharing the cache never read a partial entry.
+     */
+    public static synchronized void put(String p_key, String p_output) {
+        if (p_key == null || directory == null)
+            return;
+        File file = new File(directory, p_key + suffix);
+        try {
+            File temp = File.createTempFile(p_key, ".tmp", directory);
+            FileWriter writer = new FileWriter(temp);
+            try {
+                writer.write("# " + stamp + "\n");
+                writer.write(p_output);
+            } finally {
+                writer.close();
+            }
+            boolean existed = file.exists();
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+            if (!existed)
+                entries++;
+        } catch (IOException e) {
+            Logger.verbose("Unable to write the P-dep solution cache entry "
+                    + file.getPath() + ": " + e.getMessage());
+            return;
+        }
+        if (entries > maxEntries)
+            evict();
+    }
+
+    /**
+     * Delete the entry stored under p_key, e.g. because its output could not be parsed.
+     */
+    public static synchronized void remove(String p_key) {
+        if (p_key == null || directory == null)
+            return;
+        if (new File(directory, p_key + suffix).delete())
+            entries--;
+    }
+
+    /**
+     * Delete the least recently used entries, down to nine tenths of the maximum size, so that the directory is not
+     * listed on every store.
+     */
+    private static void evict() {
+        File[] files = listEntries(directory);
+        Arrays.sort(files, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                long t1 = ((File) o1).lastModified();
+                long t2 = ((File) o2).lastModified();
+                return t1 < t2 ? -1 : (t1 > t2 ? 1 : 0);
+            }
+        });
+        int target = maxEntries - maxEntries / 10;
+        int remaining = files.length;
+        for (int i = 0; i < files.length && remaining > target; i++) {
+            if (files[i].delete())
+                remaining--;
+        }
+        entries = remaining;
+    }
+
+    private static File[] listEntries(File p_directory) {
+        File[] files = p_directory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(suffix);
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxn\PDepSolutionCache.java
+ *********************************************************************/
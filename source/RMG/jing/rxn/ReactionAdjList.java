@@ -263,6 +263,7 @@ public class ReactionAdjList {
                 node.updateFeElement();
                 node.updateFgElement();
             }
+            p_graph.resetFingerprint();
             return;
         } catch (UnknownSymbolException e) {
             Logger.logStackTrace(e);
@@ -342,7 +343,13 @@ public class ReactionAdjList {
              * if (ChemGraph.isForbiddenStructure(pg)) throw new ForbiddenStructureException(pg.toString());
              */
             String name = null;
-            ChemGraph pcg = ChemGraph.make(pg, true);
+            // a product that is already a known species doesn't have to go through the checks of a new ChemGraph
+            Species known = SpeciesDictionary.getSpeciesFromGraph(pg);
+            ChemGraph pcg = null;
+            if (known != null)
+                pcg = ChemGraph.make(pg, known);
+            else
+                pcg = ChemGraph.make(pg, true);
             // Species ps = Species.make(name, pcg);
             products.add(pcg);
         }
@@ -342,12 +342,15 @@ public class ReactionTemplate {
          * estimate via searching the tree
          */
         Kinetics[] k = null;
+        Reaction primaryReaction = null;
         if (doesPrimaryKineticLibraryExist()) {
-            k = getPrimaryKineticRate(p_structure);
+            primaryReaction = getPrimaryKineticReaction(p_structure);
+            if (primaryReaction != null)
+                k = primaryReaction.getKinetics();
         }
         if (k != null) {
             setRateCoefficientSource(k);
-            p_structure.setDirection(getPrimaryKineticDirection(p_structure));
+            p_structure.setDirection(primaryReaction.getStructure().direction);
             return k;
         }
         // look for kinetics in kinetics template libarry
@@ -622,73 +625,22 @@ public class ReactionTemplate {
      * 
      * @param p_structure
      *            : Structure of the reaction
-     * @return
+     * @return the primary reaction library reaction with the same reactants and products as p_structure, or null if
+     *         there is none
      */
-    private Kinetics[] getPrimaryKineticRate(Structure p_structure) {
-        boolean equivReactants = false;
-        LinkedHashSet primaryKinLibrary = getPrimaryKinLibrary();
-        Iterator iter = primaryKinLibrary.iterator();
-        LinkedList reactants_asdefinedbyRMG = p_structure.getReactantList();
-        LinkedList products_asdefinedbyRMG = p_structure.getProductList();
-        while (iter.hasNext()) {
-            Reaction rxn = (Reaction) iter.next();
-            LinkedList reactants_asdefinedinPRL = rxn.getReactantList();
-            /*
-             * The LinkedList "reactants_asdefinedbyRMG" contains species generated by RMG. The LinkedList contains
-             * chemgraphs (and species, indirectly). The LinkedList "reactants_asdefinedinPRL" contains the species read
-             * in by RMG, from the user-defined primary reaction library. When reading in the user- specified adjacency
-             * lists, RMG makes a Species (meaning all resonance isomers have been explored / stored). Thus, both
-             * reactants_asdefinedbyRMG and reactants_asdefinedinPRL have all of the resonance isomers defined ... if
-             * you know where to look
-             */
-            equivReactants = Structure
-                    .isSpeciesListEquivalentToChemGraphListAsChemGraphs(
-                            reactants_asdefinedinPRL, reactants_asdefinedbyRMG);
-            if (equivReactants) {
-                LinkedList products_asdefinedinPRL = rxn.getProductList();
-                if (Structure
-                        .isSpeciesListEquivalentToChemGraphListAsChemGraphs(
-                                products_asdefinedinPRL,
-                                products_asdefinedbyRMG)) {
-                    if (rxn instanceof ThirdBodyReaction
-                            || rxn instanceof TROEReaction
-                            || rxn instanceof LindemannReaction)
-                        Logger.info("RMG is only utilizing the high-pressure limit parameters for PKL reaction: "
-                                + rxn.toString());
-                    return rxn.getKinetics();
-                }
-            }
-        }
-        return null;
-    }
-
-    private int getPrimaryKineticDirection(Structure p_structure) {
-        boolean equivReactants = false;
-        LinkedHashSet primaryKinLibrary = getPrimaryKinLibrary();
-        Iterator iter = primaryKinLibrary.iterator();
-        LinkedList p_reactants = p_structure.getReactantList();
-        LinkedList p_products = p_structure.getProductList();
-        while (iter.hasNext()) {
-            Reaction rxn = (Reaction) iter.next();
-            LinkedList reactants = rxn.getReactantList();
-            equivReactants = Structure
-                    .isSpeciesListEquivalentToChemGraphListAsChemGraphs(
-                            reactants, p_reactants);
-            if (equivReactants) {
-                LinkedList products = rxn.getProductList();
-                if (Structure
-                        .isSpeciesListEquivalentToChemGraphListAsChemGraphs(
-                                products, p_products)) {
-                    if (rxn instanceof ThirdBodyReaction
-                            || rxn instanceof TROEReaction
-                            || rxn instanceof LindemannReaction)
-                        Logger.info("RMG is only utilizing the high-pressure limit parameters for PKL reaction: "
-                                + rxn.toString());
-                    return rxn.getStructure().direction;
-                }
-            }
-        }
-        return -1;
+    private Reaction getPrimaryKineticReaction(Structure p_structure) {
+        /*
+         * The library reactions are indexed by their reactant and product species, so this is a hash lookup followed
+         * by the full comparison of the few reactions found (see PrimaryKineticLibrary.getReaction).
+         */
+        Reaction rxn = PrimaryKineticLibrary.getReaction(p_structure
+                .getReactantList(), p_structure.getProductList());
+        if (rxn != null
+                && (rxn instanceof ThirdBodyReaction
+                        || rxn instanceof TROEReaction || rxn instanceof LindemannReaction))
+            Logger.info("RMG is only utilizing the high-pressure limit parameters for PKL reaction: "
+                    + rxn.toString());
+        return rxn;
     }
 
     private String getKineticsComments(Collection p_matchedPathSet) {
@@ -896,8 +848,10 @@ public class ReactionTemplate {
 // mind that when this is commented out, it is probably more likely that one will obtain reactions for which the group
 // identification (and hence kinetics estimates) are not reproducible due to identification of different ring paths in
 // the same molecule
-        LinkedHashSet allReactionSites = structureTemplate
-                .identifyReactedSites(p_chemGraph, 1);
+        // the sites may have been identified already, e.g. while the ODE solver ran (see ReactedSiteSpeculator)
+        LinkedHashSet[] kept = p_chemGraph.getReactedSites(structureTemplate);
+        LinkedHashSet allReactionSites = kept != null && kept[1] != null ? kept[1]
+                : structureTemplate.identifyReactedSites(p_chemGraph, 1);
         // System.out.println("Species: "+p_chemGraph.toString());
         if (allReactionSites.isEmpty())
             return reaction_set;
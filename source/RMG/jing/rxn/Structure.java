@@ -51,6 +51,9 @@ public class Structure {
     protected int redundancy = 1; // ## attribute redundancy
     protected LinkedList products;
     protected LinkedList reactants;
+    // key of the species on each side of the reaction, computed the first time it is needed
+    protected long key;
+    protected boolean hasKey = false;
     /*
      * AJ 16JULY2010 Read in the solvation flag from the Species class file. This flag will be used to modify the
      * equilibrium constant calculation in the solution phase.
@@ -422,6 +425,10 @@ public class Structure {
         if (!(p_structure instanceof Structure))
             return false;
         Structure structure = (Structure) p_structure;
+        // structures of different species always have different keys
+        if (hasSpeciesKey() && structure.hasSpeciesKey()
+                && key != structure.key)
+            return false;
         boolean requal = isCGListEquivalentAsSpecies(reactants,
                 structure.reactants);
         if (requal) {
@@ -516,9 +523,73 @@ public class Structure {
         // #]
     }
 
+    // ## operation getKey()
+    /**
+     * Requires: the reactants and products are Species, and are not changed after the key is first asked for
+     * Effects: returns a 64-bit key of the multisets of reactant and product species IDs, so that two structures equal
+     * as species have the same key, and a reaction and its reverse have different ones. The key is computed once and
+     * then kept.
+     */
+    public long getKey() {
+        // #[ operation getKey()
+        if (!hasSpeciesKey())
+            throw new InvalidStructureException(
+                    "Structure key is only defined for structures of species: "
+                            + toString());
+        return key;
+        // #]
+    }
+
+    // ## operation hasSpeciesKey()
+    /**
+     * Effects: computes the key of this structure if it is made of species, and returns whether it is.
+     */
+    private boolean hasSpeciesKey() {
+        // #[ operation hasSpeciesKey()
+        if (hasKey)
+            return true;
+        if (!isSpeciesList(reactants) || !isSpeciesList(products))
+            return false;
+        long reactantKey = sumSpeciesKey(reactants);
+        long productKey = sumSpeciesKey(products);
+        // mix the two sides asymmetrically, so that A+B=C and C=A+B differ
+        key = mix(reactantKey) * 31 + mix(productKey ^ 0x5bd1e995L);
+        hasKey = true;
+        return true;
+        // #]
+    }
+
+    private static boolean isSpeciesList(LinkedList p_list) {
+        if (p_list == null)
+            return false;
+        for (Iterator iter = p_list.iterator(); iter.hasNext();) {
+            if (!(iter.next() instanceof Species))
+                return false;
+        }
+        return true;
+    }
+
+    // the sum is independent of the order of the species, as is isCGListEquivalentAsSpecies()
+    private static long sumSpeciesKey(LinkedList p_speciesList) {
+        long sum = 0;
+        for (Iterator iter = p_speciesList.iterator(); iter.hasNext();)
+            sum += mix(((Species) iter.next()).getID() + 0x9e3779b97f4a7c15L);
+        return sum;
+    }
+
+    // the finalizer of the SplitMix64 generator; spreads nearby IDs over all 64 bits
+    private static long mix(long p_value) {
+        long z = p_value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
     // ## operation hashCode()
     public int hashCode() {
 // #[ operation hashCode()
+        if (hasSpeciesKey())
+            return (int) (key ^ (key >>> 32));
         int hash = 0;
         Iterator r = getReactants();
         while (r.hasNext()) {
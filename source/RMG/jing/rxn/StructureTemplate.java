@@ -207,6 +207,23 @@ public class StructureTemplate {
         // #]
     }
 
+    /**
+     * Requires: p_reactant is the ChemGraph of a core species (or a copy of one), whose graph won't change. Effects:
+     * same as identifyReactedSites(p_reactant, p_position), but the sites are only identified on the first call for
+     * p_reactant; they are kept in p_reactant and returned again on later calls, so an old core species isn't matched
+     * against this template again every time a new species enters the core. Modifies: p_reactant
+     */
+    public LinkedHashSet getReactedSites(ChemGraph p_reactant, int p_position) {
+        LinkedHashSet[] sites = p_reactant.getReactedSites(this);
+        if (sites == null) {
+            sites = new LinkedHashSet[3];
+            p_reactant.setReactedSites(this, sites);
+        }
+        if (sites[p_position] == null)
+            sites[p_position] = identifyReactedSites(p_reactant, p_position);
+        return sites[p_position];
+    }
+
     // ## operation isReverse(StructureTemplate,ReactionAdjList)
     public boolean isReverse(StructureTemplate p_structureTemplate,
             ReactionAdjList p_reactionAdjList) {
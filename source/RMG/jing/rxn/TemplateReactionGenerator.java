@@ -120,8 +120,8 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                     .next();
             if (specificRxnFamily.equals("All")
                     || specificRxnFamily.equals(current_template.name)) {
-                Logger.info("Reacting " + newCoreSpecies.getChemkinName()
-                        + " with the core: " + current_template.name);
+                Logger.info("Reacting %s with the core: %s",
+                        newCoreSpecies.getChemkinName(), current_template.name);
                 // the reaction template has only one reactant, we only need to loop over the whole species seed set to
 // find a match
                 double startTime = System.currentTimeMillis();
@@ -143,9 +143,9 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                     if (!newCoreSpecies.hasResonanceIsomers()) {
                         ChemGraph newCoreCG = newCoreSpecies.getChemGraph();
                         site1_reactiveSites_sp1 = structTemp
-                                .identifyReactedSites(newCoreCG, 1);
+                                .getReactedSites(newCoreCG, 1);
                         site2_reactiveSites_sp1 = structTemp
-                                .identifyReactedSites(newCoreCG, 2);
+                                .getReactedSites(newCoreCG, 2);
                         Iterator coreSpeciesIter = p_speciesSet.iterator();
                         while (coreSpeciesIter.hasNext()) {
                             Species coreSpecies = (Species) coreSpeciesIter
@@ -158,11 +158,11 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                                             tempCG, newCoreCG);
                                     if (!site1_reactiveSites_sp1.isEmpty())
                                         site2_reactiveSites_sp2 = structTemp
-                                                .identifyReactedSites(
+                                                .getReactedSites(
                                                         oldCoreCG, 2);
                                     if (!site2_reactiveSites_sp1.isEmpty())
                                         site1_reactiveSites_sp2 = structTemp
-                                                .identifyReactedSites(
+                                                .getReactedSites(
                                                         oldCoreCG, 1);
                                     // React A + B
                                     LinkedHashSet current_reactions = current_template
@@ -188,11 +188,11 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                                                 tempCG, newCoreCG);
                                         if (!site1_reactiveSites_sp1.isEmpty())
                                             site2_reactiveSites_sp2 = structTemp
-                                                    .identifyReactedSites(
+                                                    .getReactedSites(
                                                             oldCoreCG, 2);
                                         if (!site2_reactiveSites_sp1.isEmpty())
                                             site1_reactiveSites_sp2 = structTemp
-                                                    .identifyReactedSites(
+                                                    .getReactedSites(
                                                             oldCoreCG, 1);
                                         // React A + B
                                         LinkedHashSet current_reactions = current_template
@@ -221,9 +221,9 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                             ChemGraph newCoreCG = (ChemGraph) newSpeciesCGIter
                                     .next();
                             site1_reactiveSites_sp1 = structTemp
-                                    .identifyReactedSites(newCoreCG, 1);
+                                    .getReactedSites(newCoreCG, 1);
                             site2_reactiveSites_sp1 = structTemp
-                                    .identifyReactedSites(newCoreCG, 2);
+                                    .getReactedSites(newCoreCG, 2);
                             Iterator coreSpeciesIter = p_speciesSet.iterator();
                             while (coreSpeciesIter.hasNext()) {
                                 Species coreSpecies = (Species) coreSpeciesIter
@@ -236,11 +236,11 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                                                 tempCG, newCoreCG);
                                         if (!site1_reactiveSites_sp1.isEmpty())
                                             site2_reactiveSites_sp2 = structTemp
-                                                    .identifyReactedSites(
+                                                    .getReactedSites(
                                                             oldCoreCG, 2);
                                         if (!site2_reactiveSites_sp1.isEmpty())
                                             site1_reactiveSites_sp2 = structTemp
-                                                    .identifyReactedSites(
+                                                    .getReactedSites(
                                                             oldCoreCG, 1);
                                         // React A + B
                                         LinkedHashSet current_reactions = current_template
@@ -269,12 +269,12 @@ public class TemplateReactionGenerator implements ReactionGenerator {
                                             if (!site1_reactiveSites_sp1
                                                     .isEmpty())
                                                 site2_reactiveSites_sp2 = structTemp
-                                                        .identifyReactedSites(
+                                                        .getReactedSites(
                                                                 oldCoreCG, 2);
                                             if (!site2_reactiveSites_sp1
                                                     .isEmpty())
                                                 site1_reactiveSites_sp2 = structTemp
-                                                        .identifyReactedSites(
+                                                        .getReactedSites(
                                                                 oldCoreCG, 1);
                                             // React A + B
                                             LinkedHashSet current_reactions = current_template
@@ -0,0 +1,471 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxnSys;
+
+import java.util.*;
+
+// ## package jing::rxnSys
+// ----------------------------------------------------------------------------
+// jing\rxnSys\AdjointSensitivity.java
+// ----------------------------------------------------------------------------
+/**
+ * Adjoint sensitivity analysis of a reaction system. Instead of integrating the forward sensitivity equations for
+ * every parameter (nState * (nParameter + 1) equations in daspkAUTO), the adjoint equations are integrated backwards
+ * along a concentration trajectory already computed by the ODE solver, once per target species and output time. The
+ * cost is proportional to the number of targets rather than to the number of rate constants. The parameters are the
+ * same as in the DASPK sensitivity run, in the same order: the rate constant written to the solver input for each
+ * reaction, followed by the free energy (kcal/mol) of each species. The rate expressions mirror those in getflux.f.
+ */
+// ## class AdjointSensitivity
+public class AdjointSensitivity {
+    protected int nState;
+    protected int nReaction;
+    protected ODEReaction[] reaction;
+    protected boolean[] reversible;
+    protected double[] thermo;
+    protected double temperature;
+    protected double pressure;
+    protected boolean[] constantConcentration;
+    protected boolean volumeConstant = false;
+    // the quantities below describe the state most recently passed to evaluate()
+    private double[][] jacobian;
+    private double[] reverseRate;
+    private double[] rateParameterDerivative;
+    private double[] rateSum = new double[1];
+    private double[] totalDerivative;
+
+    // ## operation AdjointSensitivity(int,LinkedList,boolean [],double [],double,double,boolean [])
+    /**
+     * Requires: p_reaction holds the ODEReactions in the order their rate constants are passed to the solver;
+     * p_thermo holds the free energy (kcal/mol) and p_constantConcentration the constant concentration flag of each
+     * species, indexed by real ID - 1; p_temperature is in K and p_pressure in Pa.
+     */
+    public AdjointSensitivity(int p_nState, LinkedList p_reaction,
+            boolean[] p_reversible, double[] p_thermo, double p_temperature,
+            double p_pressure, boolean[] p_constantConcentration) {
+        // #[ operation AdjointSensitivity(int,LinkedList,boolean [],double [],double,double,boolean [])
+        nState = p_nState;
+        nReaction = p_reaction.size();
+        reaction = (ODEReaction[]) p_reaction
+                .toArray(new ODEReaction[nReaction]);
+        reversible = p_reversible;
+        thermo = p_thermo;
+        temperature = p_temperature;
+        pressure = p_pressure;
+        constantConcentration = p_constantConcentration;
+        for (int i = 0; i < nState; i++) {
+            if (constantConcentration[i])
+                volumeConstant = true;
+        }
+        jacobian = new double[nState][nState];
+        reverseRate = new double[nReaction];
+        rateParameterDerivative = new double[nReaction];
+        totalDerivative = new double[nState];
+        // #]
+    }
+
+    // ## operation getParameterNumber()
+    public int getParameterNumber() {
+        return nReaction + nState;
+    }
+
+    // ## operation solve(double [],double [][],boolean [],int [])
+    /**
+     * Requires: p_time is increasing, starting at the initial time; p_concentration[n] holds the concentration of each
+     * species (by real ID - 1) at p_time[n]; p_target holds the real IDs of the target species.
+     * Effects: for every point n > 0 flagged in p_reported, returns at index n a map from each target real ID (Integer)
+     * to the array of d[target]/dp for every parameter; the other entries are null. The adjoint is integrated with the
+     * implicit Euler method on the time grid of p_time, with the parameter integral evaluated by the trapezoidal rule,
+     * so the forward trajectory should be reported densely enough to resolve the chemistry.
+     */
+    public LinkedHashMap[] solve(double[] p_time, double[][] p_concentration,
+            boolean[] p_reported, int[] p_target) {
+        // #[ operation solve(double [],double [][],boolean [],int [])
+        int last = p_time.length - 1;
+        LinkedHashMap[] result = new LinkedHashMap[p_time.length];
+        LinkedList active = new LinkedList();
+        double[][] matrix = new double[nState][nState];
+        int[] pivot = new int[nState];
+        for (int n = last; n >= 0; n--) {
+            boolean report = n > 0 && p_reported[n];
+            if (active.isEmpty() && !report)
+                continue;
+            double[] c = p_concentration[n];
+            evaluate(c);
+            // step the adjoints started at later points from p_time[n+1] back to p_time[n]
+            if (!active.isEmpty()) {
+                double h = p_time[n + 1] - p_time[n];
+                for (int i = 0; i < nState; i++) {
+                    for (int l = 0; l < nState; l++) {
+                        matrix[i][l] = -h * jacobian[l][i];
+                    }
+                    matrix[i][i] += 1;
+                }
+                factor(matrix, pivot);
+                for (Iterator iter = active.iterator(); iter.hasNext();) {
+                    AdjointVector av = (AdjointVector) iter.next();
+                    solveFactored(matrix, pivot, av.adjoint);
+                }
+            }
+            if (report) {
+                result[n] = new LinkedHashMap();
+                for (int t = 0; t < p_target.length; t++) {
+                    AdjointVector av = new AdjointVector(n, p_target[t]);
+                    result[n].put(new Integer(p_target[t]), av.sensitivity);
+                    active.add(av);
+                }
+            }
+            double lower = n > 0 ? p_time[n] - p_time[n - 1] : 0;
+            for (Iterator iter = active.iterator(); iter.hasNext();) {
+                AdjointVector av = (AdjointVector) iter.next();
+                double upper = n < av.start ? p_time[n + 1] - p_time[n] : 0;
+                accumulate(av, (upper + lower) / 2, c);
+            }
+        }
+        return result;
+        // #]
+    }
+
+    // ## operation evaluate(double [])
+    /**
+     * Modifies: jacobian, reverseRate, rateParameterDerivative, rateSum
+     * Effects: evaluates d(dC/dt)/dC, the reverse rate of each reaction, and the derivative of each net reaction rate
+     * with respect to its rate constant at concentrations p_c.
+     */
+    private void evaluate(double[] p_c) {
+        // #[ operation evaluate(double [])
+        for (int i = 0; i < nState; i++) {
+            Arrays.fill(jacobian[i], 0);
+            totalDerivative[i] = 0;
+        }
+        rateSum[0] = 0;
+        double inertConcentration = pressure * 1e-6 / 8.314 / temperature;
+        for (int j = 0; j < nReaction; j++) {
+            ODEReaction or = reaction[j];
+            double keq = calculateKeq(or);
+            double productR = 1;
+            for (int a = 0; a < or.rNum; a++)
+                productR *= p_c[or.rID[a] - 1];
+            double productP = 0;
+            if (reversible[j]) {
+                productP = 1;
+                for (int a = 0; a < or.pNum; a++)
+                    productP *= p_c[or.pID[a] - 1];
+                productP /= keq;
+            }
+            double driving = productR - productP;
+            double k;
+            double dkdM = 0;
+            int[] colliders = null;
+            double[] efficiency = null;
+            int numCollider = 0;
+            if (or instanceof TROEODEReaction || or instanceof LindemannODEReaction
+                    || or instanceof ThirdBodyODEReaction) {
+                double high;
+                if (or instanceof TROEODEReaction) {
+                    TROEODEReaction tor = (TROEODEReaction) or;
+                    colliders = tor.colliders;
+                    efficiency = tor.efficiency;
+                    numCollider = tor.numCollider;
+                    high = tor.highRate;
+                } else if (or instanceof LindemannODEReaction) {
+                    LindemannODEReaction lor = (LindemannODEReaction) or;
+                    colliders = lor.colliders;
+                    efficiency = lor.efficiency;
+                    numCollider = lor.numCollider;
+                    high = lor.highRate;
+                } else {
+                    ThirdBodyODEReaction tbor = (ThirdBodyODEReaction) or;
+                    colliders = tbor.colliders;
+                    efficiency = tbor.efficiency;
+                    numCollider = tbor.numCollider;
+                    high = tbor.rate;
+                }
+                double m = inertConcentration;
+                for (int a = 0; a < numCollider; a++)
+                    m += p_c[colliders[a] - 1] * (efficiency[a] - 1);
+                if (or instanceof ThirdBodyODEReaction) {
+                    k = high * m;
+                    dkdM = high;
+                    rateParameterDerivative[j] = m * driving;
+                } else {
+                    k = calculateFalloffRate(or, m, high);
+                    double dM = 1e-6 * Math.abs(m);
+                    dkdM = (calculateFalloffRate(or, m + dM, high) - calculateFalloffRate(
+                            or, m - dM, high)) / (2 * dM);
+                    double dHigh = 1e-6 * high;
+                    double dkdHigh = dHigh == 0 ? 0 : (calculateFalloffRate(
+                            or, m, high + dHigh) - calculateFalloffRate(or, m,
+                            high - dHigh))
+                            / (2 * dHigh);
+                    rateParameterDerivative[j] = dkdHigh * driving;
+                }
+            } else {
+                k = or.rate;
+                rateParameterDerivative[j] = driving;
+            }
+            reverseRate[j] = k * productP;
+            rateSum[0] += (or.pNum - or.rNum) * k * driving;
+            // derivative of the net rate with respect to each species it depends on
+            for (int a = 0; a < or.rNum; a++) {
+                double d = k;
+                for (int b = 0; b < or.rNum; b++) {
+                    if (b != a)
+                        d *= p_c[or.rID[b] - 1];
+                }
+                addRateDerivative(or, or.rID[a], d);
+            }
+            if (reversible[j]) {
+                for (int a = 0; a < or.pNum; a++) {
+                    double d = -k / keq;
+                    for (int b = 0; b < or.pNum; b++) {
+                        if (b != a)
+                            d *= p_c[or.pID[b] - 1];
+                    }
+                    addRateDerivative(or, or.pID[a], d);
+                }
+            }
+            for (int a = 0; a < numCollider; a++) {
+                addRateDerivative(or, colliders[a], dkdM * (efficiency[a] - 1)
+                        * driving);
+            }
+        }
+        for (int i = 0; i < nState; i++) {
+            if (constantConcentration[i])
+                Arrays.fill(jacobian[i], 0);
+        }
+        // at constant pressure the volume follows the total number of moles: dC_i/dt = f_i - C_i * sum(f) / Ctot
+        if (!volumeConstant) {
+            for (int i = 0; i < nState; i++) {
+                double scale = p_c[i] / inertConcentration;
+                for (int l = 0; l < nState; l++)
+                    jacobian[i][l] -= scale * totalDerivative[l];
+                jacobian[i][i] -= rateSum[0] / inertConcentration;
+            }
+        }
+        // #]
+    }
+
+    // ## operation addRateDerivative(ODEReaction,int,double)
+    private void addRateDerivative(ODEReaction p_reaction, int p_id,
+            double p_derivative) {
+        // #[ operation addRateDerivative(ODEReaction,int,double)
+        int l = p_id - 1;
+        for (int a = 0; a < p_reaction.rNum; a++)
+            jacobian[p_reaction.rID[a] - 1][l] -= p_derivative;
+        for (int a = 0; a < p_reaction.pNum; a++)
+            jacobian[p_reaction.pID[a] - 1][l] += p_derivative;
+        totalDerivative[l] += (p_reaction.pNum - p_reaction.rNum)
+                * p_derivative;
+        // #]
+    }
+
+    // ## operation accumulate(AdjointVector,double,double [])
+    /**
+     * Modifies: p_av.sensitivity
+     * Effects: adds p_weight times the adjoint-weighted derivative of dC/dt with respect to every parameter, at the
+     * state last passed to evaluate().
+     */
+    private void accumulate(AdjointVector p_av, double p_weight, double[] p_c) {
+        // #[ operation accumulate(AdjointVector,double,double [])
+        if (p_weight == 0)
+            return;
+        double[] w = p_av.adjoint;
+        double volumeTerm = 0;
+        if (!volumeConstant) {
+            for (int i = 0; i < nState; i++)
+                volumeTerm += w[i] * p_c[i];
+            volumeTerm /= pressure * 1e-6 / 8.314 / temperature;
+        }
+        double thermoFactor = 4184 / 8.314 / temperature;
+        double[] sens = p_av.sensitivity;
+        for (int j = 0; j < nReaction; j++) {
+            ODEReaction or = reaction[j];
+            double phi = 0;
+            for (int a = 0; a < or.rNum; a++)
+                phi -= adjointValue(w, or.rID[a]) - volumeTerm;
+            for (int a = 0; a < or.pNum; a++)
+                phi += adjointValue(w, or.pID[a]) - volumeTerm;
+            if (phi == 0)
+                continue;
+            sens[j] += p_weight * rateParameterDerivative[j] * phi;
+            if (reverseRate[j] != 0) {
+                double d = p_weight * reverseRate[j] * thermoFactor * phi;
+                for (int a = 0; a < or.rNum; a++)
+                    sens[nReaction + or.rID[a] - 1] += d;
+                for (int a = 0; a < or.pNum; a++)
+                    sens[nReaction + or.pID[a] - 1] -= d;
+            }
+        }
+        // #]
+    }
+
+    private double adjointValue(double[] p_w, int p_id) {
+        if (constantConcentration[p_id - 1])
+            return 0;
+        return p_w[p_id - 1];
+    }
+
+    // ## operation calculateKeq(ODEReaction)
+    /**
+     * Effects: returns the concentration-based equilibrium constant from the species free energies, as in getflux.f.
+     */
+    private double calculateKeq(ODEReaction p_reaction) {
+        // #[ operation calculateKeq(ODEReaction)
+        double dG = 0;
+        for (int a = 0; a < p_reaction.rNum; a++)
+            dG -= thermo[p_reaction.rID[a] - 1];
+        for (int a = 0; a < p_reaction.pNum; a++)
+            dG += thermo[p_reaction.pID[a] - 1];
+        return Math.exp(-dG * 4184 / 8.314 / temperature)
+                * Math.pow(82.053 * temperature, p_reaction.rNum
+                        - p_reaction.pNum);
+        // #]
+    }
+
+    // ## operation calculateFalloffRate(ODEReaction,double,double)
+    /**
+     * Requires: p_reaction is a TROEODEReaction or a LindemannODEReaction
+     * Effects: returns the forward rate coefficient at third-body concentration p_m and high-pressure rate p_high.
+     */
+    private double calculateFalloffRate(ODEReaction p_reaction, double p_m,
+            double p_high) {
+        // #[ operation calculateFalloffRate(ODEReaction,double,double)
+        double low;
+        double f = 1;
+        if (p_reaction instanceof TROEODEReaction) {
+            TROEODEReaction tor = (TROEODEReaction) p_reaction;
+            low = tor.lowRate;
+            double fcent = (1 - tor.a) * Math.exp(-temperature / tor.T3star)
+                    + tor.a * Math.exp(-temperature / tor.Tstar);
+            if (tor.troe7)
+                fcent += Math.exp(-tor.T2star / temperature);
+            double pr = low * p_m / p_high;
+            double logFcent = fcent >= 1e-30 ? Math.log10(fcent) : -30;
+            double logPr = pr >= 1e-30 ? Math.log10(pr) : -30;
+            double n = 0.75 - 1.27 * logFcent;
+            double c = -0.4 - 0.67 * logFcent;
+            double inside = (logPr + c) / (n - 0.14 * (logPr + c));
+            f = Math.pow(10, logFcent / (1 + inside * inside));
+        } else {
+            low = ((LindemannODEReaction) p_reaction).lowRate;
+        }
+        double pr = low * p_m / p_high;
+        if (p_reaction.rNum > 1 && p_reaction.pNum > 1)
+            return low / (1 + pr) * f;
+        return p_high * pr / (1 + pr) * f;
+        // #]
+    }
+
+    // ## operation factor(double [][],int [])
+    /**
+     * Modifies: p_a, p_pivot
+     * Effects: replaces p_a by its LU factorization with partial pivoting.
+     */
+    private static void factor(double[][] p_a, int[] p_pivot) {
+        // #[ operation factor(double [][],int [])
+        int n = p_a.length;
+        for (int k = 0; k < n; k++) {
+            int p = k;
+            for (int i = k + 1; i < n; i++) {
+                if (Math.abs(p_a[i][k]) > Math.abs(p_a[p][k]))
+                    p = i;
+            }
+            p_pivot[k] = p;
+            if (p != k) {
+                double[] row = p_a[p];
+                p_a[p] = p_a[k];
+                p_a[k] = row;
+            }
+            double[] rowK = p_a[k];
+            if (rowK[k] == 0)
+                continue;
+            for (int i = k + 1; i < n; i++) {
+                double[] rowI = p_a[i];
+                double factor = rowI[k] / rowK[k];
+                rowI[k] = factor;
+                if (factor == 0)
+                    continue;
+                for (int l = k + 1; l < n; l++)
+                    rowI[l] -= factor * rowK[l];
+            }
+        }
+        // #]
+    }
+
+    // ## operation solveFactored(double [][],int [],double [])
+    /**
+     * Requires: p_lu and p_pivot come from factor()
+     * Modifies: p_b
+     * Effects: overwrites p_b with the solution x of A x = p_b.
+     */
+    private static void solveFactored(double[][] p_lu, int[] p_pivot,
+            double[] p_b) {
+        // #[ operation solveFactored(double [][],int [],double [])
+        int n = p_lu.length;
+        for (int k = 0; k < n; k++) {
+            int p = p_pivot[k];
+            if (p != k) {
+                double temp = p_b[p];
+                p_b[p] = p_b[k];
+                p_b[k] = temp;
+            }
+        }
+        for (int i = 1; i < n; i++) {
+            double sum = p_b[i];
+            for (int l = 0; l < i; l++)
+                sum -= p_lu[i][l] * p_b[l];
+            p_b[i] = sum;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = p_b[i];
+            for (int l = i + 1; l < n; l++)
+                sum -= p_lu[i][l] * p_b[l];
+            p_b[i] = p_lu[i][i] == 0 ? 0 : sum / p_lu[i][i];
+        }
+        // #]
+    }
+
+    /**
+     * The adjoint of one target species at one output time, together with the sensitivities accumulated so far.
+     */
+    private class AdjointVector {
+        int start;
+        double[] adjoint;
+        double[] sensitivity;
+
+        AdjointVector(int p_start, int p_target) {
+            start = p_start;
+            adjoint = new double[nState];
+            adjoint[p_target - 1] = 1;
+            sensitivity = new double[nReaction + nState];
+        }
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxnSys\AdjointSensitivity.java
+ *********************************************************************/
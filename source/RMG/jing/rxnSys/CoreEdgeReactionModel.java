@@ -44,6 +44,12 @@ public class CoreEdgeReactionModel implements ReactionModel {
     protected Core core;
     protected Edge edge;
     protected SeedMechanism seed;
+    // the edge reactions producing each species, so that moving species to the core only recategorizes the reactions
+    // they can complete; entries of reactions that have left the edge are skipped and dropped lazily
+    protected HashMap edgeReactionsBySpecies = new HashMap();
+    // the position of each edge reaction in the edge reaction set, keyed by the reaction
+    protected HashMap edgeReactionEntries = new HashMap();
+    protected long edgeReactionCount = 0;
 
     // Constructors
     // ## operation CoreEdgeReactionModel()
@@ -117,8 +123,10 @@ public class CoreEdgeReactionModel implements ReactionModel {
                     for (Iterator rIter = getUnreactedReactionSet().iterator(); rIter
                             .hasNext();) {
                         Reaction r = (Reaction) rIter.next();
-                        if (r.equals(rxn))
+                        if (r.equals(rxn)) {
                             rIter.remove();
+                            edgeReactionEntries.remove(r);
+                        }
                     }
                 }
                 addUnreactedReaction(rxn);
@@ -145,8 +153,10 @@ public class CoreEdgeReactionModel implements ReactionModel {
                         for (Iterator rIter = getUnreactedReactionSet()
                                 .iterator(); rIter.hasNext();) {
                             Reaction r = (Reaction) rIter.next();
-                            if (r.equals(reverse))
+                            if (r.equals(reverse)) {
                                 rIter.remove();
+                                edgeReactionEntries.remove(r);
+                            }
                         }
                     }
                     addUnreactedReaction(reverse);
@@ -199,7 +209,6 @@ public class CoreEdgeReactionModel implements ReactionModel {
     // ## operation addReactedSpeciesSet(LinkedHashSet)
     public void addReactedSpeciesSet(LinkedHashSet p_reactedSpeciesSet) {
         // #[ operation addReactedSpeciesSet(LinkedHashSet)
-        boolean added = false;
         LinkedHashSet rs = getReactedSpeciesSet();
         for (Iterator iter = p_reactedSpeciesSet.iterator(); iter.hasNext();) {
             Species spe = (Species) iter.next();
@@ -207,15 +216,6 @@ public class CoreEdgeReactionModel implements ReactionModel {
                 moveFromUnreactedToReactedSpecies(spe);
             } else {
                 rs.add(spe);
-                if (!added) {
-                    Iterator originalSpeciesIterator = rs.iterator();
-                    while (originalSpeciesIterator.hasNext()) {
-                        Species temp = (Species) originalSpeciesIterator.next();
-                        if (spe.equals(temp)) {
-                            temp.setName(temp.getName());
-                        }
-                    }
-                }
             }
         }
         moveFromUnreactedToReactedReaction();
@@ -267,9 +267,9 @@ public class CoreEdgeReactionModel implements ReactionModel {
             Logger.info(String.format("%s", p_reaction));
         if (p_reaction.hasReverseReaction()) {
             if (isUnreactedReaction(p_reaction))
-                getUnreactedReactionSet().add(p_reaction);
+                addToUnreactedReactionSet(p_reaction);
             else if (isUnreactedReaction(p_reaction.getReverseReaction()))
-                getUnreactedReactionSet().add(p_reaction.getReverseReaction());
+                addToUnreactedReactionSet(p_reaction.getReverseReaction());
             else if (isUnreactedReversiblePathReaction(p_reaction)) {
                 // We need to run isUnreactedReversiblePathReaction() because it
                 // does some work with the reactants and products of the path
@@ -281,7 +281,7 @@ public class CoreEdgeReactionModel implements ReactionModel {
                         p_reaction.toString());
         } else {
             if (isUnreactedReaction(p_reaction))
-                getUnreactedReactionSet().add(p_reaction);
+                addToUnreactedReactionSet(p_reaction);
             else if (isUnreactedIrreversiblePathReaction(p_reaction)) {
                 // Again, don't add a pressure-dependent path reaction to the
                 // edge here
@@ -292,6 +292,30 @@ public class CoreEdgeReactionModel implements ReactionModel {
         // #]
     }
 
+    /**
+     * Modifies: the edge reaction set, edgeReactionsBySpecies, edgeReactionEntries
+     * Effects: adds p_reaction to the edge reaction set and, if it was not there yet, files it under each of its
+     * products.
+     */
+    private void addToUnreactedReactionSet(Reaction p_reaction) {
+        if (!getUnreactedReactionSet().add(p_reaction))
+            return;
+        edgeReactionEntries.put(p_reaction, new EdgeReactionEntry(p_reaction,
+                edgeReactionCount++));
+        for (Iterator iter = p_reaction.getStructure().getProducts(); iter
+                .hasNext();) {
+            Species spe = (Species) iter.next();
+            ArrayList reactions = (ArrayList) edgeReactionsBySpecies.get(spe);
+            if (reactions == null) {
+                reactions = new ArrayList();
+                edgeReactionsBySpecies.put(spe, reactions);
+            } else if (!reactions.isEmpty()
+                    && reactions.get(reactions.size() - 1) == p_reaction)
+                continue;
+            reactions.add(p_reaction);
+        }
+    }
+
     public void addUnreactedReactionSet(LinkedHashSet reactions) {
         Iterator rxnIter = reactions.iterator();
         while (rxnIter.hasNext()) {
@@ -554,6 +578,8 @@ public class CoreEdgeReactionModel implements ReactionModel {
 
     public void removeFromUnreactedReactionSet(Reaction rxn) {
         boolean success = edge.reaction.remove(rxn);
+        if (success)
+            edgeReactionEntries.remove(rxn);
         // if (!success){
         // System.out.println("Pruning debugging line: "+ rxn);
         // }
@@ -574,6 +600,29 @@ public class CoreEdgeReactionModel implements ReactionModel {
         // #]
     }
 
+    // ## operation isEdgeIndexConsistent()
+    /**
+     * Effects: returns true if every edge reaction is indexed, and none of them could be moved to the core; this scans
+     * the whole edge, and is only run after each move when debug messages are logged.
+     */
+    public boolean isEdgeIndexConsistent() {
+        // #[ operation isEdgeIndexConsistent()
+        LinkedHashSet ur = getUnreactedReactionSet();
+        if (ur.size() != edgeReactionEntries.size())
+            return false;
+        for (Iterator iter = ur.iterator(); iter.hasNext();) {
+            Reaction r = (Reaction) iter.next();
+            EdgeReactionEntry entry = (EdgeReactionEntry) edgeReactionEntries
+                    .get(r);
+            if (entry == null || entry.reaction != r)
+                return false;
+            if (categorizeReaction(r) == 1)
+                return false;
+        }
+        return true;
+        // #]
+    }
+
     // ## operation isEmpty()
     public boolean isEmpty() {
         // #[ operation isEmpty()
@@ -714,7 +763,34 @@ public class CoreEdgeReactionModel implements ReactionModel {
     public void moveFromUnreactedToReactedReaction() {
         // #[ operation moveFromUnreactedToReactedReaction()
         LinkedHashSet ur = getUnreactedReactionSet();
-        Iterator iter = ur.iterator();
+        LinkedHashSet rs = getReactedSpeciesSet();
+        // only the reactions producing a core species can have all their products in the core; visit them in the
+        // order of the edge reaction set, as the reacted reaction set is written out in the order they are added
+        TreeMap candidates = new TreeMap();
+        Iterator iter = edgeReactionsBySpecies.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry bucket = (Map.Entry) iter.next();
+            Species spe = (Species) bucket.getKey();
+            boolean inCore = rs.contains(spe);
+            if (!inCore && containsAsUnreactedSpecies(spe))
+                continue;
+            boolean indexed = false;
+            for (Iterator rIter = ((ArrayList) bucket.getValue()).iterator(); rIter
+                    .hasNext();) {
+                Reaction r = (Reaction) rIter.next();
+                EdgeReactionEntry entry = (EdgeReactionEntry) edgeReactionEntries
+                        .get(r);
+                if (entry == null || entry.reaction != r)
+                    continue;
+                indexed = true;
+                if (inCore)
+                    candidates.put(new Long(entry.order), r);
+            }
+            // a core species is never returned to the edge; a pruned species is dropped once its reactions are gone
+            if (inCore || !indexed)
+                iter.remove();
+        }
+        iter = candidates.values().iterator();
         while (iter.hasNext()) {
             Reaction r = (Reaction) iter.next();
             if (categorizeReaction(r) == 1) {
@@ -731,9 +807,12 @@ public class CoreEdgeReactionModel implements ReactionModel {
                     if (categorizeReaction(reverse) == 1)
                         addReactedReaction(reverse);
                 }
-                iter.remove();
+                ur.remove(r);
+                edgeReactionEntries.remove(r);
             }
         }
+        if (Logger.isLoggable(Logger.DEBUG) && !isEdgeIndexConsistent())
+            Logger.error("The index of edge reactions by species is out of step with the edge.");
         return;
         // #]
     }
@@ -748,12 +827,32 @@ public class CoreEdgeReactionModel implements ReactionModel {
         else if (!rs && us) {
             getUnreactedSpeciesSet().remove(p_species);
             getReactedSpeciesSet().add(p_species);
+            p_species.rehydrate();
+            ReactedSiteSpeculator.commit(p_species);
             return;
         } else
             throw new InvalidCoreEdgeRelationException(p_species.getFullName());
         // #]
     }
 
+    // ## operation compactEdge()
+    /**
+     * Modifies: the edge species
+     * Effects: packs the graphs and NASA data of the edge species into CompactStore (see Species.compact()), except
+     * those with reacted sites staged by ReactedSiteSpeculator, which refer to the nodes of their graphs. A species is
+     * rehydrated when it is moved to the core, and any graph is unpacked again when it is next needed.
+     */
+    public void compactEdge() {
+        // #[ operation compactEdge()
+        for (Iterator iter = getUnreactedSpeciesSet().iterator(); iter
+                .hasNext();) {
+            Species spe = (Species) iter.next();
+            if (!ReactedSiteSpeculator.isStaged(spe))
+                spe.compact();
+        }
+        // #]
+    }
+
     // ## operation printPDepModel(Temperature)
     // 10/25/07 gmagoon; changed to also take pressure
     public void printPDepModel(Temperature p_temperature, Pressure p_pressure) {
@@ -936,6 +1035,8 @@ public class CoreEdgeReactionModel implements ReactionModel {
 
     public Edge newEdge() {
         edge = new Edge();
+        edgeReactionsBySpecies.clear();
+        edgeReactionEntries.clear();
         return edge;
     }
 
@@ -948,6 +1049,17 @@ public class CoreEdgeReactionModel implements ReactionModel {
         edge = newEdge();
     }
 
+    // an edge reaction, with its position in the edge reaction set
+    private static class EdgeReactionEntry {
+        Reaction reaction;
+        long order;
+
+        EdgeReactionEntry(Reaction p_reaction, long p_order) {
+            reaction = p_reaction;
+            order = p_order;
+        }
+    }
+
     public int getMaxSpeciesID() {
         int maxID = 0;
         for (Iterator iter = core.getSpecies(); iter.hasNext();) {
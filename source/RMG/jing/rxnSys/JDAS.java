@@ -48,6 +48,7 @@ import jing.param.Temperature;
 import jing.rxn.LindemannReaction;
 import jing.rxn.NegativeRateException;
 import jing.rxn.PDepNetwork;
+import jing.rxn.PDepRateEvaluator;
 import jing.rxn.PDepReaction;
 import jing.rxn.Reaction;
 import jing.rxn.Structure;
@@ -77,13 +78,12 @@ public abstract class JDAS implements DAESolver {
     protected LinkedList thirdBodyList;
     protected LinkedList troeList;
     protected LinkedList lindemannList;
-    // protected StringBuilder outputString ;
-    protected BufferedWriter bw;
-    protected FileWriter fw;
-    protected StringBuilder rString;
-    protected StringBuilder tbrString;
-    protected StringBuilder troeString;
-    protected StringBuilder lindemannString;
+    // the input of the solver, written to SolverInput.dat or sent to the SolverDaemon
+    protected SolverInput input = new SolverInput();
+    protected SolverInput rInput;
+    protected SolverInput tbrInput;
+    protected SolverInput troeInput;
+    protected SolverInput lindemannInput;
     protected int index; // 11/1/07 gmagoon: adding index to allow appropriate naming of RWORK, IWORK****may need to
 // make similar modification for DASPK?
     protected ValidityTester validityTester; // 5/5/08 gmagoon: adding validityTester and autoflag as attributes needed
@@ -92,14 +92,18 @@ public abstract class JDAS implements DAESolver {
     protected double[] reactionFlux;
     protected double[] conversionSet;
     protected double endTime;
-    protected StringBuilder thermoString = new StringBuilder();
+    protected SolverInput thermoInput = new SolverInput();
     protected static LinkedHashMap edgeID;
     protected static LinkedHashMap edgeLeakID;
     protected double[] maxEdgeFluxRatio;
     protected boolean[] prunableSpecies;
     protected double termTol;
     protected double coreTol;
+    // evaluates the rates of all the P-dep reactions at the current T and P
+    protected PDepRateEvaluator pDepRateEvaluator = null;
     protected static boolean nonnegative = false;
+    // run the solver as a SolverDaemon rather than once per call
+    protected static boolean daemon = false;
     protected boolean targetReached;
 
     protected JDAS() {
@@ -140,12 +144,11 @@ public abstract class JDAS implements DAESolver {
         return conversionSet;
     }
 
-    public StringBuilder generatePDepODEReactionList(
+    public SolverInput generatePDepODEReactionList(
             ReactionModel p_reactionModel, SystemSnapshot p_beginStatus,
             Temperature p_temperature, Pressure p_pressure) {
-        StringBuilder rString = new StringBuilder();
-        StringBuilder arrayString = new StringBuilder();
-        StringBuilder rateString = new StringBuilder();
+        SolverInput reactionArray = new SolverInput();
+        SolverInput rateArray = new SolverInput();
         CoreEdgeReactionModel cerm = (CoreEdgeReactionModel) p_reactionModel;
         rList = new LinkedList();
         duplicates = new LinkedList();
@@ -165,29 +168,33 @@ public abstract class JDAS implements DAESolver {
                 rList.add(r);
                 ODEReaction or = transferReaction(r, p_beginStatus,
                         p_temperature, p_pressure);
-                arrayString.append(or.rNum + " " + or.pNum + " ");
+                reactionArray.addInt(or.rNum);
+                reactionArray.addInt(or.pNum);
                 for (int i = 0; i < maxReactantNumber; i++) {
                     if (i < or.rNum) {
-                        arrayString.append(or.rID[i] + " ");
+                        reactionArray.addInt(or.rID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 for (int i = 0; i < maxProductNumber; i++) {
                     if (i < or.pNum) {
-                        arrayString.append(or.pID[i] + " ");
+                        reactionArray.addInt(or.pID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 // Original DASSL has these lines uncommented, while DASPK is as given (should they be different?)
                 if (r.hasReverseReaction()) {
-                    arrayString.append(1 + " ");
+                    reactionArray.addInt(1);
                 } else {
-                    arrayString.append(0 + " ");
+                    reactionArray.addInt(0);
                 }
-                rateString.append(or.rate + " " + or.A + " " + or.n + " "
-                        + or.E + " " + r.calculateKeq(p_temperature) + " ");
+                rateArray.addDouble(or.rate);
+                rateArray.addDouble(or.A);
+                rateArray.addDouble(or.n);
+                rateArray.addDouble(or.E);
+                rateArray.addDouble(r.calculateKeq(p_temperature));
             }
         }
         for (Iterator iter = pDepList.iterator(); iter.hasNext();) {
@@ -196,24 +203,28 @@ public abstract class JDAS implements DAESolver {
                 rList.add(r);
                 ODEReaction or = transferReaction(r, p_beginStatus,
                         p_temperature, p_pressure);
-                arrayString.append(or.rNum + " " + or.pNum + " ");
+                reactionArray.addInt(or.rNum);
+                reactionArray.addInt(or.pNum);
                 for (int i = 0; i < maxReactantNumber; i++) {
                     if (i < or.rNum) {
-                        arrayString.append(or.rID[i] + " ");
+                        reactionArray.addInt(or.rID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 for (int i = 0; i < maxProductNumber; i++) {
                     if (i < or.pNum) {
-                        arrayString.append(or.pID[i] + " ");
+                        reactionArray.addInt(or.pID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
-                arrayString.append(1 + " ");
-                rateString.append(or.rate + " " + or.A + " " + or.n + " "
-                        + or.E + " " + r.calculateKeq(p_temperature) + " ");
+                reactionArray.addInt(1);
+                rateArray.addDouble(or.rate);
+                rateArray.addDouble(or.A);
+                rateArray.addDouble(or.n);
+                rateArray.addDouble(or.E);
+                rateArray.addDouble(r.calculateKeq(p_temperature));
             }
         }
         for (Iterator iter = duplicates.iterator(); iter.hasNext();) {
@@ -224,31 +235,34 @@ public abstract class JDAS implements DAESolver {
                 rList.add(r);
                 ODEReaction or = transferReaction(r, p_beginStatus,
                         p_temperature, p_pressure);
-                arrayString.append(or.rNum + " " + or.pNum + " ");
+                reactionArray.addInt(or.rNum);
+                reactionArray.addInt(or.pNum);
                 for (int i = 0; i < maxReactantNumber; i++) {
                     if (i < or.rNum) {
-                        arrayString.append(or.rID[i] + " ");
+                        reactionArray.addInt(or.rID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 for (int i = 0; i < maxProductNumber; i++) {
                     if (i < or.pNum) {
-                        arrayString.append(or.pID[i] + " ");
+                        reactionArray.addInt(or.pID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 // if (r.hasReverseReaction())
-                arrayString.append(1 + " ");
+                reactionArray.addInt(1);
                 // else
-                // arrayString.append(0 + " ");
-                rateString.append(or.rate + " " + or.A + " " + or.n + " "
-                        + or.E + " " + r.calculateKeq(p_temperature) + " ");
+                // reactionArray.addInt(0);
+                rateArray.addDouble(or.rate);
+                rateArray.addDouble(or.A);
+                rateArray.addDouble(or.n);
+                rateArray.addDouble(or.E);
+                rateArray.addDouble(r.calculateKeq(p_temperature));
             }
         }
-        rString.append(arrayString.toString() + "\n" + rateString.toString());
-        return rString;
+        return combineArrays(reactionArray, rateArray);
     }
 
     public void generatePDepReactionList(ReactionModel p_reactionModel,
@@ -364,13 +378,12 @@ public abstract class JDAS implements DAESolver {
         return speStatus;
     }
 
-    public StringBuilder generateThirdBodyReactionList(
+    public SolverInput generateThirdBodyReactionList(
             ReactionModel p_reactionModel, SystemSnapshot p_beginStatus,
             Temperature p_temperature, Pressure p_pressure) {
         int size = p_reactionModel.getReactionSet().size();
-        StringBuilder arrayString = new StringBuilder();
-        StringBuilder rateString = new StringBuilder();
-        StringBuilder tbrString = new StringBuilder();
+        SolverInput reactionArray = new SolverInput();
+        SolverInput rateArray = new SolverInput();
         Iterator iter = p_reactionModel.getReactionSet().iterator();
         thirdBodyList = new LinkedList();
         int maxReactantNumber = Structure.getMAX_REACTANT_NUMBER();
@@ -384,57 +397,60 @@ public abstract class JDAS implements DAESolver {
                 ThirdBodyODEReaction or = (ThirdBodyODEReaction) transferReaction(
                         r, p_beginStatus, p_temperature, p_pressure);
                 thirdBodyList.add((ThirdBodyReaction) r);
-                arrayString.append(or.rNum + " " + or.pNum + " ");
+                reactionArray.addInt(or.rNum);
+                reactionArray.addInt(or.pNum);
                 for (int i = 0; i < maxReactantNumber; i++) {
                     if (i < or.rNum) {
-                        arrayString.append(or.rID[i] + " ");
+                        reactionArray.addInt(or.rID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 for (int i = 0; i < maxProductNumber; i++) {
                     if (i < or.pNum) {
-                        arrayString.append(or.pID[i] + " ");
+                        reactionArray.addInt(or.pID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 if (r.hasReverseReaction()) {
-                    arrayString.append(1 + " ");
+                    reactionArray.addInt(1);
                 } else {
-                    arrayString.append(0 + " ");
+                    reactionArray.addInt(0);
                 }
-                arrayString.append(or.numCollider + " ");
+                reactionArray.addInt(or.numCollider);
                 for (int i = 0; i < 10; i++) {
                     if (i < or.numCollider) {
-                        arrayString.append(or.colliders[i] + " ");
+                        reactionArray.addInt(or.colliders[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
-                rateString.append(or.rate + " " + or.A + " " + or.n + " "
-                        + or.E + " " + r.calculateKeq(p_temperature) + " "
-                        + or.inertColliderEfficiency + " ");
+                rateArray.addDouble(or.rate);
+                rateArray.addDouble(or.A);
+                rateArray.addDouble(or.n);
+                rateArray.addDouble(or.E);
+                rateArray.addDouble(r.calculateKeq(p_temperature));
+                rateArray.addDouble(or.inertColliderEfficiency);
                 for (int i = 0; i < 10; i++) {
                     if (i < or.numCollider) {
-                        rateString.append(or.efficiency[i] + " ");
+                        rateArray.addDouble(or.efficiency[i]);
                     } else {
-                        rateString.append(0 + " ");
+                        rateArray.addDouble(0);
+                        rateArray.setText("0");
                     }
                 }
             }
         }
-        tbrString.append(arrayString.toString() + "\n" + rateString.toString());
-        return tbrString;
+        return combineArrays(reactionArray, rateArray);
     }
 
-    protected StringBuilder generateTROEReactionList(
+    protected SolverInput generateTROEReactionList(
             ReactionModel p_reactionModel, SystemSnapshot p_beginStatus,
             Temperature p_temperature, Pressure p_pressure) {
         int size = p_reactionModel.getReactionSet().size();
-        StringBuilder arrayString = new StringBuilder();
-        StringBuilder rateString = new StringBuilder();
-        StringBuilder troeString = new StringBuilder();
+        SolverInput reactionArray = new SolverInput();
+        SolverInput rateArray = new SolverInput();
         Iterator iter = p_reactionModel.getReactionSet().iterator();
         troeList = new LinkedList();
         int maxReactantNumber = Structure.getMAX_REACTANT_NUMBER();
@@ -446,65 +462,70 @@ public abstract class JDAS implements DAESolver {
                 TROEODEReaction or = (TROEODEReaction) transferReaction(r,
                         p_beginStatus, p_temperature, p_pressure);
                 troeList.add((TROEReaction) r);
-                arrayString.append(or.rNum + " " + or.pNum + " ");
+                reactionArray.addInt(or.rNum);
+                reactionArray.addInt(or.pNum);
                 for (int i = 0; i < maxReactantNumber; i++) {
                     if (i < or.rNum) {
-                        arrayString.append(or.rID[i] + " ");
+                        reactionArray.addInt(or.rID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 for (int i = 0; i < maxProductNumber; i++) {
                     if (i < or.pNum) {
-                        arrayString.append(or.pID[i] + " ");
+                        reactionArray.addInt(or.pID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 if (r.hasReverseReaction()) {
-                    arrayString.append(1 + " ");
+                    reactionArray.addInt(1);
                 } else {
-                    arrayString.append(0 + " ");
+                    reactionArray.addInt(0);
                 }
-                arrayString.append(or.numCollider + " ");
+                reactionArray.addInt(or.numCollider);
                 for (int i = 0; i < 10; i++) {
                     if (i < or.numCollider) {
-                        arrayString.append(or.colliders[i] + " ");
+                        reactionArray.addInt(or.colliders[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 if (or.troe7) {
-                    arrayString.append(0 + " ");
+                    reactionArray.addInt(0);
                 } else {
-                    arrayString.append(1 + " ");
+                    reactionArray.addInt(1);
                 }
-                rateString.append(or.highRate + " " + or.A + " " + or.n + " "
-                        + or.E + " " + r.calculateKeq(p_temperature) + " "
-                        + or.inertColliderEfficiency + " ");
+                rateArray.addDouble(or.highRate);
+                rateArray.addDouble(or.A);
+                rateArray.addDouble(or.n);
+                rateArray.addDouble(or.E);
+                rateArray.addDouble(r.calculateKeq(p_temperature));
+                rateArray.addDouble(or.inertColliderEfficiency);
                 for (int i = 0; i < 10; i++) {
                     if (i < or.numCollider) {
-                        rateString.append(or.efficiency[i] + " ");
+                        rateArray.addDouble(or.efficiency[i]);
                     } else {
-                        rateString.append(0 + " ");
+                        rateArray.addDouble(0);
+                        rateArray.setText("0");
                     }
                 }
-                rateString.append(or.a + " " + or.Tstar + " " + or.T2star + " "
-                        + or.T3star + " " + or.lowRate + " ");
+                rateArray.addDouble(or.a);
+                rateArray.addDouble(or.Tstar);
+                rateArray.addDouble(or.T2star);
+                rateArray.addDouble(or.T3star);
+                rateArray.addDouble(or.lowRate);
             }
         }
-        troeString
-                .append(arrayString.toString() + "\n" + rateString.toString());
-        return troeString;
+        return combineArrays(reactionArray, rateArray);
     }
 
-    protected StringBuilder generateLindemannReactionList(
+    protected SolverInput generateLindemannReactionList(
             ReactionModel p_reactionModel, SystemSnapshot p_beginStatus,
             Temperature p_temperature, Pressure p_pressure) {
         int size = p_reactionModel.getReactionSet().size();
-        StringBuilder arrayString = new StringBuilder();
-        StringBuilder rateString = new StringBuilder();
-        StringBuilder lindemannString = new StringBuilder();
+        SolverInput reactionArray = new SolverInput();
+        SolverInput rateArray = new SolverInput();
         Iterator iter = p_reactionModel.getReactionSet().iterator();
         lindemannList = new LinkedList();
         int maxReactantNumber = Structure.getMAX_REACTANT_NUMBER();
@@ -516,50 +537,53 @@ public abstract class JDAS implements DAESolver {
                 LindemannODEReaction or = (LindemannODEReaction) transferReaction(
                         r, p_beginStatus, p_temperature, p_pressure);
                 lindemannList.add((LindemannReaction) r);
-                arrayString.append(or.rNum + " " + or.pNum + " ");
+                reactionArray.addInt(or.rNum);
+                reactionArray.addInt(or.pNum);
                 for (int i = 0; i < maxReactantNumber; i++) {
                     if (i < or.rNum) {
-                        arrayString.append(or.rID[i] + " ");
+                        reactionArray.addInt(or.rID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 for (int i = 0; i < maxProductNumber; i++) {
                     if (i < or.pNum) {
-                        arrayString.append(or.pID[i] + " ");
+                        reactionArray.addInt(or.pID[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
                 if (r.hasReverseReaction()) {
-                    arrayString.append(1 + " ");
+                    reactionArray.addInt(1);
                 } else {
-                    arrayString.append(0 + " ");
+                    reactionArray.addInt(0);
                 }
-                arrayString.append(or.numCollider + " ");
+                reactionArray.addInt(or.numCollider);
                 for (int i = 0; i < 10; i++) {
                     if (i < or.numCollider) {
-                        arrayString.append(or.colliders[i] + " ");
+                        reactionArray.addInt(or.colliders[i]);
                     } else {
-                        arrayString.append(0 + " ");
+                        reactionArray.addInt(0);
                     }
                 }
-                rateString.append(or.highRate + " " + or.A + " " + or.n + " "
-                        + or.E + " " + r.calculateKeq(p_temperature) + " "
-                        + or.inertColliderEfficiency + " ");
+                rateArray.addDouble(or.highRate);
+                rateArray.addDouble(or.A);
+                rateArray.addDouble(or.n);
+                rateArray.addDouble(or.E);
+                rateArray.addDouble(r.calculateKeq(p_temperature));
+                rateArray.addDouble(or.inertColliderEfficiency);
                 for (int i = 0; i < 10; i++) {
                     if (i < or.numCollider) {
-                        rateString.append(or.efficiency[i] + " ");
+                        rateArray.addDouble(or.efficiency[i]);
                     } else {
-                        rateString.append(0 + " ");
+                        rateArray.addDouble(0);
+                        rateArray.setText("0");
                     }
                 }
-                rateString.append(or.lowRate + " ");
+                rateArray.addDouble(or.lowRate);
             }
         }
-        lindemannString.append(arrayString.toString() + "\n"
-                + rateString.toString());
-        return lindemannString;
+        return combineArrays(reactionArray, rateArray);
     }
 
     public int getRealID(Species p_species) {
@@ -567,8 +591,8 @@ public abstract class JDAS implements DAESolver {
         if (id == null) {
             id = new Integer(IDTranslator.size() + 1);
             IDTranslator.put(p_species, id);
-            thermoString.append(p_species.calculateG(initialStatus
-                    .getTemperature()) + " ");// 10/26/07 gmagoon: changed to avoid use of
+            thermoInput.addDouble(p_species.calculateG(initialStatus
+                    .getTemperature()));// 10/26/07 gmagoon: changed to avoid use of
 // Global.temperature;****ideally, current temperature would be used, but initial temperature is simplest to pass in
 // current implementation
         }
@@ -643,8 +667,8 @@ public abstract class JDAS implements DAESolver {
         // Global.transferReaction = Global.transferReaction + (System.currentTimeMillis() - startTime)/1000/60;
         // ODEReaction or;
         if (p_reaction instanceof PDepReaction) {
-            double rate = ((PDepReaction) p_reaction).calculateRate(
-                    p_temperature, p_pressure);
+            double rate = getPDepRateEvaluator(p_temperature, p_pressure)
+                    .calculateRate((PDepReaction) p_reaction);
             if (String.valueOf(rate).equals("NaN")) {
                 Logger.error(p_reaction.toChemkinString(p_temperature)
                         + "Has bad rate probably due to Ea<DH");
@@ -800,6 +824,19 @@ public abstract class JDAS implements DAESolver {
         return atol;
     }
 
+    /**
+     * Returns an evaluator of P-dep rate coefficients at p_temperature and p_pressure, reusing the one returned before
+     * if it is for the same conditions, so that the parts of the rate calculation that depend only on T and P are
+     * done once for all the P-dep reactions passed to the solver.
+     */
+    protected PDepRateEvaluator getPDepRateEvaluator(Temperature p_temperature,
+            Pressure p_pressure) {
+        if (pDepRateEvaluator == null
+                || !pDepRateEvaluator.isAt(p_temperature, p_pressure))
+            pDepRateEvaluator = new PDepRateEvaluator(p_temperature, p_pressure);
+        return pDepRateEvaluator;
+    }
+
     public int getReactionSize() {
         return rList.size() + troeList.size() + thirdBodyList.size()
                 + lindemannList.size();
@@ -813,9 +850,14 @@ public abstract class JDAS implements DAESolver {
         return rtol;
     }
 
-    public String getEdgeReactionString(CoreEdgeReactionModel model,
-            LinkedHashMap IDmap, Reaction r, Temperature temperature,
-            Pressure pressure, int offset) {
+    /**
+     * Adds the numbers of reactants and edge products, the reactant IDs, the edge product IDs and the rate coefficient
+     * of the edge reaction r to p_input as one record, giving the edge products new IDs in IDmap if needed. p_input may
+     * be null, to only update IDmap.
+     */
+    public void addEdgeReaction(SolverInput p_input,
+            CoreEdgeReactionModel model, LinkedHashMap IDmap, Reaction r,
+            Temperature temperature, Pressure pressure, int offset) {
         int edgeSpeciesCounter = IDmap.size() + offset;
         // Find the rate coefficient
         double k;
@@ -823,7 +865,8 @@ public abstract class JDAS implements DAESolver {
             k = ((TemplateReaction) r).calculateTotalPDepRate(temperature,
                     pressure);
         } else if (r instanceof PDepReaction) {
-            k = ((PDepReaction) r).calculateRate(temperature, pressure);
+            k = getPDepRateEvaluator(temperature, pressure).calculateRate(
+                    (PDepReaction) r);
         } else {
             k = r.calculateTotalRate(temperature);
         }
@@ -853,12 +896,15 @@ public abstract class JDAS implements DAESolver {
                     tempProdArray[prodCount - 1] = id;
                 }
             }
-            // update the output string with info for one reaction
-            String str = reacCount + " " + prodCount + " " + tempReacArray[0]
-                    + " " + tempReacArray[1] + " " + tempReacArray[2] + " "
-                    + tempProdArray[0] + " " + tempProdArray[1] + " "
-                    + tempProdArray[2] + " " + tempProdArray[3] + " " + k;
-            return str;
+            // update the solver input with info for one reaction
+            if (p_input != null) {
+                p_input.addInt(reacCount);
+                p_input.addInt(prodCount);
+                p_input.addInts(tempReacArray, 3);
+                p_input.addInts(tempProdArray, 4);
+                p_input.addDouble(k);
+                p_input.endRecord(" ");
+            }
         } else {
             throw new NegativeRateException(r.toChemkinString(temperature)
                     + ": " + String.valueOf(k));
@@ -885,7 +931,7 @@ public abstract class JDAS implements DAESolver {
             if (((CoreEdgeReactionModel) model).reactantsInCoreQ(r
                     .getStructure())) {
                 edgeReactionCounter++;
-                String str = getEdgeReactionString(model, edgeID, r,
+                addEdgeReaction(null, model, edgeID, r,
                         p_temperature, p_pressure, 0);// this line is needed even when not writing to file because it
 // will update edgeID
 // edgeReacInfoString.append("\n" + str);
@@ -949,7 +995,7 @@ public abstract class JDAS implements DAESolver {
                     if (edgeReaction) {
                         if (forwardFlag) {
                             edgeReactionCounter++;
-                            String str = getEdgeReactionString(model, edgeID,
+                            addEdgeReaction(null, model, edgeID,
                                     rxn, p_temperature, p_pressure, 0);// use the forward reaction
                             // edgeReacInfoString.append("\n" + str);
                         } else {
@@ -957,7 +1003,7 @@ public abstract class JDAS implements DAESolver {
                                     .getReverseReaction();
                             if (rxn_r != null) {// make sure the reverse is not null
                                 edgeReactionCounter++;
-                                String str = getEdgeReactionString(model,
+                                addEdgeReaction(null, model,
                                         edgeID, rxn_r, p_temperature,
                                         p_pressure, 0);// use the reverse reaction
                                 // edgeReacInfoString.append("\n" + str);
@@ -974,7 +1020,7 @@ public abstract class JDAS implements DAESolver {
             // edgeLeakID may include some of the same species as edgeID, as well as some new species
             // the IDs used in edgeID and edgeLeakID will be consecutive; i.e. edgeID will go from 1 to N and edgeFluxID
 // will go from N+1 to N+M
-            edgeSpeciesCounter = edgeID.size();// above functions use getEdgeReactionString, which only uses
+            edgeSpeciesCounter = edgeID.size();// above functions use addEdgeReaction, which only uses
 // edgeSpeciesCounter locally; we need to update it for the current context
             for (Iterator iter1 = PDepNetwork.getNetworks().iterator(); iter1
                     .hasNext();) {
@@ -1002,7 +1048,7 @@ public abstract class JDAS implements DAESolver {
                         if (allCoreReac) {// only consider cases where all reactants are in the core
                             edgeReactionCounter++;
                             // //update the output string with info for kLeak for one PDepNetwork
-                            String str = getEdgeReactionString(model,
+                            addEdgeReaction(null, model,
                                     edgeLeakID, rxn, p_temperature, p_pressure,
                                     edgeID.size());// use the forward reaction
                             // bw.write("\n" + str);
@@ -1025,7 +1071,7 @@ public abstract class JDAS implements DAESolver {
                         if (allCoreReac) {// only consider cases where all reactants are in the core
                             edgeReactionCounter++;
                             // //update the output string with info for kLeak for one PDepNetwork
-                            String str = getEdgeReactionString(model,
+                            addEdgeReaction(null, model,
                                     edgeLeakID, rxnReverse, p_temperature,
                                     p_pressure, edgeID.size());// use the reverse reaction
                             // bw.write("\n" + str);
@@ -1054,7 +1100,7 @@ public abstract class JDAS implements DAESolver {
                             if (allCoreReac) {// only consider cases where all reactants are in the core
                                 edgeReactionCounter++;
                                 // //update the output string with info for kLeak for one PDepNetwork
-                                String str = getEdgeReactionString(model,
+                                addEdgeReaction(null, model,
                                         edgeLeakID, rxn, p_temperature,
                                         p_pressure, edgeID.size());// use the forward reaction
                                 // bw.write("\n" + str);
@@ -1076,7 +1122,7 @@ public abstract class JDAS implements DAESolver {
                             if (allCoreReac) {// only consider cases where all reactants are in the core
                                 edgeReactionCounter++;
                                 // //update the output string with info for kLeak for one PDepNetwork
-                                String str = getEdgeReactionString(model,
+                                addEdgeReaction(null, model,
                                         edgeLeakID, rxnReverse, p_temperature,
                                         p_pressure, edgeID.size());// use the reverse reaction
                                 // bw.write("\n" + str);
@@ -1087,136 +1133,185 @@ public abstract class JDAS implements DAESolver {
             }
         }
         edgeSpeciesCounter = edgeID.size() + edgeLeakID.size();
-        // write the counter (and tolerance) info and go through a second time, this time writing to the buffered writer
-        try {
-            // edgeSpeciesCounter = edgeID.size();
-            bw.write("\n" + termTol + " " + coreTol + "\n" + edgeSpeciesCounter
-                    + " " + edgeReactionCounter);
-            // bw.flush();
-            // bw.write(edgeReacInfoString);
-            edgeReactionCounter = 0;
-            edgeSpeciesCounter = 0;
-            // First use reactions in unreacted reaction set, which is valid for both RateBasedRME and RateBasedPDepRME
-            edgeID = new LinkedHashMap();
-            edgeLeakID = new LinkedHashMap();
-            ur = model.getUnreactedReactionSet();
-            for (Iterator iur = ur.iterator(); iur.hasNext();) {
-                Reaction r = (Reaction) iur.next();
-                if (((CoreEdgeReactionModel) model).reactantsInCoreQ(r
-                        .getStructure())) {
-                    edgeReactionCounter++;
-                    String str = getEdgeReactionString(model, edgeID, r,
-                            p_temperature, p_pressure, 0);// this line is needed even when not writing to file because
+        // write the counter (and tolerance) info and go through a second time, this time writing to the solver input
+        // edgeSpeciesCounter = edgeID.size();
+        input.addDouble(termTol);
+        input.addDouble(coreTol);
+        input.endRecord(" ");
+        input.addInt(edgeSpeciesCounter);
+        input.addInt(edgeReactionCounter);
+        input.endRecord(" ");
+        edgeReactionCounter = 0;
+        edgeSpeciesCounter = 0;
+        // First use reactions in unreacted reaction set, which is valid for both RateBasedRME and RateBasedPDepRME
+        edgeID = new LinkedHashMap();
+        edgeLeakID = new LinkedHashMap();
+        ur = model.getUnreactedReactionSet();
+        for (Iterator iur = ur.iterator(); iur.hasNext();) {
+            Reaction r = (Reaction) iur.next();
+            if (((CoreEdgeReactionModel) model).reactantsInCoreQ(r
+                    .getStructure())) {
+                edgeReactionCounter++;
+                addEdgeReaction(input, model, edgeID, r,
+                        p_temperature, p_pressure, 0);// this line is needed even when not writing to file because
 // it will update edgeID
-                    bw.write("\n" + str);
-                }
             }
-            edgeSpeciesCounter = edgeID.size();// update edge species counter (this will be important for the case of
+        }
+        edgeSpeciesCounter = edgeID.size();// update edge species counter (this will be important for the case of
 // non-P-dep operation)
-            // For the case where validityTester is RateBasedPDepVT (assumed to also be directly associated with use of
+        // For the case where validityTester is RateBasedPDepVT (assumed to also be directly associated with use of
 // RateBasedPDepRME), consider two additional types of reactions
-            if (validityTester instanceof RateBasedPDepVT) {
-                // first consider NetReactions (formerly known as PDepNetReactionList)
-                for (Iterator iter0 = PDepNetwork.getNetworks().iterator(); iter0
-                        .hasNext();) {
-                    PDepNetwork pdn = (PDepNetwork) iter0.next();
-                    for (ListIterator iter = pdn.getNetReactions()
-                            .listIterator(); iter.hasNext();) {
-                        PDepReaction rxn = (PDepReaction) iter.next();
-                        // boolean allCoreReac=true; //flag to check whether all the reactants are in the core;
-                        boolean forwardFlag = true;// flag to track whether the direction that goes to (as products) at
+        if (validityTester instanceof RateBasedPDepVT) {
+            // first consider NetReactions (formerly known as PDepNetReactionList)
+            for (Iterator iter0 = PDepNetwork.getNetworks().iterator(); iter0
+                    .hasNext();) {
+                PDepNetwork pdn = (PDepNetwork) iter0.next();
+                for (ListIterator iter = pdn.getNetReactions()
+                        .listIterator(); iter.hasNext();) {
+                    PDepReaction rxn = (PDepReaction) iter.next();
+                    // boolean allCoreReac=true; //flag to check whether all the reactants are in the core;
+                    boolean forwardFlag = true;// flag to track whether the direction that goes to (as products) at
 // least one edge species is forward or reverse (presumably from all core species)
-                        boolean edgeReaction = false;// flag to track whether this is an edge reaction
-                        // first determine the direction that gives unreacted products; this will set the forward flag
-                        for (int j = 0; j < rxn.getReactantNumber(); j++) {
-                            Species species = (Species) rxn.getReactantList()
-                                    .get(j);
-                            if (model.containsAsUnreactedSpecies(species)) {
-                                forwardFlag = false; // use the reverse reaction
-                                edgeReaction = true;
-                            }
+                    boolean edgeReaction = false;// flag to track whether this is an edge reaction
+                    // first determine the direction that gives unreacted products; this will set the forward flag
+                    for (int j = 0; j < rxn.getReactantNumber(); j++) {
+                        Species species = (Species) rxn.getReactantList()
+                                .get(j);
+                        if (model.containsAsUnreactedSpecies(species)) {
+                            forwardFlag = false; // use the reverse reaction
+                            edgeReaction = true;
                         }
-                        for (int j = 0; j < rxn.getProductNumber(); j++) {
-                            Species species = (Species) rxn.getProductList()
-                                    .get(j);
-                            if (model.containsAsUnreactedSpecies(species)) {
-                                forwardFlag = true; // use the forward reaction
-                                edgeReaction = true;
-                            }
+                    }
+                    for (int j = 0; j < rxn.getProductNumber(); j++) {
+                        Species species = (Species) rxn.getProductList()
+                                .get(j);
+                        if (model.containsAsUnreactedSpecies(species)) {
+                            forwardFlag = true; // use the forward reaction
+                            edgeReaction = true;
                         }
-                        // check whether all reactants are in the core; if not, it is not a true edge reaction
+                    }
+                    // check whether all reactants are in the core; if not, it is not a true edge reaction
 // (alternatively, we could use an allCoreReac flag like elsewhere)
-                        if (edgeReaction) {
-                            if (forwardFlag) {
-                                for (int j = 0; j < rxn.getReactantNumber(); j++) {
-                                    Species species = (Species) rxn
-                                            .getReactantList().get(j);
-                                    if (!model
-                                            .containsAsReactedSpecies(species)) {
-                                        edgeReaction = false;
-                                    }
+                    if (edgeReaction) {
+                        if (forwardFlag) {
+                            for (int j = 0; j < rxn.getReactantNumber(); j++) {
+                                Species species = (Species) rxn
+                                        .getReactantList().get(j);
+                                if (!model
+                                        .containsAsReactedSpecies(species)) {
+                                    edgeReaction = false;
                                 }
-                            } else {
-                                for (int j = 0; j < rxn.getProductNumber(); j++) {
-                                    Species species = (Species) rxn
-                                            .getProductList().get(j);
-                                    if (!model
-                                            .containsAsReactedSpecies(species)) {
-                                        edgeReaction = false;
-                                    }
+                            }
+                        } else {
+                            for (int j = 0; j < rxn.getProductNumber(); j++) {
+                                Species species = (Species) rxn
+                                        .getProductList().get(j);
+                                if (!model
+                                        .containsAsReactedSpecies(species)) {
+                                    edgeReaction = false;
                                 }
                             }
                         }
-                        // write the string for the reaction with an edge product (it has been assumed above that only
+                    }
+                    // write the string for the reaction with an edge product (it has been assumed above that only
 // one side will have an edge species (although both sides of the reaction could have a core species))
-                        if (edgeReaction) {
-                            if (forwardFlag) {
+                    if (edgeReaction) {
+                        if (forwardFlag) {
+                            edgeReactionCounter++;
+                            addEdgeReaction(input, model,
+                                    edgeID, rxn, p_temperature, p_pressure,
+                                    0);// use the forward reaction
+                        } else {
+                            PDepReaction rxn_r = (PDepReaction) rxn
+                                    .getReverseReaction();
+                            if (rxn_r != null) {// make sure the reverse is not null
                                 edgeReactionCounter++;
-                                String str = getEdgeReactionString(model,
-                                        edgeID, rxn, p_temperature, p_pressure,
-                                        0);// use the forward reaction
-                                bw.write("\n" + str);
-                            } else {
-                                PDepReaction rxn_r = (PDepReaction) rxn
-                                        .getReverseReaction();
-                                if (rxn_r != null) {// make sure the reverse is not null
-                                    edgeReactionCounter++;
-                                    String str = getEdgeReactionString(model,
-                                            edgeID, rxn_r, p_temperature,
-                                            p_pressure, 0);// use the reverse reaction
-                                    bw.write("\n" + str);
-                                }
+                                addEdgeReaction(input, model,
+                                        edgeID, rxn_r, p_temperature,
+                                        p_pressure, 0);// use the reverse reaction
                             }
                         }
                     }
                 }
-                // second, consider kLeak of each reaction network so that the validity of each reaction network may be
+            }
+            // second, consider kLeak of each reaction network so that the validity of each reaction network may be
 // tested
-                // in the original CHEMDIS approach, we included a reaction and pseudospecies for each kleak/P-dep
+            // in the original CHEMDIS approach, we included a reaction and pseudospecies for each kleak/P-dep
 // network
-                // with the FAME approach we still group all the wells from separate networks together in a new
+            // with the FAME approach we still group all the wells from separate networks together in a new
 // construct, edgeLeakID, analogous to edge ID
-                // edgeLeakID may include some of the same species as edgeID, as well as some new species
-                // the IDs used in edgeID and edgeLeakID will be consecutive; i.e. edgeID will go from 1 to N and
+            // edgeLeakID may include some of the same species as edgeID, as well as some new species
+            // the IDs used in edgeID and edgeLeakID will be consecutive; i.e. edgeID will go from 1 to N and
 // edgeFluxID will go from N+1 to N+M
-                edgeSpeciesCounter = edgeID.size();// above functions use getEdgeReactionString, which only uses
+            edgeSpeciesCounter = edgeID.size();// above functions use addEdgeReaction, which only uses
 // edgeSpeciesCounter locally; we need to update it for the current context
-                for (Iterator iter1 = PDepNetwork.getNetworks().iterator(); iter1
-                        .hasNext();) {
-                    PDepNetwork pdn = (PDepNetwork) iter1.next();
-                    double k = 0.0;
-                    boolean allCoreReac = false;
-                    if (pdn.getPathReactions().size() == 1
-                            && pdn.getNetReactions().size() == 0) {// If there is only one path reaction and no net
+            for (Iterator iter1 = PDepNetwork.getNetworks().iterator(); iter1
+                    .hasNext();) {
+                PDepNetwork pdn = (PDepNetwork) iter1.next();
+                double k = 0.0;
+                boolean allCoreReac = false;
+                if (pdn.getPathReactions().size() == 1
+                        && pdn.getNetReactions().size() == 0) {// If there is only one path reaction and no net
 // reactions (i.e. the network is A + B --> C*), use the high-pressure limit rate as the flux rather than the k(T,P)
 // value (cf. PDepNetwork.getLeakFlux())
-                        PDepReaction rxn = pdn.getPathReactions().get(0);
-                        allCoreReac = false;// allCoreReac will be used to track whether all reactant species are in the
+                    PDepReaction rxn = pdn.getPathReactions().get(0);
+                    allCoreReac = false;// allCoreReac will be used to track whether all reactant species are in the
 // core
-                        if (!rxn.getProduct().getIncluded()) {
-                            allCoreReac = true;
-                            // iterate over the reactants, counting and storing IDs in tempReacArray, up to a maximum of
+                    if (!rxn.getProduct().getIncluded()) {
+                        allCoreReac = true;
+                        // iterate over the reactants, counting and storing IDs in tempReacArray, up to a maximum of
 // 3 reactants
+                        for (ListIterator<Species> rIter = rxn
+                                .getReactant().getSpeciesListIterator(); rIter
+                                .hasNext();) {
+                            Species spe = (Species) rIter.next();
+                            if (!model.containsAsReactedSpecies(spe)) {
+                                allCoreReac = false;
+                            }
+                        }
+                        if (allCoreReac) {// only consider cases where all reactants are in the core
+                            edgeReactionCounter++;
+                            // //update the output string with info for kLeak for one PDepNetwork
+                            addEdgeReaction(input, model,
+                                    edgeLeakID, rxn, p_temperature,
+                                    p_pressure, edgeID.size());// use the forward reaction
+                        }
+                    } else {
+                        PDepReaction rxnReverse = (PDepReaction) rxn
+                                .getReverseReaction();
+                        if (rxnReverse != null) {
+                            allCoreReac = true;
+                            // iterate over the products, counting and storing IDs in tempReacArray, up to a maximum
+// of 3 reactants
+                            for (ListIterator<Species> rIter = rxn
+                                    .getProduct().getSpeciesListIterator(); rIter
+                                    .hasNext();) {
+                                Species spe = (Species) rIter.next();
+                                if (!model.containsAsReactedSpecies(spe)) {
+                                    allCoreReac = false;
+                                }
+                            }
+                        }
+                        if (allCoreReac) {// only consider cases where all reactants are in the core
+                            edgeReactionCounter++;
+                            // //update the output string with info for kLeak for one PDepNetwork
+                            addEdgeReaction(input, model,
+                                    edgeLeakID, rxnReverse, p_temperature,
+                                    p_pressure, edgeID.size());// use the reverse reaction
+                        }
+                    }
+                } else {
+                    for (ListIterator<PDepReaction> iter = pdn
+                            .getNonincludedReactions().listIterator(); iter
+                            .hasNext();) {// cf. getLeakFlux in PDepNetwork
+                        PDepReaction rxn = iter.next();
+                        allCoreReac = false;// allCoreReac will be used to track whether all reactant species are in
+// the core
+                        if (rxn.getReactant().getIncluded()
+                                && !rxn.getProduct().getIncluded()) {
+                            allCoreReac = true;
+                            // iterate over the reactants, counting and storing IDs in tempReacArray, up to a
+// maximum of 3 reactants
                             for (ListIterator<Species> rIter = rxn
                                     .getReactant().getSpeciesListIterator(); rIter
                                     .hasNext();) {
@@ -1228,128 +1323,67 @@ public abstract class JDAS implements DAESolver {
                             if (allCoreReac) {// only consider cases where all reactants are in the core
                                 edgeReactionCounter++;
                                 // //update the output string with info for kLeak for one PDepNetwork
-                                String str = getEdgeReactionString(model,
+                                addEdgeReaction(input, model,
                                         edgeLeakID, rxn, p_temperature,
                                         p_pressure, edgeID.size());// use the forward reaction
-                                bw.write("\n" + str);
                             }
-                        } else {
+                        } else if (!rxn.getReactant().getIncluded()
+                                && rxn.getProduct().getIncluded()) {
                             PDepReaction rxnReverse = (PDepReaction) rxn
                                     .getReverseReaction();
-                            if (rxnReverse != null) {
-                                allCoreReac = true;
-                                // iterate over the products, counting and storing IDs in tempReacArray, up to a maximum
+                            allCoreReac = true;
+                            // iterate over the products, counting and storing IDs in tempReacArray, up to a maximum
 // of 3 reactants
-                                for (ListIterator<Species> rIter = rxn
-                                        .getProduct().getSpeciesListIterator(); rIter
-                                        .hasNext();) {
-                                    Species spe = (Species) rIter.next();
-                                    if (!model.containsAsReactedSpecies(spe)) {
-                                        allCoreReac = false;
-                                    }
+                            for (ListIterator<Species> rIter = rxn
+                                    .getProduct().getSpeciesListIterator(); rIter
+                                    .hasNext();) {
+                                Species spe = (Species) rIter.next();
+                                if (!model.containsAsReactedSpecies(spe)) {
+                                    allCoreReac = false;
                                 }
                             }
                             if (allCoreReac) {// only consider cases where all reactants are in the core
                                 edgeReactionCounter++;
                                 // //update the output string with info for kLeak for one PDepNetwork
-                                String str = getEdgeReactionString(model,
-                                        edgeLeakID, rxnReverse, p_temperature,
-                                        p_pressure, edgeID.size());// use the reverse reaction
-                                bw.write("\n" + str);
-                            }
-                        }
-                    } else {
-                        for (ListIterator<PDepReaction> iter = pdn
-                                .getNonincludedReactions().listIterator(); iter
-                                .hasNext();) {// cf. getLeakFlux in PDepNetwork
-                            PDepReaction rxn = iter.next();
-                            allCoreReac = false;// allCoreReac will be used to track whether all reactant species are in
-// the core
-                            if (rxn.getReactant().getIncluded()
-                                    && !rxn.getProduct().getIncluded()) {
-                                allCoreReac = true;
-                                // iterate over the reactants, counting and storing IDs in tempReacArray, up to a
-// maximum of 3 reactants
-                                for (ListIterator<Species> rIter = rxn
-                                        .getReactant().getSpeciesListIterator(); rIter
-                                        .hasNext();) {
-                                    Species spe = (Species) rIter.next();
-                                    if (!model.containsAsReactedSpecies(spe)) {
-                                        allCoreReac = false;
-                                    }
-                                }
-                                if (allCoreReac) {// only consider cases where all reactants are in the core
-                                    edgeReactionCounter++;
-                                    // //update the output string with info for kLeak for one PDepNetwork
-                                    String str = getEdgeReactionString(model,
-                                            edgeLeakID, rxn, p_temperature,
-                                            p_pressure, edgeID.size());// use the forward reaction
-                                    bw.write("\n" + str);
-                                }
-                            } else if (!rxn.getReactant().getIncluded()
-                                    && rxn.getProduct().getIncluded()) {
-                                PDepReaction rxnReverse = (PDepReaction) rxn
-                                        .getReverseReaction();
-                                allCoreReac = true;
-                                // iterate over the products, counting and storing IDs in tempReacArray, up to a maximum
-// of 3 reactants
-                                for (ListIterator<Species> rIter = rxn
-                                        .getProduct().getSpeciesListIterator(); rIter
-                                        .hasNext();) {
-                                    Species spe = (Species) rIter.next();
-                                    if (!model.containsAsReactedSpecies(spe)) {
-                                        allCoreReac = false;
-                                    }
-                                }
-                                if (allCoreReac) {// only consider cases where all reactants are in the core
-                                    edgeReactionCounter++;
-                                    // //update the output string with info for kLeak for one PDepNetwork
-                                    String str = getEdgeReactionString(model,
-                                            edgeLeakID, rxnReverse,
-                                            p_temperature, p_pressure,
-                                            edgeID.size());// use the reverse reaction
-                                    bw.write("\n" + str);
-                                }
+                                addEdgeReaction(input, model,
+                                        edgeLeakID, rxnReverse,
+                                        p_temperature, p_pressure,
+                                        edgeID.size());// use the reverse reaction
                             }
                         }
                     }
                 }
             }
-            edgeSpeciesCounter = edgeID.size() + edgeLeakID.size();// this line is not needed here, but it is included
-// for consistency with the first pass
-        } catch (IOException e) {
-            Logger.error("Problem writing Solver Input File!");
-            Logger.logStackTrace(e);
         }
+        edgeSpeciesCounter = edgeID.size() + edgeLeakID.size();// this line is not needed here, but it is included
+// for consistency with the first pass
     }
 
     public void getConcentrationFlags(ReactionModel p_reactionModel) {
-        try {
-            // Add list of flags for constantConcentration
-            // one for each species, and a final one for the volume
-            // if 1: DASSL will not change the number of moles of that species (or the volume)
-            // if 0: DASSL will integrate the ODE as normal
-            // eg. liquid phase calculations with a constant concentration of O2 (the solubility limit - replenished
+        // Add list of flags for constantConcentration
+        // one for each species, and a final one for the volume
+        // if 1: DASSL will not change the number of moles of that species (or the volume)
+        // if 0: DASSL will integrate the ODE as normal
+        // eg. liquid phase calculations with a constant concentration of O2 (the solubility limit - replenished
 // from the gas phase)
-            // for normal use, this will be a sequence of '0 's
-            bw.write("\n");
-            // This portion of code was commented out by MRH on 21-Jul-2009.
-            // The indexing of the species in p_reactionModel did not match up with the
-            // indexing of the species in the SpeciesStatus. When constructing an input
-            // file for a "ConstantConcentration" ODESolver call, the species whose flux
-            // was being set to zero was not necessarily the desired species
-            // for (Iterator iter = p_reactionModel.getSpecies(); iter.hasNext(); ) {
-            // Species spe = (Species)iter.next();
-            // if (spe.isConstantConcentration())
-            // outputString.append("1 ");
-            // else
-            // outputString.append("0 ");
-            // }
-            // Define boolean variable setVolumeConstant: if any species in the condition.txt
-            // file has been defined with "ConstantConcentration", set this variable to true.
-            // This variable will determine if the ODESolver assumes constant volume or not.
-            boolean setVolumeConstant = false;
-            int[] tempVector = new int[p_reactionModel.getSpeciesNumber()];
+        // for normal use, this will be a sequence of '0 's
+        // This portion of code was commented out by MRH on 21-Jul-2009.
+        // The indexing of the species in p_reactionModel did not match up with the
+        // indexing of the species in the SpeciesStatus. When constructing an input
+        // file for a "ConstantConcentration" ODESolver call, the species whose flux
+        // was being set to zero was not necessarily the desired species
+        // for (Iterator iter = p_reactionModel.getSpecies(); iter.hasNext(); ) {
+        // Species spe = (Species)iter.next();
+        // if (spe.isConstantConcentration())
+        // outputString.append("1 ");
+        // else
+        // outputString.append("0 ");
+        // }
+        // Define boolean variable setVolumeConstant: if any species in the condition.txt
+        // file has been defined with "ConstantConcentration", set this variable to true.
+        // This variable will determine if the ODESolver assumes constant volume or not.
+        boolean setVolumeConstant = false;
+        int[] tempVector = new int[p_reactionModel.getSpeciesNumber()];
 // System.out.println("Debugging line: p_reactionModel.getSpeciesNumber(): "+p_reactionModel.getSpeciesNumber());
 // System.out.println("Debugging line: IDTranslator.size(): "+IDTranslator.size());
 // Iterator j = IDTranslator.keySet().iterator();
@@ -1358,33 +1392,28 @@ public abstract class JDAS implements DAESolver {
 // Integer id = (Integer)IDTranslator.get(j);
 // System.out.println("Debugging line: " + spec + " " + id);
 // }
-            for (Iterator iter = p_reactionModel.getSpecies(); iter.hasNext();) {
-                Species spe = (Species) iter.next();
-                int id = getRealID(spe);
-                // Previous line is due to species order in p_reactionModel not necessarily being
-                // sequential. We read in the species RealID (which is what is read in during
-                // the other functions when writing the ODESolver input file) and associate a +1
-                // with a "ConstantConcentration" species and a 0 for all others
-                if (spe.isConstantConcentration()) {
-                    tempVector[id - 1] = 1;
-                    setVolumeConstant = true;
-                } else {
-                    tempVector[id - 1] = 0;
-                }
-            }
-            // Append the constant concentration flags to the outputString
-            for (int i = 0; i < tempVector.length; i++) {
-                bw.write(tempVector[i] + " ");
-            }
-            if (setVolumeConstant) {
-                bw.write("1 \n");
+        for (Iterator iter = p_reactionModel.getSpecies(); iter.hasNext();) {
+            Species spe = (Species) iter.next();
+            int id = getRealID(spe);
+            // Previous line is due to species order in p_reactionModel not necessarily being
+            // sequential. We read in the species RealID (which is what is read in during
+            // the other functions when writing the ODESolver input file) and associate a +1
+            // with a "ConstantConcentration" species and a 0 for all others
+            if (spe.isConstantConcentration()) {
+                tempVector[id - 1] = 1;
+                setVolumeConstant = true;
             } else {
-                bw.write("0 \n"); // for liquid EOS or constant volume this should be 1
+                tempVector[id - 1] = 0;
             }
-        } catch (IOException e) {
-            Logger.error("Problem writing Solver Input File!");
-            Logger.logStackTrace(e);
         }
+        // Append the constant concentration flags to the solver input
+        input.addInts(tempVector, tempVector.length);
+        if (setVolumeConstant) {
+            input.addInt(1);
+        } else {
+            input.addInt(0); // for liquid EOS or constant volume this should be 1
+        }
+        input.endRecord();
     }
 
     // 6/24/09 gmagoon: this totals the first n-state elements of y (i.e. the non-inert concentrations)
@@ -1398,16 +1427,103 @@ public abstract class JDAS implements DAESolver {
 
     // set up the input file
     public void setupInputFile() {
+        input.clear();
+    }
+
+    // ## operation writeInputFile()
+    /**
+     * Writes the solver input to SolverInput.dat in the ODESolver directory.
+     */
+    protected void writeInputFile() {
+        // #[ operation writeInputFile()
         File SolverInput = new File(System.getProperty("RMG.ODESolverDir"),
                 "SolverInput.dat");
         try {
-            fw = new FileWriter(SolverInput);
-            bw = new BufferedWriter(fw);
-            // fw.write(outputString.toString());
-            // fw.close();
+            BufferedWriter bw = new BufferedWriter(new FileWriter(SolverInput));
+            input.writeText(bw);
+            bw.close();
+        } catch (IOException e) {
+            Logger.error("Problem writing Solver Input File!");
+            Logger.logStackTrace(e);
+        }
+        // #]
+    }
+
+    // ## operation addReactionLists()
+    /**
+     * Modifies: input
+     * Effects: adds the size and the integer and real arrays of each of the reaction, third-body, Troe and Lindemann
+     * reaction lists, in the order the solver reads them.
+     */
+    protected void addReactionLists() {
+        // #[ operation addReactionLists()
+        input.addInt(rList.size());
+        input.endRecord(" ");
+        input.append(rInput);
+        input.addInt(thirdBodyList.size());
+        input.endRecord(" ");
+        input.append(tbrInput);
+        input.addInt(troeList.size());
+        input.endRecord(" ");
+        input.append(troeInput);
+        input.addInt(lindemannList.size());
+        input.endRecord(" ");
+        input.append(lindemannInput);
+        // a blank line, which the driver skips, has always followed the reaction lists
+        input.endRecord();
+        // #]
+    }
+
+    // ## operation combineArrays(SolverInput,SolverInput)
+    /**
+     * Effects: returns the integer array of a reaction list followed by its real array, each as one record.
+     */
+    private SolverInput combineArrays(SolverInput p_reactionArray,
+            SolverInput p_rateArray) {
+        // #[ operation combineArrays(SolverInput,SolverInput)
+        p_reactionArray.endRecord();
+        p_rateArray.endRecord();
+        p_reactionArray.append(p_rateArray);
+        return p_reactionArray;
+        // #]
+    }
+
+    // ## operation solveWithDaemon(String)
+    /**
+     * Sends the solver input to the SolverDaemon running p_executable and reads its output with readOutput(). Returns
+     * false, without running anything, if daemon mode is off or the daemon could not be used, in which case the caller
+     * should run p_executable on SolverInput.dat.
+     */
+    protected boolean solveWithDaemon(String p_executable) {
+        // #[ operation solveWithDaemon(String)
+        if (!daemon)
+            return false;
+        SolverOutput output = SolverDaemon.solve(p_executable, input);
+        if (output == null)
+            return false;
+        try {
+            readOutput(output);
+            int idid = output.close();
+            // as with SolverOutput.dat, an IDID of 0 means the edge flux was exceeded at t = 0
+            if (idid < 0 || idid > 3)
+                Logger.error("Error running the ODESolver: ******ODESOLVER FAILED : IDID="
+                        + idid);
         } catch (IOException e) {
-            Logger.error("Problem creating Solver Input File!");
+            SolverDaemon.shutdown(p_executable);
+            Logger.error("Error in reading the output of the " + p_executable
+                    + " daemon!");
             Logger.logStackTrace(e);
+            System.exit(0);
         }
+        return true;
+        // #]
     }
+
+    // ## operation readOutput(SolverOutput)
+    /**
+     * Reads the solution written by the solver: the concentrations, fluxes and reaction fluxes, and the edge
+     * information when autoflag is set.
+     */
+    protected abstract void readOutput(SolverOutput p_output)
+            throws IOException;
 }
@@ -53,6 +53,15 @@ import jing.param.ParameterInfor;
 // ----------------------------------------------------------------------------
 // ## class JDASPK
 public class JDASPK extends JDAS {
+    // number of intermediate solver outputs requested between reported points when the sensitivities are computed
+    // with the adjoint method; the adjoint is integrated on this grid
+    protected static final int ADJOINT_OUTPUTS_PER_STEP = 10;
+    // names of the species whose sensitivities are computed by the adjoint method; null for forward sensitivities
+    protected LinkedList adjointTargets = null;
+    // solve the linear systems with preconditioned GMRES rather than a dense LU factorization, when there are no
+    // sensitivities; the preconditioner is an incomplete LU factorization over the reaction-species incidence pattern
+    protected static boolean krylov = false;
+
     private JDASPK() {
         super();
     }
@@ -74,6 +83,20 @@ public class JDASPK extends JDAS {
                 false, null, null);
     }
 
+    // ## operation setAdjointTargets(LinkedList)
+    /**
+     * Requires: p_speciesNames lists the names of the species whose sensitivities will be printed
+     * Modifies: this
+     * Effects: makes solveSEN() integrate only the concentrations in DASPK and compute the sensitivities of the named
+     * species with the adjoint method, instead of integrating the forward sensitivities of every species to every
+     * parameter.
+     */
+    public void setAdjointTargets(LinkedList p_speciesNames) {
+        // #[ operation setAdjointTargets(LinkedList)
+        adjointTargets = p_speciesNames;
+        // #]
+    }
+
     // ## operation generateSensitivityStatus(ReactionModel,double [],double [],int)
     private double[] generateSensitivityStatus(ReactionModel p_reactionModel,
             double[] p_y, double[] p_yprime, int p_paraNum) {
@@ -123,25 +146,25 @@ public class JDASPK extends JDAS {
         // set reaction set
         if (p_initialization || p_reactionChanged || p_conditionChanged) {
             nState = p_reactionModel.getSpeciesNumber();
-// troeString is a combination of a integer and a real array
+// troeInput is a combination of a integer and a real array
             // real array format: rate, A, n, Ea, Keq, inertEfficiency, e1, e2, ..., e10, alpha, Tstar, T2star, T3star,
 // lowRate (21 elements)
             // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, HASrev(T=1 or F=0), ncollider, c1, c2,..c10,
 // troe(0=T or 1=F) (21 elements)
-            troeString = generateTROEReactionList(p_reactionModel,
+            troeInput = generateTROEReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
-// tbrString is a combination of a integer and a real array
+// tbrInput is a combination of a integer and a real array
             // real array format: rate, A, n, Ea, Keq, inertEfficiency, e1, e2, ..., e10 (16 elements)
             // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, HASrev(T=1 or F=0), ncollider, c1, c2,..c10 (20
 // elements)
-            tbrString = generateThirdBodyReactionList(p_reactionModel,
+            tbrInput = generateThirdBodyReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
-            lindemannString = generateLindemannReactionList(p_reactionModel,
+            lindemannInput = generateLindemannReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
-            // rString is a combination of a integer and a real array
+            // rInput is a combination of a integer and a real array
             // real array format: rate, A, n, Ea, Keq
             // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, HASrev(T=1 or F=0)
-            rString = generatePDepODEReactionList(p_reactionModel,
+            rInput = generatePDepODEReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
             nParameter = 0;
             if (parameterInfor != 0) {
@@ -158,41 +181,48 @@ public class JDASPK extends JDAS {
         int af = 0;
         if (autoflag)
             af = 1;
-        try {
-            if (tt instanceof ConversionTT) {
-                SpeciesConversion sc = (SpeciesConversion) ((ConversionTT) tt).speciesGoalConversionSet
-                        .get(0);
-                bw.write(nState + "\t" + neq + "\t" + getRealID(sc.species)
-                        + "\t 1" + "\t" + af + "\t0\n"); // 6/25/08 gmagoon: added autoflag, needed when using
-// daspkAUTO.exe; 080509 gmagoon: added sensitivity flag = 0
-                bw.write(conversionSet[p_iterationNum] + "\n");
-            } else {
-                bw.write(nState + "\t" + neq + "\t" + -1 + "\t" + 1 + "\t" + af
-                        + "\t0\n");// 6/25/08 gmagoon: added autoflag, needed when using daspkAUTO.exe; 080509 gmagoon:
-// added sensitivity flag = 0
-                bw.write(0 + "\n");
-            }
-            bw.write(tBegin + " " + tEnd + "\n");
-            for (int i = 0; i < nState; i++)
-                bw.write(y[i] + " ");
-            bw.write("\n");
-            for (int i = 0; i < nState; i++)
-                bw.write(yprime[i] + " ");
-            bw.write("\n");
-            for (int i = 0; i < 30; i++)
-                bw.write(info[i] + " ");
-            bw.write("\n" + rtol + " " + atol);
-            bw.write("\n" + thermoString.toString() + "\n"
-                    + p_temperature.getK() + " " + p_pressure.getPa() + "\n"
-                    + rList.size() + "\n" + rString.toString() + "\n"
-                    + thirdBodyList.size() + "\n" + tbrString.toString() + "\n"
-                    + troeList.size() + "\n" + troeString.toString() + "\n"
-                    + lindemannList.size() + "\n" + lindemannString.toString()
-                    + "\n");
-        } catch (IOException e) {
-            Logger.error("Problem writing Solver Input File!");
-            Logger.logStackTrace(e);
+        input.addInt(nState);
+        input.addInt(neq);
+        if (tt instanceof ConversionTT) {
+            SpeciesConversion sc = (SpeciesConversion) ((ConversionTT) tt).speciesGoalConversionSet
+                    .get(0);
+            input.addInt(getRealID(sc.species));
+        } else {
+            input.addInt(-1);
         }
+        input.addInt(1);
+        // SolverInput.dat has always had a space before this value for a conversion goal
+        if (tt instanceof ConversionTT)
+            input.setText(" 1");
+        input.addInt(af);// 6/25/08 gmagoon: added autoflag, needed when using daspkAUTO.exe
+        input.addInt(0);// 080509 gmagoon: added sensitivity flag = 0
+        input.endRecord("\t");
+        if (tt instanceof ConversionTT)
+            input.addDouble(conversionSet[p_iterationNum]);
+        else {
+            input.addDouble(0);
+            input.setText("0");
+        }
+        input.endRecord(" ");
+        input.addDouble(tBegin);
+        input.addDouble(tEnd);
+        input.endRecord(" ");
+        input.addDoubles(y, nState);
+        input.endRecord();
+        input.addDoubles(yprime, nState);
+        input.endRecord();
+        input.addInts(info, 30);
+        input.endRecord();
+        input.addDouble(rtol);
+        input.addDouble(atol);
+        input.endRecord(" ");
+        for (int i = 0; i < nState; i++)
+            input.addDouble(thermoInput.getDouble(i));
+        input.endRecord();
+        input.addDouble(p_temperature.getK());
+        input.addDouble(p_pressure.getPa());
+        input.endRecord(" ");
+        addReactionLists();
         // /4/30/08 gmagoon: code for providing edge reaction info to DASPK in cases if the automatic time stepping flag
 // is set to true
         if (autoflag)
@@ -200,15 +230,7 @@ public class JDASPK extends JDAS {
                     p_temperature, p_pressure);
         // Add flags that specify whether the concentrations are constant or not
         getConcentrationFlags(p_reactionModel);
-        // this should be the end of the input file
-        try {
-            bw.flush();
-            bw.close();
-            fw.close();
-        } catch (IOException e) {
-            Logger.error("Problem closing Solver Input File!");
-            Logger.logStackTrace(e);
-        }
+        // this should be the end of the input
         int idid = 0;
         LinkedHashMap speStatus = new LinkedHashMap();
         double[] senStatus = new double[nParameter * nState];
@@ -279,6 +301,14 @@ public class JDASPK extends JDAS {
 // }
         // Rename RWORK and IWORK files if they exist
         renameIntermediateFilesBeforeRun();
+        // the input is complete, so the edge species can be matched against the templates while the solver runs
+        ReactedSiteSpeculator.start();
+        if (solveWithDaemon("daspkAUTO.exe")) {
+            ReactedSiteSpeculator.finish();
+            renameIntermediateFilesAfterRun();
+            return 1;
+        }
+        writeInputFile();
         // run the solver on the input file
         boolean silentError = true;// start off assuming there is an error
         try {
@@ -312,6 +342,7 @@ public class JDASPK extends JDAS {
             Logger.error(err);
             System.exit(0);
         }
+        ReactedSiteSpeculator.finish();
         // 11/1/07 gmagoon: renaming RWORK and IWORK files
         renameIntermediateFilesAfterRun();
         return readOutputFile(new File(System.getProperty("RMG.ODESolverDir"),
@@ -395,83 +426,11 @@ public class JDASPK extends JDAS {
 
     public int readOutputFile(String path) {
         // read the result
-        File SolverOutput = new File(path);
+        File outputFile = new File(path);
         try {
-            FileReader fr = new FileReader(SolverOutput);
-            BufferedReader br = new BufferedReader(fr);
-            String line = br.readLine();
-            // StringTokenizer st = new StringTokenizer(line);
-            Global.solverIterations = Integer.parseInt(line.trim());
-            line = br.readLine();
-            if (Double.parseDouble(line.trim()) != neq) {
-                Logger.critical("ODESolver didnt generate all species result");
-                System.exit(0);
-            }
-            endTime = Double.parseDouble(br.readLine().trim());
-            for (int i = 0; i < nParameter + 1; i++) {
-                for (int j = 0; j < nState; j++) {
-                    line = br.readLine();
-                    y[i * nState + j] = Double.parseDouble(line.trim());
-                }
-                line = br.readLine();
-            }
-            for (int i = 0; i < nParameter + 1; i++) {
-                for (int j = 0; j < nState; j++) {
-                    line = br.readLine();
-                    yprime[i * nState + j] = Double.parseDouble(line.trim());
-                }
-                line = br.readLine();
-            }
-            reactionFlux = new double[rList.size() + thirdBodyList.size()
-                    + troeList.size() + lindemannList.size()];
-            for (int i = 0; i < rList.size() + thirdBodyList.size()
-                    + troeList.size() + lindemannList.size(); i++) {
-                line = br.readLine();
-                reactionFlux[i] = Double.parseDouble(line.trim());
-            }
-            for (int i = 0; i < 30; i++) {
-                line = br.readLine();
-                info[i] = Integer.parseInt(line.trim());
-            }
-            // for autoflag cases, there will be additional information which may be used for pruning
-            if (autoflag) {
-                prunableSpecies = new boolean[edgeID.size() + edgeLeakID.size()];
-                maxEdgeFluxRatio = new double[edgeID.size() + edgeLeakID.size()];
-                line = br.readLine();// read volume; (this is actually in the output even if AUTO is off, but is not
-// used)
-                line = br.readLine();// read the edgeflag
-                Integer edgeflag = Integer.parseInt(line.trim());
-                if (edgeflag < 0) {// if the edgeflag is negative, the ODE solver terminated by reaching the target
-// time/concentration
-                    targetReached = true;
-                } else {
-                    targetReached = false;
-                }
-                line = br.readLine();// read the time integrated to
-                double finalTime = Double.parseDouble(line.trim());
-                Logger.info(String.format("ODE solver integrated to %10.3e s",
-                        finalTime));
-                // read the "prunability index" (0 or 1) and maximum ratio (edge flux/Rchar) for each edge species;
-// vector index + 1 corresponds to ID value in edgeID and edgeLeakID
-                for (int i = 0; i < (edgeID.size() + edgeLeakID.size()); i++) {
-                    line = br.readLine().trim(); // read the prunability index
-                    int q = Integer.parseInt(line); // q should be 1 or 0
-                    if (q == 1) {
-                        prunableSpecies[i] = true;
-                    } else if (q == 0) {
-                        prunableSpecies[i] = false;
-                    } else {
-                        Logger.critical("Misread solver output file - prunable species index should be 0 or 1, not "
-                                + q);
-                        System.exit(0);
-                    }
-                    line = br.readLine().trim();// read the max edge flux ratio
-                    if (line.startsWith("+Inf"))
-                        maxEdgeFluxRatio[i] = Double.POSITIVE_INFINITY;
-                    else
-                        maxEdgeFluxRatio[i] = Double.parseDouble(line);
-                }
-            }
+            SolverOutput output = new SolverOutput(outputFile);
+            readOutput(output);
+            output.close();
         } catch (IOException e) {
             String err = "Error in reading Solver Output File! \n";
             err += e.toString();
@@ -481,6 +440,75 @@ public class JDASPK extends JDAS {
         return 1;
     }
 
+    protected void readOutput(SolverOutput p_output) throws IOException {
+        Global.solverIterations = p_output.nextInt();
+        if (p_output.nextInt() != neq) {
+            Logger.critical("ODESolver didnt generate all species result");
+            System.exit(0);
+        }
+        endTime = p_output.nextDouble();
+        readState(p_output);
+        for (int i = 0; i < 30; i++)
+            info[i] = p_output.nextInt();
+        p_output.nextDouble();// read volume; (this is in the output even if AUTO is off, but is not used)
+        // for autoflag cases, there will be additional information which may be used for pruning
+        if (autoflag) {
+            prunableSpecies = new boolean[edgeID.size() + edgeLeakID.size()];
+            maxEdgeFluxRatio = new double[edgeID.size() + edgeLeakID.size()];
+            int edgeflag = p_output.nextInt();// read the edgeflag
+            if (edgeflag < 0) {// if the edgeflag is negative, the ODE solver terminated by reaching the target
+// time/concentration
+                targetReached = true;
+            } else {
+                targetReached = false;
+            }
+            double finalTime = p_output.nextDouble();// read the time integrated to
+            Logger.info(String.format("ODE solver integrated to %10.3e s",
+                    finalTime));
+            // read the "prunability index" (0 or 1) and maximum ratio (edge flux/Rchar) for each edge species;
+// vector index + 1 corresponds to ID value in edgeID and edgeLeakID
+            for (int i = 0; i < (edgeID.size() + edgeLeakID.size()); i++) {
+                int q = p_output.nextInt(); // q should be 1 or 0
+                if (q == 1) {
+                    prunableSpecies[i] = true;
+                } else if (q == 0) {
+                    prunableSpecies[i] = false;
+                } else {
+                    Logger.critical("Misread solver output file - prunable species index should be 0 or 1, not "
+                            + q);
+                    System.exit(0);
+                }
+                maxEdgeFluxRatio[i] = p_output.nextDouble();// read the max edge flux ratio
+            }
+        }
+    }
+
+    // ## operation readState(SolverOutput)
+    /**
+     * Modifies: y, yprime, reactionFlux
+     * Effects: reads the concentrations and sensitivities, their derivatives, and the reaction fluxes written by
+     * DASPK at one output time.
+     */
+    private void readState(SolverOutput p_output) throws IOException {
+        // #[ operation readState(SolverOutput)
+        for (int i = 0; i < nParameter + 1; i++) {
+            for (int j = 0; j < nState; j++)
+                y[i * nState + j] = p_output.nextDouble();
+            p_output.nextDouble();// gmagoon 12/21/09: the volume or volume sensitivity
+        }
+        for (int i = 0; i < nParameter + 1; i++) {
+            for (int j = 0; j < nState; j++)
+                yprime[i * nState + j] = p_output.nextDouble();
+            p_output.nextDouble();
+        }
+        reactionFlux = new double[rList.size() + thirdBodyList.size()
+                + troeList.size() + lindemannList.size()];
+        for (int i = 0; i < rList.size() + thirdBodyList.size()
+                + troeList.size() + lindemannList.size(); i++)
+            reactionFlux[i] = p_output.nextDouble();
+        // #]
+    }
+
     public LinkedList solveSEN(boolean p_initialization,
             ReactionModel p_reactionModel, boolean p_reactionChanged,
             SystemSnapshot p_beginStatus, ReactionTime p_beginTime,
@@ -506,28 +534,30 @@ public class JDASPK extends JDAS {
         // set reaction set
         // if (p_initialization || p_reactionChanged || p_conditionChanged) {
         nState = p_reactionModel.getSpeciesNumber();
-// troeString is a combination of a integer and a real array
+// troeInput is a combination of a integer and a real array
         // real array format: rate, A, n, Ea, Keq, inertEfficiency, e1, e2, ..., e10, alpha, Tstar, T2star, T3star,
 // lowRate (21 elements)
         // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, HASrev(T=1 or F=0), ncollider, c1, c2,..c10,
 // troe(0=T or 1=F) (21 elements)
-        troeString = generateTROEReactionList(p_reactionModel, p_beginStatus,
+        troeInput = generateTROEReactionList(p_reactionModel, p_beginStatus,
                 p_temperature, p_pressure);
-// tbrString is a combination of a integer and a real array
+// tbrInput is a combination of a integer and a real array
         // real array format: rate, A, n, Ea, Keq, inertEfficiency, e1, e2, ..., e10 (16 elements)
         // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, HASrev(T=1 or F=0), ncollider, c1, c2,..c10 (20
 // elements)
-        tbrString = generateThirdBodyReactionList(p_reactionModel,
+        tbrInput = generateThirdBodyReactionList(p_reactionModel,
                 p_beginStatus, p_temperature, p_pressure);
-        lindemannString = generateLindemannReactionList(p_reactionModel,
+        lindemannInput = generateLindemannReactionList(p_reactionModel,
                 p_beginStatus, p_temperature, p_pressure);
-        // rString is a combination of a integer and a real array
+        // rInput is a combination of a integer and a real array
         // real array format: rate, A, n, Ea, Keq
         // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, HASrev(T=1 or F=0)
-        rString = generatePDepODEReactionList(p_reactionModel, p_beginStatus,
+        rInput = generatePDepODEReactionList(p_reactionModel, p_beginStatus,
                 p_temperature, p_pressure);
+        // in adjoint mode DASPK only integrates the concentrations; the sensitivities are computed afterwards
+        boolean adjoint = parameterInfor != 0 && adjointTargets != null;
         nParameter = 0;
-        if (parameterInfor != 0) {
+        if (parameterInfor != 0 && !adjoint) {
             nParameter = rList.size() + thirdBodyList.size() + troeList.size()
                     + lindemannList.size() + p_reactionModel.getSpeciesNumber();
         }
@@ -536,76 +566,209 @@ public class JDASPK extends JDAS {
         initializeConcentrations(p_beginStatus, p_reactionModel, p_beginTime,
                 p_endTime, initialSpecies);
         // }
-        int iterNum = 0;
-        try {
-            if (tt instanceof ConversionTT) {
-                SpeciesConversion sc = (SpeciesConversion) ((ConversionTT) tt).speciesGoalConversionSet
-                        .get(0);
-                iterNum = conversionSet.length;
-                bw.write(nState + "\t" + neq + "\t" + getRealID(sc.species)
-                        + "\t" + conversionSet.length + "\t0\t1\n");// gmagoon 080509: added autoflag=0; later: added
-// sensflag=1
-                for (int i = 0; i < conversionSet.length; i++) {
-                    bw.write(conversionSet[i] + " ");
-                }
-                bw.write("\n");
-            } else {
-                LinkedList timeSteps = ((ReactionTimeTT) tt).timeStep;
-                iterNum = timeSteps.size();
-                bw.write(nState + "\t" + neq + "\t" + -1 + "\t"
-                        + timeSteps.size() + "\t0\t1\n");
-                for (int i = 0; i < timeSteps.size(); i++) {
-                    bw.write(((ReactionTime) timeSteps.get(i)).time + " ");
-                }
-                bw.write("\n");
+        double[] initialConcentration = new double[nState];
+        System.arraycopy(y, 0, initialConcentration, 0, nState);
+        double[] outputs;
+        if (tt instanceof ConversionTT) {
+            outputs = conversionSet;
+        } else {
+            LinkedList timeSteps = ((ReactionTimeTT) tt).timeStep;
+            outputs = new double[timeSteps.size()];
+            for (int i = 0; i < timeSteps.size(); i++) {
+                outputs[i] = ((ReactionTime) timeSteps.get(i)).time;
             }
-            bw.write(tBegin + " " + tEnd + "\n");
-            for (int i = 0; i < nState; i++)
-                bw.write(y[i] + " ");
-            bw.write("\n");
-            for (int i = 0; i < nState; i++)
-                bw.write(yprime[i] + " ");
-            bw.write("\n");
-            for (int i = 0; i < 30; i++)
-                bw.write(info[i] + " ");
-            bw.write("\n" + rtol + " " + atol);
-            bw.write("\n" + thermoString.toString() + "\n"
-                    + p_temperature.getK() + " " + p_pressure.getPa() + "\n"
-                    + rList.size() + "\n" + rString.toString() + "\n"
-                    + thirdBodyList.size() + "\n" + tbrString.toString() + "\n"
-                    + troeList.size() + "\n" + troeString.toString() + "\n"
-                    + lindemannList.size() + "\n" + lindemannString.toString()
-                    + "\n");
-            // Add list of flags for constantConcentration
-            // one for each species, and a final one for the volume
-            // if 1: will not change the number of moles of that species (or the volume)
-            // if 0: will integrate the ODE as normal
-            // eg. liquid phase calculations with a constant concentration of O2 (the solubility limit - replenished
-// from the gas phase)
-            // for normal use, this will be a sequence of '0 's
-            getConcentrationFlags(p_reactionModel);
-        } catch (IOException e) {
-            Logger.error("Problem writing Solver Input File!");
-            Logger.logStackTrace(e);
         }
-        // this should be the end of the input file
-        try {
-            bw.close();
-        } catch (IOException e) {
-            Logger.error("Problem closing Solver Input File!");
-            Logger.logStackTrace(e);
+        boolean[] reported;
+        if (adjoint) {
+            // the adjoint needs the trajectory between the reported points as well
+            reported = new boolean[outputs.length * ADJOINT_OUTPUTS_PER_STEP];
+            outputs = refineOutputs(outputs, reported,
+                    tt instanceof ConversionTT);
+        } else {
+            reported = new boolean[outputs.length];
+            Arrays.fill(reported, true);
         }
+        int iterNum = outputs.length;
+        input.addInt(nState);
+        input.addInt(neq);
+        if (tt instanceof ConversionTT) {
+            SpeciesConversion sc = (SpeciesConversion) ((ConversionTT) tt).speciesGoalConversionSet
+                    .get(0);
+            input.addInt(getRealID(sc.species));
+        } else {
+            input.addInt(-1);
+        }
+        input.addInt(iterNum);
+        input.addInt(0);// gmagoon 080509: added autoflag=0; later: added sensflag=1
+        input.addInt(1);
+        input.endRecord("\t");
+        input.addDoubles(outputs, iterNum);
+        input.endRecord();
+        input.addDouble(tBegin);
+        input.addDouble(tEnd);
+        input.endRecord(" ");
+        input.addDoubles(y, nState);
+        input.endRecord();
+        input.addDoubles(yprime, nState);
+        input.endRecord();
+        input.addInts(info, 30);
+        input.endRecord();
+        input.addDouble(rtol);
+        input.addDouble(atol);
+        input.endRecord(" ");
+        for (int i = 0; i < nState; i++)
+            input.addDouble(thermoInput.getDouble(i));
+        input.endRecord();
+        input.addDouble(p_temperature.getK());
+        input.addDouble(p_pressure.getPa());
+        input.endRecord(" ");
+        addReactionLists();
+        // Add list of flags for constantConcentration
+        // one for each species, and a final one for the volume
+        // if 1: will not change the number of moles of that species (or the volume)
+        // if 0: will integrate the ODE as normal
+        // eg. liquid phase calculations with a constant concentration of O2 (the solubility limit - replenished
+// from the gas phase)
+        // for normal use, this will be a sequence of '0 's
+        getConcentrationFlags(p_reactionModel);
+        // this should be the end of the input
         int idid = 0;
         int temp = 1;
         Global.solverPrepossesor = Global.solverPrepossesor
                 + (System.currentTimeMillis() - startTime) / 1000 / 60;
-        LinkedList systemSnapshotList = callSolverSEN(iterNum, p_reactionModel,
-                p_beginStatus);
+        double[] time = new double[iterNum + 1];
+        double[][] concentration = new double[iterNum + 1][];
+        time[0] = tBegin;
+        concentration[0] = initialConcentration;
+        LinkedList systemSnapshotList = callSolverSEN(iterNum, reported,
+                time, concentration, p_reactionModel, p_beginStatus);
+        if (adjoint) {
+            solveAdjointSensitivity(p_reactionModel, p_beginStatus,
+                    p_temperature, p_pressure, time, concentration, reported,
+                    systemSnapshotList);
+        }
         return systemSnapshotList;
         // #]
     }
 
-    private LinkedList callSolverSEN(int p_numSteps,
+    // ## operation refineOutputs(double [],boolean [],boolean)
+    /**
+     * Requires: p_reported has ADJOINT_OUTPUTS_PER_STEP entries for each of p_outputs
+     * Modifies: p_reported
+     * Effects: returns p_outputs with ADJOINT_OUTPUTS_PER_STEP - 1 intermediate outputs inserted before each one,
+     * flagging the original outputs in p_reported. Conversions are spaced evenly; times are spaced geometrically so the
+     * fast initial chemistry is resolved.
+     */
+    private double[] refineOutputs(double[] p_outputs, boolean[] p_reported,
+            boolean p_conversion) {
+        // #[ operation refineOutputs(double [],boolean [],boolean)
+        double[] refined = new double[p_outputs.length
+                * ADJOINT_OUTPUTS_PER_STEP];
+        double previous = 0;
+        int index = 0;
+        for (int i = 0; i < p_outputs.length; i++) {
+            double next = p_outputs[i];
+            double lower = Math.max(previous, next * 1e-6);
+            for (int k = 1; k < ADJOINT_OUTPUTS_PER_STEP; k++) {
+                double fraction = (double) k / ADJOINT_OUTPUTS_PER_STEP;
+                if (p_conversion)
+                    refined[index++] = previous + (next - previous) * fraction;
+                else
+                    refined[index++] = lower * Math.pow(next / lower, fraction);
+            }
+            p_reported[index] = true;
+            refined[index++] = next;
+            previous = next;
+        }
+        return refined;
+        // #]
+    }
+
+    // ## operation solveAdjointSensitivity(ReactionModel,SystemSnapshot,Temperature,Pressure,double [],double [][],boolean [],LinkedList)
+    /**
+     * Requires: p_time and p_concentration hold the trajectory read by callSolverSEN(), starting with the initial
+     * state; p_reported flags the solver outputs (after the initial state) for which snapshots were made, and
+     * p_systemSnapshotList holds those snapshots in order.
+     * Modifies: the snapshots in p_systemSnapshotList
+     * Effects: computes the sensitivities of the adjoint target species to every rate constant and species free
+     * energy and stores them in the snapshots, indexed as the forward sensitivities would be.
+     */
+    private void solveAdjointSensitivity(ReactionModel p_reactionModel,
+            SystemSnapshot p_beginStatus, Temperature p_temperature,
+            Pressure p_pressure, double[] p_time, double[][] p_concentration,
+            boolean[] p_reported, LinkedList p_systemSnapshotList) {
+        // #[ operation solveAdjointSensitivity(ReactionModel,SystemSnapshot,Temperature,Pressure,double [],double [][],boolean [],LinkedList)
+        double startTime = System.currentTimeMillis();
+        LinkedList targetID = new LinkedList();
+        boolean[] constantConcentration = new boolean[nState];
+        for (Iterator iter = p_reactionModel.getSpecies(); iter.hasNext();) {
+            Species spe = (Species) iter.next();
+            int id = getRealID(spe);
+            constantConcentration[id - 1] = spe.isConstantConcentration();
+            for (Iterator nameIter = adjointTargets.iterator(); nameIter
+                    .hasNext();) {
+                if (spe.getName().equalsIgnoreCase((String) nameIter.next())) {
+                    targetID.add(new Integer(id));
+                    break;
+                }
+            }
+        }
+        if (targetID.isEmpty()) {
+            Logger.warning("None of the species listed for sensitivity analysis are in the core; no adjoint sensitivities computed.");
+        }
+        int[] target = new int[targetID.size()];
+        for (int i = 0; i < target.length; i++) {
+            target[i] = ((Integer) targetID.get(i)).intValue();
+        }
+        // the reactions in the order their rate constants are passed to DASPK
+        LinkedList reactionList = new LinkedList();
+        reactionList.addAll(rList);
+        reactionList.addAll(thirdBodyList);
+        reactionList.addAll(troeList);
+        reactionList.addAll(lindemannList);
+        LinkedList odeReactionList = new LinkedList();
+        boolean[] reversible = new boolean[reactionList.size()];
+        for (int j = 0; j < reactionList.size(); j++) {
+            Reaction r = (Reaction) reactionList.get(j);
+            odeReactionList.add(transferReaction(r, p_beginStatus,
+                    p_temperature, p_pressure));
+            reversible[j] = r instanceof PDepReaction
+                    || r.hasReverseReaction();
+        }
+        double[] thermo = new double[nState];
+        for (int i = 0; i < nState; i++) {
+            thermo[i] = thermoInput.getDouble(i);
+        }
+        AdjointSensitivity as = new AdjointSensitivity(nState,
+                odeReactionList, reversible, thermo, p_temperature.getK(),
+                p_pressure.getPa(), constantConcentration);
+        boolean[] reported = new boolean[p_time.length];
+        System.arraycopy(p_reported, 0, reported, 1, p_reported.length);
+        LinkedHashMap[] sensitivity = as.solve(p_time, p_concentration,
+                reported, target);
+        Iterator snapshotIter = p_systemSnapshotList.iterator();
+        for (int k = 1; k < p_time.length; k++) {
+            if (sensitivity[k] != null) {
+                SystemSnapshot sss = (SystemSnapshot) snapshotIter.next();
+                sss.addTargetSensitivity(nState, sensitivity[k]);
+            }
+        }
+        Logger.info(String.format(
+                "Adjoint sensitivities of %d species to %d parameters computed in %.3f s",
+                target.length, as.getParameterNumber(),
+                (System.currentTimeMillis() - startTime) / 1000));
+        // #]
+    }
+
+    // ## operation callSolverSEN(int,boolean [],double [],double [][],ReactionModel,SystemSnapshot)
+    /**
+     * Requires: p_time and p_concentration have p_numSteps + 1 entries
+     * Modifies: p_time, p_concentration
+     * Effects: runs DASPK on the input file and returns the snapshots at the solver outputs flagged in p_reported; the
+     * time and concentrations at every output are stored in p_time[k+1] and p_concentration[k+1].
+     */
+    private LinkedList callSolverSEN(int p_numSteps, boolean[] p_reported,
+            double[] p_time, double[][] p_concentration,
             ReactionModel p_reactionModel, SystemSnapshot p_beginStatus) {
         double startTime = System.currentTimeMillis();
         String workingDirectory = System.getProperty("RMG.workingDirectory");
@@ -622,80 +785,69 @@ public class JDASPK extends JDAS {
         // Logger.error("Problem writing Solver Input File!");
         // Logger.logStackTrace(e);
         // }
+        SolverOutput output = null;
+        if (daemon)
+            output = SolverDaemon.solve("daspkAUTO.exe", input);
+        if (output == null)
+            writeInputFile();
         Global.writeSolverFile += (System.currentTimeMillis() - startTime) / 1000 / 60;
         // run the solver on the input file
         boolean error = false;
-        try {
-            // system call for therfit
-            String[] command = { workingDirectory + "/bin/daspkAUTO.exe" };
-            File runningDir = new File(System.getProperty("RMG.ODESolverDir"));
-            Process ODESolver = Runtime.getRuntime().exec(command, null,
-                    runningDir);
-            InputStream is = ODESolver.getInputStream();
-            InputStreamReader isr = new InputStreamReader(is);
-            BufferedReader br = new BufferedReader(isr);
-            String line = null;
-            while ((line = br.readLine()) != null) {
-                // System.out.println(line);
-                line = line.trim();
-                // if (!(line.contains("ODESOLVER SUCCESSFUL"))) {
-                Logger.info(line);
-                // error = true;
-                // }
+        if (output == null) {
+            try {
+                // system call for therfit
+                String[] command = { workingDirectory + "/bin/daspkAUTO.exe" };
+                File runningDir = new File(
+                        System.getProperty("RMG.ODESolverDir"));
+                Process ODESolver = Runtime.getRuntime().exec(command, null,
+                        runningDir);
+                InputStream is = ODESolver.getInputStream();
+                InputStreamReader isr = new InputStreamReader(is);
+                BufferedReader br = new BufferedReader(isr);
+                String line = null;
+                while ((line = br.readLine()) != null) {
+                    // System.out.println(line);
+                    line = line.trim();
+                    // if (!(line.contains("ODESOLVER SUCCESSFUL"))) {
+                    Logger.info(line);
+                    // error = true;
+                    // }
+                }
+                int exitValue = 4;
+                exitValue = ODESolver.waitFor();
+                // System.out.println(br.readLine() + exitValue);
+                is.close();
+                ODESolver.getErrorStream().close();
+                ODESolver.getOutputStream().close();
+            } catch (Exception e) {
+                String err = "Error in running ODESolver \n";
+                err += e.toString();
+                Logger.logStackTrace(e);
+                Logger.error(err);
+                System.exit(0);
             }
-            int exitValue = 4;
-            exitValue = ODESolver.waitFor();
-            // System.out.println(br.readLine() + exitValue);
-            is.close();
-            ODESolver.getErrorStream().close();
-            ODESolver.getOutputStream().close();
-        } catch (Exception e) {
-            String err = "Error in running ODESolver \n";
-            err += e.toString();
-            Logger.logStackTrace(e);
-            Logger.error(err);
-            System.exit(0);
         }
         startTime = System.currentTimeMillis();
         // read the result
-        File SolverOutput = new File(System.getProperty("RMG.ODESolverDir"),
-                "SolverOutput.dat");
         try {
-            FileReader fr = new FileReader(SolverOutput);
-            BufferedReader br = new BufferedReader(fr);
-            String line;
+            if (output == null)
+                output = new SolverOutput(new File(
+                        System.getProperty("RMG.ODESolverDir"),
+                        "SolverOutput.dat"));
             double presentTime = 0;
             for (int k = 0; k < p_numSteps; k++) {
-                line = br.readLine();
-                if (Double.parseDouble(line.trim()) != neq) {
+                if (output.nextInt() != neq) {
                     Logger.critical("ODESolver didnt generate all species result");
                     System.exit(0);
                 }
-                presentTime = Double.parseDouble(br.readLine().trim());
+                presentTime = output.nextDouble();
                 endT = new ReactionTime(presentTime, "sec");
-                for (int i = 0; i < nParameter + 1; i++) {
-                    for (int j = 0; j < nState; j++) {
-                        line = br.readLine();
-                        y[i * nState + j] = Double.parseDouble(line.trim());
-                    }
-                    line = br.readLine();// gmagoon 12/21/09: this apparently parses the line containing volume or
-// volume sensitivity
-                }
-                for (int i = 0; i < nParameter + 1; i++) {
-                    for (int j = 0; j < nState; j++) {
-                        line = br.readLine();
-                        yprime[i * nState + j] = Double
-                                .parseDouble(line.trim());
-                    }
-                    line = br.readLine();
-                }
-                reactionFlux = new double[rList.size() + thirdBodyList.size()
-                        + troeList.size() + lindemannList.size()];
-                for (int i = 0; i < rList.size() + thirdBodyList.size()
-                        + troeList.size() + lindemannList.size(); i++) {
-                    line = br.readLine();
-                    reactionFlux[i] = Double.parseDouble(line.trim());
-                }
+                readState(output);
+                p_time[k + 1] = presentTime;
+                p_concentration[k + 1] = new double[nState];
+                System.arraycopy(y, 0, p_concentration[k + 1], 0, nState);
+                if (!p_reported[k])
+                    continue;
                 LinkedHashMap speStatus = new LinkedHashMap();
                 double[] senStatus = new double[nParameter * nState];
                 Logger.info(String.format(
@@ -747,6 +899,10 @@ public class JDASPK extends JDAS {
                 beginT = endT;
                 // tEnd = tEnd.add(tStep);
             }
+            int idid = output.close();
+            if (daemon && (idid < 1 || idid > 3))
+                Logger.error("Error running the ODESolver: ******ODESOLVER FAILED : IDID="
+                        + idid);
         } catch (IOException e) {
             String err = "Error in reading Solver Output File! \n";
             err += e.toString();
@@ -765,6 +921,9 @@ public class JDASPK extends JDAS {
             info[18] = nParameter; // the number of parameters
             info[19] = 2; // perform senstivity analysis
             info[24] = 1;// staggered corrector method is used
+        } else if (krylov) {
+            info[11] = 1; // use the Krylov (GMRES) method
+            info[14] = 1; // with the preconditioner supplied by the driver
         }
     }
 
@@ -127,25 +127,25 @@ public class JDASSL extends JDAS {
                 }
             }
             neq = nState * (nParameter + 1);
-// tbrString is a combination of a integer and a real array
+// tbrInput is a combination of a integer and a real array
             // real array format: rate, A, n, Ea, Keq, inertEfficiency, e1, e2, ..., e10 (16 elements)
             // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, rev(=1 or -1), ncollider, c1, c2,..c10 (20
 // elements)
-            tbrString = generateThirdBodyReactionList(p_reactionModel,
+            tbrInput = generateThirdBodyReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
-            // troeString is a combination of a integer and a real array
+            // troeInput is a combination of a integer and a real array
             // real array format: rate, A, n, Ea, Keq, inertEfficiency, e1, e2, ..., e10, alpha, Tstar, T2star, T3star,
 // lowRate (21 elements)
             // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, rev(=1 or -1), ncollider, c1, c2,..c10, troe(0=T
 // or 1=F) (21 elements)
-            troeString = generateTROEReactionList(p_reactionModel,
+            troeInput = generateTROEReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
-            lindemannString = generateLindemannReactionList(p_reactionModel,
+            lindemannInput = generateLindemannReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
-            // rString is a combination of a integer and a real array
+            // rInput is a combination of a integer and a real array
             // real array format: rate, A, n, Ea, Keq
             // int array format : nReac, nProd, r1, r2, r3, p1, p2, p3, rev(=1 or -1)
-            rString = generatePDepODEReactionList(p_reactionModel,
+            rInput = generatePDepODEReactionList(p_reactionModel,
                     p_beginStatus, p_temperature, p_pressure);
             initializeWorkSpace();
             initializeConcentrations(p_beginStatus, p_reactionModel,
@@ -156,36 +156,39 @@ public class JDASSL extends JDAS {
         int af = 0;
         if (autoflag)
             af = 1;
-        try {
-            if (tt instanceof ConversionTT) {
-                SpeciesConversion sc = (SpeciesConversion) ((ConversionTT) tt).speciesGoalConversionSet
-                        .get(0);
-                bw.write(nState + "\t" + neq + "\t" + getRealID(sc.species)
-                        + "\t" + conversionSet[p_iterationNum] + "\t" + af
-                        + "\n");// 5/5/08 gmagoon: added autoflag, needed when using dasslAUTO.exe
-            } else {
-                bw.write(nState + "\t" + neq + "\t" + -1 + "\t" + 0 + "\t" + af
-                        + "\n");// 5/5/08 gmagoon: added autoflag, needed when using dasslAUTO.exe
-            }
-            for (int i = 0; i < neq; i++)
-                bw.write(y[i] + " ");
-            bw.write("\n");
-            for (int i = 0; i < neq; i++)
-                bw.write(yprime[i] + " ");
-            bw.write("\n" + tBegin + " " + tEnd + "\n");
-            for (int i = 0; i < 30; i++)
-                bw.write(info[i] + " ");
-            bw.write("\n" + rtol + " " + atol);
-            bw.write("\n" + p_temperature.getK() + " " + p_pressure.getPa()
-                    + "\n" + rList.size() + "\n" + rString.toString() + "\n"
-                    + thirdBodyList.size() + "\n" + tbrString.toString() + "\n"
-                    + troeList.size() + "\n" + troeString.toString() + "\n"
-                    + lindemannList.size() + "\n" + lindemannString.toString()
-                    + "\n");
-        } catch (IOException e) {
-            Logger.error("Problem writing Solver Input File!");
-            Logger.logStackTrace(e);
+        if (tt instanceof ConversionTT) {
+            SpeciesConversion sc = (SpeciesConversion) ((ConversionTT) tt).speciesGoalConversionSet
+                    .get(0);
+            input.addInt(nState);
+            input.addInt(neq);
+            input.addInt(getRealID(sc.species));
+            input.addDouble(conversionSet[p_iterationNum]);
+            input.addInt(af);// 5/5/08 gmagoon: added autoflag, needed when using dasslAUTO.exe
+        } else {
+            input.addInt(nState);
+            input.addInt(neq);
+            input.addInt(-1);
+            input.addDouble(0);
+            input.setText("0");
+            input.addInt(af);// 5/5/08 gmagoon: added autoflag, needed when using dasslAUTO.exe
         }
+        input.endRecord("\t");
+        input.addDoubles(y, neq);
+        input.endRecord();
+        input.addDoubles(yprime, neq);
+        input.endRecord();
+        input.addDouble(tBegin);
+        input.addDouble(tEnd);
+        input.endRecord(" ");
+        input.addInts(info, 30);
+        input.endRecord();
+        input.addDouble(rtol);
+        input.addDouble(atol);
+        input.endRecord(" ");
+        input.addDouble(p_temperature.getK());
+        input.addDouble(p_pressure.getPa());
+        input.endRecord(" ");
+        addReactionLists();
         // 4/30/08 gmagoon: code for providing edge reaction info to DASSL in cases if the automatic time stepping flag
 // is set to true
         if (autoflag)
@@ -193,15 +196,7 @@ public class JDASSL extends JDAS {
                     p_temperature, p_pressure);
         // Add flags that specify whether the concentrations are constant or not
         getConcentrationFlags(p_reactionModel);
-        // this should be the end of the input file
-        try {
-            bw.flush();
-            bw.close();
-            fw.close();
-        } catch (IOException e) {
-            Logger.error("Problem closing Solver Input File!");
-            Logger.logStackTrace(e);
-        }
+        // this should be the end of the input
         int idid = 0;
         LinkedHashMap speStatus = new LinkedHashMap();
         LinkedList senStatus = new LinkedList();
@@ -279,6 +274,14 @@ public class JDASSL extends JDAS {
 // }
         // Rename RWORK and IWORK files if they exist
         renameIntermediateFilesBeforeRun();
+        // the input is complete, so the edge species can be matched against the templates while the solver runs
+        ReactedSiteSpeculator.start();
+        if (solveWithDaemon("dasslAUTO.exe")) {
+            ReactedSiteSpeculator.finish();
+            renameIntermediateFilesAfterRun();
+            return 1;
+        }
+        writeInputFile();
         // run the solver on the input file
         boolean error = false;
         try {
@@ -309,6 +312,7 @@ public class JDASSL extends JDAS {
             Logger.error(err);
             System.exit(0);
         }
+        ReactedSiteSpeculator.finish();
         // 11/1/07 gmagoon: renaming RWORK and IWORK files
         renameIntermediateFilesAfterRun();
         return readOutputFile(new File(System.getProperty("RMG.ODESolverDir"),
@@ -384,82 +388,70 @@ public class JDASSL extends JDAS {
 
     public int readOutputFile(String path) {
         // read the result
-        File SolverOutput = new File(path);
+        File outputFile = new File(path);
         try {
-            FileReader fr = new FileReader(SolverOutput);
-            BufferedReader br = new BufferedReader(fr);
-            String line = br.readLine();
-            Global.solverIterations = Integer.parseInt(line.trim());
-            line = br.readLine();
-            if (Double.parseDouble(line.trim()) != neq) {
-                Logger.critical("ODESolver didnt generate all species results");
-                System.exit(0);
-            }
-            endTime = Double.parseDouble(br.readLine().trim());
-            for (int i = 0; i < neq; i++) {
-                line = br.readLine();
-                y[i] = Double.parseDouble(line.trim());
-            }
-            for (int i = 0; i < neq; i++) {
-                line = br.readLine();
-                yprime[i] = Double.parseDouble(line.trim());
-            }
-            reactionFlux = new double[rList.size() + thirdBodyList.size()
-                    + troeList.size() + lindemannList.size()];
-            for (int i = 0; i < rList.size() + thirdBodyList.size()
-                    + troeList.size() + lindemannList.size(); i++) {
-                line = br.readLine();
-                reactionFlux[i] = Double.parseDouble(line.trim());
-            }
-            // for autoflag cases, there will be additional information which may be used for pruning
-            if (autoflag) {
-                prunableSpecies = new boolean[edgeID.size() + edgeLeakID.size()];
-                maxEdgeFluxRatio = new double[edgeID.size() + edgeLeakID.size()];
-                line = br.readLine();// read volume; (this is actually in the output even if AUTO is off, but is not
-// used)
-                line = br.readLine();// read the edgeflag
-                Integer edgeflag = Integer.parseInt(line.trim());
-                if (edgeflag < 0) {// if the edgeflag is negative, the ODE solver terminated by reaching the target
-// time/concentration
-                    targetReached = true;
-                } else {
-                    targetReached = false;
-                }
-                line = br.readLine();// read the time integrated to
-                double finalTime = Double.parseDouble(line.trim());
-                // read the "prunability index" (0 or 1) and maximum ratio (edge flux/Rchar) for each edge species;
-// vector index + 1 corresponds to ID value in edgeID and edgeLeakID
-                Logger.info(String.format("ODE solver integrated to %9.3e s",
-                        finalTime));
-                for (int i = 0; i < (edgeID.size() + edgeLeakID.size()); i++) {
-                    line = br.readLine().trim(); // read the prunability index
-                    int q = Integer.parseInt(line); // q should be 1 or 0
-                    if (q == 1) {
-                        prunableSpecies[i] = true;
-                    } else if (q == 0) {
-                        prunableSpecies[i] = false;
-                    } else {
-                        Logger.critical("Misread solver output file - prunable species index should be 0 or 1, not "
-                                + q);
-                        System.exit(0);
-                    }
-                    line = br.readLine().trim();// read the max edge flux ratio
-                    if (line.startsWith("+Inf"))
-                        maxEdgeFluxRatio[i] = Double.POSITIVE_INFINITY;
-                    else
-                        maxEdgeFluxRatio[i] = Double.parseDouble(line);
-                }
-            }
+            SolverOutput output = new SolverOutput(outputFile);
+            readOutput(output);
+            output.close();
         } catch (IOException e) {
             String err = "Error in reading Solver Output File! \n";
             err += e.toString();
             Logger.logStackTrace(e);
             System.exit(0);
         }
-        SolverOutput.delete();
+        outputFile.delete();
         return 1;
     }
 
+    protected void readOutput(SolverOutput p_output) throws IOException {
+        Global.solverIterations = p_output.nextInt();
+        if (p_output.nextInt() != neq) {
+            Logger.critical("ODESolver didnt generate all species results");
+            System.exit(0);
+        }
+        endTime = p_output.nextDouble();
+        for (int i = 0; i < neq; i++)
+            y[i] = p_output.nextDouble();
+        for (int i = 0; i < neq; i++)
+            yprime[i] = p_output.nextDouble();
+        reactionFlux = new double[rList.size() + thirdBodyList.size()
+                + troeList.size() + lindemannList.size()];
+        for (int i = 0; i < rList.size() + thirdBodyList.size()
+                + troeList.size() + lindemannList.size(); i++)
+            reactionFlux[i] = p_output.nextDouble();
+        p_output.nextDouble();// read volume; (this is in the output even if AUTO is off, but is not used)
+        // for autoflag cases, there will be additional information which may be used for pruning
+        if (autoflag) {
+            prunableSpecies = new boolean[edgeID.size() + edgeLeakID.size()];
+            maxEdgeFluxRatio = new double[edgeID.size() + edgeLeakID.size()];
+            int edgeflag = p_output.nextInt();// read the edgeflag
+            if (edgeflag < 0) {// if the edgeflag is negative, the ODE solver terminated by reaching the target
+// time/concentration
+                targetReached = true;
+            } else {
+                targetReached = false;
+            }
+            double finalTime = p_output.nextDouble();// read the time integrated to
+            // read the "prunability index" (0 or 1) and maximum ratio (edge flux/Rchar) for each edge species;
+// vector index + 1 corresponds to ID value in edgeID and edgeLeakID
+            Logger.info(String.format("ODE solver integrated to %9.3e s",
+                    finalTime));
+            for (int i = 0; i < (edgeID.size() + edgeLeakID.size()); i++) {
+                int q = p_output.nextInt(); // q should be 1 or 0
+                if (q == 1) {
+                    prunableSpecies[i] = true;
+                } else if (q == 0) {
+                    prunableSpecies[i] = false;
+                } else {
+                    Logger.critical("Misread solver output file - prunable species index should be 0 or 1, not "
+                            + q);
+                    System.exit(0);
+                }
+                maxEdgeFluxRatio[i] = p_output.nextDouble();// read the max edge flux ratio
+            }
+        }
+    }
+
     @Override
     protected void initializeWorkSpace() {
         super.initializeWorkSpace();
@@ -56,6 +56,25 @@ public class Logger {
     private static BufferedWriter logFile = null;
     /** The newline character to use. */
     private static String newLine = System.getProperty("line.separator");
+    /**
+     * The ring buffer of messages waiting to be written to the log file by the writer thread. Its capacity is set by
+     * the RMG.logBufferSize system property; a capacity of 0 writes every message to the file as it is logged.
+     */
+    private static String[] buffer = new String[0];
+    /** The index of the oldest message in the buffer. */
+    private static int head = 0;
+    /** The number of messages in the buffer. */
+    private static int count = 0;
+    /** Guards buffer, head and count; the writer thread waits on it. */
+    private static final Object bufferLock = new Object();
+    /** Guards logFile, so that batches taken from the buffer are written in the order they were taken. */
+    private static final Object fileLock = new Object();
+    /** The background thread draining the buffer to the log file, or null if logging synchronously. */
+    private static Thread writer = null;
+    /** The number of verbose and debug messages dropped because the buffer was full. */
+    private static long dropped = 0;
+    /** The number of messages written to the file together with others in a single batch. */
+    private static long coalesced = 0;
 
     /**
      * Initialize the logger. The log file will be opened; if this is not successful, the program will abort. If called
@@ -71,7 +90,7 @@ public class Logger {
     public static void initialize(String logFilePath) {
         try {
             // Open the log file (throws IOException if unsuccessful)
-            logFile = new BufferedWriter(new FileWriter(logFilePath));
+            logFile = new BufferedWriter(new FileWriter(logFilePath), 65536);
         } catch (IOException e) {
             // Log information is important, so we better stop if we're not
             // saving any!
@@ -83,6 +102,7 @@ public class Logger {
         // At the moment RMG's errors and warnings need to be placed in the
         // context of when they occur, so this is necessary
         System.setErr(System.out);
+        startWriter(Integer.getInteger("RMG.logBufferSize", 4096).intValue());
         // Print an initialization timestamp
         SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
         info("RMG execution initiated at "
@@ -99,18 +119,34 @@ public class Logger {
         info("");
         info("RMG execution terminated at "
                 + sdf.format(Calendar.getInstance().getTime()));
+        if (dropped > 0)
+            info(String.format(
+                    "%d verbose or debug log messages were dropped because the log buffer was full.",
+                    dropped));
+        stopWriter();
         try {
             // Close the log file (throws IOException if unsuccessful)
-            logFile.close();
+            synchronized (fileLock) {
+                drain();
+                logFile.close();
+                logFile = null;
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Write all buffered messages to the log file and flush it, so that the file is complete up to the last message
+     * logged.
+     */
     public static void flush() {
         // Flush the log file
         try {
-            logFile.flush();
+            synchronized (fileLock) {
+                drain();
+                logFile.flush();
+            }
         } catch (IOException e) {
             System.err
                     .println("Couldn't flush RMG.log file. Did you initialize the Logger?");
@@ -118,6 +154,162 @@ public class Logger {
         }
     }
 
+    /**
+     * Start the thread writing buffered messages to the log file, with room for the given number of messages. The
+     * log file is flushed when the JVM exits, even if finish() is never called.
+     */
+    private static void startWriter(int capacity) {
+        stopWriter();
+        synchronized (bufferLock) {
+            buffer = new String[Math.max(capacity, 0)];
+            head = 0;
+            count = 0;
+        }
+        if (capacity <= 0)
+            return;
+        writer = new Thread("RMG log writer") {
+            public void run() {
+                while (true) {
+                    synchronized (bufferLock) {
+                        if (writer != this)
+                            return;
+                        try {
+                            // wake up when the buffer fills up, or at least every tenth of a second
+                            bufferLock.wait(100);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (count == 0)
+                            continue;
+                    }
+                    try {
+                        synchronized (fileLock) {
+                            drain();
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Couldn't write to the log file: "
+                                + e.getMessage());
+                    }
+                }
+            }
+        };
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                try {
+                    synchronized (fileLock) {
+                        drain();
+                        if (logFile != null)
+                            logFile.flush();
+                    }
+                } catch (IOException e) {
+                    // nothing more can be done while the JVM is exiting
+                }
+            }
+        });
+    }
+
+    /**
+     * Stop the writer thread; messages still in the buffer are left for the next drain().
+     */
+    private static void stopWriter() {
+        synchronized (bufferLock) {
+            writer = null;
+            bufferLock.notifyAll();
+        }
+    }
+
+    /**
+     * Write the messages in the buffer to the log file as one batch. Requires: the caller holds fileLock.
+     */
+    private static void drain() throws IOException {
+        String[] batch;
+        synchronized (bufferLock) {
+            if (count == 0)
+                return;
+            batch = new String[count];
+            for (int i = 0; i < count; i++) {
+                batch[i] = buffer[(head + i) % buffer.length];
+                buffer[(head + i) % buffer.length] = null;
+            }
+            head = 0;
+            count = 0;
+        }
+        if (logFile == null)
+            return;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < batch.length; i++)
+            text.append(batch[i]).append(newLine);
+        logFile.write(text.toString());
+        if (batch.length > 1)
+            coalesced += batch.length;
+    }
+
+    /**
+     * Queue a message for the writer thread, or write it straight away if logging synchronously. When the buffer is
+     * full, verbose and debug messages are dropped, and more important ones are written by the calling thread.
+     */
+    private static void write(int level, String message) throws IOException {
+        synchronized (bufferLock) {
+            if (writer != null) {
+                if (count < buffer.length) {
+                    buffer[(head + count) % buffer.length] = message;
+                    count++;
+                    if (count == buffer.length / 2)
+                        bufferLock.notifyAll();
+                    return;
+                }
+                if (level > INFO) {
+                    dropped++;
+                    return;
+                }
+            }
+        }
+        synchronized (fileLock) {
+            drain();
+            if (logFile != null)
+                logFile.write(message + newLine);
+        }
+    }
+
+    /**
+     * Return the number of verbose and debug messages that were not written to the log file because the buffer was
+     * full.
+     */
+    public static long getDroppedCount() {
+        synchronized (bufferLock) {
+            return dropped;
+        }
+    }
+
+    /**
+     * Return the number of messages that were written to the log file in batches of more than one.
+     */
+    public static long getCoalescedCount() {
+        synchronized (fileLock) {
+            return coalesced;
+        }
+    }
+
+    /**
+     * Return true if a message with the given level of detail would be printed to the console or to the log file. Use
+     * this to skip building expensive messages that would be filtered out anyway.
+     * 
+     * @param level
+     *            The level of detail of the message
+     */
+    public static boolean isLoggable(int level) {
+        return consoleLevel >= level || fileLevel >= level;
+    }
+
+    /**
+     * A log message that is only built if its level of detail is printed somewhere.
+     */
+    public interface MessageSupplier {
+        public String getMessage();
+    }
+
     /**
      * Set the level of detail to use for log messages printed to the console (stdout and stderr). Generally you should
      * try to use one of the predefined levels if possible, but this is not required.
@@ -156,7 +348,8 @@ public class Logger {
         if (message == null)
             return;
         // Replace all "\n" with the proper platform end-of-line character
-        message = message.replaceAll("\n", newLine);
+        if (!newLine.equals("\n"))
+            message = message.replace("\n", newLine);
         // Prefix the message if an error or warning
         if (level == CRITICAL)
             message = "CRITICAL: " + message;
@@ -175,7 +368,7 @@ public class Logger {
         // Print the log message to the file
         try {
             if (logFile != null && fileLevel >= level)
-                logFile.write(message + newLine);
+                write(level, message);
         } catch (IOException e) {
             // What should we do here?
             throw new RuntimeException(e);
@@ -186,6 +379,37 @@ public class Logger {
         }
     }
 
+    /**
+     * Log a message built by String.format() from the given format string and arguments. The message is only
+     * formatted, and the arguments' toString() methods only called, if the level of detail is printed somewhere.
+     * 
+     * @param level
+     *            The level of detail to use for this message
+     * @param format
+     *            The format string of the message
+     * @param args
+     *            The arguments referenced by the format string
+     */
+    public static void log(int level, String format, Object... args) {
+        if (!isLoggable(level))
+            return;
+        log(level, String.format(format, args));
+    }
+
+    /**
+     * Log the message of a supplier, which is only asked for it if the level of detail is printed somewhere.
+     * 
+     * @param level
+     *            The level of detail to use for this message
+     * @param message
+     *            The supplier of the message to log
+     */
+    public static void log(int level, MessageSupplier message) {
+        if (!isLoggable(level))
+            return;
+        log(level, message.getMessage());
+    }
+
     /**
      * Log a message describing a critical (fatal) error. Note that this will *not* cause the program to halt, but
      * simply defines a unique level for fatal errors. The prefix "CRITICAL: " will automatically be added to the
@@ -228,6 +452,18 @@ public class Logger {
         log(INFO, message);
     }
 
+    /**
+     * Log an informational message, formatted only if informational messages are printed.
+     * 
+     * @param format
+     *            The format string of the message
+     * @param args
+     *            The arguments referenced by the format string
+     */
+    public static void info(String format, Object... args) {
+        log(INFO, format, args);
+    }
+
     /**
      * Log a detailed informational message.
      * 
@@ -238,6 +474,18 @@ public class Logger {
         log(VERBOSE, message);
     }
 
+    /**
+     * Log a detailed informational message, formatted only if detailed messages are printed.
+     * 
+     * @param format
+     *            The format string of the message
+     * @param args
+     *            The arguments referenced by the format string
+     */
+    public static void verbose(String format, Object... args) {
+        log(VERBOSE, format, args);
+    }
+
     /**
      * Log a message containing debug information.
      * 
@@ -248,6 +496,18 @@ public class Logger {
         log(DEBUG, message);
     }
 
+    /**
+     * Log a message containing debug information, formatted only if debug messages are printed.
+     * 
+     * @param format
+     *            The format string of the message
+     * @param args
+     *            The arguments referenced by the format string
+     */
+    public static void debug(String format, Object... args) {
+        log(DEBUG, format, args);
+    }
+
     /**
      * Log the current stack trace to both the console and the log file.
      */
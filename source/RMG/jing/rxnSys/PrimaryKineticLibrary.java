@@ -42,6 +42,13 @@ import jing.chemParser.*;
 public class PrimaryKineticLibrary {
     protected String name;
     protected static LinkedHashSet reactionSet = new LinkedHashSet();
+    /*
+     * The reactions of reactionSet bucketed by the species keys of their reactants and products (see structureKey), so
+     * that a generated structure is only compared with the library reactions that can match it. Each bucket is a
+     * LinkedList in reactionSet order; the index is rebuilt if reactionSet has changed size since it was built.
+     */
+    protected static HashMap reactionIndex = new HashMap();
+    protected static int indexedReactionNumber = 0;
     protected LinkedHashMap speciesSet = new LinkedHashMap();
 
     // Constructors
@@ -95,6 +102,7 @@ public class PrimaryKineticLibrary {
                     speciesSet, "Primary Kinetic Library: "));
             reactionSet.addAll(sm.readPdepReactions(pdepreactionFile, p_name,
                     speciesSet, "Primary Kinetic Library: "));
+            buildReactionIndex();
             return;
         } catch (Exception e) {
             Logger.logStackTrace(e);
@@ -118,6 +126,108 @@ public class PrimaryKineticLibrary {
     public static LinkedHashSet getReactionSet() {
         return reactionSet;
     }
+
+    /**
+     * Requires: p_reactants and p_products are lists of ChemGraphs. Effects: return the first library reaction whose
+     * reactant species match p_reactants and whose product species match p_products, each in any order and through
+     * any resonance isomer; null if there is none. Modifies:
+     */
+    public static Reaction getReaction(LinkedList p_reactants,
+            LinkedList p_products) {
+        Collection candidates = reactionSet;
+        Long key = structureKey(p_reactants, p_products);
+        if (key != null) {
+            if (indexedReactionNumber != reactionSet.size())
+                buildReactionIndex();
+            candidates = (Collection) reactionIndex.get(key);
+            if (candidates == null)
+                return null;
+        }
+        for (Iterator iter = candidates.iterator(); iter.hasNext();) {
+            Reaction rxn = (Reaction) iter.next();
+            /*
+             * The library reactions list species, which RMG made with all of their resonance isomers, while the
+             * generated structure lists the ChemGraphs it formed; they are compared as ChemGraphs.
+             */
+            if (Structure.isSpeciesListEquivalentToChemGraphListAsChemGraphs(
+                    rxn.getReactantList(), p_reactants)
+                    && Structure
+                            .isSpeciesListEquivalentToChemGraphListAsChemGraphs(
+                                    rxn.getProductList(), p_products))
+                return rxn;
+        }
+        return null;
+    }
+
+    private static void buildReactionIndex() {
+        reactionIndex.clear();
+        for (Iterator iter = reactionSet.iterator(); iter.hasNext();) {
+            Reaction rxn = (Reaction) iter.next();
+            Long key = new Long(listKey(rxn.getReactantList(), 1)
+                    + listKey(rxn.getProductList(), 2));
+            LinkedList bucket = (LinkedList) reactionIndex.get(key);
+            if (bucket == null) {
+                bucket = new LinkedList();
+                reactionIndex.put(key, bucket);
+            }
+            bucket.add(rxn);
+        }
+        indexedReactionNumber = reactionSet.size();
+    }
+
+    /**
+     * Return the index key of a structure with the ChemGraphs p_reactants and p_products, or null if one of them
+     * doesn't know its species yet, in which case it can't be looked up in the index.
+     */
+    private static Long structureKey(LinkedList p_reactants,
+            LinkedList p_products) {
+        LinkedList reactantSpecies = new LinkedList();
+        LinkedList productSpecies = new LinkedList();
+        for (Iterator iter = p_reactants.iterator(); iter.hasNext();) {
+            Species spe = ((ChemGraph) iter.next()).getSpecies();
+            if (spe == null)
+                return null;
+            reactantSpecies.add(spe);
+        }
+        for (Iterator iter = p_products.iterator(); iter.hasNext();) {
+            Species spe = ((ChemGraph) iter.next()).getSpecies();
+            if (spe == null)
+                return null;
+            productSpecies.add(spe);
+        }
+        return new Long(listKey(reactantSpecies, 1)
+                + listKey(productSpecies, 2));
+    }
+
+    /**
+     * Combine the keys of a list of species, in any order, into one key; p_side keeps reactants and products apart.
+     */
+    private static long listKey(LinkedList p_species, int p_side) {
+        long key = 0;
+        for (Iterator iter = p_species.iterator(); iter.hasNext();) {
+            long h = (speciesKey((Species) iter.next()) + p_side)
+                    * 0x9E3779B97F4A7C15L;
+            key += h ^ (h >>> 29);
+        }
+        return key * p_side;
+    }
+
+    /**
+     * The smallest invariant graph key among the species' resonance isomers, so that a species gets the same key
+     * whichever of its isomers a ChemGraph was matched through.
+     */
+    private static long speciesKey(Species p_species) {
+        if (!p_species.hasResonanceIsomers())
+            return p_species.getChemGraph().getGraph().getInvariantKey();
+        long key = Long.MAX_VALUE;
+        for (Iterator iter = p_species.getResonanceIsomers(); iter.hasNext();) {
+            long isomerKey = ((ChemGraph) iter.next()).getGraph()
+                    .getInvariantKey();
+            if (isomerKey < key)
+                key = isomerKey;
+        }
+        return key;
+    }
 }
 /*********************************************************************
  * File Path : RMG\RMG\jing\rxnSys\PrimaryKineticLibrary.java
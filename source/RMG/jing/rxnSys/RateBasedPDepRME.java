@@ -271,20 +271,18 @@ public class RateBasedPDepRME implements ReactionModelEnlarger {
             // species as a unimolecular isomer together
             PDepNetwork network = null;
             LinkedList<PDepNetwork> networksToRemove = new LinkedList<PDepNetwork>();
-            for (Iterator iter = PDepNetwork.getNetworks().iterator(); iter
-                    .hasNext();) {
+            for (Iterator iter = PDepNetwork.getNetworksContaining(maxSpecies)
+                    .iterator(); iter.hasNext();) {
                 PDepNetwork pdn = (PDepNetwork) iter.next();
-                if (pdn.contains(maxSpecies)) {
-                    if (network == null)
-                        network = pdn; // first pdn to contain maxSpecies
-                    else { // second or later pdn to contain maxSpecies. merge it with network
-                        for (int j = 0; j < pdn.getIsomers().size(); j++)
-                            network.addIsomer(pdn.getIsomers().get(j));
-                        for (int j = 0; j < pdn.getPathReactions().size(); j++)
-                            network.addReaction(pdn.getPathReactions().get(j),
-                                    false);
-                        networksToRemove.add(pdn);
-                    }
+                if (network == null)
+                    network = pdn; // first pdn to contain maxSpecies
+                else { // second or later pdn to contain maxSpecies. merge it with network
+                    for (int j = 0; j < pdn.getIsomers().size(); j++)
+                        network.addIsomer(pdn.getIsomers().get(j));
+                    for (int j = 0; j < pdn.getPathReactions().size(); j++)
+                        network.addReaction(pdn.getPathReactions().get(j),
+                                false);
+                    networksToRemove.add(pdn);
                 }
             }
             if (network != null) {
@@ -359,26 +357,24 @@ public class RateBasedPDepRME implements ReactionModelEnlarger {
         LinkedList<PDepNetwork> networksToRemove = new LinkedList<PDepNetwork>();
         // Find the networks that this species occurs in as a nonincluded isomer
         // There should be at least one
-        for (Iterator iter = PDepNetwork.getNetworks().iterator(); iter
-                .hasNext();) {
+        for (Iterator iter = PDepNetwork.getNetworksContaining(species)
+                .iterator(); iter.hasNext();) {
             PDepNetwork network = (PDepNetwork) iter.next();
-            if (network.contains(species)) {
-                PDepIsomer isomer = network.getIsomer(species);
-                if (isomer.isUnimolecular() && !isomer.getIncluded()) {
-                    networksToRemove.add(network);
-                    if (network.getAltered()) {
-                        Logger.info("\nNetwork "
-                                + network.getID()
-                                + " has been altered already this step, so will not be expanded until next step.");
-                        return;
-                    }
-                } else {
-                    Logger.info("Isomer "
-                            + species.toString()
-                            + " is in network #"
+            PDepIsomer isomer = network.getIsomer(species);
+            if (isomer.isUnimolecular() && !isomer.getIncluded()) {
+                networksToRemove.add(network);
+                if (network.getAltered()) {
+                    Logger.info("\nNetwork "
                             + network.getID()
-                            + ", but is not unimolecular AND nonIncluded,\n\tso RMG will not remove this network.");
+                            + " has been altered already this step, so will not be expanded until next step.");
+                    return;
                 }
+            } else {
+                Logger.info("Isomer "
+                        + species.toString()
+                        + " is in network #"
+                        + network.getID()
+                        + ", but is not unimolecular AND nonIncluded,\n\tso RMG will not remove this network.");
             }
         }
         if (networksToRemove.size() == 0) {
@@ -397,7 +393,7 @@ public class RateBasedPDepRME implements ReactionModelEnlarger {
             // species as a unimolecular isomer together
             for (Iterator iter = networksToRemove.iterator(); iter.hasNext();) {
                 PDepNetwork pdn = (PDepNetwork) iter.next();
-                PDepNetwork.getNetworks().remove(pdn);
+                PDepNetwork.removeNetwork(pdn);
             }
             // Make the isomer included
             // This will cause any other reactions of the form
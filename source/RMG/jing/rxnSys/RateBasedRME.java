@@ -30,6 +30,7 @@ import java.util.*;
 import jing.param.*;
 import jing.rxn.NegativeRateException;
 import jing.rxn.Reaction;
+import jing.rxn.ReactionGenerator;
 import jing.rxn.TemplateReaction;
 import jing.chem.ChemGraph;
 import jing.chem.Species;
@@ -41,10 +42,22 @@ import jing.chem.Species;
 // ----------------------------------------------------------------------------
 // ## class RateBasedRME
 public class RateBasedRME implements ReactionModelEnlarger {
+    // move every edge species whose flux exceeds the validity tolerance into the core at once, rather than only the
+    // one with the highest flux
+    protected boolean batch = false;
+    // the most species moved per reaction system and iteration in batch mode; 0 for no limit
+    protected int maxBatchSize = 0;
+
     // Constructors
     public RateBasedRME() {
     }
 
+    // ## operation setBatchEnlargement(boolean,int)
+    public void setBatchEnlargement(boolean p_batch, int p_maxBatchSize) {
+        batch = p_batch;
+        maxBatchSize = p_maxBatchSize;
+    }
+
     // 9/25/07 gmagoon: added ReactionModel parameter
     // 10/30/07 gmagoon: updated parameters to match ReactionModelEnlarger
     // ## operation enlargeReactionModel(ReactionSystem)
@@ -61,11 +74,19 @@ public class RateBasedRME implements ReactionModelEnlarger {
         double startTime = System.currentTimeMillis();
         for (Integer i = 0; i < p_reactionSystemList.size(); i++) {
             if (!(Boolean) p_validList.get(i)) {
-                PresentStatus ps = ((ReactionSystem) p_reactionSystemList
-                        .get(i)).getPresentStatus();
+                ReactionSystem rxnSystem = (ReactionSystem) p_reactionSystemList
+                        .get(i);
+                PresentStatus ps = rxnSystem.getPresentStatus();
                 String maxflux = "";
                 Species next = getNextCandidateSpecies(cerm, ps, maxflux);
-                nextList.add(next);
+                if (batch)
+                    nextList.add(getCandidateSpeciesBatch(cerm, ps,
+                            rxnSystem.getRmin(), next));
+                else {
+                    LinkedList single = new LinkedList();
+                    single.add(next);
+                    nextList.add(single);
+                }
             } else {
                 nextList.add(null);// ****hopefully, null will contribute to length of list; otherwise, modifications
 // will be needed
@@ -82,13 +103,21 @@ public class RateBasedRME implements ReactionModelEnlarger {
         // 10/30/07 gmagoon: add species from nextList
         for (Integer i = 0; i < p_reactionSystemList.size(); i++) {
             if (!(Boolean) p_validList.get(i)) {
-                Species newCoreSpecies = (Species) nextList.get(i);
-                if (cerm.containsAsReactedSpecies(newCoreSpecies)) // throw new InvalidNextCandidateSpeciesException();
-                {
-                    Logger.warning("Tried to add species "
-                            + newCoreSpecies.getFullName()
-                            + ", but is already present in reaction model (this should be OK if you are running multiple reaction conditions)");
-                } else {
+                // the core before the species of this reaction system are added, and the species actually added
+                LinkedHashSet previousCore = batch ? new LinkedHashSet(
+                        cerm.getReactedSpeciesSet()) : null;
+                LinkedList added = new LinkedList();
+                for (Iterator iter = ((LinkedList) nextList.get(i)).iterator(); iter
+                        .hasNext();) {
+                    Species newCoreSpecies = (Species) iter.next();
+                    if (cerm.containsAsReactedSpecies(newCoreSpecies)) // throw new
+// InvalidNextCandidateSpeciesException();
+                    {
+                        Logger.warning("Tried to add species "
+                                + newCoreSpecies.getFullName()
+                                + ", but is already present in reaction model (this should be OK if you are running multiple reaction conditions)");
+                        continue;
+                    }
                     double findSpeciesTime = (System.currentTimeMillis() - startTime) / 1000 / 60;
                     // Global.diagnosticInfo.append(next.getChemkinName() + "\t" + maxflux + "\t" + ((RateBasedVT)
 // ((ReactionSystem) p_reactionSystemList.get(i)).finishController.validityTester).Rmin + "\t" + findSpeciesTime +
@@ -117,76 +146,153 @@ public class RateBasedRME implements ReactionModelEnlarger {
                     PresentStatus ps = ((ReactionSystem) p_reactionSystemList
                             .get(i)).getPresentStatus();
                     ps.putSpeciesStatus(speciesStatus);
-                    // generate new reaction set
-                    startTime = System.currentTimeMillis();
-                    // Species List is first reacted by Library Reaction Generator and then sent to RMG Model Generator
-                    LinkedHashSet newReactionSet_nodup;
-                    ReactionSystem rxnSystem = (ReactionSystem) p_reactionSystemList
-                            .get(i);
-                    // Check Reaction Library
-                    if (rxnSystem.getLibraryReactionGenerator()
-                            .getReactionLibrary() != null) {
+                    added.add(newCoreSpecies);
+                }
+                if (added.isEmpty())
+                    continue;
+                if (batch)
+                    Logger.info("Added %d species to the model core in this iteration",
+                            added.size());
+                // generate new reaction set
+                startTime = System.currentTimeMillis();
+                // Species List is first reacted by Library Reaction Generator and then sent to RMG Model Generator
+                LinkedHashSet newReactionSet_nodup;
+                ReactionSystem rxnSystem = (ReactionSystem) p_reactionSystemList
+                        .get(i);
+                // Check Reaction Library
+                if (rxnSystem.getLibraryReactionGenerator()
+                        .getReactionLibrary() != null) {
+                    for (Iterator iter = added.iterator(); iter.hasNext();)
                         Logger.info("Checking Reaction Library "
                                 + rxnSystem.getLibraryReactionGenerator()
                                         .getReactionLibrary().getName()
                                 + " for reactions of "
-                                + newCoreSpecies.getFullName()
+                                + ((Species) iter.next()).getFullName()
                                 + " with the core.");
-                        // At this point the core (cerm.getReactedSpeciesSet()) already contains newCoreSpecies, so we
+                    // At this point the core (cerm.getReactedSpeciesSet()) already contains the new species, so we
 // can just react the entire core.
-                        LinkedHashSet newReactionSet = rxnSystem
-                                .getLibraryReactionGenerator().react(
-                                        cerm.getReactedSpeciesSet());
-                        // Report only those that contain the new species (newCoreSpecies)
-                        Iterator ReactionIter = newReactionSet.iterator();
-                        while (ReactionIter.hasNext()) {
-                            Reaction current_reaction = (Reaction) ReactionIter
-                                    .next();
-                            if (current_reaction.contains(newCoreSpecies)) {
-                                Logger.info("Library Reaction: "
-                                        + current_reaction.toString());
+                    LinkedHashSet newReactionSet = rxnSystem
+                            .getLibraryReactionGenerator().react(
+                                    cerm.getReactedSpeciesSet());
+                    // Report only those that contain a new species
+                    Iterator ReactionIter = newReactionSet.iterator();
+                    while (ReactionIter.hasNext()) {
+                        Reaction current_reaction = (Reaction) ReactionIter
+                                .next();
+                        for (Iterator iter = added.iterator(); iter.hasNext();) {
+                            if (current_reaction.contains((Species) iter.next())) {
+                                Logger.info("Library Reaction: %s",
+                                        current_reaction);
+                                break;
                             }
                         }
-                        // Calls in Reaction Model Generator and adds it to Reaction Set ( if duplicate reaction is
-// found it is not added I think )
-                        Logger.info("Generating reactions using reaction family templates.");
-                        // Add reactions found from reaction template to current reaction set
-                        newReactionSet
-                                .addAll(((ReactionSystem) p_reactionSystemList
-                                        .get(i)).getReactionGenerator().react(
-                                        cerm.getReactedSpeciesSet(),
-                                        newCoreSpecies, "All"));
-                        // shamel 6/22/2010 Suppressed output , line is only for debugging
-                        // System.out.println("Reaction Set Found after LRG + ReactionGenerator call "+newReactionSet);
-                        // Remove Duplicate entrys from reaction set i.e same reaction might be coming from
-// seed/reaction library and reaction template
-                        // Same means == same family and not same structure coming from different families
-                        newReactionSet_nodup = rxnSystem
-                                .getLibraryReactionGenerator()
-                                .RemoveDuplicateReac(newReactionSet);
-                    } else {
-                        // When no Reaction Library is present
-                        Logger.info("Generating reactions using reaction family templates.");
-                        newReactionSet_nodup = rxnSystem.getReactionGenerator()
-                                .react(cerm.getReactedSpeciesSet(),
-                                        newCoreSpecies, "All");
                     }
+                    // Calls in Reaction Model Generator and adds it to Reaction Set ( if duplicate reaction is
+// found it is not added I think )
+                    Logger.info("Generating reactions using reaction family templates.");
+                    // Add reactions found from reaction template to current reaction set
+                    newReactionSet.addAll(reactWithCore(rxnSystem, cerm,
+                            previousCore, added));
                     // shamel 6/22/2010 Suppressed output , line is only for debugging
-                    // System.out.println("Reaction Set Found after LRG + ReactionGenerator call and Removing Dups"+newReactionSet_nodup);
-                    double enlargeTime = (System.currentTimeMillis() - startTime) / 1000 / 60;
-                    startTime = System.currentTimeMillis();
-                    double restartTime = (System.currentTimeMillis() - startTime) / 1000 / 60;
-                    Global.diagnosticInfo.append(Global.moveUnreactedToReacted
-                            + "\t" + enlargeTime + "\t" + restartTime + "\t");
-                    // partition the reaction set into reacted reaction set and unreacted reaction set
-                    // update the corresponding core and edge model of CoreEdgeReactionModel
-                    cerm.addReactionSet(newReactionSet_nodup);
+                    // System.out.println("Reaction Set Found after LRG + ReactionGenerator call "+newReactionSet);
+                    // Remove Duplicate entrys from reaction set i.e same reaction might be coming from
+// seed/reaction library and reaction template
+                    // Same means == same family and not same structure coming from different families
+                    newReactionSet_nodup = rxnSystem
+                            .getLibraryReactionGenerator().RemoveDuplicateReac(
+                                    newReactionSet);
+                } else {
+                    // When no Reaction Library is present
+                    Logger.info("Generating reactions using reaction family templates.");
+                    newReactionSet_nodup = reactWithCore(rxnSystem, cerm,
+                            previousCore, added);
                 }
+                // shamel 6/22/2010 Suppressed output , line is only for debugging
+                // System.out.println("Reaction Set Found after LRG + ReactionGenerator call and Removing Dups"+newReactionSet_nodup);
+                double enlargeTime = (System.currentTimeMillis() - startTime) / 1000 / 60;
+                startTime = System.currentTimeMillis();
+                double restartTime = (System.currentTimeMillis() - startTime) / 1000 / 60;
+                Global.diagnosticInfo.append(Global.moveUnreactedToReacted
+                        + "\t" + enlargeTime + "\t" + restartTime + "\t");
+                // partition the reaction set into reacted reaction set and unreacted reaction set
+                // update the corresponding core and edge model of CoreEdgeReactionModel
+                cerm.addReactionSet(newReactionSet_nodup);
             }
         }
         return;
     }
 
+    // ## operation reactWithCore(ReactionSystem,CoreEdgeReactionModel,LinkedHashSet,LinkedList)
+    /**
+     * Requires: p_added are in the core of p_reactionModel, and p_previousCore is the core before they were added (it
+     * may be null if there is only one of them)
+     * Effects: returns the template reactions of each species of p_added with the core as it was when that species
+     * was added, i.e. with p_previousCore and the species added before it, so that a pair of new species is only
+     * reacted once.
+     */
+    private LinkedHashSet reactWithCore(ReactionSystem p_reactionSystem,
+            CoreEdgeReactionModel p_reactionModel,
+            LinkedHashSet p_previousCore, LinkedList p_added) {
+        // #[ operation reactWithCore(ReactionSystem,CoreEdgeReactionModel,LinkedHashSet,LinkedList)
+        ReactionGenerator generator = p_reactionSystem.getReactionGenerator();
+        if (p_added.size() == 1)
+            return generator.react(p_reactionModel.getReactedSpeciesSet(),
+                    (Species) p_added.getFirst(), "All");
+        LinkedHashSet reactionSet = new LinkedHashSet();
+        LinkedHashSet core = new LinkedHashSet(p_previousCore);
+        for (Iterator iter = p_added.iterator(); iter.hasNext();) {
+            Species species = (Species) iter.next();
+            core.add(species);
+            reactionSet.addAll(generator.react(core, species, "All"));
+        }
+        return reactionSet;
+        // #]
+    }
+
+    // ## operation getCandidateSpeciesBatch(CoreEdgeReactionModel,PresentStatus,double,Species)
+    /**
+     * Effects: returns p_maxSpecies followed by the other edge species whose flux exceeds p_Rmin, in order of
+     * decreasing flux, at most maxBatchSize of them in all if that is positive; returns p_maxSpecies alone if p_Rmin
+     * is not positive.
+     */
+    public LinkedList getCandidateSpeciesBatch(
+            CoreEdgeReactionModel p_reactionModel,
+            PresentStatus p_presentStatus, double p_Rmin, Species p_maxSpecies) {
+        // #[ operation getCandidateSpeciesBatch(CoreEdgeReactionModel,PresentStatus,double,Species)
+        LinkedList batch = new LinkedList();
+        batch.add(p_maxSpecies);
+        // with no core flux yet (e.g. a core of only the initial species, which react only to edge species), Rmin is
+        // zero and every edge species formed at all would pass; the core is then grown one species at a time, as
+        // without the batch option
+        if (p_Rmin <= 0)
+            return batch;
+        ArrayList candidates = new ArrayList();
+        for (Iterator iter = p_reactionModel.getUnreactedSpeciesSet()
+                .iterator(); iter.hasNext();) {
+            Species us = (Species) iter.next();
+            if (us != p_maxSpecies
+                    && Math.abs(p_presentStatus.unreactedSpeciesFlux[us
+                            .getID()]) > p_Rmin)
+                candidates.add(us);
+        }
+        final double[] flux = p_presentStatus.unreactedSpeciesFlux;
+        // a stable sort, so species of equal flux keep the order of the edge
+        Collections.sort(candidates, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                double f1 = Math.abs(flux[((Species) o1).getID()]);
+                double f2 = Math.abs(flux[((Species) o2).getID()]);
+                return f1 > f2 ? -1 : (f1 < f2 ? 1 : 0);
+            }
+        });
+        for (Iterator iter = candidates.iterator(); iter.hasNext();) {
+            if (maxBatchSize > 0 && batch.size() >= maxBatchSize)
+                break;
+            batch.add(iter.next());
+        }
+        return batch;
+        // #]
+    }
+
     // ## operation getNextCandidateSpecies(CoreEdgeReactionModel,PresentStatus)
     public Species getNextCandidateSpecies(
             CoreEdgeReactionModel p_reactionModel,
@@ -270,14 +376,17 @@ public class RateBasedRME implements ReactionModelEnlarger {
         Logger.info(String.format(
                 "Edge species %s has highest flux: %10.4e mol/cm^3*s",
                 maxSpecies.getFullName(), maxFlux));
-        Logger.verbose("The total number of edge reactions with this species is "
-                + reactionWithSpecies + ". Significant ones are:");
-        Iterator reactionIter = significantReactions.keySet().iterator();
-        while (reactionIter.hasNext()) {
-            Reaction r = (Reaction) reactionIter.next();
-            Logger.verbose(String.format("    %s    %9.3e mol/cm^3*s", r
-                    .getStructure().toChemkinString(r.hasReverseReaction()),
-                    significantReactions.get(r)));
+        Logger.verbose("The total number of edge reactions with this species is %d. Significant ones are:",
+                reactionWithSpecies);
+        // the CHEMKIN strings are only built if they will be printed
+        if (Logger.isLoggable(Logger.VERBOSE)) {
+            Iterator reactionIter = significantReactions.keySet().iterator();
+            while (reactionIter.hasNext()) {
+                Reaction r = (Reaction) reactionIter.next();
+                Logger.verbose(String.format("    %s    %9.3e mol/cm^3*s", r
+                        .getStructure().toChemkinString(r.hasReverseReaction()),
+                        significantReactions.get(r)));
+            }
         }
         return maxSpecies;
         // #]
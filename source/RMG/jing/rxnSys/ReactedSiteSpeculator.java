@@ -0,0 +1,299 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxnSys;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import jing.chem.ChemGraph;
+import jing.chem.Species;
+import jing.rxn.ReactionTemplate;
+import jing.rxn.ReactionTemplateLibrary;
+import jing.rxn.StructureTemplate;
+
+// ## package jing::rxnSys
+// ----------------------------------------------------------------------------
+// jing\rxnSys\ReactedSiteSpeculator.java
+// ----------------------------------------------------------------------------
+/**
+ * Identifies the reacted sites of the edge species most likely to be moved into the core next, in a background thread
+ * while RMG waits for the ODE solver, so that TemplateReactionGenerator.react doesn't have to match a new core
+ * species against every reaction template after the solve. The candidates are the edge species with the highest
+ * fluxes in the last solution of each reaction system. The sites are staged here, and are only kept in the ChemGraphs
+ * of a species (see StructureTemplate.getReactedSites) once it is moved into the core; the sites of candidates that
+ * are not moved are discarded.
+ * Only the sites are identified in the background; the reactions themselves are still made after the solve, since
+ * making them creates species, whose IDs and order must not depend on thread timing. Subgraph matching marks the
+ * nodes of both the species graph and the functional group, so the background thread only runs between start() and
+ * finish(), while the main thread waits for the solver.
+ */
+// ## class ReactedSiteSpeculator
+public class ReactedSiteSpeculator {
+    // the number of edge species per reaction system whose sites are identified during a solve; 0 turns this off
+    protected static int candidateCount = 0;
+    // the candidates of each reaction system, in order of decreasing flux
+    private static HashMap candidates = new HashMap();
+    // the staged sites, Species -> (ChemGraph -> (StructureTemplate -> LinkedHashSet[3])), the ChemGraphs by identity
+    private static HashMap staged = new HashMap();
+    private static Thread worker = null;
+    private static volatile boolean stop = false;
+    private static RuntimeException failure = null;
+
+    // ## operation setCandidateCount(int)
+    public static void setCandidateCount(int p_candidateCount) {
+        candidateCount = p_candidateCount;
+    }
+
+    // ## operation isEnabled()
+    public static boolean isEnabled() {
+        return candidateCount > 0;
+    }
+
+    // ## operation setCandidates(Object,CoreEdgeReactionModel,double [])
+    /**
+     * Requires: p_flux is indexed by species ID, as SystemSnapshot.unreactedSpeciesFlux
+     * Modifies: this
+     * Effects: makes the candidateCount edge species of p_reactionModel with the highest positive flux in p_flux the
+     * candidates of p_reactionSystem, and discards the staged sites of species that are no longer a candidate of any
+     * reaction system.
+     */
+    public static void setCandidates(Object p_reactionSystem,
+            CoreEdgeReactionModel p_reactionModel, double[] p_flux) {
+        // #[ operation setCandidates(Object,CoreEdgeReactionModel,double [])
+        if (!isEnabled())
+            return;
+        finish();
+        Species[] best = new Species[candidateCount];
+        double[] bestFlux = new double[candidateCount];
+        int found = 0;
+        for (Iterator iter = p_reactionModel.getUnreactedSpeciesSet()
+                .iterator(); iter.hasNext();) {
+            Species spe = (Species) iter.next();
+            double flux = Math.abs(p_flux[spe.getID()]);
+            if (flux <= 0 || !spe.isReactive())
+                continue;
+            if (found == candidateCount && flux <= bestFlux[found - 1])
+                continue;
+            // insert in order of decreasing flux, after the species of equal flux
+            int i = found < candidateCount ? found++ : found - 1;
+            while (i > 0 && bestFlux[i - 1] < flux) {
+                best[i] = best[i - 1];
+                bestFlux[i] = bestFlux[i - 1];
+                i--;
+            }
+            best[i] = spe;
+            bestFlux[i] = flux;
+        }
+        LinkedList list = new LinkedList();
+        for (int i = 0; i < found; i++)
+            list.add(best[i]);
+        candidates.put(p_reactionSystem, list);
+        HashSet all = new HashSet();
+        for (Iterator iter = candidates.values().iterator(); iter.hasNext();)
+            all.addAll((LinkedList) iter.next());
+        staged.keySet().retainAll(all);
+        // #]
+    }
+
+    // ## operation start()
+    /**
+     * Requires: the main thread does no subgraph matching and changes no species until finish() is called
+     * Effects: starts identifying the sites of the candidates that aren't staged yet in a background thread.
+     */
+    public static void start() {
+        // #[ operation start()
+        if (!isEnabled() || worker != null || candidates.isEmpty())
+            return;
+        final ReactionTemplateLibrary library = ReactionTemplateLibrary
+                .getINSTANCE();
+        if (library == null)
+            return;
+        // the candidates of all reaction systems, highest flux first
+        final ArrayList queue = new ArrayList();
+        for (int rank = 0; rank < candidateCount; rank++) {
+            for (Iterator iter = candidates.values().iterator(); iter.hasNext();) {
+                LinkedList list = (LinkedList) iter.next();
+                if (rank < list.size() && !queue.contains(list.get(rank)))
+                    queue.add(list.get(rank));
+            }
+        }
+        stop = false;
+        worker = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (Iterator iter = queue.iterator(); iter.hasNext()
+                            && !stop;)
+                        stage((Species) iter.next(), library);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+        });
+        worker.setDaemon(true);
+        worker.start();
+        // #]
+    }
+
+    // ## operation finish()
+    /**
+     * Effects: stops the background thread started by start(), if any, and waits for it, keeping the sites it has
+     * identified so far.
+     */
+    public static void finish() {
+        // #[ operation finish()
+        if (worker == null)
+            return;
+        stop = true;
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        worker = null;
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        if (failure != null) {
+            // the same error will come up when the species is reacted, so just stop speculating on it
+            Logger.verbose("Unable to identify reacted sites during the solve: "
+                    + failure);
+            failure = null;
+        }
+        // #]
+    }
+
+    // ## operation commit(Species)
+    /**
+     * Modifies: the ChemGraphs of p_species
+     * Effects: keeps the sites staged for p_species in its ChemGraphs, where StructureTemplate.getReactedSites finds
+     * them when p_species is reacted with the core. Does nothing if none are staged.
+     */
+    public static void commit(Species p_species) {
+        // #[ operation commit(Species)
+        if (!isEnabled())
+            return;
+        finish();
+        IdentityHashMap graphs = (IdentityHashMap) staged.remove(p_species);
+        if (graphs == null)
+            return;
+        int kept = 0;
+        // the thermo of the species may have picked another ChemGraph since the sites were identified
+        for (Iterator cgIter = getChemGraphs(p_species).iterator(); cgIter
+                .hasNext();) {
+            ChemGraph cg = (ChemGraph) cgIter.next();
+            HashMap sites = (HashMap) graphs.get(cg);
+            if (sites == null)
+                continue;
+            for (Iterator iter = sites.keySet().iterator(); iter.hasNext();) {
+                StructureTemplate template = (StructureTemplate) iter.next();
+                if (cg.getReactedSites(template) == null) {
+                    cg.setReactedSites(template,
+                            (LinkedHashSet[]) sites.get(template));
+                    kept++;
+                }
+            }
+        }
+        Logger.verbose("Using %d sets of reacted sites of %s identified during the solve",
+                kept, p_species.getFullName());
+        // #]
+    }
+
+    // ## operation isStaged(Species)
+    /**
+     * Effects: returns true if sites of p_species are staged, to be kept in its ChemGraphs by commit().
+     */
+    public static boolean isStaged(Species p_species) {
+        return staged.containsKey(p_species);
+    }
+
+    // ## operation stage(Species,ReactionTemplateLibrary)
+    /**
+     * Effects: identifies the sites of every ChemGraph of p_species for every template of p_library, unless they are
+     * already staged or kept in the ChemGraph. Stops between templates once finish() has been called.
+     */
+    private static void stage(Species p_species,
+            ReactionTemplateLibrary p_library) {
+        // #[ operation stage(Species,ReactionTemplateLibrary)
+        IdentityHashMap graphs = (IdentityHashMap) staged.get(p_species);
+        if (graphs == null) {
+            // ChemGraph.equals() is an isomorphism test, which would mark the nodes of the graphs
+            graphs = new IdentityHashMap();
+            staged.put(p_species, graphs);
+        }
+        for (Iterator cgIter = getChemGraphs(p_species).iterator(); cgIter
+                .hasNext();) {
+            ChemGraph cg = (ChemGraph) cgIter.next();
+            HashMap sites = (HashMap) graphs.get(cg);
+            if (sites == null) {
+                sites = new HashMap();
+                graphs.put(cg, sites);
+            }
+            for (Iterator iter = p_library.getReactionTemplate(); iter
+                    .hasNext();) {
+                if (stop)
+                    return;
+                ReactionTemplate rt = (ReactionTemplate) iter.next();
+                StructureTemplate template = rt.getStructureTemplate();
+                if (sites.containsKey(template)
+                        || cg.getReactedSites(template) != null)
+                    continue;
+                LinkedHashSet[] s = new LinkedHashSet[3];
+                if (rt.hasOneReactant())
+                    s[1] = template.identifyReactedSites(cg, 1);
+                else if (rt.hasTwoReactants()) {
+                    s[1] = template.identifyReactedSites(cg, 1);
+                    s[2] = template.identifyReactedSites(cg, 2);
+                } else
+                    continue;
+                sites.put(template, s);
+            }
+        }
+        // #]
+    }
+
+    // the ChemGraphs TemplateReactionGenerator.react reacts for p_species
+    private static LinkedList getChemGraphs(Species p_species) {
+        LinkedList graphs = new LinkedList();
+        if (!p_species.hasResonanceIsomers())
+            graphs.add(p_species.getChemGraph());
+        else {
+            for (Iterator iter = p_species.getResonanceIsomers(); iter
+                    .hasNext();)
+                graphs.add(iter.next());
+        }
+        return graphs;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxnSys\ReactedSiteSpeculator.java
+ *********************************************************************/
@@ -27,10 +27,15 @@
 package jing.rxnSys;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import jing.rxnSys.ReactionSystem;
 import jing.rxn.*;
 import jing.chem.*;
 import java.util.*;
+import java.util.concurrent.*;
 import jing.mathTool.UncertainDouble;
 import jing.param.*;
 import jing.chemUtil.*;
@@ -49,6 +54,7 @@ public class ReactionModelGenerator {
     protected int paraInfor;
     protected boolean error;
     protected boolean sensitivity;
+    protected boolean adjointSensitivity = false;
     protected LinkedList species;
     protected LinkedList initialStatusList;
     protected double rtol;
@@ -102,6 +108,19 @@ public class ReactionModelGenerator {
     protected static double edgeTol;
     protected static int minSpeciesForPruning;
     protected static int maxEdgeSpeciesAfterPruning;
+    // heap usage (in bytes) above which edge species are pruned to free memory; if zero, the edge size is limited by
+// minSpeciesForPruning and maxEdgeSpeciesAfterPruning instead
+    protected static long pruningMemoryHighWaterMark = 0;
+    // fraction of the high-water mark that memory-driven pruning tries to bring the heap usage back down to
+    private static final double PRUNING_MEMORY_LOW_WATER_FRACTION = 0.9;
+    // live heap (in bytes) held by the databases and libraries once they are loaded, which memory-driven pruning does
+// not charge to the species of the reaction model
+    private static long pruningMemoryBaseline = 0;
+    // live heap (in bytes) taken by the species and reactions read from the Restart files, which belongs to the reaction
+// model rather than to the baseline
+    private static long restartMemory = 0;
+    // number of species whose adjacency lists are tokenized together when reading Restart files
+    private static final int RESTART_PARSE_CHUNK = 1000;
     public int limitingReactantID = 1;
     public int numberOfEquivalenceRatios = 0;
 
@@ -250,8 +269,12 @@ public class ReactionModelGenerator {
                 tempString = st.nextToken();
                 if (tempString.toLowerCase().equals("yes")) {
                     readrestart = true;
+                    System.gc();
+                    restartMemory = getLiveHeapMemory();
                     readRestartSpecies();
                     readRestartReactions();
+                    System.gc();
+                    restartMemory = getLiveHeapMemory() - restartMemory;
                 } else
                     readrestart = false;
                 line = ChemParser.readMeaningfulLine(reader, true);
@@ -764,6 +787,29 @@ public class ReactionModelGenerator {
                     throw new NumberFormatException(
                             "wrong number format for conversion in initial condition file!");
                 }
+                // the batch option moves every edge species above the tolerance into the core at once, optionally at
+// most N of them: "Error Tolerance: 0.1: batch" or "Error Tolerance: 0.1: batch 10"
+                while (st.hasMoreTokens()) {
+                    StringTokenizer option = new StringTokenizer(st
+                            .nextToken());
+                    if (!option.hasMoreTokens())
+                        continue;
+                    String name = option.nextToken().toLowerCase();
+                    if (!name.equals("batch")) {
+                        Logger.warning("Ignoring unknown Error Tolerance option: "
+                                + name);
+                        continue;
+                    }
+                    if (!(reactionModelEnlarger instanceof RateBasedRME)) {
+                        Logger.critical("Batch option is currently only supported without pressure dependence. Remove the batch option or switch PressureDependence off.");
+                        System.exit(0);
+                    }
+                    int maxBatchSize = 0;
+                    if (option.hasMoreTokens())
+                        maxBatchSize = Integer.parseInt(option.nextToken());
+                    ((RateBasedRME) reactionModelEnlarger).setBatchEnlargement(
+                            true, maxBatchSize);
+                }
                 ValidityTester vt = null;
                 if (reactionModelEnlarger instanceof RateBasedRME)
                     vt = new RateBasedVT(tolerance);
@@ -783,15 +829,52 @@ public class ReactionModelGenerator {
                 String simulator = st.nextToken().trim();
                 // read in non-negative option if it exists: syntax would be something like this:
 // "DynamicSimulator: DASSL: non-negative"
-                if (st.hasMoreTokens()) {
-                    if (st.nextToken().trim().toLowerCase()
-                            .equals("non-negative")) {
+                // the daemon option keeps the solver running between calls: "DynamicSimulator: DASPK: daemon"
+                // the krylov option solves the linear systems of DASPK iteratively: "DynamicSimulator: DASPK: krylov"
+                // the speculate option matches the top N edge species against the reaction templates while the solver
+// runs: "DynamicSimulator: DASSL: speculate" or "DynamicSimulator: DASSL: speculate 10"
+                // the trajectory option streams the concentrations of each reaction system to TrajectoryN.csv (or .bin)
+// in the output directory as they are computed: "DynamicSimulator: DASSL: trajectory csv" (or "trajectory binary")
+                while (st.hasMoreTokens()) {
+                    String option = st.nextToken().trim().toLowerCase();
+                    if (option.equals("non-negative")) {
                         if (simulator.toLowerCase().equals("dassl"))
                             JDAS.nonnegative = true;
                         else {
                             Logger.critical("Non-negative option is currently only supported for DASSL. Switch to DASSL solver or remove non-negative option.");
                             System.exit(0);
                         }
+                    } else if (option.equals("daemon")) {
+                        JDAS.daemon = true;
+                    } else if (option.equals("krylov")) {
+                        if (simulator.toLowerCase().equals("daspk"))
+                            JDASPK.krylov = true;
+                        else {
+                            Logger.critical("Krylov option is only supported for DASPK. Switch to DASPK solver or remove krylov option.");
+                            System.exit(0);
+                        }
+                    } else if (option.equals("speculate")
+                            || option.startsWith("speculate ")) {
+                        StringTokenizer speculate = new StringTokenizer(option);
+                        speculate.nextToken();
+                        int candidates = 5;
+                        if (speculate.hasMoreTokens())
+                            candidates = Integer.parseInt(speculate
+                                    .nextToken());
+                        ReactedSiteSpeculator.setCandidateCount(candidates);
+                    } else if (option.startsWith("trajectory")) {
+                        StringTokenizer trajectory = new StringTokenizer(
+                                option);
+                        trajectory.nextToken();
+                        String format = "csv";
+                        if (trajectory.hasMoreTokens())
+                            format = trajectory.nextToken();
+                        if (format.equals("csv") || format.equals("binary"))
+                            ReactionSystem.trajectoryOutput = format;
+                        else {
+                            Logger.critical("Trajectory option must be \"trajectory csv\" or \"trajectory binary\".");
+                            System.exit(0);
+                        }
                     }
                 }
                 numConversions = 0;// 5/6/08 gmagoon: moved declaration from initializeReactionSystem() to be an
@@ -896,6 +979,25 @@ public class ReactionModelGenerator {
                         Logger.critical("Cannot find MaxEdgeSpeciesAfterPruning in condition.txt");
                         System.exit(0);
                     }
+                    // the heap high-water mark is optional; it is given in MB or as a percentage of the maximum heap
+                    line = ChemParser.readMeaningfulLine(reader, true);
+                    if (line.startsWith("PruningMemoryHighWaterMark:")) {
+                        st = new StringTokenizer(line);
+                        temp = st.nextToken();
+                        String mark = st.nextToken();
+                        if (mark.endsWith("%"))
+                            pruningMemoryHighWaterMark = (long) (Double
+                                    .parseDouble(mark.substring(0,
+                                            mark.length() - 1))
+                                    / 100.0 * Runtime.getRuntime().maxMemory());
+                        else
+                            pruningMemoryHighWaterMark = (long) (Double
+                                    .parseDouble(mark) * 1.0e6);
+                        Logger.info(String
+                                .format("Edge species will be pruned when the heap usage exceeds %.2f MB",
+                                        pruningMemoryHighWaterMark / 1.0e6));
+                        line = null;
+                    }
                     // print header for pruning log (based on restart format)
                     BufferedWriter bw = null;
                     try {
@@ -925,8 +1027,9 @@ public class ReactionModelGenerator {
 // since pruning should not be done)
                     maxEdgeSpeciesAfterPruning = 999999;
                 }
-                // read in atol
-                line = ChemParser.readMeaningfulLine(reader, true);
+                // read in atol (unless already read while looking for the optional AUTOPRUNE lines)
+                if (line == null || !line.startsWith("Atol:"))
+                    line = ChemParser.readMeaningfulLine(reader, true);
                 if (line.startsWith("Atol:")) {
                     st = new StringTokenizer(line);
                     temp = st.nextToken();
@@ -976,6 +1079,11 @@ public class ReactionModelGenerator {
                         if (sa.compareToIgnoreCase("on") == 0) {
                             paraInfor = 1;
                             sensitivity = true;
+                        } else if (sa.compareToIgnoreCase("adjoint") == 0) {
+                            // only the sensitivities of the listed species are computed, by the adjoint method
+                            paraInfor = 1;
+                            sensitivity = true;
+                            adjointSensitivity = true;
                         } else if (sa.compareToIgnoreCase("off") == 0) {
                             if (paraInfor != 1) {
                                 paraInfor = 0;
@@ -1342,6 +1450,21 @@ public class ReactionModelGenerator {
 // initializeCoreEdgeReactionModel before initializeReactionSystem; 11/3-4/07 gmagoon: probably reverted on or before
 // 10/10/07
             initializeReactionSystems();
+            // the databases and libraries are loaded by now; what the heap holds beyond them is charged to the
+// reaction model when pruning for memory
+            if (pruningMemoryHighWaterMark > 0) {
+                System.gc();
+                pruningMemoryBaseline = Math.max(getLiveHeapMemory()
+                        - restartMemory, 0);
+                Logger.info(String.format(
+                        "Memory used by the databases:  %10.2f MB",
+                        pruningMemoryBaseline / 1.0e6));
+                if (pruningMemoryBaseline >= PRUNING_MEMORY_LOW_WATER_FRACTION
+                        * pruningMemoryHighWaterMark)
+                    Logger.warning("The databases alone take more than "
+                            + (int) (PRUNING_MEMORY_LOW_WATER_FRACTION * 100)
+                            + "% of PruningMemoryHighWaterMark; every prunable edge species will be pruned");
+            }
         } catch (IOException e) {
             Logger.logStackTrace(e);
             Logger.critical(e.getMessage());
@@ -1434,6 +1557,8 @@ public class ReactionModelGenerator {
                 ReactionSystem rs = (ReactionSystem) reactionSystemList.get(i);
                 InitialStatus is = rs.getInitialStatus();
                 putRestartSpeciesInInitialStatus(is, i);
+                // the trajectory starts from the initial status, which has changed
+                rs.resetSystemSnapshot();
                 rs.appendUnreactedSpeciesStatus(
                         (InitialStatus) initialStatusList.get(i),
                         rs.getPresentTemperature());
@@ -1447,6 +1572,7 @@ public class ReactionModelGenerator {
         Logger.info(String.format(
                 "Running time: %.3f min",
                 +(System.currentTimeMillis() - Global.tAtInitialization) / 1000. / 60.));
+        ((CoreEdgeReactionModel) getReactionModel()).compactEdge();
         printMemoryUsed();
         Logger.flush();
         // 10/24/07 gmagoon: note: each element of for loop could be done in parallel if desired; some modifications
@@ -1524,7 +1650,6 @@ public class ReactionModelGenerator {
                 }
                 // prune the reaction model (this will only do something in the AUTO case)
                 pruneReactionModel(unprunableSpecies);
-                garbageCollect();
                 // System.out.println("After pruning:");
                 // printModelSize();
                 // ENLARGE THE MODEL!!! (this is where the good stuff happens)
@@ -1549,6 +1674,7 @@ public class ReactionModelGenerator {
                 Logger.info(String.format(
                         "Running time: %.3f min",
                         +(System.currentTimeMillis() - Global.tAtInitialization) / 1000. / 60.));
+                ((CoreEdgeReactionModel) getReactionModel()).compactEdge();
                 printMemoryUsed();
                 Logger.flush();
                 pt = System.currentTimeMillis();
@@ -1781,9 +1907,7 @@ public class ReactionModelGenerator {
 // actually be at end? (it shouldn't matter for isothermal/isobaric case)
                     // currentP = reactionSystem.getPressure(begin);
                     // conditionChanged = (!currentT.equals(lastT) || !currentP.equals(lastP));
-                    beginList
-                            .set(i, ((SystemSnapshot) (rs
-                                    .getSystemSnapshotEnd().next())).time);
+                    beginList.set(i, rs.getLatestSnapshot().time);
                     // begin=((SystemSnapshot)(reactionSystem.getSystemSnapshotEnd().next())).time;
                     if (rs.finishController.terminationTester instanceof ReactionTimeTT) {
                         if (iterationNumber < timeStep.size()) {
@@ -1896,6 +2020,14 @@ public class ReactionModelGenerator {
                 // 6/25/08 gmagoon: updated to pass (dummy) finishController and autoflag (set to false here);
                 dynamicSimulator2List.add(new JDASPK(rtol, atol, paraInfor,
                         (InitialStatus) initialStatusList.get(i), i));
+                if (adjointSensitivity) {
+                    // error bars and "all" need the sensitivities of every species, so they keep the forward method
+                    if (error || ReactionSystem.printAllSens)
+                        Logger.warning("Error bars or sensitivities for all species requested; using forward instead of adjoint sensitivity analysis.");
+                    else
+                        ((JDASPK) dynamicSimulator2List.get(i))
+                                .setAdjointTargets(species);
+                }
                 // DynamicSimulator dynamicSimulator2 = new JDASPK(rtol, atol, paraInfor, initialStatus);
                 ((DynamicSimulator) dynamicSimulator2List.get(i))
                         .addConversion(
@@ -1906,7 +2038,7 @@ public class ReactionModelGenerator {
                 rs.setDynamicSimulator((DynamicSimulator) dynamicSimulator2List
                         .get(i));
                 // reactionSystem.setDynamicSimulator(dynamicSimulator2);
-                int numSteps = rs.systemSnapshot.size() - 1;
+                int numSteps = rs.getTrajectory().size() - 1;
                 rs.resetSystemSnapshot();
                 beginList.set(i, (ReactionTime) initList.get(i));
                 // begin = init;
@@ -2427,20 +2559,41 @@ public class ReactionModelGenerator {
         }
     }
 
-    public static void garbageCollect() {
-        System.gc();
+    /**
+     * Returns the number of bytes of live heap, without forcing a garbage collection: the current usage of the old
+     * generation plus the usage of the young generation after its most recent collection. (The young generation pools
+     * are the ones that do not support usage thresholds.) Objects allocated since the last young collection are not
+     * counted, and neither is garbage in the old generation that has not been collected yet.
+     */
+    public static long getLiveHeapMemory() {
+        long used = 0;
+        for (Iterator iter = ManagementFactory.getMemoryPoolMXBeans()
+                .iterator(); iter.hasNext();) {
+            MemoryPoolMXBean pool = (MemoryPoolMXBean) iter.next();
+            if (pool.getType() != MemoryType.HEAP)
+                continue;
+            MemoryUsage usage = null;
+            if (!pool.isUsageThresholdSupported())
+                usage = pool.getCollectionUsage();
+            if (usage == null)
+                usage = pool.getUsage();
+            used += usage.getUsed();
+        }
+        return used;
     }
 
     public static void printMemoryUsed() {
-        garbageCollect();
         Runtime rT = Runtime.getRuntime();
-        double uM, tM, fM;
+        double uM, tM;
         tM = rT.totalMemory() / 1.0e6;
-        fM = rT.freeMemory() / 1.0e6;
-        uM = tM - fM;
-        Logger.debug("After garbage collection:");
+        uM = getLiveHeapMemory() / 1.0e6;
+        Logger.debug("As of the last garbage collection:");
         Logger.info(String.format("Memory used: %.2f MB / %.2f MB (%.2f%%)",
                 uM, tM, uM / tM * 100.));
+        Logger.verbose(String.format(
+                "Packed edge species: %.2f MB in %.2f MB outside the heap",
+                CompactStore.getStoredBytes() / 1.0e6,
+                CompactStore.getAllocatedBytes() / 1.0e6));
     }
 
     /*
@@ -3183,83 +3336,134 @@ public class ReactionModelGenerator {
 
     public void readRestartSpecies() {
         Logger.info("Reading in species from Restart folder");
-        // Read in core species -- NOTE code is almost duplicated in Read in edge species (second part of procedure)
+        // Core species need their thermo for the first integration, so it is estimated right away; for the (usually
+        // much larger) edge it is only estimated when a species is first asked for it.
+        readRestartSpeciesFile("coreSpecies.txt", restartCoreSpcs, false);
+        readRestartSpeciesFile("edgeSpecies.txt", restartEdgeSpcs, true);
+    }
+
+    /**
+     * Read all the species in a Restart species file (name line followed by an adjacency list) and add them, in file
+     * order, to p_species. The file is read sequentially and the adjacency lists are tokenized in parallel chunks;
+     * the graphs, chemgraphs and species are then made on this thread, since the element dictionaries, the
+     * forbidden-structure check and the species dictionary are not thread-safe.
+     */
+    private void readRestartSpeciesFile(String p_fileName,
+            LinkedHashSet p_species, boolean p_deferProperties) {
+        LinkedList names = new LinkedList();
+        LinkedList chunks = new LinkedList();
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(nThreads);
         try {
-            FileReader in = new FileReader(new File(
-                    System.getProperty("RMG.RestartDir"), "coreSpecies.txt"));
-            BufferedReader reader = new BufferedReader(in);
+            BufferedReader reader = new BufferedReader(new FileReader(new File(
+                    System.getProperty("RMG.RestartDir"), p_fileName)));
+            ArrayList chunkNames = new ArrayList(RESTART_PARSE_CHUNK);
+            ArrayList adjLists = new ArrayList(RESTART_PARSE_CHUNK);
             String line = ChemParser.readMeaningfulLine(reader, true);
             while (line != null) {
-                // The first line of a new species is the user-defined name
-                String totalSpeciesName = line;
-                String[] splitString1 = totalSpeciesName.split("[(]");
-                String[] splitString2 = splitString1[splitString1.length - 1]
-                        .split("[)]");
-                // The remaining lines are the graph
-                Graph g = ChemParser.readChemGraph(reader);
-                // Make the ChemGraph, assuming it does not contain a forbidden structure
-                ChemGraph cg = null;
-                try {
-                    cg = ChemGraph.make(g);
-                } catch (ForbiddenStructureException e) {
-                    Logger.critical("Error reading graph: Graph contains a forbidden structure.\n"
-                            + g.toString());
-                    System.exit(0);
+                // The first line of a new species is the user-defined name, the remaining lines are the graph
+                names.add(line);
+                chunkNames.add(line);
+                // As in ChemParser.readChemGraph(), blank lines between the name and the graph are skipped
+                ArrayList adjList = new ArrayList();
+                String firstLine = ChemParser.readMeaningfulLine(reader, true);
+                if (firstLine != null) {
+                    adjList.add(firstLine);
+                    adjList.addAll(ChemParser.readAdjListLines(reader));
+                }
+                adjLists.add(adjList);
+                if (adjLists.size() == RESTART_PARSE_CHUNK) {
+                    chunks.add(pool.submit(new AdjListChunkParser(chunkNames,
+                            adjLists)));
+                    chunkNames = new ArrayList(RESTART_PARSE_CHUNK);
+                    adjLists = new ArrayList(RESTART_PARSE_CHUNK);
                 }
-                // Make the species
-                int intLocation = totalSpeciesName.indexOf("("
-                        + splitString2[0] + ")");
-                Species species = Species.make(
-                        totalSpeciesName.substring(0, intLocation), cg,
-                        Integer.parseInt(splitString2[0]));
-                // Add the new species to the set of species
-                restartCoreSpcs.add(species);
-                /*
-                 * int species_type = 1; // reacted species for (int i=0; i<numRxnSystems; i++) { SpeciesStatus ss = new
-                 * SpeciesStatus(species,species_type,y[i],yprime[i]); speciesStatus[i].put(species, ss); }
-                 */
                 line = ChemParser.readMeaningfulLine(reader, true);
             }
+            if (!adjLists.isEmpty())
+                chunks.add(pool.submit(new AdjListChunkParser(chunkNames,
+                        adjLists)));
+            reader.close();
         } catch (IOException e) {
             Logger.logStackTrace(e);
         }
-        // Read in edge species
+        Iterator nameIter = names.iterator();
         try {
-            FileReader in = new FileReader(new File(
-                    System.getProperty("RMG.RestartDir"), "edgeSpecies.txt"));
-            BufferedReader reader = new BufferedReader(in);
-            String line = ChemParser.readMeaningfulLine(reader, true);
-            while (line != null) {
-                // The first line of a new species is the user-defined name
-                String totalSpeciesName = line;
-                String[] splitString1 = totalSpeciesName.split("[(]");
-                String[] splitString2 = splitString1[splitString1.length - 1]
-                        .split("[)]"); // Change JDM to reflect MRH 2-11-2010
-                // The remaining lines are the graph
-                Graph g = ChemParser.readChemGraph(reader);
-                // Make the ChemGraph, assuming it does not contain a forbidden structure
-                ChemGraph cg = null;
-                try {
-                    cg = ChemGraph.make(g);
-                } catch (ForbiddenStructureException e) {
-                    Logger.critical("Error reading graph: Graph contains a forbidden structure.\n"
-                            + g.toString());
-                    System.exit(0);
-                }
-                // Rewrite the species name ... with the exception of the (#)
-                String speciesName = splitString1[0];
-                for (int numTokens = 1; numTokens < splitString1.length - 1; ++numTokens) {
-                    speciesName += "(" + splitString1[numTokens];
+            for (Iterator chunkIter = chunks.iterator(); chunkIter.hasNext();) {
+                ParsedAdjList[] parsed = (ParsedAdjList[]) ((Future) chunkIter
+                        .next()).get();
+                for (int i = 0; i < parsed.length; i++) {
+                    String totalSpeciesName = (String) nameIter.next();
+                    Graph g = null;
+                    try {
+                        g = parsed[i].toGraph();
+                    } catch (InvalidGraphFormatException e) {
+                        Logger.critical("Error reading adjacency list of species "
+                                + totalSpeciesName + " in " + p_fileName
+                                + ": " + e.getMessage());
+                        System.exit(0);
+                    }
+                    // Make the ChemGraph, assuming it does not contain a forbidden structure
+                    ChemGraph cg = null;
+                    try {
+                        cg = ChemGraph.make(g);
+                    } catch (ForbiddenStructureException e) {
+                        Logger.critical("Error reading graph: Graph contains a forbidden structure.\n"
+                                + g.toString());
+                        System.exit(0);
+                    }
+                    // The species name is everything before the final (#)
+                    int idLocation = totalSpeciesName.lastIndexOf("(");
+                    String speciesName = totalSpeciesName.substring(0,
+                            idLocation);
+                    int id = Integer.parseInt(totalSpeciesName.substring(
+                            idLocation + 1, totalSpeciesName.lastIndexOf(")")));
+                    Species species = Species.make(speciesName, cg, id,
+                            p_deferProperties);
+                    p_species.add(species);
                 }
-                // Make the species
-                Species species = Species.make(speciesName, cg,
-                        Integer.parseInt(splitString2[0]));
-                // Add the new species to the set of species
-                restartEdgeSpcs.add(species);
-                line = ChemParser.readMeaningfulLine(reader, true);
             }
-        } catch (IOException e) {
+        } catch (InterruptedException e) {
             Logger.logStackTrace(e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Logger.logStackTrace(e.getCause());
+            Logger.critical("Error reading adjacency list in " + p_fileName
+                    + ": " + e.getCause().getMessage());
+            System.exit(0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tokenizes one chunk of adjacency lists on a worker thread. A species without an adjacency list, or with one that
+     * cannot be tokenized, fails the chunk with an InvalidGraphFormatException naming the species.
+     */
+    private static class AdjListChunkParser implements Callable {
+        private List names;
+        private List adjLists;
+
+        AdjListChunkParser(List p_names, List p_adjLists) {
+            names = p_names;
+            adjLists = p_adjLists;
+        }
+
+        public Object call() {
+            ParsedAdjList[] result = new ParsedAdjList[adjLists.size()];
+            for (int i = 0; i < result.length; i++) {
+                List lines = (List) adjLists.get(i);
+                if (lines.isEmpty())
+                    throw new InvalidGraphFormatException("species "
+                            + names.get(i) + ": no adjacency list");
+                try {
+                    result[i] = ParsedAdjList.parse(lines);
+                } catch (InvalidGraphFormatException e) {
+                    throw new InvalidGraphFormatException("species "
+                            + names.get(i) + ": " + e.getMessage());
+                }
+            }
+            return result;
         }
     }
 
@@ -3647,7 +3851,7 @@ public class ReactionModelGenerator {
                     line = ChemParser.readMeaningfulLine(reader, true);
                 }
                 newNetwork.setAltered(false);
-                PDepNetwork.getNetworks().add(newNetwork);
+                PDepNetwork.addNetwork(newNetwork);
             }
         } catch (IOException e) {
             Logger.logStackTrace(e);
@@ -4085,7 +4289,6 @@ public class ReactionModelGenerator {
     }
 
     public void pruneReactionModel(LinkedHashMap unprunableSpecies) {
-        Runtime runtime = Runtime.getRuntime();
         LinkedHashMap prunableSpeciesMap = new LinkedHashMap();
         // check whether all the reaction systems reached target conversion/time
         boolean allReachedTarget = true;
@@ -4097,16 +4300,37 @@ public class ReactionModelGenerator {
         }
         JDAS ds0 = (JDAS) ((ReactionSystem) reactionSystemList.get(0))
                 .getDynamicSimulator(); // get the first reactionSystem dynamic simulator
+        int edgeSpeciesNumber = ((CoreEdgeReactionModel) reactionModel)
+                .getEdge().getSpeciesNumber();
+        int speciesNumber = edgeSpeciesNumber
+                + reactionModel.getSpeciesNumber();
+        // the heap footprint of each species (and its share of the reactions) is estimated as the live heap above the
+// baseline of the databases, divided evenly between the core and edge species
+        long heapUsed = getLiveHeapMemory();
+        double bytesPerSpecies = (speciesNumber > 0) ? (double) Math.max(
+                heapUsed - pruningMemoryBaseline, 0)
+                / speciesNumber : 0;
+        // with a memory high-water mark, prune only when the heap usage exceeds it; otherwise prune when there are a
+// sufficient number of species in the reaction model (edge + core)
+        boolean sizeExceeded;
+        if (pruningMemoryHighWaterMark > 0)
+            sizeExceeded = (heapUsed > pruningMemoryHighWaterMark);
+        else
+            sizeExceeded = (speciesNumber >= minSpeciesForPruning);
         // prune the reaction model if AUTO is being used, and all reaction systems have reached target time/conversion,
-// and edgeTol is non-zero (and positive, obviously), and if there are a sufficient number of species in the reaction
-// model (edge + core)
-        if (JDAS.autoflag
-                && allReachedTarget
-                && edgeTol > 0
-                && (((CoreEdgeReactionModel) reactionModel).getEdge()
-                        .getSpeciesNumber() + reactionModel.getSpeciesNumber()) >= minSpeciesForPruning) {
-            int numberToBePruned = ((CoreEdgeReactionModel) reactionModel)
-                    .getEdge().getSpeciesNumber() - maxEdgeSpeciesAfterPruning;
+// and edgeTol is non-zero (and positive, obviously), and if the reaction model is large enough
+        if (JDAS.autoflag && allReachedTarget && edgeTol > 0 && sizeExceeded) {
+            int numberToBePruned;
+            if (pruningMemoryHighWaterMark > 0)
+                // evict enough edge species to bring the estimated heap usage back below the low-water mark
+                numberToBePruned = (int) Math.min(edgeSpeciesNumber, Math
+                        .ceil((heapUsed - PRUNING_MEMORY_LOW_WATER_FRACTION
+                                * pruningMemoryHighWaterMark)
+                                / bytesPerSpecies));
+            else
+                numberToBePruned = edgeSpeciesNumber
+                        - maxEdgeSpeciesAfterPruning;
+            int maxEdgeSpecies = edgeSpeciesNumber - numberToBePruned;
             // System.out.println("PDep Pruning DEBUG:\nThe number of species in the model's edge, before pruning: " +
 // ((CoreEdgeReactionModel)reactionModel).getEdge().getSpeciesNumber());
             // System.out.println("PDep Pruning DEBUG:\nRMG thinks the following number of species" +
@@ -4210,57 +4434,55 @@ public class ReactionModelGenerator {
             }
             // System.out.println("PDep Pruning DEBUG:\nRMG now reduced the number of prunable species," +
             // " after checking against explored (included) species, to: " + prunableSpeciesMap.size());
-            // sort the prunableSpecies by maxmaxRatio
-            // i.e. sort the map by values
-            List prunableSpeciesList = new LinkedList(
-                    prunableSpeciesMap.entrySet());
-            Collections.sort(prunableSpeciesList, new Comparator() {
-                public int compare(Object o1, Object o2) {
-                    return ((Comparable) ((Map.Entry) (o1)).getValue())
-                            .compareTo(((Map.Entry) (o2)).getValue());
-                }
-            });
-            List speciesToPrune = new LinkedList();
+            // find the prunable species with the lowest maxmaxRatio, in order: all those below edgeTol plus enough to
+// reach the maximum edge size, and one more to tell whether that would require pruning above the tolerance
+            int numPrunable = prunableSpeciesMap.size();
+            Species[] prunableSpecies = new Species[numPrunable];
+            double[] prunableRatio = new double[numPrunable];
             int belowThreshold = 0;
-            int lowMaxFlux = 0;
-            for (Iterator it = prunableSpeciesList.iterator(); it.hasNext();) {
-                Map.Entry entry = (Map.Entry) it.next();
-                Species spe = (Species) entry.getKey();
-                double maxmaxRatio = (Double) entry.getValue();
+            int n = 0;
+            for (iter = prunableSpeciesMap.entrySet().iterator(); iter
+                    .hasNext(); n++) {
+                Map.Entry entry = (Map.Entry) iter.next();
+                prunableSpecies[n] = (Species) entry.getKey();
+                prunableRatio[n] = ((Double) entry.getValue()).doubleValue();
+                if (prunableRatio[n] < edgeTol)
+                    ++belowThreshold;
+            }
+            int numberOfCandidates = Math.max(belowThreshold,
+                    numberToBePruned);
+            if (numberOfCandidates < numPrunable)
+                numberOfCandidates++;
+            int[] lowestRatio = selectLowestRatios(prunableRatio,
+                    numberOfCandidates);
+            List speciesToPrune = new LinkedList();
+            for (int i = 0; i < lowestRatio.length; i++) {
+                Species spe = prunableSpecies[lowestRatio[i]];
+                double maxmaxRatio = prunableRatio[lowestRatio[i]];
                 if (maxmaxRatio < edgeTol) {
                     Logger.info(String
                             .format("Edge species %s has a maximum flux ratio (%.2g) lower than edge inclusion threshhold (%.2g) and will be pruned.",
                                     spe.getChemkinName(), maxmaxRatio, edgeTol));
                     speciesToPrune.add(spe);
-                    ++belowThreshold;
                 } else if (numberToBePruned - speciesToPrune.size() > 0) {
                     if (maxmaxRatio > tolerance) {
                         Logger.warning(String
                                 .format("To reach the requested maximum edge size after pruning (%d) would require pruning species with a maximum flux ratio above the requested overall tolerance (%.2g) which is inconsistent.",
-                                        maxEdgeSpeciesAfterPruning, tolerance));
+                                        maxEdgeSpecies, tolerance));
                         Logger.warning(String
                                 .format("No more species will be pruned this iteration, leaving an edge size of %d. Please increase your overall Error Tolerance if you'd like more species to be pruned.",
-                                        maxEdgeSpeciesAfterPruning
-                                                + numberToBePruned
+                                        maxEdgeSpecies + numberToBePruned
                                                 - speciesToPrune.size()));
                         break;
                     }
                     Logger.info(String
                             .format("Edge species %s has a low maximum flux ratio (%.2g) and will be pruned to reduce the edge size to the maximum (%d).",
                                     spe.getChemkinName(), maxmaxRatio,
-                                    maxEdgeSpeciesAfterPruning));
+                                    maxEdgeSpecies));
                     speciesToPrune.add(spe);
-                    ++lowMaxFlux;
                 } else
                     break; // no more to be pruned
             }
-            // System.out.println("PDep Pruning DEBUG:\nRMG has marked the following number of species" +
-            // " to be pruned due to max flux ratio lower than threshold: " + belowThreshold);
-            // System.out.println("PDep Pruning DEBUG:\nRMG has marked the following number of species" +
-            // " to be pruned due to low max flux ratio : " + lowMaxFlux);
-            runtime.gc();
-            double memoryUsedBeforePruning = (runtime.totalMemory() - runtime
-                    .freeMemory()) / 1.0e6;
             // now, speciesToPrune has been filled with species that should be pruned from the edge
             Logger.info("Pruning...");
             // prune species from the edge
@@ -4462,31 +4684,80 @@ public class ReactionModelGenerator {
                 iter = pdnToRemove.iterator();
                 while (iter.hasNext()) {
                     PDepNetwork pdn = (PDepNetwork) iter.next();
-                    PDepNetwork.getNetworks().remove(pdn);
+                    PDepNetwork.removeNetwork(pdn);
                 }
             }
-            runtime.gc();
-            double memoryUsedAfterPruning = (runtime.totalMemory() - runtime
-                    .freeMemory()) / 1.0e6;
             Logger.info(String.format("Number of species pruned:    %d",
                     speciesToPrune.size()));
             Logger.info(String.format("Memory used before pruning:  %10.2f MB",
-                    memoryUsedBeforePruning));
-            Logger.info(String.format("Memory used after pruning:   %10.2f MB",
-                    memoryUsedAfterPruning));
-            if (memoryUsedAfterPruning < memoryUsedBeforePruning)
-                Logger.info(String.format(
-                        "Memory recovered by pruning: %10.2f MB",
-                        memoryUsedBeforePruning - memoryUsedAfterPruning));
-            else if (speciesToPrune.size() > 100)
-                // There were a significant number of species pruned, but we didn't recover any memory
-                Logger.warning("No memory recovered due to pruning!");
+                    heapUsed / 1.0e6));
+            Logger.info(String.format("Estimated memory released:   %10.2f MB",
+                    speciesToPrune.size() * bytesPerSpecies / 1.0e6));
         }
         // System.out.println("PDep Pruning DEBUG:\nThe number of species in the model's edge, after pruning: " +
 // ((CoreEdgeReactionModel)reactionModel).getEdge().getSpeciesNumber());
         return;
     }
 
+    /**
+     * Requires: 0 <= p_number <= p_ratio.length Effects: return the indices of the p_number lowest values in p_ratio,
+     * in ascending order of value (ties in ascending order of index). Only p_number indices are kept while scanning
+     * p_ratio, in a max-heap whose root is the highest of the lowest values found so far. Modifies:
+     */
+    private static int[] selectLowestRatios(double[] p_ratio, int p_number) {
+        int[] heap = new int[p_number];
+        int size = 0;
+        for (int i = 0; i < p_ratio.length && p_number > 0; i++) {
+            if (size < p_number) {
+                // sift the new index up from the bottom of the heap
+                int child = size++;
+                while (child > 0) {
+                    int parent = (child - 1) / 2;
+                    if (compareRatios(p_ratio, heap[parent], i) >= 0)
+                        break;
+                    heap[child] = heap[parent];
+                    child = parent;
+                }
+                heap[child] = i;
+            } else if (compareRatios(p_ratio, i, heap[0]) < 0)
+                siftDown(p_ratio, heap, i, size);
+        }
+        // remove the highest remaining value from the heap until it is empty
+        int[] lowest = new int[size];
+        for (int last = size - 1; last >= 0; last--) {
+            lowest[last] = heap[0];
+            siftDown(p_ratio, heap, heap[last], last);
+        }
+        return lowest;
+    }
+
+    // replaces the root of the max-heap of the first p_size indices in p_heap with p_index and restores the heap order
+    private static void siftDown(double[] p_ratio, int[] p_heap, int p_index,
+            int p_size) {
+        int parent = 0;
+        while (2 * parent + 1 < p_size) {
+            int child = 2 * parent + 1;
+            if (child + 1 < p_size
+                    && compareRatios(p_ratio, p_heap[child + 1], p_heap[child]) > 0)
+                child++;
+            if (compareRatios(p_ratio, p_heap[child], p_index) <= 0)
+                break;
+            p_heap[parent] = p_heap[child];
+            parent = child;
+        }
+        if (p_size > 0)
+            p_heap[parent] = p_index;
+    }
+
+    // orders indices into p_ratio by value, as Double.compareTo() would, then by index
+    private static int compareRatios(double[] p_ratio, int p_index1,
+            int p_index2) {
+        int c = Double.compare(p_ratio[p_index1], p_ratio[p_index2]);
+        if (c != 0)
+            return c;
+        return (p_index1 < p_index2) ? -1 : ((p_index1 == p_index2) ? 0 : 1);
+    }
+
     // determines whether a reaction can be removed; returns true ; cf. categorizeReaction() in CoreEdgeReactionModel
     // returns true if the reaction involves reactants or products that are in p_prunableSpecies; otherwise returns
 // false
@@ -28,6 +28,7 @@ package jing.rxnSys;
 
 import jing.rxn.*;
 import jing.chem.*;
+import java.io.File;
 import java.util.*;
 import jing.param.*;
 import jing.chem.Species;
@@ -56,7 +57,10 @@ public class ReactionSystem {
 // commented out a week or two ago)
     protected ReactionModel reactionModel;
     protected ReactionModelEnlarger reactionModelEnlarger;
-    protected LinkedList systemSnapshot;
+    // the state returned by the last call to the solver (or the initial status), from which the model is enlarged
+    protected SystemSnapshot latestSnapshot;
+    // every state since the last reset, by column; the profiles and sensitivities of the final model are printed from it
+    protected SystemTrajectory trajectory = new SystemTrajectory();
     protected TemperatureModel temperatureModel;
     protected double[] reactionFlux;
     protected LibraryReactionGenerator lrg;// 9/24/07 gmagoon: moved to ReactionModelGenerator.java; 9/25/07 variable is
@@ -65,6 +69,8 @@ public class ReactionSystem {
 // 1/5/09 changed name from index to ind to avoid confusion with local variables used below
     protected String equationOfState; // rwest: could be "Liquid"
     protected static boolean printAllSens = false;
+    // if not null, the trajectory of each reaction system is streamed to a file in this format ("csv" or "binary")
+    protected static String trajectoryOutput = null;
 
     // Constructors
     // ## operation
@@ -82,9 +88,6 @@ public class ReactionSystem {
             InitialStatus p_initialStatus, ReactionModel p_reactionModel,
             LibraryReactionGenerator p_libraryReactionGenerator, int p_index,
             String p_equationOfState) {
-        {
-            systemSnapshot = new LinkedList();
-        }
         // #[ operation
 // ReactionSystem(TemperatureModel,PressureModel,ReactionModelEnlarger,FinishController,DynamicSimulator,PrimaryKineticLibrary,ReactionGenerator,LinkedHashSet,InitialStatus)
         temperatureModel = p_temperatureModel;
@@ -99,7 +102,7 @@ public class ReactionSystem {
 // RateBasedPDepRME
         originalReactant = p_speciesSeed;
         lrg = p_libraryReactionGenerator;
-        systemSnapshot.add(initialStatus);
+        latestSnapshot = initialStatus;
         ind = p_index;// 10/30/07 gmagoon: added
         equationOfState = p_equationOfState;
         if (equationOfState == "Liquid") {
@@ -109,6 +112,13 @@ public class ReactionSystem {
             Logger.info("    The concentrations have been renormalized.");
             // System.exit(-1);
         }
+        if (trajectoryOutput != null) {
+            boolean binary = trajectoryOutput.equals("binary");
+            trajectory.setOutput(new File(System
+                    .getProperty("RMG.jobOutputDir"), "Trajectory" + ind
+                    + (binary ? ".bin" : ".csv")), binary);
+        }
+        trajectory.append(initialStatus);
         // #]
     }
 
@@ -121,9 +131,6 @@ public class ReactionSystem {
     }
 
     public ReactionSystem() {
-        {
-            systemSnapshot = new LinkedList();
-        }
     }
 
     // ## operation adjustTimeStep(ReactionTime)
@@ -280,6 +287,7 @@ public class ReactionSystem {
             }
         }
         p_systemSnapshot.unreactedSpeciesFlux = unreactedFlux;
+        ReactedSiteSpeculator.setCandidates(this, model, unreactedFlux);
         // #]
     }
 
@@ -429,8 +437,7 @@ public class ReactionSystem {
     // ## operation getPresentStatus()
     public PresentStatus getPresentStatus() {
         // #[ operation getPresentStatus()
-        SystemSnapshot ss = (SystemSnapshot) systemSnapshot.getLast();
-        return new PresentStatus(ss);
+        return new PresentStatus(latestSnapshot);
         // #]
     }
 
@@ -616,37 +623,20 @@ public class ReactionSystem {
             throw new NullPointerException();
         if (p_speciesList.isEmpty())
             return "EMPTY species list";
-        String output = ""; // this should really be a StringBuilder, if this code is ever used.
+        StringBuilder output = new StringBuilder();
         // check the validity of p_speciesList and print the title line
-        output = output + "Time";
+        output.append("Time");
         int size = p_speciesList.size();
         for (int i = 0; i < size; i++) {
             Species spe = (Species) p_speciesList.get(i);
             if (!spe.repOk())
                 throw new InvalidSpeciesException();
             String name = spe.getChemkinName();
-            output = output + '\t' + name;
+            output.append('\t' + name);
         }
-        output = output + "\n";
-        // System.out.println();
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
-            output = output + String.valueOf(ss.getTime().getTime());
-            for (int i = 0; i < size; i++) {
-                Species spe = (Species) p_speciesList.get(i);
-                if (spe != null) {
-                    SpeciesStatus speSta = ss.getSpeciesStatus(spe);
-                    double conc = 0;
-                    if (speSta != null)
-                        conc = speSta.getConcentration();
-                    output = output + '\t' + String.valueOf(conc);
-                }
-            }
-            output = output + "\n";
-            // System.out.println();
-        }
-        return output;
+        output.append("\n");
+        trajectory.appendProfile(output, p_speciesList, false);
+        return output.toString();
         // #]
     }
 
@@ -662,25 +652,24 @@ public class ReactionSystem {
             result += '\t' + name;
         }
         result += '\n';
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
-            result += String.valueOf(ss.getTime().getTime());
+        for (int row = 0; row < trajectory.size(); row++) {
+            // the snapshot of the row is only rebuilt for the rates of third-body reactions
+            SystemSnapshot ss = null;
+            result += String.valueOf(trajectory.getTime(row));
             for (int i = 0; i < size; i++) {
                 Species spe = (Species) p_speciesList.get(i);
                 if (spe != null) {
-                    SpeciesStatus speSta = ss.getSpeciesStatus(spe);
-                    double conc = 0;
-                    if (speSta != null) {
-                        conc = speSta.getConcentration();
-                    }
+                    double conc = trajectory.getConcentration(spe, row);
                     double uncertainty = 0;
-                    if (ss.getTime().getTime() != 0) {
-                        int I = ss.getRealID(spe);
-                        LinkedList reactionList = ss.getReactionList();
+                    if (trajectory.getTime(row) != 0) {
+                        int I = trajectory.getRealID(spe, row);
+                        LinkedList reactionList = trajectory
+                                .getReactionList(row);
                         for (int j = 0; j < reactionList.size(); j++) {
                             Reaction r = (Reaction) reactionList.get(j);
-                            ReactionTime rt = ss.getTime();
+                            if (r instanceof ThirdBodyReaction && ss == null)
+                                ss = trajectory.getSnapshot(row);
+                            ReactionTime rt = trajectory.getReactionTime(row);
                             Temperature t = getTemperature(rt);
                             double k;
                             double k_lowerbound;
@@ -713,23 +702,25 @@ public class ReactionSystem {
                             if (r instanceof TemplateReaction) {
                                 k = ((TemplateReaction) r)
                                         .calculateTotalPDepRate(
-                                                ss.getTemperature(),
-                                                ss.getPressure());// 10/25/07 gmagoon: added pressure
+                                                trajectory.getTemperature(row),
+                                                trajectory.getPressure(row));// 10/25/07 gmagoon: added pressure
                                 k_lowerbound = k / 2.0;
                                 k_upperbound = k * 2.0;
                             } else if (r instanceof PDepReaction) {
                                 k = ((PDepReaction) r).calculateRate(
-                                        ss.getTemperature(), ss.getPressure());
+                                        trajectory.getTemperature(row),
+                                        trajectory.getPressure(row));
                                 k_lowerbound = k / 2.0;
                                 k_upperbound = k * 2.0;
                             } else {
-                                k = r.calculateTotalRate(ss.getTemperature());
+                                k = r.calculateTotalRate(trajectory
+                                        .getTemperature(row));
                                 k_lowerbound = r.getLowerBoundRate(t);
                                 k_upperbound = r.getUpperBoundRate(t);
                             }
                             int index = I + j
                                     * getReactionModel().getSpeciesNumber() - 1;
-                            double sens = ss.getSensitivityStatus(index);
+                            double sens = trajectory.getSensitivity(row, index);
                             double delta_k;
                             if (sens > 0) {
                                 delta_k = k - k_lowerbound;
@@ -771,9 +762,10 @@ public class ReactionSystem {
             throw new NullPointerException();
         if (p_speciesList.isEmpty())
             return "EMPTY species list";
-        String output = ""; // this should really be a StringBuilder, if this code is ever used.
+        StringBuilder output = new StringBuilder();
         // check the validity of p_speciesList and print the title line
-        output = output + "Time";
+        output.append("Time");
+        LinkedList speciesList = new LinkedList();
         int size = p_speciesList.size();
         for (int i = 0; i < size; i++) {
             Species spe = (Species) p_speciesList.get(i);
@@ -781,32 +773,13 @@ public class ReactionSystem {
                 if (!spe.repOk())
                     throw new InvalidSpeciesException();
                 String name = spe.getChemkinName();
-                output = output + '\t' + name;
+                output.append('\t' + name);
+                speciesList.add(spe);
             }
         }
-        output = output + "\n";
-        // System.out.println();
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
-            double totalMole = ss.getTotalMole();
-            output = output + String.valueOf(ss.getTime().getTime());
-            for (int i = 0; i < size; i++) {
-                Species spe = (Species) p_speciesList.get(i);
-                if (spe != null) {
-                    SpeciesStatus speSta = ss.getSpeciesStatus(spe);
-                    double mf;
-                    if (speSta == null)
-                        mf = 0;
-                    else
-                        mf = speSta.getConcentration() / totalMole;
-                    output = output + '\t' + String.valueOf(mf);
-                }
-            }
-            output = output + "\n";
-            // System.out.println();
-        }
-        return output;
+        output.append("\n");
+        trajectory.appendProfile(output, speciesList, true);
+        return output.toString();
         // #]
     }
 
@@ -816,31 +789,26 @@ public class ReactionSystem {
         StringBuilder output = new StringBuilder("");
         // check the validity of p_speciesList and print the title line
         output.append("///////ReactionFlux//////// \n \t");
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
-            if (ss.getTime().time == 0.0)
+        for (int row = 0; row < trajectory.size(); row++) {
+            if (trajectory.getTime(row) == 0.0)
                 continue;
-            output.append(ss.getTime() + "\t");
+            output.append(trajectory.getReactionTime(row) + "\t");
         }
         output.append("\n");
-        LinkedList reactionSet = ((SystemSnapshot) getSystemSnapshotEnd()
-                .next()).reactionList;
-        LinkedList uniqueReactions = ((SystemSnapshot) getSystemSnapshotEnd()
-                .next()).getUniqueReactionList();
+        LinkedList reactionSet = latestSnapshot.reactionList;
+        LinkedList uniqueReactions = latestSnapshot.getUniqueReactionList();
         for (int i = 0; i < uniqueReactions.size(); i++) {
             Reaction rxn = (Reaction) uniqueReactions.get(i);
             int index = reactionSet.indexOf(rxn);
             if (index < 0 || index >= reactionSet.size())
                 continue;
-            iter = getSystemSnapshot();
             output.append("reaction " + (i + 1) + '\t');
-            while (iter.hasNext()) {
-                SystemSnapshot ss = (SystemSnapshot) iter.next();
-                if (ss.getTime().time == 0.0)
+            for (int row = 0; row < trajectory.size(); row++) {
+                if (trajectory.getTime(row) == 0.0)
                     continue;
-                if (i < ss.reactionFlux.length)
-                    output.append(ss.reactionFlux[index] + "\t");
+                if (i < trajectory.getReactionFluxCount(row))
+                    output.append(trajectory.getReactionFlux(row, index)
+                            + "\t");
                 else {
                     Logger.warning("Size of reaction set does not match number of reaction fluxes. Expected reaction flux missing.");
                     output.append("\n");
@@ -879,18 +847,19 @@ public class ReactionSystem {
         String result = "Reactions contributing most to uncertainty:\n";
         int size = p_speciesList.size();
         int n = 0;
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
+        for (int row = 0; row < trajectory.size(); row++) {
+            // the snapshot of the row is only rebuilt for the rates of third-body reactions
+            SystemSnapshot ss = null;
             if (n == 0) {
-                if (ss.getTime().getTime() != 0) {
-                    LinkedList reactionList = ss.getReactionList();
+                if (trajectory.getTime(row) != 0) {
+                    LinkedList reactionList = trajectory
+                            .getReactionList(row);
                     n = 1;
                 }
             }
-            if (ss.getTime().getTime() != 0) {
+            if (trajectory.getTime(row) != 0) {
                 result += '\n';
-                result += "Time:" + String.valueOf(ss.getTime().getTime())
+                result += "Time:" + String.valueOf(trajectory.getTime(row))
                         + '\n';
             }
             for (int i = 0; i < size; i++) {
@@ -898,20 +867,20 @@ public class ReactionSystem {
                 for (int s = 0; s < p_importantSpecies.size(); s++) {
                     String name = (String) p_importantSpecies.get(s);
                     if (spe.getName().equalsIgnoreCase(name)) {
-                        SpeciesStatus speSta = ss.getSpeciesStatus(spe);
-                        double conc = 0;
-                        if (speSta != null) {
-                            conc = speSta.getConcentration();
-                        }
-                        if (ss.getTime().getTime() != 0) {
+                        double conc = trajectory.getConcentration(spe, row);
+                        if (trajectory.getTime(row) != 0) {
                             result += '\n';
                             result += spe.getName();
                             LinkedList Uncertainties = new LinkedList();
-                            int I = ss.getRealID(spe);
-                            LinkedList reactionList = ss.getReactionList();
+                            int I = trajectory.getRealID(spe, row);
+                            LinkedList reactionList = trajectory
+                                    .getReactionList(row);
                             for (int j = 0; j < reactionList.size(); j++) {
                                 Reaction r = (Reaction) reactionList.get(j);
-                                ReactionTime rt = ss.getTime();
+                                if (r instanceof ThirdBodyReaction && ss == null)
+                                    ss = trajectory.getSnapshot(row);
+                                ReactionTime rt = trajectory
+                                        .getReactionTime(row);
                                 Temperature t = getTemperature(rt);
                                 double k;
                                 double k_upperbound;
@@ -936,12 +905,11 @@ public class ReactionSystem {
                                 if (r instanceof TemplateReaction) {
                                     k = ((TemplateReaction) r)
                                             .calculateTotalPDepRate(
-                                                    ss.getTemperature(),
-                                                    ss.getPressure());// 10/25/07 gmagoon: added pressure
+                                                    trajectory.getTemperature(row),
+                                                    trajectory.getPressure(row));// 10/25/07 gmagoon: added pressure
                                     k_upperbound = k * 2.0;
                                 } else if (r instanceof PDepReaction) {
-                                    SystemSnapshot ssnap = (SystemSnapshot) systemSnapshot
-                                            .getLast();
+                                    SystemSnapshot ssnap = latestSnapshot;
                                     k = ((PDepReaction) r).calculateRate(
                                             ssnap.getTemperature(),
                                             ssnap.getPressure());// 10/25/07 gmagoon: using last systemSnapshot as
@@ -949,15 +917,16 @@ public class ReactionSystem {
 // use of getLast?
                                     k_upperbound = k * 2.0;
                                 } else {
-                                    k = r.calculateTotalRate(ss
-                                            .getTemperature());
+                                    k = r.calculateTotalRate(trajectory
+                                            .getTemperature(row));
                                     k_upperbound = r.getUpperBoundRate(t);
                                 }
                                 int index = I + j
                                         * getReactionModel().getSpeciesNumber()
                                         - 1;
-                                // SensitivityStatus sen_status = ss.getSensitivityStatus(index);
-                                double sens = ss.getSensitivityStatus(index);
+                                // SensitivityStatus sen_status = trajectory.getSensitivity(row, index);
+                                double sens = trajectory.getSensitivity(row,
+                                        index);
                                 double delta_ln_k = 0;
                                 int J = j + 1;
                                 sens /= conc;
@@ -1055,9 +1024,8 @@ public class ReactionSystem {
 
     public String printOrderedReactions() {
         StringBuilder result = new StringBuilder("Reactions: \n");
-        Iterator iter = getSystemSnapshot();
-        SystemSnapshot ss = (SystemSnapshot) iter.next();// 10/25/07 gmagoon (?) why is this done twice
-        ss = (SystemSnapshot) iter.next();
+        // the first row is the initial status, which has no reactions
+        SystemSnapshot ss = trajectory.getSnapshot(1);
         LinkedList reactionList = ss.getUniqueReactionList();
         for (int j = 0; j < reactionList.size(); j++) {
             Reaction r = (Reaction) reactionList.get(j);
@@ -1089,14 +1057,14 @@ public class ReactionSystem {
         }
         int size = p_speciesList.size();
         int n = 0;
-        Iterator iter = getSystemSnapshot();
         StringBuilder result = new StringBuilder("\n");
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
+        for (int row = 0; row < trajectory.size(); row++) {
+            // the snapshot of the row is only rebuilt for the rates of third-body reactions
+            SystemSnapshot ss = null;
             result.append("\nSensitivities:\n");
-            if (ss.getTime().getTime() != 0) {
+            if (trajectory.getTime(row) != 0) {
                 result.append('\n');
-                result.append("Time:" + String.valueOf(ss.getTime().getTime())
+                result.append("Time:" + String.valueOf(trajectory.getTime(row))
                         + '\n');
             }
             for (int i = 0; i < size; i++) {
@@ -1104,28 +1072,27 @@ public class ReactionSystem {
                 for (int s = 0; s < p_importantSpecies.size(); s++) {
                     String name = (String) p_importantSpecies.get(s);
                     if (spe.getName().equalsIgnoreCase(name)) {
-                        SpeciesStatus speSta = ss.getSpeciesStatus(spe);
-                        double conc = 0;
-                        if (speSta != null) {
-                            conc = speSta.getConcentration();
-                        }
-                        if (ss.getTime().getTime() != 0) {
-                            int I = ss.getRealID(spe);
-                            LinkedList reactionList = ss.getReactionList();
+                        double conc = trajectory.getConcentration(spe, row);
+                        if (trajectory.getTime(row) != 0) {
+                            int I = trajectory.getRealID(spe, row);
+                            LinkedList reactionList = trajectory
+                                    .getReactionList(row);
                             for (int j = 0; j < reactionList.size(); j++) {
                                 if (j < reactionList.size()) {
                                     Reaction r = (Reaction) reactionList.get(j);
-                                    ReactionTime rt = ss.getTime();
+                                    if (r instanceof ThirdBodyReaction && ss == null)
+                                        ss = trajectory.getSnapshot(row);
+                                    ReactionTime rt = trajectory
+                                            .getReactionTime(row);
                                     Temperature t = getTemperature(rt);
                                     double k;
                                     if (r instanceof TemplateReaction) {
                                         k = ((TemplateReaction) r)
                                                 .calculateTotalPDepRate(
-                                                        ss.getTemperature(),
-                                                        ss.getPressure());// 10/25/07 gmagoon: added pressure
+                                                        trajectory.getTemperature(row),
+                                                        trajectory.getPressure(row));// 10/25/07 gmagoon: added pressure
                                     } else if (r instanceof PDepReaction) {
-                                        SystemSnapshot ssnap = (SystemSnapshot) systemSnapshot
-                                                .getLast();
+                                        SystemSnapshot ssnap = latestSnapshot;
                                         k = ((PDepReaction) r).calculateRate(
                                                 ssnap.getTemperature(),
                                                 ssnap.getPressure());// 10/25/07 gmagoon: using last systemSnapshot as
@@ -1141,15 +1108,15 @@ public class ReactionSystem {
                                         k = ((LindemannReaction) r)
                                                 .calculateRate(ss);
                                     } else {
-                                        k = r.calculateTotalRate(ss
-                                                .getTemperature());
+                                        k = r.calculateTotalRate(trajectory
+                                                .getTemperature(row));
                                     }
                                     int index = I
                                             + j
                                             * getReactionModel()
                                                     .getSpeciesNumber() - 1;
-                                    double sens = ss
-                                            .getSensitivityStatus(index);
+                                    double sens = trajectory.getSensitivity(row,
+                                            index);
                                     int J = j + 1;
                                     sens /= conc;
                                     sens *= k;
@@ -1183,31 +1150,26 @@ public class ReactionSystem {
         int size = p_speciesList.size();
         String result = "Sensitivity to thermo:\n";
         int n = 0;
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
-            if (ss.getTime().getTime() != 0) {
+        for (int row = 0; row < trajectory.size(); row++) {
+            if (trajectory.getTime(row) != 0) {
                 result += '\n';
-                result += "Time:" + String.valueOf(ss.getTime().getTime())
+                result += "Time:" + String.valueOf(trajectory.getTime(row))
                         + '\n';
             }
             for (int i = 0; i < size; i++) {
                 Species spe = (Species) p_speciesList.get(i);
                 if (!p_importantSpecies.contains(spe.getName()))
                     continue;
-                SpeciesStatus speSta = ss.getSpeciesStatus(spe);
+                double conc = trajectory.getConcentration(spe, row);
                 for (int x = 0; x < size; x++) {
                     Species spe2 = (Species) p_speciesList.get(x);
-                    double conc = 0;
-                    if (speSta != null) {
-                        conc = speSta.getConcentration();
-                    }
-                    if (ss.getTime().getTime() != 0) {
-                        int I = ss.getRealID(spe);
-                        int j = ss.getRealID(spe2);
-                        int index = I + (j - 1 + ss.reactionList.size())
+                    if (trajectory.getTime(row) != 0) {
+                        int I = trajectory.getRealID(spe, row);
+                        int j = trajectory.getRealID(spe2, row);
+                        int index = I
+                                + (j - 1 + trajectory.getReactionList(row).size())
                                 * getReactionModel().getSpeciesNumber() - 1;
-                        double sens = ss.getSensitivityStatus(index);
+                        double sens = trajectory.getSensitivity(row, index);
                         result += "d(ln[" + spe.getName() + "])/d(delta_Gf("
                                 + spe2.getChemkinName() + ")): " + sens / conc
                                 + '\n';
@@ -1232,25 +1194,24 @@ public class ReactionSystem {
             result += '\t' + name;
         }
         result += '\n';
-        Iterator iter = getSystemSnapshot();
-        while (iter.hasNext()) {
-            SystemSnapshot ss = (SystemSnapshot) iter.next();
-            result += String.valueOf(ss.getTime().getTime());
+        for (int row = 0; row < trajectory.size(); row++) {
+            // the snapshot of the row is only rebuilt for the rates of third-body reactions
+            SystemSnapshot ss = null;
+            result += String.valueOf(trajectory.getTime(row));
             for (int i = 0; i < size; i++) {
                 Species spe = (Species) p_speciesList.get(i);
                 if (spe != null) {
-                    SpeciesStatus speSta = ss.getSpeciesStatus(spe);
-                    double conc = 0;
-                    if (speSta != null) {
-                        conc = speSta.getConcentration();
-                    }
+                    double conc = trajectory.getConcentration(spe, row);
                     double uncertainty = 0;
-                    if (ss.getTime().getTime() != 0) {
-                        int I = ss.getRealID(spe);
-                        LinkedList reactionList = ss.getReactionList();
+                    if (trajectory.getTime(row) != 0) {
+                        int I = trajectory.getRealID(spe, row);
+                        LinkedList reactionList = trajectory
+                                .getReactionList(row);
                         for (int j = 0; j < reactionList.size(); j++) {
                             Reaction r = (Reaction) reactionList.get(j);
-                            ReactionTime rt = ss.getTime();
+                            if (r instanceof ThirdBodyReaction && ss == null)
+                                ss = trajectory.getSnapshot(row);
+                            ReactionTime rt = trajectory.getReactionTime(row);
                             Temperature t = getTemperature(rt);
                             double k;
                             double k_upperbound;
@@ -1283,23 +1244,25 @@ public class ReactionSystem {
                             if (r instanceof TemplateReaction) {
                                 k = ((TemplateReaction) r)
                                         .calculateTotalPDepRate(
-                                                ss.getTemperature(),
-                                                ss.getPressure());// 10/25/07 gmagoon: added pressure
+                                                trajectory.getTemperature(row),
+                                                trajectory.getPressure(row));// 10/25/07 gmagoon: added pressure
                                 k_upperbound = k * 2.0;
                                 k_lowerbound = k / 2.0;
                             } else if (r instanceof PDepReaction) {
                                 k = ((PDepReaction) r).calculateRate(
-                                        ss.getTemperature(), ss.getPressure());
+                                        trajectory.getTemperature(row),
+                                        trajectory.getPressure(row));
                                 k_upperbound = k * 2.0;
                                 k_lowerbound = k / 2.0;
                             } else {
-                                k = r.calculateTotalRate(ss.getTemperature());
+                                k = r.calculateTotalRate(trajectory
+                                        .getTemperature(row));
                                 k_upperbound = r.getUpperBoundRate(t);
                                 k_lowerbound = r.getLowerBoundRate(t);
                             }
                             int index = I + j
                                     * getReactionModel().getSpeciesNumber() - 1;
-                            double sens = ss.getSensitivityStatus(index);
+                            double sens = trajectory.getSensitivity(row, index);
                             double delta_k;
                             if (sens > 0) {
                                 delta_k = k_upperbound - k;
@@ -1329,8 +1292,9 @@ public class ReactionSystem {
     // ## operation resetSystemSnapshot()
     public void resetSystemSnapshot() {
         // #[ operation resetSystemSnapshot()
-        systemSnapshot.clear();
-        systemSnapshot.add(initialStatus);
+        latestSnapshot = initialStatus;
+        trajectory.clear();
+        trajectory.append(initialStatus);
         // #]
     }
 
@@ -1348,8 +1312,7 @@ public class ReactionSystem {
         // #[ operation solveReactionSystem(ReactionTime,ReactionTime,boolean,boolean,boolean)
         Temperature t = getTemperatureModel().getTemperature(p_beginTime);
         Pressure p = getPressureModel().getPressure(p_beginTime);
-        SystemSnapshot beginStatus = (SystemSnapshot) (getSystemSnapshotEnd()
-                .next());
+        SystemSnapshot beginStatus = latestSnapshot;
         if (p_reactionChanged || p_initialization || p_conditionChanged) {
             if ((reactionModelEnlarger instanceof RateBasedPDepRME)) {// 1/2/09 gmagoon and rwest: only call
 // initializePDepNetwork for P-dep cases
@@ -1367,7 +1330,8 @@ public class ReactionSystem {
                 p_beginTime, p_endTime, t, p, p_conditionChanged,
                 finishController.terminationTester, iterationNum);
         appendUnreactedSpeciesStatus(present, t);
-        systemSnapshot.add(present);
+        latestSnapshot = present;
+        trajectory.append(present);
         return present.time;
         // #]
     }
@@ -1377,8 +1341,7 @@ public class ReactionSystem {
             boolean p_reactionChanged, boolean p_conditionChanged) {
         Temperature t = getTemperatureModel().getTemperature(p_beginTime);
         Pressure p = getPressureModel().getPressure(p_beginTime);
-        SystemSnapshot beginStatus = (SystemSnapshot) (getSystemSnapshotEnd()
-                .next());
+        SystemSnapshot beginStatus = latestSnapshot;
         if (p_reactionChanged || p_initialization || p_conditionChanged) {
             if ((reactionModelEnlarger instanceof RateBasedPDepRME)) {// 1/2/09 gmagoon and rwest: only call
 // initializePDepNetwork for P-dep cases
@@ -1395,9 +1358,10 @@ public class ReactionSystem {
                 p_initialization, getReactionModel(), p_reactionChanged,
                 beginStatus, p_beginTime, p_endTime, t, p, p_conditionChanged,
                 finishController.terminationTester);
-        for (int i = 0; i < sS.size(); i++) {
-            systemSnapshot.add(sS.get(i));
-        }
+        for (int i = 0; i < sS.size(); i++)
+            trajectory.append((SystemSnapshot) sS.get(i));
+        if (!sS.isEmpty())
+            latestSnapshot = (SystemSnapshot) sS.getLast();
         return;
     }
 
@@ -1492,25 +1456,12 @@ public class ReactionSystem {
         reactionModelEnlarger = p_ReactionModelEnlarger;
     }
 
-    public ListIterator getSystemSnapshot() {
-        ListIterator iter = systemSnapshot.listIterator(0);
-        return iter;
-    }
-
-    public ListIterator getSystemSnapshotEnd() {
-        return systemSnapshot.listIterator(systemSnapshot
-                .lastIndexOf(systemSnapshot.getLast()));
-    }
-
-    public SystemSnapshot newSystemSnapshot() {
-        SystemSnapshot newSystemSnapshot = new SystemSnapshot();
-        systemSnapshot.add(newSystemSnapshot);
-        return newSystemSnapshot;
+    public SystemSnapshot getLatestSnapshot() {
+        return latestSnapshot;
     }
 
-    public void deleteSystemSnapshot(SystemSnapshot p_SystemSnapshot) {
-        systemSnapshot.remove(p_SystemSnapshot);
-        p_SystemSnapshot = null;
+    public SystemTrajectory getTrajectory() {
+        return trajectory;
     }
 
     public TemperatureModel getTemperatureModel() {
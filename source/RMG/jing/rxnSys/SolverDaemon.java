@@ -0,0 +1,208 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxnSys;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+// ## package jing::rxnSys
+// ----------------------------------------------------------------------------
+// jing\rxnSys\SolverDaemon.java
+// ----------------------------------------------------------------------------
+/**
+ * A DASSL or DASPK driver kept running for the whole job, so that the solver is not started, and its input and output
+ * are not written to and parsed from disk, on every call. The driver is started with the -daemon argument and greets
+ * RMG with the magic number and the protocol version, in its native byte order. Each request is the magic number, the
+ * command 1 and the SolverInput in binary; the driver answers with the magic number, the values it would have written
+ * to SolverOutput.dat, its IDID and the magic number again. The command 0 makes the driver exit. Lines the driver
+ * writes to stderr are logged.
+ * If the driver can't be started, or fails before answering a request, a warning is logged and every later call
+ * returns null, so that JDAS falls back to SolverInput.dat and SolverOutput.dat.
+ */
+// ## class SolverDaemon
+public class SolverDaemon {
+    public static final int MAGIC = 0x52534F4C;
+    public static final int PROTOCOL = 1;
+    // the running daemons, by executable name
+    private static HashMap daemons = new HashMap();
+    // the executables that could not be run as daemons
+    private static HashSet failed = new HashSet();
+    private static boolean hookAdded = false;
+    protected Process process;
+    protected DataInputStream in;
+    protected OutputStream out;
+    protected ByteOrder order;
+
+    // Constructors
+    // ## operation SolverDaemon(String)
+    private SolverDaemon(String p_executable) throws IOException {
+        // #[ operation SolverDaemon(String)
+        String[] command = {
+                System.getProperty("RMG.workingDirectory") + "/bin/"
+                        + p_executable, "-daemon" };
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.directory(new File(System.getProperty("RMG.ODESolverDir")));
+        process = builder.start();
+        in = new DataInputStream(new BufferedInputStream(
+                process.getInputStream(), 1 << 16));
+        out = new BufferedOutputStream(process.getOutputStream(), 1 << 16);
+        final BufferedReader errorStream = new BufferedReader(
+                new InputStreamReader(process.getErrorStream()));
+        Thread drain = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    String line;
+                    while ((line = errorStream.readLine()) != null) {
+                        line = line.trim();
+                        if (line.length() == 0)
+                            continue;
+                        // DASPK reports the progress of sensitivity runs
+                        if (line.contains("STEP"))
+                            Logger.info(line);
+                        else
+                            Logger.error("Error running the ODESolver: " + line);
+                    }
+                } catch (IOException e) {
+                    // the daemon has exited
+                }
+            }
+        });
+        drain.setDaemon(true);
+        drain.start();
+        int magic = in.readInt();
+        if (magic == MAGIC)
+            order = ByteOrder.BIG_ENDIAN;
+        else if (magic == Integer.reverseBytes(MAGIC))
+            order = ByteOrder.LITTLE_ENDIAN;
+        else
+            throw new IOException(p_executable + " does not support -daemon");
+        int protocol = in.readInt();
+        if (order == ByteOrder.LITTLE_ENDIAN)
+            protocol = Integer.reverseBytes(protocol);
+        if (protocol != PROTOCOL)
+            throw new IOException(p_executable + " speaks protocol "
+                    + protocol + ", not " + PROTOCOL);
+        // #]
+    }
+
+    // ## operation solve(String,SolverInput)
+    /**
+     * Sends p_input to the daemon running p_executable, starting it if needed, and returns its output, or null if
+     * the daemon can't be used. The output must be read to the end, and close()d, before the next call.
+     */
+    public static synchronized SolverOutput solve(String p_executable,
+            SolverInput p_input) {
+        // #[ operation solve(String,SolverInput)
+        if (failed.contains(p_executable))
+            return null;
+        SolverDaemon daemon = (SolverDaemon) daemons.get(p_executable);
+        try {
+            if (daemon == null) {
+                addShutdownHook();
+                daemon = new SolverDaemon(p_executable);
+                daemons.put(p_executable, daemon);
+                Logger.info("Running " + p_executable + " as a solver daemon");
+            }
+            daemon.send(1, p_input);
+            boolean swap = daemon.order == ByteOrder.LITTLE_ENDIAN;
+            int magic = daemon.in.readInt();
+            if ((swap ? Integer.reverseBytes(magic) : magic) != MAGIC)
+                throw new IOException("Solver output is out of step with the input");
+            return new SolverOutput(daemon.in, swap);
+        } catch (IOException e) {
+            Logger.warning("Unable to run " + p_executable
+                    + " as a solver daemon (" + e.getMessage()
+                    + "); using SolverInput.dat instead.");
+            shutdown(p_executable);
+            failed.add(p_executable);
+            return null;
+        }
+        // #]
+    }
+
+    // ## operation send(int,SolverInput)
+    private void send(int p_command, SolverInput p_input) throws IOException {
+        // #[ operation send(int,SolverInput)
+        ByteBuffer header = ByteBuffer.allocate(8).order(order);
+        header.putInt(MAGIC);
+        header.putInt(p_command);
+        out.write(header.array());
+        if (p_input != null)
+            p_input.writeBinary(out, order);
+        out.flush();
+        // #]
+    }
+
+    // ## operation shutdown(String)
+    /**
+     * Asks the daemon running p_executable, if any, to exit, and stops it.
+     */
+    public static synchronized void shutdown(String p_executable) {
+        // #[ operation shutdown(String)
+        SolverDaemon daemon = (SolverDaemon) daemons.remove(p_executable);
+        if (daemon == null)
+            return;
+        try {
+            daemon.send(0, null);
+            daemon.out.close();
+            daemon.in.close();
+        } catch (IOException e) {
+            // the daemon has already exited
+        }
+        daemon.process.destroy();
+        // #]
+    }
+
+    private static void addShutdownHook() {
+        if (hookAdded)
+            return;
+        hookAdded = true;
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                synchronized (SolverDaemon.class) {
+                    for (Iterator iter = new HashSet(daemons.keySet())
+                            .iterator(); iter.hasNext();)
+                        shutdown((String) iter.next());
+                }
+            }
+        });
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxnSys\SolverDaemon.java
+ *********************************************************************/
@@ -0,0 +1,272 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxnSys;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// ## package jing::rxnSys
+// ----------------------------------------------------------------------------
+// jing\rxnSys\SolverInput.java
+// ----------------------------------------------------------------------------
+/**
+ * The input of the DASSL and DASPK drivers, as a sequence of integers and doubles grouped into records. A record
+ * holds the values read by one READ statement of the driver. The input is either written as text to SolverInput.dat,
+ * one line per record, or sent to a SolverDaemon as a binary frame of four-byte integers and eight-byte doubles, in
+ * which the record boundaries are not needed. Doubles are written with Double.toString(), which the driver reads back
+ * exactly, so both forms give the driver the same values. The text keeps the layout SolverInput.dat has always had:
+ * by default a space after every value, as for arrays, but a record may instead be separated by tabs or spaces with
+ * nothing after its last value, and a value may be written as other text that reads back as the same value.
+ */
+// ## class SolverInput
+public class SolverInput {
+    protected int size = 0;
+    // the integers, and the raw bits of the doubles
+    protected long[] value = new long[64];
+    protected boolean[] real = new boolean[64];
+    // the index after the last value of each record
+    protected int[] recordEnd = new int[16];
+    // the text between the values of each record, if not a space after every value
+    protected String[] recordSeparator = new String[16];
+    // the text written for each value, if not its own
+    protected String[] text = new String[64];
+    protected int records = 0;
+    protected int byteLength = 0;
+
+    // ## operation size()
+    public int size() {
+        return size;
+    }
+
+    // ## operation clear()
+    public void clear() {
+        // #[ operation clear()
+        size = 0;
+        records = 0;
+        byteLength = 0;
+        // #]
+    }
+
+    // ## operation addInt(int)
+    public void addInt(int p_value) {
+        // #[ operation addInt(int)
+        ensureCapacity(size + 1);
+        value[size] = p_value;
+        real[size] = false;
+        text[size] = null;
+        size++;
+        byteLength += 4;
+        // #]
+    }
+
+    // ## operation addDouble(double)
+    public void addDouble(double p_value) {
+        // #[ operation addDouble(double)
+        ensureCapacity(size + 1);
+        value[size] = Double.doubleToRawLongBits(p_value);
+        real[size] = true;
+        text[size] = null;
+        size++;
+        byteLength += 8;
+        // #]
+    }
+
+    // ## operation addDoubles(double [],int)
+    /**
+     * Effects: adds the first p_count values of p_values.
+     */
+    public void addDoubles(double[] p_values, int p_count) {
+        // #[ operation addDoubles(double [],int)
+        ensureCapacity(size + p_count);
+        for (int i = 0; i < p_count; i++) {
+            value[size] = Double.doubleToRawLongBits(p_values[i]);
+            real[size] = true;
+            text[size] = null;
+            size++;
+        }
+        byteLength += 8 * p_count;
+        // #]
+    }
+
+    // ## operation addInts(int [],int)
+    /**
+     * Effects: adds the first p_count values of p_values.
+     */
+    public void addInts(int[] p_values, int p_count) {
+        // #[ operation addInts(int [],int)
+        ensureCapacity(size + p_count);
+        for (int i = 0; i < p_count; i++) {
+            value[size] = p_values[i];
+            real[size] = false;
+            text[size] = null;
+            size++;
+        }
+        byteLength += 4 * p_count;
+        // #]
+    }
+
+    // ## operation endRecord()
+    /**
+     * Effects: ends the current record; the values added from now on belong to the next one. A record may be empty,
+     * as the driver still reads a line for an array of length zero.
+     */
+    public void endRecord() {
+        // #[ operation endRecord()
+        endRecord(null);
+        // #]
+    }
+
+    // ## operation endRecord(String)
+    /**
+     * Effects: ends the current record, to be written with p_separator between its values and nothing after the last
+     * one; if p_separator is null, with a space after every value.
+     */
+    public void endRecord(String p_separator) {
+        // #[ operation endRecord(String)
+        if (records == recordEnd.length) {
+            recordEnd = Arrays.copyOf(recordEnd, 2 * records);
+            recordSeparator = Arrays.copyOf(recordSeparator, 2 * records);
+        }
+        recordSeparator[records] = p_separator;
+        recordEnd[records++] = size;
+        // #]
+    }
+
+    // ## operation setText(String)
+    /**
+     * Requires: a value was added since the last clear(), and p_text reads back as that value
+     * Effects: writes p_text for the last value added, in the text form only.
+     */
+    public void setText(String p_text) {
+        // #[ operation setText(String)
+        text[size - 1] = p_text;
+        // #]
+    }
+
+    // ## operation append(SolverInput)
+    /**
+     * Modifies: this
+     * Effects: adds the values and the records of p_input after those of this input.
+     */
+    public void append(SolverInput p_input) {
+        // #[ operation append(SolverInput)
+        ensureCapacity(size + p_input.size);
+        System.arraycopy(p_input.value, 0, value, size, p_input.size);
+        System.arraycopy(p_input.real, 0, real, size, p_input.size);
+        System.arraycopy(p_input.text, 0, text, size, p_input.size);
+        for (int r = 0; r < p_input.records; r++) {
+            if (records == recordEnd.length) {
+                recordEnd = Arrays.copyOf(recordEnd, 2 * records);
+                recordSeparator = Arrays.copyOf(recordSeparator, 2 * records);
+            }
+            recordSeparator[records] = p_input.recordSeparator[r];
+            recordEnd[records++] = size + p_input.recordEnd[r];
+        }
+        size += p_input.size;
+        byteLength += p_input.byteLength;
+        // #]
+    }
+
+    // ## operation getDouble(int)
+    /**
+     * Requires: the p_index-th value was added as a double
+     */
+    public double getDouble(int p_index) {
+        return Double.longBitsToDouble(value[p_index]);
+    }
+
+    // ## operation getByteLength()
+    public int getByteLength() {
+        return byteLength;
+    }
+
+    // ## operation writeText(Writer)
+    /**
+     * Requires: the last value added is followed by endRecord()
+     * Modifies: p_writer
+     * Effects: writes every record as one line, with the separators set by endRecord().
+     */
+    public void writeText(Writer p_writer) throws IOException {
+        // #[ operation writeText(Writer)
+        StringBuilder line = new StringBuilder();
+        int i = 0;
+        for (int r = 0; r < records; r++) {
+            line.setLength(0);
+            String separator = recordSeparator[r];
+            for (; i < recordEnd[r]; i++) {
+                if (text[i] != null)
+                    line.append(text[i]);
+                else if (real[i])
+                    line.append(Double.longBitsToDouble(value[i]));
+                else
+                    line.append((int) value[i]);
+                if (separator == null)
+                    line.append(' ');
+                else if (i < recordEnd[r] - 1)
+                    line.append(separator);
+            }
+            line.append('\n');
+            p_writer.write(line.toString());
+        }
+        // #]
+    }
+
+    // ## operation writeBinary(OutputStream,ByteOrder)
+    /**
+     * Modifies: p_out
+     * Effects: writes the values, in the byte order p_order, without the record boundaries.
+     */
+    public void writeBinary(OutputStream p_out, ByteOrder p_order)
+            throws IOException {
+        // #[ operation writeBinary(OutputStream,ByteOrder)
+        ByteBuffer buffer = ByteBuffer.allocate(byteLength).order(p_order);
+        for (int i = 0; i < size; i++) {
+            if (real[i])
+                buffer.putLong(value[i]);
+            else
+                buffer.putInt((int) value[i]);
+        }
+        p_out.write(buffer.array());
+        // #]
+    }
+
+    private void ensureCapacity(int p_capacity) {
+        if (p_capacity <= value.length)
+            return;
+        int capacity = Math.max(p_capacity, 2 * value.length);
+        value = Arrays.copyOf(value, capacity);
+        real = Arrays.copyOf(real, capacity);
+        text = Arrays.copyOf(text, capacity);
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxnSys\SolverInput.java
+ *********************************************************************/
@@ -0,0 +1,123 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxnSys;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+// ## package jing::rxnSys
+// ----------------------------------------------------------------------------
+// jing\rxnSys\SolverOutput.java
+// ----------------------------------------------------------------------------
+/**
+ * The output of the DASSL and DASPK drivers, read one value at a time either from SolverOutput.dat, which has one
+ * value per line, or from the binary frame a SolverDaemon sends back. The binary frame is followed by the IDID of the
+ * solver and the SolverDaemon magic number, which close() checks.
+ */
+// ## class SolverOutput
+public class SolverOutput {
+    protected BufferedReader reader = null;
+    protected DataInputStream in = null;
+    // whether the daemon writes in little-endian byte order
+    protected boolean swap = false;
+
+    // Constructors
+    // ## operation SolverOutput(File)
+    public SolverOutput(File p_file) throws IOException {
+        // #[ operation SolverOutput(File)
+        reader = new BufferedReader(new FileReader(p_file));
+        // #]
+    }
+
+    // ## operation SolverOutput(DataInputStream,boolean)
+    public SolverOutput(DataInputStream p_in, boolean p_swap) {
+        // #[ operation SolverOutput(DataInputStream,boolean)
+        in = p_in;
+        swap = p_swap;
+        // #]
+    }
+
+    // ## operation nextInt()
+    public int nextInt() throws IOException {
+        // #[ operation nextInt()
+        if (reader != null)
+            return Integer.parseInt(nextLine());
+        int value = in.readInt();
+        return swap ? Integer.reverseBytes(value) : value;
+        // #]
+    }
+
+    // ## operation nextDouble()
+    /**
+     * Effects: returns the next value; the "+Inf" DASSL writes for an infinite flux ratio is read as positive infinity.
+     */
+    public double nextDouble() throws IOException {
+        // #[ operation nextDouble()
+        if (reader != null) {
+            String line = nextLine();
+            if (line.startsWith("+Inf"))
+                return Double.POSITIVE_INFINITY;
+            return Double.parseDouble(line);
+        }
+        long value = in.readLong();
+        return Double.longBitsToDouble(swap ? Long.reverseBytes(value) : value);
+        // #]
+    }
+
+    // ## operation close()
+    /**
+     * Effects: finishes reading the output and returns the IDID of the solver, or 0 when reading SolverOutput.dat,
+     * which doesn't carry it. Throws IOException if the binary frame isn't terminated by the magic number, i.e. if
+     * fewer or more values were read than the driver wrote.
+     */
+    public int close() throws IOException {
+        // #[ operation close()
+        if (reader != null) {
+            reader.close();
+            return 0;
+        }
+        int idid = nextInt();
+        if (nextInt() != SolverDaemon.MAGIC)
+            throw new IOException("Solver output is out of step with the input");
+        return idid;
+        // #]
+    }
+
+    private String nextLine() throws IOException {
+        String line = reader.readLine();
+        if (line == null)
+            throw new EOFException("Unexpected end of the solver output");
+        return line.trim();
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxnSys\SolverOutput.java
+ *********************************************************************/
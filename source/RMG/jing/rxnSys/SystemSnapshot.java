@@ -32,6 +32,7 @@ import jing.param.*;
 import jing.chem.Species;
 import jing.param.Pressure;
 import jing.param.Temperature;
+import jing.rxn.PDepRateEvaluator;
 import jing.rxn.PDepReaction;
 import jing.rxn.Reaction;
 
@@ -52,11 +53,16 @@ public class SystemSnapshot {
     protected double totalMole = -1; // ## attribute totalMole
     protected LinkedHashMap speciesStatus;
     protected double[] senStatus;// svp
+    // sensitivities of the adjoint target species, keyed by real ID; used instead of senStatus when not null
+    protected LinkedHashMap targetSenStatus = null;
+    protected int senStateNumber;
     protected ReactionTime time;
     protected LinkedList reactionList;// svp
     protected LinkedHashMap IDTranslator;// svp
     protected double[] unreactedSpeciesFlux = null;
     protected double[] reactionFlux;
+    // shared by the flux calculations of all the P-dep reactions at this snapshot
+    protected PDepRateEvaluator pDepRateEvaluator = null;
 
     // Constructors
     // ## operation SystemSnapshot()
@@ -110,6 +116,21 @@ public class SystemSnapshot {
         // #]
     }
 
+    // ## operation addTargetSensitivity(int,LinkedHashMap)
+    /**
+     * Requires: p_targetSensitivity maps the real ID (Integer) of each target species to its sensitivities to every
+     * parameter; p_nState is the number of species in the ODE system
+     * Modifies: this
+     * Effects: stores the sensitivities of the target species only; getSensitivityStatus(int) returns 0 for the others.
+     */
+    public void addTargetSensitivity(int p_nState,
+            LinkedHashMap p_targetSensitivity) {
+        // #[ operation addTargetSensitivity(int,LinkedHashMap)
+        senStateNumber = p_nState;
+        targetSenStatus = p_targetSensitivity;
+        // #]
+    }
+
     // ## operation addSpeciesStatus(LinkedHashMap)
     public void addSpeciesStatus(LinkedHashMap p_speciesStatus) {
         // #[ operation addSpeciesStatus(LinkedHashMap)
@@ -148,6 +169,13 @@ public class SystemSnapshot {
     // svp
     public double getSensitivityStatus(int p_int) {
         // #[operation getSensitivityStatus(int)
+        if (targetSenStatus != null) {
+            double[] sensitivity = (double[]) targetSenStatus.get(new Integer(
+                    p_int % senStateNumber + 1));
+            if (sensitivity == null)
+                return 0;
+            return sensitivity[p_int / senStateNumber];
+        }
         return senStatus[p_int];
     }
 
@@ -279,6 +307,20 @@ public class SystemSnapshot {
         return pressure;
     }
 
+    // ## operation getPDepRateEvaluator()
+    /**
+     * Effects: returns an evaluator of P-dep rate coefficients at the temperature and pressure of this snapshot,
+     * reusing the one returned before unless the temperature or pressure has changed since.
+     */
+    public PDepRateEvaluator getPDepRateEvaluator() {
+        // #[ operation getPDepRateEvaluator()
+        if (pDepRateEvaluator == null
+                || !pDepRateEvaluator.isAt(temperature, pressure))
+            pDepRateEvaluator = new PDepRateEvaluator(temperature, pressure);
+        return pDepRateEvaluator;
+        // #]
+    }
+
     // svp
     public LinkedList getReactionList() {
         return reactionList;
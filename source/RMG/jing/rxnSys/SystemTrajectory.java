@@ -0,0 +1,570 @@
+// //////////////////////////////////////////////////////////////////////////////
+//
+// RMG - Reaction Mechanism Generator
+//
+// Copyright (c) 2002-2011 Prof. William H. Green (whgreen@mit.edu) and the
+// RMG Team (rmg_dev@mit.edu)
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the "Software"),
+// to deal in the Software without restriction, including without limitation
+// the rights to use, copy, modify, merge, publish, distribute, sublicense,
+// and/or sell copies of the Software, and to permit persons to whom the
+// Software is furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+// FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+// DEALINGS IN THE SOFTWARE.
+//
+// //////////////////////////////////////////////////////////////////////////////
+package jing.rxnSys;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import jing.chem.Species;
+import jing.param.Pressure;
+import jing.param.Temperature;
+
+// ## package jing::rxnSys
+// ----------------------------------------------------------------------------
+// jing\rxnSys\SystemTrajectory.java
+// ----------------------------------------------------------------------------
+/**
+ * The states a reaction system has passed through, stored by column: one time vector, and one primitive column per
+ * species, inert gas, reaction flux and sensitivity coefficient. The ReactionSystem appends the state returned by the
+ * solver as a row and keeps only its latest SystemSnapshot; the profiles, sensitivities and fluxes of the final model
+ * are printed from the columns, and getSnapshot(int) rebuilds the SystemSnapshot of a row for the rate expressions that
+ * need one. The rows may also be streamed to a CSV or binary file as they are appended.
+ */
+// ## class SystemTrajectory
+public class SystemTrajectory {
+    protected int size = 0;
+    protected double[] time = new double[16];
+    protected String[] timeUnit = new String[16];
+    protected Temperature[] temperature = new Temperature[16];
+    protected Pressure[] pressure = new Pressure[16];
+    protected double[] totalMole = new double[16];
+    // the message of the NegativeConcentrationException SystemSnapshot.getTotalMole() would throw, for each row
+    protected String[] negativeConcentration = new String[16];
+    protected LinkedHashMap columnIndex = new LinkedHashMap();
+    protected ArrayList columnSpecies = new ArrayList();
+    protected double[][] concentration = new double[0][];
+    // rows in which a species had no SpeciesStatus
+    protected BitSet[] absent = new BitSet[0];
+    // the columns of the species of each row in the order of its snapshot; rows in the same order share one array
+    protected int[][] speciesOrder = new int[16][];
+    protected LinkedHashMap inertIndex = new LinkedHashMap();
+    protected ArrayList inertName = new ArrayList();
+    protected double[][] inertConcentration = new double[0][];
+    protected int[][] inertOrder = new int[16][];
+    // the reaction list and real ID translator of each row; these are shared by all the snapshots of a model
+    protected LinkedList[] reactionList = new LinkedList[16];
+    protected LinkedHashMap[] idTranslator = new LinkedHashMap[16];
+    // the number of reaction fluxes (sensitivities) of each row, or -1 if it had none
+    protected int[] reactionFluxCount = new int[16];
+    protected double[][] reactionFlux = new double[0][];
+    protected int[] sensitivityCount = new int[16];
+    protected double[][] sensitivity = new double[0][];
+    // the sensitivities of the adjoint target species of each row, keyed by real ID, with the number of species
+    protected LinkedHashMap[] targetSensitivity = new LinkedHashMap[16];
+    protected int[] senStateNumber = new int[16];
+    // the file the rows are streamed to, if any
+    protected File outputFile = null;
+    protected boolean binaryOutput = false;
+    protected Writer csvWriter = null;
+    protected DataOutputStream binaryWriter = null;
+    protected int writtenColumns = 0;
+
+    // ## operation size()
+    public int size() {
+        return size;
+    }
+
+    // ## operation clear()
+    /**
+     * Modifies: this
+     * Effects: removes every row and column; if the rows are streamed, the output file is started over with the next
+     * row.
+     */
+    public void clear() {
+        // #[ operation clear()
+        size = 0;
+        columnIndex.clear();
+        columnSpecies.clear();
+        concentration = new double[0][];
+        absent = new BitSet[0];
+        inertIndex.clear();
+        inertName.clear();
+        inertConcentration = new double[0][];
+        reactionFlux = new double[0][];
+        sensitivity = new double[0][];
+        Arrays.fill(speciesOrder, null);
+        Arrays.fill(inertOrder, null);
+        Arrays.fill(reactionList, null);
+        Arrays.fill(idTranslator, null);
+        Arrays.fill(targetSensitivity, null);
+        closeOutput();
+        // #]
+    }
+
+    // ## operation setOutput(File,boolean)
+    /**
+     * Modifies: this
+     * Effects: streams every row appended from now on to p_file, as CSV or, if p_binary, in the binary format described
+     * at writeRow(); clear() starts the file over, so that it holds the rows of the latest integration.
+     */
+    public void setOutput(File p_file, boolean p_binary) {
+        // #[ operation setOutput(File,boolean)
+        closeOutput();
+        outputFile = p_file;
+        binaryOutput = p_binary;
+        // #]
+    }
+
+    // ## operation append(SystemSnapshot)
+    /**
+     * Modifies: this
+     * Effects: adds a row with the time, temperature and pressure of p_snapshot, the concentration of each of its
+     * species and inert gases, its total concentration, and its reaction fluxes and sensitivities, if it has them.
+     */
+    public void append(SystemSnapshot p_snapshot) {
+        // #[ operation append(SystemSnapshot)
+        if (size == time.length)
+            grow(2 * size);
+        int row = size++;
+        ReactionTime rt = p_snapshot.getTime();
+        time[row] = rt.getTime();
+        timeUnit[row] = rt.getUnit();
+        temperature[row] = p_snapshot.getTemperature();
+        pressure[row] = p_snapshot.getPressure();
+        negativeConcentration[row] = null;
+        // sum as SystemSnapshot.getTotalMole() does, so that the mole fractions are unchanged to the last digit
+        double total = p_snapshot.totalMole;
+        boolean sum = total < 0;
+        if (sum) {
+            try {
+                total = p_snapshot.getTotalInertGas();
+            } catch (NegativeConcentrationException e) {
+                negativeConcentration[row] = e.getMessage();
+            }
+        }
+        int existing = concentration.length;
+        int[] order = new int[p_snapshot.speciesStatus.size()];
+        int n = 0;
+        int found = 0;
+        double aTol = ReactionModelGenerator.getAtol();
+        for (Iterator iter = p_snapshot.getSpeciesStatus(); iter.hasNext();) {
+            SpeciesStatus ss = (SpeciesStatus) iter.next();
+            double conc = ss.getConcentration();
+            Integer index = (Integer) columnIndex.get(ss.getSpecies());
+            if (index == null)
+                index = addColumn(ss.getSpecies(), row);
+            else
+                found++;
+            int c = index.intValue();
+            concentration[c][row] = conc;
+            order[n++] = c;
+            if (sum) {
+                if (conc < -100.0 * aTol && negativeConcentration[row] == null)
+                    negativeConcentration[row] = "Total inert gas has negative concentration: "
+                            + String.valueOf(conc);
+                total += conc;
+            }
+        }
+        totalMole[row] = total;
+        speciesOrder[row] = share(order, row == 0 ? null : speciesOrder[row - 1]);
+        // species seen in earlier rows that are missing from this one
+        if (found < existing) {
+            for (int c = 0; c < existing; c++) {
+                if (!p_snapshot.speciesStatus.containsKey(columnSpecies.get(c))) {
+                    concentration[c][row] = 0;
+                    absent[c].set(row);
+                }
+            }
+        }
+        appendInertGas(p_snapshot, row);
+        reactionList[row] = p_snapshot.reactionList;
+        idTranslator[row] = p_snapshot.IDTranslator;
+        reactionFluxCount[row] = -1;
+        if (p_snapshot.reactionFlux != null) {
+            reactionFlux = appendValues(reactionFlux, p_snapshot.reactionFlux,
+                    row);
+            reactionFluxCount[row] = p_snapshot.reactionFlux.length;
+        }
+        sensitivityCount[row] = -1;
+        if (p_snapshot.senStatus != null) {
+            sensitivity = appendValues(sensitivity, p_snapshot.senStatus, row);
+            sensitivityCount[row] = p_snapshot.senStatus.length;
+        }
+        targetSensitivity[row] = p_snapshot.targetSenStatus;
+        senStateNumber[row] = p_snapshot.senStateNumber;
+        if (outputFile != null)
+            writeRow(row);
+        // #]
+    }
+
+    // ## operation grow(int)
+    private void grow(int p_capacity) {
+        // #[ operation grow(int)
+        time = Arrays.copyOf(time, p_capacity);
+        timeUnit = Arrays.copyOf(timeUnit, p_capacity);
+        temperature = Arrays.copyOf(temperature, p_capacity);
+        pressure = Arrays.copyOf(pressure, p_capacity);
+        totalMole = Arrays.copyOf(totalMole, p_capacity);
+        negativeConcentration = Arrays.copyOf(negativeConcentration,
+                p_capacity);
+        speciesOrder = Arrays.copyOf(speciesOrder, p_capacity);
+        inertOrder = Arrays.copyOf(inertOrder, p_capacity);
+        reactionList = Arrays.copyOf(reactionList, p_capacity);
+        idTranslator = Arrays.copyOf(idTranslator, p_capacity);
+        reactionFluxCount = Arrays.copyOf(reactionFluxCount, p_capacity);
+        sensitivityCount = Arrays.copyOf(sensitivityCount, p_capacity);
+        targetSensitivity = Arrays.copyOf(targetSensitivity, p_capacity);
+        senStateNumber = Arrays.copyOf(senStateNumber, p_capacity);
+        growColumns(concentration, p_capacity);
+        growColumns(inertConcentration, p_capacity);
+        growColumns(reactionFlux, p_capacity);
+        growColumns(sensitivity, p_capacity);
+        // #]
+    }
+
+    private static void growColumns(double[][] p_columns, int p_capacity) {
+        for (int c = 0; c < p_columns.length; c++)
+            p_columns[c] = Arrays.copyOf(p_columns[c], p_capacity);
+    }
+
+    // ## operation addColumn(Species,int)
+    private Integer addColumn(Species p_species, int p_row) {
+        // #[ operation addColumn(Species,int)
+        int c = concentration.length;
+        Integer index = new Integer(c);
+        columnIndex.put(p_species, index);
+        columnSpecies.add(p_species);
+        concentration = Arrays.copyOf(concentration, c + 1);
+        concentration[c] = new double[time.length];
+        absent = Arrays.copyOf(absent, c + 1);
+        absent[c] = new BitSet();
+        // the species had no status in the rows before this one
+        absent[c].set(0, p_row);
+        return index;
+        // #]
+    }
+
+    // ## operation appendInertGas(SystemSnapshot,int)
+    private void appendInertGas(SystemSnapshot p_snapshot, int p_row) {
+        // #[ operation appendInertGas(SystemSnapshot,int)
+        int[] order = new int[p_snapshot.inertGas.size()];
+        int n = 0;
+        for (Iterator iter = p_snapshot.getInertGas(); iter.hasNext();) {
+            String name = (String) iter.next();
+            Integer index = (Integer) inertIndex.get(name);
+            if (index == null) {
+                int c = inertConcentration.length;
+                index = new Integer(c);
+                inertIndex.put(name, index);
+                inertName.add(name);
+                inertConcentration = Arrays.copyOf(inertConcentration, c + 1);
+                inertConcentration[c] = new double[time.length];
+            }
+            int c = index.intValue();
+            inertConcentration[c][p_row] = p_snapshot.getInertGas(name);
+            order[n++] = c;
+        }
+        inertOrder[p_row] = share(order, p_row == 0 ? null
+                : inertOrder[p_row - 1]);
+        // #]
+    }
+
+    // ## operation appendValues(double[][],double[],int)
+    /**
+     * Effects: stores p_values at row p_row of the first p_values.length columns of p_columns, adding columns if there
+     * are too few, and returns the columns.
+     */
+    private double[][] appendValues(double[][] p_columns, double[] p_values,
+            int p_row) {
+        // #[ operation appendValues(double[][],double[],int)
+        int existing = p_columns.length;
+        if (existing < p_values.length) {
+            p_columns = Arrays.copyOf(p_columns, p_values.length);
+            for (int c = existing; c < p_values.length; c++)
+                p_columns[c] = new double[time.length];
+        }
+        for (int c = 0; c < p_values.length; c++)
+            p_columns[c][p_row] = p_values[c];
+        return p_columns;
+        // #]
+    }
+
+    // the previous row's order, if this row's is the same
+    private static int[] share(int[] p_order, int[] p_previous) {
+        if (p_previous != null && Arrays.equals(p_order, p_previous))
+            return p_previous;
+        return p_order;
+    }
+
+    // ## operation getTime(int)
+    public double getTime(int p_row) {
+        return time[p_row];
+    }
+
+    // ## operation getReactionTime(int)
+    public ReactionTime getReactionTime(int p_row) {
+        return new ReactionTime(time[p_row], timeUnit[p_row]);
+    }
+
+    // ## operation getTemperature(int)
+    public Temperature getTemperature(int p_row) {
+        return temperature[p_row];
+    }
+
+    // ## operation getPressure(int)
+    public Pressure getPressure(int p_row) {
+        return pressure[p_row];
+    }
+
+    // ## operation getConcentration(Species,int)
+    /**
+     * Effects: returns the concentration of p_species at row p_row, or 0 if it had no SpeciesStatus there.
+     */
+    public double getConcentration(Species p_species, int p_row) {
+        // #[ operation getConcentration(Species,int)
+        Integer index = (Integer) columnIndex.get(p_species);
+        if (index == null)
+            return 0;
+        return concentration[index.intValue()][p_row];
+        // #]
+    }
+
+    // ## operation getReactionList(int)
+    public LinkedList getReactionList(int p_row) {
+        return reactionList[p_row];
+    }
+
+    // ## operation getRealID(Species,int)
+    public int getRealID(Species p_species, int p_row) {
+        // #[ operation getRealID(Species,int)
+        Integer id = (Integer) idTranslator[p_row].get(p_species);
+        return id.intValue();
+        // #]
+    }
+
+    // ## operation getReactionFluxCount(int)
+    /**
+     * Effects: returns the number of reaction fluxes at row p_row, or -1 if it had none.
+     */
+    public int getReactionFluxCount(int p_row) {
+        return reactionFluxCount[p_row];
+    }
+
+    // ## operation getReactionFlux(int,int)
+    public double getReactionFlux(int p_row, int p_index) {
+        // #[ operation getReactionFlux(int,int)
+        if (p_index >= reactionFluxCount[p_row])
+            throw new ArrayIndexOutOfBoundsException(p_index);
+        return reactionFlux[p_index][p_row];
+        // #]
+    }
+
+    // ## operation getSensitivity(int,int)
+    /**
+     * Requires: row p_row has sensitivities
+     * Effects: returns sensitivity p_index at row p_row, as SystemSnapshot.getSensitivityStatus(int) does.
+     */
+    public double getSensitivity(int p_row, int p_index) {
+        // #[ operation getSensitivity(int,int)
+        if (targetSensitivity[p_row] != null) {
+            double[] target = (double[]) targetSensitivity[p_row]
+                    .get(new Integer(p_index % senStateNumber[p_row] + 1));
+            if (target == null)
+                return 0;
+            return target[p_index / senStateNumber[p_row]];
+        }
+        if (p_index >= sensitivityCount[p_row])
+            throw new ArrayIndexOutOfBoundsException(p_index);
+        return sensitivity[p_index][p_row];
+        // #]
+    }
+
+    // ## operation getSnapshot(int)
+    /**
+     * Effects: returns a new SystemSnapshot with the time, temperature, pressure, species and inert gas concentrations
+     * (in their original order), reaction list, real IDs, reaction fluxes and sensitivities of row p_row; the species
+     * fluxes, which are not stored, are 0.
+     */
+    public SystemSnapshot getSnapshot(int p_row) {
+        // #[ operation getSnapshot(int)
+        LinkedHashMap status = new LinkedHashMap();
+        int[] order = speciesOrder[p_row];
+        for (int i = 0; i < order.length; i++) {
+            Species spe = (Species) columnSpecies.get(order[i]);
+            status.put(spe, new SpeciesStatus(spe, 1,
+                    concentration[order[i]][p_row], 0));
+        }
+        double[] sen = null;
+        if (sensitivityCount[p_row] >= 0)
+            sen = getRow(sensitivity, sensitivityCount[p_row], p_row);
+        SystemSnapshot ss = new SystemSnapshot(getReactionTime(p_row), status,
+                sen, temperature[p_row], pressure[p_row]);
+        order = inertOrder[p_row];
+        for (int i = 0; i < order.length; i++)
+            ss.putInertGas((String) inertName.get(order[i]),
+                    inertConcentration[order[i]][p_row]);
+        if (negativeConcentration[p_row] == null)
+            ss.totalMole = totalMole[p_row];
+        ss.setReactionList(reactionList[p_row]);
+        ss.setIDTranslator(idTranslator[p_row]);
+        if (reactionFluxCount[p_row] >= 0)
+            ss.setReactionFlux(getRow(reactionFlux, reactionFluxCount[p_row],
+                    p_row));
+        if (targetSensitivity[p_row] != null)
+            ss.addTargetSensitivity(senStateNumber[p_row],
+                    targetSensitivity[p_row]);
+        return ss;
+        // #]
+    }
+
+    private static double[] getRow(double[][] p_columns, int p_count, int p_row) {
+        double[] values = new double[p_count];
+        for (int c = 0; c < p_count; c++)
+            values[c] = p_columns[c][p_row];
+        return values;
+    }
+
+    // ## operation appendProfile(StringBuilder,LinkedList,boolean)
+    /**
+     * Requires: the species in p_speciesList are not null
+     * Modifies: p_output
+     * Effects: appends one line per row with the time and, tab-separated, the concentration (or mole fraction, if
+     * p_moleFraction) of every species in p_speciesList, in the format of ReactionSystem.returnConcentrationProfile().
+     */
+    public void appendProfile(StringBuilder p_output, LinkedList p_speciesList,
+            boolean p_moleFraction) {
+        // #[ operation appendProfile(StringBuilder,LinkedList,boolean)
+        int[] column = getColumns(p_speciesList);
+        for (int row = 0; row < size; row++) {
+            if (p_moleFraction && negativeConcentration[row] != null)
+                throw new NegativeConcentrationException(
+                        negativeConcentration[row]);
+            p_output.append(String.valueOf(time[row]));
+            for (int i = 0; i < column.length; i++) {
+                int c = column[i];
+                double value = 0;
+                if (c >= 0 && !absent[c].get(row)) {
+                    value = concentration[c][row];
+                    if (p_moleFraction)
+                        value /= totalMole[row];
+                }
+                p_output.append('\t');
+                p_output.append(String.valueOf(value));
+            }
+            p_output.append('\n');
+        }
+        // #]
+    }
+
+    // ## operation writeRow(int)
+    /**
+     * Modifies: the output file
+     * Effects: writes row p_row to the output file, opening it first if this is the first row since clear(). As CSV,
+     * the row is the time and the concentration of each species column, comma-separated, preceded by a header line
+     * "Time,<CHEMKIN names>" whenever a species column was added. In binary, the row is the number of species columns
+     * added since the previous row (an int) and their CHEMKIN names (UTF strings), followed by the time and the
+     * concentration of each column (doubles), all big-endian.
+     */
+    private void writeRow(int p_row) {
+        // #[ operation writeRow(int)
+        try {
+            if (csvWriter == null && binaryWriter == null) {
+                if (binaryOutput)
+                    binaryWriter = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(
+                                    outputFile)));
+                else
+                    csvWriter = new BufferedWriter(new FileWriter(outputFile));
+                writtenColumns = -1;
+            }
+            int columns = concentration.length;
+            if (binaryOutput) {
+                int added = Math.max(writtenColumns, 0);
+                binaryWriter.writeInt(columns - added);
+                for (int c = added; c < columns; c++)
+                    binaryWriter.writeUTF(((Species) columnSpecies.get(c))
+                            .getChemkinName());
+                binaryWriter.writeDouble(time[p_row]);
+                for (int c = 0; c < columns; c++)
+                    binaryWriter.writeDouble(concentration[c][p_row]);
+                binaryWriter.flush();
+            } else {
+                StringBuilder line = new StringBuilder();
+                if (columns > writtenColumns) {
+                    line.append("Time");
+                    for (int c = 0; c < columns; c++) {
+                        line.append(',');
+                        line.append(((Species) columnSpecies.get(c))
+                                .getChemkinName());
+                    }
+                    line.append('\n');
+                }
+                line.append(time[p_row]);
+                for (int c = 0; c < columns; c++) {
+                    line.append(',');
+                    line.append(concentration[c][p_row]);
+                }
+                line.append('\n');
+                csvWriter.write(line.toString());
+                csvWriter.flush();
+            }
+            writtenColumns = columns;
+        } catch (IOException e) {
+            Logger.error("Could not write the trajectory to "
+                    + outputFile.getPath());
+            Logger.logStackTrace(e);
+            closeOutput();
+            outputFile = null;
+        }
+        // #]
+    }
+
+    // ## operation closeOutput()
+    private void closeOutput() {
+        // #[ operation closeOutput()
+        try {
+            if (csvWriter != null)
+                csvWriter.close();
+            if (binaryWriter != null)
+                binaryWriter.close();
+        } catch (IOException e) {
+            Logger.logStackTrace(e);
+        }
+        csvWriter = null;
+        binaryWriter = null;
+        // #]
+    }
+
+    private int[] getColumns(LinkedList p_speciesList) {
+        int[] column = new int[p_speciesList.size()];
+        int i = 0;
+        for (Iterator iter = p_speciesList.iterator(); iter.hasNext();) {
+            Integer index = (Integer) columnIndex.get(iter.next());
+            column[i++] = index == null ? -1 : index.intValue();
+        }
+        return column;
+    }
+}
+/*********************************************************************
+ * File Path : RMG\RMG\jing\rxnSys\SystemTrajectory.java
+ *********************************************************************/
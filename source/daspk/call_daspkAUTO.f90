@@ -1,3 +1,7 @@
+! RMG solver daemon: when run with the -daemon argument, the input is read
+! from stdin and the output written to stdout, in native-endian binary, and
+! the program loops over requests instead of solving once; the protocol is
+! described in jing/rxnSys/SolverDaemon.java
 ! 9-Jul-2009 mrharper:
 !   Added Lindemann reactions
 ! 6/26/08 gmagoon:
@@ -22,7 +26,8 @@ PROGRAM CALL_DASPKAUTO
 
 
       INTEGER INFO(30), LRW, LIW, I, J, IDID, NSTEPS, IMPSPECIES, numiter, & 
-     &     AUTOFLAG, ESPECIES, EREACTIONSIZE, SENSFLAG
+     &     AUTOFLAG, ESPECIES, EREACTIONSIZE, SENSFLAG, DAEMON, MAGIC, COMMAND
+      CHARACTER(LEN=16) ARG
       DOUBLE PRECISION Y(NEQMAX), YPRIME(NEQMAX), T, TOUT, RTOL, ATOL, &
      &     THERMO(SPMAX), TARGETCONC(50), THRESH, CORETHRESH
      ! 6/26/08 gmagoon:make auto arrays allocatable and double
@@ -31,8 +36,40 @@ PROGRAM CALL_DASPKAUTO
      INTEGER, DIMENSION(:,:), ALLOCATABLE :: IDEREAC, IDEPROD
      DOUBLE PRECISION, DIMENSION(:), ALLOCATABLE :: KVEC
 
+      COMMON /SOLVERIO/ DAEMON
+      INTEGER KRYLOV, LENWP, LENIWP, IDUM(1)
+      COMMON /KRYLOV/ KRYLOV, LENWP, LENIWP
+
+      DAEMON = 0
+      IF (COMMAND_ARGUMENT_COUNT() .GE. 1) THEN
+         CALL GET_COMMAND_ARGUMENT(1, ARG)
+         IF (ARG .EQ. '-daemon') DAEMON = 1
+      END IF
+      IF (DAEMON .EQ. 1) THEN
+         ! stdout carries the output, so messages go to stderr
+         OPEN(UNIT=6, FILE='/dev/stderr', ACTION='WRITE')
+         OPEN(UNIT=12, FILE='/dev/stdin', ACCESS='STREAM', &
+     &        FORM='UNFORMATTED', ACTION='READ', STATUS='OLD')
+         OPEN(UNIT=15, FILE='/dev/stdout', ACCESS='STREAM', &
+     &        FORM='UNFORMATTED', ACTION='WRITE', STATUS='OLD')
+         ! the greeting: the magic number and the protocol version
+         CALL PUTMAGIC()
+         CALL PUTINT(1)
+         FLUSH(15)
+      ELSE
+         OPEN (UNIT=12, FILE = 'SolverInput.dat', STATUS = 'OLD')
+      END IF
+
+! in daemon mode, each request starts with the magic number and a command:
+! 1 to solve, 0 to exit
+ 10   IF (DAEMON .EQ. 1) THEN
+         READ(12, END=900) MAGIC, COMMAND
+         IF (MAGIC .NE. 1381191500 .OR. COMMAND .NE. 1) GO TO 900
+      END IF
+
       IDID = 0 !gmagoon 1/25/10: initialize IDID to zero (no meaning in terms of DASPK idid outputs) to avoid a situation where dassl is never called (and hence IDID is never assigned) due to edge exceeding flux at t=0
-      OPEN (UNIT=12, FILE = 'SolverInput.dat', STATUS = 'OLD')
+      ESPECIES = 0
+      EREACTIONSIZE = 0
 
  101  Format(E24.15)
 
@@ -44,40 +81,45 @@ PROGRAM CALL_DASPKAUTO
 ! to do sensitivity or not; previously, it was using numiter to decide (which is
 ! OK in most cases, but not if we use auto or don't specify intermediate
 ! conversions)
-      READ(12,*) NSTATE, NEQ, IMPSPECIES, NUMITER, AUTOFLAG, SENSFLAG
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) NSTATE, NEQ, IMPSPECIES, NUMITER, AUTOFLAG, SENSFLAG
+      ELSE
+         READ(12,*) NSTATE, NEQ, IMPSPECIES, NUMITER, AUTOFLAG, SENSFLAG
+      END IF
       NPARAM = INT(NEQ/NSTATE) - 1
       NSTATE = NSTATE+1
       NEQ = NSTATE*(NPARAM + 1)
 
 
-      READ(12,*) (TARGETCONC(I), I=1,NUMITER) 
+      CALL GETDBLS(TARGETCONC, NUMITER)
 
 
 !     READ THE TIME AND TOUT
-      READ(12,*) T, TOUT
+      CALL GETDBL2(T, TOUT)
 
 
 !  READ THE CONCENTRATIONS
-      if (t .eq. 0.0) then
+! a daemon always reads the whole input, so that the next request can be read
+      if (DAEMON .EQ. 1 .OR. t .eq. 0.0) then
 ! it is a new job and just have to read the state variables
 ! read the concentrations
-         READ(12,*) (Y(I), i=1,nstate-1)
+         CALL GETDBLS(Y, NSTATE-1)
 !     READ THE RATE OF CHANGE OF CONCENTRATIONS
-         READ(12,*) (Yprime(I), i=1,nstate-1)
+         CALL GETDBLS(YPRIME, NSTATE-1)
          do i=nstate,neq
             y(i) = 0
             yprime(i) = 0
          end do
 !     READ THE INFO ARRAY
-         READ(12,*) (INFO(I), I=1,30)
+         CALL GETINTS(INFO, 30)
 !     READ RTOL AND ATOL
-         READ(12,*) RTOL, ATOL
+         CALL GETDBL2(RTOL, ATOL)
          
 !     READ THE THERMO OF SPECIES
-         READ(12,*)(THERMO(I), I=1,NSTATE-1)
+         CALL GETDBLS(THERMO, NSTATE-1)
          
 !     READ TEMPERATURE AND PRESSURE
-         READ(12,*) TEMPERATURE, PRESSURE
+         CALL GETDBL2(TEMPERATURE, PRESSURE)
 
          
          y(nstate) =  8.314*temperature/pressure/1e-6
@@ -88,26 +130,24 @@ PROGRAM CALL_DASPKAUTO
 
          
 !     READ INFORMATION ABOUT REACTIONS
-         READ(12,*) REACTIONSIZE
-         READ(12,*) (REACTIONARRAY(I),I=1,10*REACTIONSIZE)
-         READ(12,*) (REACTIONRATEARRAY(I),I=1,5*REACTIONSIZE)
+         CALL GETINT(REACTIONSIZE)
+         CALL GETINTS(REACTIONARRAY, 10*REACTIONSIZE)
+         CALL GETDBLS(REACTIONRATEARRAY, 5*REACTIONSIZE)
 
 !     READ INFORMATION ABOUT THIRDBODYREACTIONS
-         READ(12,*) THIRDBODYREACTIONSIZE
-         READ(12,*)(THIRDBODYREACTIONARRAY(I),I=1, &
-         &   21*THIRDBODYREACTIONSIZE)
-         READ(12,*)(THIRDBODYREACTIONRATEARRAY(I),I=1, &
-        &    16*THIRDBODYREACTIONSIZE)
+         CALL GETINT(THIRDBODYREACTIONSIZE)
+         CALL GETINTS(THIRDBODYREACTIONARRAY, 21*THIRDBODYREACTIONSIZE)
+         CALL GETDBLS(THIRDBODYREACTIONRATEARRAY, 16*THIRDBODYREACTIONSIZE)
          
 !     READ INFORMATION ABOUT TROEREACTIONS
-         READ(12,*) TROEREACTIONSIZE
-         READ(12,*)(TROEREACTIONARRAY(I),I=1,22*TROEREACTIONSIZE)
-         READ(12,*)(TROEREACTIONRATEARRAY(I),I=1,21*TROEREACTIONSIZE)
+         CALL GETINT(TROEREACTIONSIZE)
+         CALL GETINTS(TROEREACTIONARRAY, 22*TROEREACTIONSIZE)
+         CALL GETDBLS(TROEREACTIONRATEARRAY, 21*TROEREACTIONSIZE)
 
 !     READ INFORMATION ABOUT LINDEREACTIONS
-         READ(12,*) LINDEREACTIONSIZE
-         READ(12,*)(LINDEREACTIONARRAY(I),I=1,21*LINDEREACTIONSIZE)
-         READ(12,*)(LINDEREACTIONRATEARRAY(I),I=1,17*LINDEREACTIONSIZE)
+         CALL GETINT(LINDEREACTIONSIZE)
+         CALL GETINTS(LINDEREACTIONARRAY, 21*LINDEREACTIONSIZE)
+         CALL GETDBLS(LINDEREACTIONRATEARRAY, 17*LINDEREACTIONSIZE)
 
 ! 6/26/08 gmagoon: if autoFlag = 1, read in additional information 
 ! specific to automatic time stepping
@@ -117,19 +157,23 @@ PROGRAM CALL_DASPKAUTO
             !CORETHRESH is the threshhold for moving something from edge to core,
             !whereas THRESH is the threshhold for terminating the run before the end
             !THRESH >= CORETHRESH
-        READ(12,*) THRESH, CORETHRESH
+        CALL GETDBL2(THRESH, CORETHRESH)
         ! read the number of edge species and edge reactions
-        READ(12,*) ESPECIES, EREACTIONSIZE
+        IF (DAEMON .EQ. 1) THEN
+            READ(12) ESPECIES, EREACTIONSIZE
+        ELSE
+            READ(12,*) ESPECIES, EREACTIONSIZE
+        END IF
         ! allocate memory for arrays
         ALLOCATE(NEREAC(EREACTIONSIZE), NEPROD(EREACTIONSIZE),&
-    &       IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,3),&
+    &       IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,4),&
     &            KVEC(EREACTIONSIZE))
         ! read in the reaction parameters for each reaction;
-        ! a maximum of 3 products and 3 reactants is assumed
+        ! a maximum of 4 products and 3 reactants is assumed
         ! for each reaction; parameters read for each reaction
         ! are: number of reactants, number of products,
         ! three reactant ID's (integers from 1 to NSTATE-1),
-        ! three product ID's (integers from 1 to ESPECIES),
+        ! four product ID's (integers from 1 to ESPECIES),
         ! and the rate coefficient k, such that dCi/dt=k*Ca*Cb;
         ! note that cases where abs. value of stoic. coeff. 
         ! does not equal one are handled by using repeated
@@ -137,10 +181,19 @@ PROGRAM CALL_DASPKAUTO
         ! note: use of KVEC rather than Arrhenius parameters
         ! requires assumption that system is isothermal
         ! (and isobaric for pressure dependence)
+        ! JDAS.getEdgeReactionString writes four product IDs, as
+        ! DASSL reads them; reading only three would read the
+        ! fourth ID (usually 0) as KVEC
         DO I=1, EREACTIONSIZE
+          IF (DAEMON .EQ. 1) THEN
+            READ(12) NEREAC(I),NEPROD(I),IDEREAC(I,1), & 
+         &            IDEREAC(I,2),IDEREAC(I,3),IDEPROD(I,1), &
+         &            IDEPROD(I,2), IDEPROD(I,3), IDEPROD(I,4), KVEC(I)
+          ELSE
             READ(12,*) NEREAC(I),NEPROD(I),IDEREAC(I,1), & 
          &            IDEREAC(I,2),IDEREAC(I,3),IDEPROD(I,1), &
-         &            IDEPROD(I,2), IDEPROD(I,3), KVEC(I)
+         &            IDEPROD(I,2), IDEPROD(I,3), IDEPROD(I,4), KVEC(I)
+          END IF
         ! alternative for reading Arrhenius parameters instead
         ! of k values; this allows easier extention to
         ! non-isothermal systems in the future
@@ -161,14 +214,15 @@ PROGRAM CALL_DASPKAUTO
     END IF
         ! read constantConcentration data (if flag = 1 then the concentration of that species will not be integrated)
         ! there is one integer for each species (up to nstate-1), then the last one is for the VOLUME
-        READ(12,*) (ConstantConcentration(I), i=1,nstate)
+        CALL GETINTS(ConstantConcentration, NSTATE)
 ! 6/26/08 gmagoon: if t.ne.0, we are presumably not using AUTO method, since
 ! with AUTO method we would return to zero each time; alternative would be to
 ! also read and write AUTO parameters from/to variables.dat if AUTOFLAG = 1;
 ! not including AUTO parameters (as done here) could give error,
 ! but an error would indicate a problem with the AUTO method where it is not
 ! returning to zero after ODE solver finishes
-      ELSE
+      END IF
+      IF (t .ne. 0.0) THEN
          OPEN(UNIT=13, FILE = 'variables.dat', form='unformatted')
 ! the first line is neq read that
          read(13) idid
@@ -232,7 +286,7 @@ PROGRAM CALL_DASPKAUTO
          close(13)
       END IF
       
-      CLOSE(12) !gmagoon 6/11/09: moved location for closing 12
+      IF (DAEMON .NE. 1) CLOSE(12) !gmagoon 6/11/09: moved location for closing 12
       !(the input file) so that it is not closed before AUTO
       !information is read in
       
@@ -245,6 +299,17 @@ PROGRAM CALL_DASPKAUTO
     !     CALL SOLVESEN(Y,YPRIME,T, TOUT, INFO, RTOL, ATOL, IDID,&
     ! &        THERMO, IMPSPECIES, NUMITER, TARGETCONC)
     !  end if
+! INFO(12) = 1 selects the Krylov method, preconditioned with PSETUP and PSOL
+! (krylov.f90), which need the size of the preconditioner pattern
+      KRYLOV = 0
+      LENWP = 0
+      LENIWP = 0
+      IF (INFO(12) .EQ. 1 .AND. SENSFLAG .NE. 1) THEN
+         KRYLOV = 1
+         CALL KRYPATTERN(IDUM, IDUM, IDUM, 0, LENWP)
+         LENIWP = 2*NSTATE + 1 + LENWP
+      END IF
+
      !gmagoon 080509: switched to use sensitivity flag to decide whether to 
      ! perform sensitivity analysis or not
       if (sensflag .eq. 1) then
@@ -263,6 +328,9 @@ PROGRAM CALL_DASPKAUTO
         DEALLOCATE (NEREAC, NEPROD, KVEC, &
      &  IDEREAC, IDEPROD)
       END IF
+
+      IF (DAEMON .EQ. 1) GO TO 10
+ 900  CONTINUE
          
       END PROGRAM CALL_DASPKAUTO
 
@@ -270,10 +338,6 @@ PROGRAM CALL_DASPKAUTO
 
 !*******************************************************************
 
-      SUBROUTINE PSOL()
-      END SUBROUTINE PSOL
-
-!*******************************************************************
       SUBROUTINE G_RES()
       END SUBROUTINE G_RES
 
@@ -291,19 +355,24 @@ PROGRAM CALL_DASPKAUTO
       INCLUDE 'reaction.fh'
 
 
-      INTEGER  INFO(30),LIW,LRW, IWORK(41+2*NSTATE), SENPAR(1), IPAR(1),&
-     &     IDID, ires, I, J, iter, IMPSPECIES, AUTOFLAG, ESPECIES, &
+      INTEGER KRYLOV, LENWP, LENIWP
+      COMMON /KRYLOV/ KRYLOV, LENWP, LENIWP
+      INTEGER  INFO(30),LIW,LRW, IWORK(41+2*NSTATE+LENIWP), SENPAR(1), &
+     &     IPAR(1), IDID, ires, I, J, iter, IMPSPECIES, AUTOFLAG, ESPECIES, &
      &      EREACTIONSIZE, EDGEFLAG, ITER_OUTPT, &
-     &      IWORK_OUTPT(41 + 2*NSTATE), EDGEFLAGCORE, CORESTORED
+     &      IWORK_OUTPT(41 + 2*NSTATE + LENIWP), EDGEFLAGCORE, CORESTORED
       INTEGER NEREAC(EREACTIONSIZE),NEPROD(EREACTIONSIZE)
-      INTEGER IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,3)
+      INTEGER IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,4)
       DOUBLE PRECISION KVEC(EREACTIONSIZE),MAXRATIO(ESPECIES),HIGHESTRATIO
+      INTEGER DAEMON
+      COMMON /SOLVERIO/ DAEMON
 
       DOUBLE PRECISION Y(NEQ), YPRIME(NEQ), Time, TOUT, RTOL, ATOL, & 
-    &     RWORK(51+9*NEQ+NSTATE**2), THERMO(SPMAX), TFINAL, & 
+    &     RWORK(51+9*NEQ+(1-KRYLOV)*NSTATE**2+KRYLOV*(40+11*NEQ+LENWP)), &
+    &     THERMO(SPMAX), TFINAL, & 
     &     TARGETCONC, THRESH, CORETHRESH, Y_OUTPT(NSTATE), &
     &     YPRIME_OUTPT(NSTATE), TIME_OUTPT,  &
-    &     RWORK_OUTPT(51 + 9*NEQ + NSTATE**2)
+    &     RWORK_OUTPT(51+9*NEQ+(1-KRYLOV)*NSTATE**2+KRYLOV*(40+11*NEQ+LENWP))
 
       INTEGER PRUNEVEC(ESPECIES)
 
@@ -319,11 +388,17 @@ PROGRAM CALL_DASPKAUTO
      &     TROEREACTIONSIZE+LINDEREACTIONSIZE)
 
 
-      EXTERNAL RES, JAC, PSOL, G_RES
+      EXTERNAL RES, JAC, PSETUP, PSOL, G_RES
 
 
       LIW = 41 + NSTATE + NSTATE
       LRW = 51 + 9*NEQ + NSTATE**2
+!     the Krylov method needs no dense matrix, but room for the GMRES
+!     vectors and the preconditioner
+      IF (KRYLOV .EQ. 1) THEN
+         LIW = LIW + LENIWP
+         LRW = 91 + 20*NEQ + LENWP
+      END IF
 
  101  Format(E24.15)
 !     READ RWORK AND IWORK
@@ -348,6 +423,10 @@ PROGRAM CALL_DASPKAUTO
          do i=1, liw
             iwork(i) = 0
          end do
+         IF (KRYLOV .EQ. 1) THEN
+            IWORK(27) = LENWP
+            IWORK(28) = LENIWP
+         END IF
       end if
 
 
@@ -459,9 +538,15 @@ PROGRAM CALL_DASPKAUTO
       IF (IMPSPECIES .EQ. -1) THEN
 
  1       IF (Time .LE. TOUT.AND. EDGEFLAG .EQ. -1) THEN !6/11/09 gmagoon: condensing onto one line to avoid warning
-            CALL DDASPK(RES, NEQ, Time, Y, YPRIME, TOUT, INFO, RTOL, &
-     &           Atol,IDID,RWORK, LRW, IWORK, LIW, RPAR, IPAR, JAC,PSOL, &
-     &           SENPAR, G_RES)
+            IF (KRYLOV .EQ. 1) THEN
+               CALL DDASPK(RES, NEQ, Time, Y, YPRIME, TOUT, INFO, RTOL, &
+     &              Atol,IDID,RWORK, LRW, IWORK, LIW, RPAR, IPAR, PSETUP, &
+     &              PSOL, SENPAR, G_RES)
+            ELSE
+               CALL DDASPK(RES, NEQ, Time, Y, YPRIME, TOUT, INFO, RTOL, &
+     &              Atol,IDID,RWORK, LRW, IWORK, LIW, RPAR, IPAR, JAC,PSOL, &
+     &              SENPAR, G_RES)
+            END IF
             
             IF (IDID .EQ. -1) THEN
                WRITE(*,*) "Warning: 500 steps were already taken, taking &
@@ -511,9 +596,15 @@ PROGRAM CALL_DASPKAUTO
  2       IF (Y(IMPSPECIES) .GE. TARGETCONC*Y(NSTATE).AND. EDGEFLAG .EQ. -1) &
      &        THEN
 
-            CALL DDASPK(RES, NEQ, Time, Y, YPRIME, TOUT, INFO, RTOL, &
-     &           Atol,IDID,RWORK, LRW, IWORK, LIW, RPAR, IPAR, JAC,PSOL,&
-     &           SENPAR, G_RES)
+            IF (KRYLOV .EQ. 1) THEN
+               CALL DDASPK(RES, NEQ, Time, Y, YPRIME, TOUT, INFO, RTOL, &
+     &              Atol,IDID,RWORK, LRW, IWORK, LIW, RPAR, IPAR, PSETUP, &
+     &              PSOL, SENPAR, G_RES)
+            ELSE
+               CALL DDASPK(RES, NEQ, Time, Y, YPRIME, TOUT, INFO, RTOL, &
+     &              Atol,IDID,RWORK, LRW, IWORK, LIW, RPAR, IPAR, JAC,PSOL, &
+     &              SENPAR, G_RES)
+            END IF
             
             IF (IDID .EQ. -1) THEN
                WRITE(*,*) "Warning: 500 steps were already taken, taking &
@@ -585,15 +676,19 @@ PROGRAM CALL_DASPKAUTO
       IWORK_OUTPT = IWORK
       RWORK_OUTPT = RWORK
 
-      OPEN(UNIT=15, FILE='SolverOutput.dat')
+      IF (DAEMON .EQ. 1) THEN
+         CALL PUTMAGIC()
+      ELSE
+         OPEN(UNIT=15, FILE='SolverOutput.dat')
+      END IF
 
  100  Format(E24.15)
-      write(15,*) ITER_OUTPT
-      WRITE(15,*) (NSTATE-1)*(nparam+1)      
-      WRITE(15,*) TIME_OUTPT
+      CALL PUTINT(ITER_OUTPT)
+      CALL PUTINT((NSTATE-1)*(nparam+1))
+      CALL PUTDBL(TIME_OUTPT)
       do i=0, nparam
          DO j=1,NSTATE
-            WRITE(15,*) Y_OUTPT(I*nstate+j)/Y_OUTPT(NSTATE)
+            CALL PUTDBL(Y_OUTPT(I*nstate+j)/Y_OUTPT(NSTATE))
          END DO
       end do
       
@@ -604,36 +699,40 @@ PROGRAM CALL_DASPKAUTO
       do i=0, nparam
          DO j=1,NSTATE
             !WRITE(15,*) Yprime(I*nstate+j)/Y(NSTATE)
-            WRITE(15,*) (Y_OUTPT(NSTATE)*YPRIME_OUTPT(I*nstate+j)- &
+            CALL PUTDBL((Y_OUTPT(NSTATE)*YPRIME_OUTPT(I*nstate+j)- &
          &           Y_OUTPT(I*nstate+j)*YPRIME_OUTPT(NSTATE)) &
-         &           /(Y_OUTPT(NSTATE)**2)
+         &           /(Y_OUTPT(NSTATE)**2))
          END DO
       end do
 
       DO I=1,REACTIONSIZE+THIRDBODYREACTIONSIZE+TROEREACTIONSIZE+LINDEREACTIONSIZE
-         WRITE(15,*) TOTALREACTIONFLUX_OUTPT(I)
+         CALL PUTDBL(TOTALREACTIONFLUX_OUTPT(I))
       END DO
       
 
       DO I=1,30
-         WRITE(15,*) INFO(I) !gmagoon 032510: I am assuming this is not modified by ODE solver and that we don't need to keep track of intermediate values this may take on (like we do with Y, YPRIME, etc.)
+         CALL PUTINT(INFO(I)) !gmagoon 032510: I am assuming this is not modified by ODE solver and that we don't need to keep track of intermediate values this may take on (like we do with Y, YPRIME, etc.)
       END DO
 
-      write(15,100) Y_OUTPT(NSTATE)
+      IF (DAEMON .EQ. 1) THEN
+         WRITE(15) Y_OUTPT(NSTATE)
+      ELSE
+         write(15,100) Y_OUTPT(NSTATE)
+      END IF
 
       !for autoflag cases, display the edgeflag (if < 0, the ODE solver did not reach the target time/conversion),
       !, the final time integrated to,
       !along with pruning information
       IF (AUTOFLAG .EQ. 1) THEN
-      WRITE(15,*) EDGEFLAG
-      WRITE(15,*) TIME
+      CALL PUTINT(EDGEFLAG)
+      CALL PUTDBL(TIME)
       DO I=1, ESPECIES
-          WRITE(15,*) PRUNEVEC(I)
-          WRITE(15,*) MAXRATIO(I)
+          CALL PUTINT(PRUNEVEC(I))
+          CALL PUTDBL(MAXRATIO(I))
       END DO
       END IF
 
-      CLOSE(15)
+      IF (DAEMON .NE. 1) CLOSE(15)
 
 !gmagoon 032510: this information should only be used in non-auto cases,
 !but I have modified to use OUTPT variables (which should be the same as
@@ -713,7 +812,12 @@ PROGRAM CALL_DASPKAUTO
 
 
       
-      if (idid .eq. 1 .or. idid .eq. 2 .or. idid .eq. 3 .or. idid .eq. 0) then
+      IF (DAEMON .EQ. 1) THEN
+         ! RMG checks IDID itself, and the magic number ends the output
+         CALL PUTINT(IDID)
+         CALL PUTMAGIC()
+         FLUSH(15)
+      else if (idid .eq. 1 .or. idid .eq. 2 .or. idid .eq. 3 .or. idid .eq. 0) then
          WRITE(*,*) "******ODESOLVER SUCCESSFUL: IDID=",idid
       else
          WRITE(*,*) "******ODESOLVER FAILED : IDID=", idid
@@ -749,6 +853,8 @@ PROGRAM CALL_DASPKAUTO
      &     PREVREACTIONFLUX(REACTIONSIZE+THIRDBODYREACTIONSIZE+ &
      &     TROEREACTIONSIZE+LINDEREACTIONSIZE), PREVTIME, TSTEPS(NUMITER)
 
+      INTEGER DAEMON
+      COMMON /SOLVERIO/ DAEMON
 
 
       EXTERNAL RES, JAC, PSOL, G_RES
@@ -804,7 +910,11 @@ PROGRAM CALL_DASPKAUTO
       cj = 0.0
       CALL RES(time, Y, del, cj, yprime, ires, RPAR, ipar, senpar)
       
-      OPEN(UNIT=15, FILE='SolverOutput.dat')
+      IF (DAEMON .EQ. 1) THEN
+         CALL PUTMAGIC()
+      ELSE
+         OPEN(UNIT=15, FILE='SolverOutput.dat')
+      END IF
 
       TSTEP = TOUT
 
@@ -882,17 +992,17 @@ PROGRAM CALL_DASPKAUTO
 	END IF
          
          WRITE(*,*) "STEP: ", K, " OF ", NUMITER," DONE"
-         WRITE(15,*) (NSTATE-1)*(nparam+1)      
-         WRITE(15,*) TIME
+         CALL PUTINT((NSTATE-1)*(nparam+1))
+         CALL PUTDBL(TIME)
          do i=0, nparam
             DO j=1,NSTATE
                !for concentrations, normalize by volume
                IF (i .EQ. 0) THEN
-                WRITE(15,*) Y(I*nstate+j)/Y(NSTATE)
+                CALL PUTDBL(Y(I*nstate+j)/Y(NSTATE))
                !for sensitivity coefficients, we must use quotient rule:
                !Zcj,ki = dcj/dki=d(nj/V)/dki=(V*dnj/dki-nj*dV/dki)/V^2
                ELSE
-                WRITE(15,*) (Y(NSTATE)*Y(I*nstate+j)-Y(j)*Y(I*nstate+NSTATE))/(Y(NSTATE)**2)
+                CALL PUTDBL((Y(NSTATE)*Y(I*nstate+j)-Y(j)*Y(I*nstate+NSTATE))/(Y(NSTATE)**2))
                END IF
             END DO
          end do
@@ -903,15 +1013,22 @@ PROGRAM CALL_DASPKAUTO
          do i=0, nparam
             DO j=1,NSTATE
                !WRITE(15,*) Yprime(I*nstate+j)/Y(NSTATE)
-               WRITE(15,*) (Y(NSTATE)*YPRIME(I*nstate+j)-Y(I*nstate+j)*YPRIME(NSTATE))/(Y(NSTATE)**2)
+               CALL PUTDBL((Y(NSTATE)*YPRIME(I*nstate+j)-Y(I*nstate+j)*YPRIME(NSTATE))/(Y(NSTATE)**2))
             END DO
          end do
 
          DO I=1,REACTIONSIZE+THIRDBODYREACTIONSIZE+TROEREACTIONSIZE+LINDEREACTIONSIZE
-            WRITE(15,*) TOTALREACTIONFLUX(I)
+            CALL PUTDBL(TOTALREACTIONFLUX(I))
          END DO         
 
       end do   
+      IF (DAEMON .EQ. 1) THEN
+         ! RMG checks IDID itself, and the magic number ends the output
+         CALL PUTINT(IDID)
+         CALL PUTMAGIC()
+         FLUSH(15)
+         RETURN
+      END IF
       CLOSE(15)
 
       if (idid .eq. 1 .or. idid .eq. 2 .or. idid .eq. 3) then
@@ -921,6 +1038,85 @@ PROGRAM CALL_DASPKAUTO
       end if
 
       END SUBROUTINE SOLVESEN
+
+! input and output helpers: list-directed I/O on SolverInput.dat and
+! SolverOutput.dat, or binary I/O on stdin and stdout in daemon mode;
+! each GET reads one line of SolverInput.dat
+      SUBROUTINE GETINT(N)
+      IMPLICIT NONE
+      INTEGER N, DAEMON
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) N
+      ELSE
+         READ(12,*) N
+      END IF
+      END SUBROUTINE GETINT
+
+      SUBROUTINE GETINTS(A, N)
+      IMPLICIT NONE
+      INTEGER N, A(*), I, DAEMON
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) (A(I), I=1,N)
+      ELSE
+         READ(12,*) (A(I), I=1,N)
+      END IF
+      END SUBROUTINE GETINTS
+
+      SUBROUTINE GETDBLS(A, N)
+      IMPLICIT NONE
+      INTEGER N, I, DAEMON
+      DOUBLE PRECISION A(*)
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) (A(I), I=1,N)
+      ELSE
+         READ(12,*) (A(I), I=1,N)
+      END IF
+      END SUBROUTINE GETDBLS
+
+      SUBROUTINE GETDBL2(X, Y)
+      IMPLICIT NONE
+      INTEGER DAEMON
+      DOUBLE PRECISION X, Y
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) X, Y
+      ELSE
+         READ(12,*) X, Y
+      END IF
+      END SUBROUTINE GETDBL2
+
+      SUBROUTINE PUTINT(N)
+      IMPLICIT NONE
+      INTEGER N, DAEMON
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         WRITE(15) N
+      ELSE
+         WRITE(15,*) N
+      END IF
+      END SUBROUTINE PUTINT
+
+      SUBROUTINE PUTDBL(X)
+      IMPLICIT NONE
+      INTEGER DAEMON
+      DOUBLE PRECISION X
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         WRITE(15) X
+      ELSE
+         WRITE(15,*) X
+      END IF
+      END SUBROUTINE PUTDBL
+
+      SUBROUTINE PUTMAGIC()
+      IMPLICIT NONE
+      INTEGER MAGIC
+      PARAMETER (MAGIC = 1381191500)
+      WRITE(15) MAGIC
+      END SUBROUTINE PUTMAGIC
             
 ! 6/26/08 gmagoon: adding subroutines EDGEFLUX and RCHAR
 
@@ -940,7 +1136,7 @@ SUBROUTINE EDGEFLUX(EDGEFLAG,EDGEFLAGCORE,Y,YPRIME,THRESH,CORETHRESH,ESPECIES, &
     DOUBLE PRECISION THRESH,CORETHRESH,FLUXRC, RFLUX, Y(NSTATE), YPRIME(NSTATE)
     DOUBLE PRECISION, DIMENSION(:), ALLOCATABLE :: RATE
     INTEGER NEREAC(EREACTIONSIZE),NEPROD(EREACTIONSIZE)
-        INTEGER IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,3)
+        INTEGER IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,4)
     INTEGER PRUNEVEC(ESPECIES)
         DOUBLE PRECISION KVEC(EREACTIONSIZE),RATIO, MAXRATIO(ESPECIES)
     
@@ -0,0 +1,342 @@
+! filename: krylov.f90
+! Preconditioner for the Krylov (GMRES) mode of DASPK, used when RMG sets
+! INFO(12) = 1 ("DynamicSimulator: DASPK: krylov" in condition.txt).
+! The preconditioner is an incomplete LU factorization, with no fill-in, of
+! the iteration matrix dG/dY - CJ*I over a fixed sparsity pattern: species I
+! is coupled to species J if both take part (as reactant, product or
+! collider) in a reaction that has I as a reactant or product. Every species
+! is also coupled to the volume, the last state variable, and the volume to
+! every species. The pattern contains all the nonzeros of the Jacobian, so
+! the only approximation is the dropped fill-in.
+! The pattern is stored in compressed sparse row form, with the columns of
+! each row in increasing order: IA(NSTATE+1) row pointers, DIAG(NSTATE)
+! the positions of the diagonal entries and JA(NNZ) the column indices.
+! In DASPK's IWP these are stored one after the other, so
+! LENIWP = 2*NSTATE + 1 + NNZ, and the factors are stored in WP, LENWP = NNZ.
+
+!*******************************************************************
+! returns in SPEC the NSPEC species of global reaction G (the reactions,
+! then the third body, Troe and Lindemann reactions, numbered from 1);
+! the first NMAIN of them are the reactants and products, whose equations
+! contain the rate of the reaction, and the rest are the colliders
+      SUBROUTINE KRYREACTION(G, SPEC, NSPEC, NMAIN)
+
+      IMPLICIT NONE
+      INCLUDE 'reaction.fh'
+
+      INTEGER G, SPEC(20), NSPEC, NMAIN, I, J, BASE, RNUM, PNUM, NCOL
+
+      NCOL = 0
+      I = G - 1
+      IF (I .LT. REACTIONSIZE) THEN
+         BASE = 10*I
+         RNUM = REACTIONARRAY(BASE+1)
+         PNUM = REACTIONARRAY(BASE+2)
+         DO J=1,RNUM
+            SPEC(J) = REACTIONARRAY(BASE+2+J)
+         END DO
+         DO J=1,PNUM
+            SPEC(RNUM+J) = REACTIONARRAY(BASE+5+J)
+         END DO
+         NMAIN = RNUM + PNUM
+         NSPEC = NMAIN
+         RETURN
+      END IF
+
+      I = I - REACTIONSIZE
+      IF (I .LT. THIRDBODYREACTIONSIZE) THEN
+         BASE = 21*I
+         RNUM = THIRDBODYREACTIONARRAY(BASE+1)
+         PNUM = THIRDBODYREACTIONARRAY(BASE+2)
+         DO J=1,RNUM
+            SPEC(J) = THIRDBODYREACTIONARRAY(BASE+2+J)
+         END DO
+         DO J=1,PNUM
+            SPEC(RNUM+J) = THIRDBODYREACTIONARRAY(BASE+5+J)
+         END DO
+         NCOL = THIRDBODYREACTIONARRAY(BASE+11)
+         DO J=1,NCOL
+            SPEC(RNUM+PNUM+J) = THIRDBODYREACTIONARRAY(BASE+11+J)
+         END DO
+      ELSE IF (I - THIRDBODYREACTIONSIZE .LT. TROEREACTIONSIZE) THEN
+         BASE = 22*(I - THIRDBODYREACTIONSIZE)
+         RNUM = TROEREACTIONARRAY(BASE+1)
+         PNUM = TROEREACTIONARRAY(BASE+2)
+         DO J=1,RNUM
+            SPEC(J) = TROEREACTIONARRAY(BASE+2+J)
+         END DO
+         DO J=1,PNUM
+            SPEC(RNUM+J) = TROEREACTIONARRAY(BASE+5+J)
+         END DO
+         NCOL = TROEREACTIONARRAY(BASE+11)
+         DO J=1,NCOL
+            SPEC(RNUM+PNUM+J) = TROEREACTIONARRAY(BASE+11+J)
+         END DO
+      ELSE
+         BASE = 21*(I - THIRDBODYREACTIONSIZE - TROEREACTIONSIZE)
+         RNUM = LINDEREACTIONARRAY(BASE+1)
+         PNUM = LINDEREACTIONARRAY(BASE+2)
+         DO J=1,RNUM
+            SPEC(J) = LINDEREACTIONARRAY(BASE+2+J)
+         END DO
+         DO J=1,PNUM
+            SPEC(RNUM+J) = LINDEREACTIONARRAY(BASE+5+J)
+         END DO
+         NCOL = LINDEREACTIONARRAY(BASE+11)
+         DO J=1,NCOL
+            SPEC(RNUM+PNUM+J) = LINDEREACTIONARRAY(BASE+11+J)
+         END DO
+      END IF
+      NMAIN = RNUM + PNUM
+      NSPEC = NMAIN + NCOL
+
+      END SUBROUTINE KRYREACTION
+
+!*******************************************************************
+! builds the sparsity pattern of the preconditioner; if LENJA is 0, only
+! the number of nonzeros NNZ is computed and IA, DIAG and JA are not used,
+! otherwise JA must have room for all NNZ of them
+      SUBROUTINE KRYPATTERN(IA, DIAG, JA, LENJA, NNZ)
+
+      IMPLICIT NONE
+      INCLUDE 'reaction.fh'
+
+      INTEGER LENJA, NNZ, IA(*), DIAG(*), JA(*)
+      INTEGER NR, G, I, J, K, L, C, S, NSPEC, NMAIN, SPEC(20), ROWLEN
+      INTEGER INCSTART(NSTATE+1), MARK(NSTATE), ROW(NSTATE)
+      INTEGER, DIMENSION(:), ALLOCATABLE :: INC
+
+      NR = REACTIONSIZE + THIRDBODYREACTIONSIZE + TROEREACTIONSIZE + &
+     &     LINDEREACTIONSIZE
+
+!     index the reactions by the species whose equations they appear in
+      DO I=1,NSTATE+1
+         INCSTART(I) = 0
+      END DO
+      DO G=1,NR
+         CALL KRYREACTION(G, SPEC, NSPEC, NMAIN)
+         DO J=1,NMAIN
+            INCSTART(SPEC(J)+1) = INCSTART(SPEC(J)+1) + 1
+         END DO
+      END DO
+      INCSTART(1) = 1
+      DO I=2,NSTATE+1
+         INCSTART(I) = INCSTART(I) + INCSTART(I-1)
+      END DO
+      ALLOCATE(INC(INCSTART(NSTATE+1)))
+      DO I=1,NSTATE
+         MARK(I) = INCSTART(I)
+      END DO
+      DO G=1,NR
+         CALL KRYREACTION(G, SPEC, NSPEC, NMAIN)
+         DO J=1,NMAIN
+            INC(MARK(SPEC(J))) = G
+            MARK(SPEC(J)) = MARK(SPEC(J)) + 1
+         END DO
+      END DO
+
+!     the species rows: the diagonal, the volume, and the species of every
+!     reaction in the equation of the species
+      DO I=1,NSTATE
+         MARK(I) = 0
+      END DO
+      NNZ = 0
+      DO I=1,NSTATE-1
+         ROWLEN = 0
+         MARK(I) = I
+         ROWLEN = ROWLEN + 1
+         ROW(ROWLEN) = I
+         MARK(NSTATE) = I
+         ROWLEN = ROWLEN + 1
+         ROW(ROWLEN) = NSTATE
+         DO K=INCSTART(I),INCSTART(I+1)-1
+            CALL KRYREACTION(INC(K), SPEC, NSPEC, NMAIN)
+            DO J=1,NSPEC
+               S = SPEC(J)
+               IF (MARK(S) .NE. I) THEN
+                  MARK(S) = I
+                  ROWLEN = ROWLEN + 1
+                  ROW(ROWLEN) = S
+               END IF
+            END DO
+         END DO
+         IF (LENJA .GT. 0) THEN
+!           insertion sort, the rows are short
+            DO K=2,ROWLEN
+               C = ROW(K)
+               L = K - 1
+               DO WHILE (L .GE. 1)
+                  IF (ROW(L) .LE. C) EXIT
+                  ROW(L+1) = ROW(L)
+                  L = L - 1
+               END DO
+               ROW(L+1) = C
+            END DO
+            IA(I) = NNZ + 1
+            DO K=1,ROWLEN
+               JA(NNZ+K) = ROW(K)
+               IF (ROW(K) .EQ. I) DIAG(I) = NNZ + K
+            END DO
+         END IF
+         NNZ = NNZ + ROWLEN
+      END DO
+
+!     the volume row is dense
+      IF (LENJA .GT. 0) THEN
+         IA(NSTATE) = NNZ + 1
+         DO K=1,NSTATE
+            JA(NNZ+K) = K
+         END DO
+         DIAG(NSTATE) = NNZ + NSTATE
+         IA(NSTATE+1) = NNZ + NSTATE + 1
+      END IF
+      NNZ = NNZ + NSTATE
+
+      DEALLOCATE(INC)
+
+      END SUBROUTINE KRYPATTERN
+
+!*******************************************************************
+! DASPK preconditioner setup routine (passed as the JAC argument when
+! INFO(15) = 1): evaluates the Jacobian over the pattern and factorizes
+! the iteration matrix in place in WP; IER = 1 on a zero pivot, which makes
+! DASPK retry with a smaller step
+      SUBROUTINE PSETUP(RES, IRES, NEQN, T, Y, YPRIME, REWT, SAVR, WK, &
+     &     H, CJ, WP, IWP, IER, RPAR, IPAR, SENPAR)
+
+      IMPLICIT NONE
+      INCLUDE 'reaction.fh'
+
+      EXTERNAL RES
+      INTEGER IRES, NEQN, IWP(*), IER, IPAR(*), SENPAR(*), NNZ
+      DOUBLE PRECISION T, Y(*), YPRIME(*), REWT(*), SAVR(*), WK(*), H, &
+     &     CJ, WP(*), RPAR(*)
+      INTEGER KRYLOV, LENWP, LENIWP
+      COMMON /KRYLOV/ KRYLOV, LENWP, LENIWP
+
+      IER = 0
+      CALL KRYPATTERN(IWP(1), IWP(NSTATE+2), IWP(2*NSTATE+2), &
+     &     LENIWP - 2*NSTATE - 1, NNZ)
+      CALL KRYFACTOR(Y, YPRIME, CJ, WP, IWP(1), IWP(NSTATE+2), &
+     &     IWP(2*NSTATE+2), NNZ, IER, RPAR, IPAR, SENPAR)
+
+      END SUBROUTINE PSETUP
+
+!*******************************************************************
+      SUBROUTINE KRYFACTOR(Y, YPRIME, CJ, WP, IA, DIAG, JA, NNZ, IER, &
+     &     RPAR, IPAR, SENPAR)
+
+      IMPLICIT NONE
+      INCLUDE 'reaction.fh'
+
+      INTEGER NNZ, IA(NSTATE+1), DIAG(NSTATE), JA(NNZ), IER, IPAR(*), &
+     &     SENPAR(*), I, J, K, KK, P, LO, HI, MID, NJAC
+      INTEGER IROW(NSTATE*NSTATE), JCOL(NSTATE*NSTATE), &
+     &     IDPWRK(NSTATE*NSTATE), IW(NSTATE)
+      DOUBLE PRECISION Y(*), YPRIME(*), CJ, WP(NNZ), RPAR(*), DEL(NEQ), &
+     &     AJAC(NSTATE*NSTATE), ZERO
+
+      ZERO = 0
+      DO K=1,NNZ
+         WP(K) = 0
+      END DO
+
+!     the Jacobian, as in JAC; entries outside the pattern are dropped
+      CALL RESAD(ZERO, Y, YPRIME, CJ, DEL, RPAR, IPAR, SENPAR, &
+     &     AJAC, NJAC, IROW, JCOL, IDPWRK)
+      DO K=1,NJAC
+         I = IROW(K)
+         J = JCOL(K)
+         LO = IA(I)
+         HI = IA(I+1) - 1
+         DO WHILE (LO .LE. HI)
+            MID = (LO + HI)/2
+            IF (JA(MID) .EQ. J) THEN
+               WP(MID) = AJAC(K)
+               EXIT
+            ELSE IF (JA(MID) .LT. J) THEN
+               LO = MID + 1
+            ELSE
+               HI = MID - 1
+            END IF
+         END DO
+      END DO
+
+      DO I=1,NSTATE
+         IF (ConstantConcentration(I) .EQ. 1) THEN
+            DO K=IA(I),IA(I+1)-1
+               WP(K) = 0
+            END DO
+         END IF
+         WP(DIAG(I)) = WP(DIAG(I)) - CJ
+      END DO
+
+!     ILU(0): row by row, eliminate the entries left of the diagonal using
+!     the rows above, keeping only the updates that fall in the pattern
+      DO I=1,NSTATE
+         IW(I) = 0
+      END DO
+      DO I=1,NSTATE
+         DO K=IA(I),IA(I+1)-1
+            IW(JA(K)) = K
+         END DO
+         DO K=IA(I),DIAG(I)-1
+            J = JA(K)
+            WP(K) = WP(K)/WP(DIAG(J))
+            DO KK=DIAG(J)+1,IA(J+1)-1
+               P = IW(JA(KK))
+               IF (P .NE. 0) WP(P) = WP(P) - WP(K)*WP(KK)
+            END DO
+         END DO
+         IF (WP(DIAG(I)) .EQ. 0) THEN
+            IER = 1
+            RETURN
+         END IF
+         DO K=IA(I),IA(I+1)-1
+            IW(JA(K)) = 0
+         END DO
+      END DO
+
+      END SUBROUTINE KRYFACTOR
+
+!*******************************************************************
+! DASPK preconditioner solve routine: overwrites B with the solution of
+! L*U*X = B, with the factors computed by PSETUP
+      SUBROUTINE PSOL(NEQN, T, Y, YPRIME, SAVR, WK, CJ, WGHT, WP, IWP, &
+     &     B, EPLIN, IER, RPAR, IPAR, SENPAR)
+
+      IMPLICIT NONE
+      INCLUDE 'reaction.fh'
+
+      INTEGER NEQN, IWP(*), IER, IPAR(*), SENPAR(*)
+      DOUBLE PRECISION T, Y(*), YPRIME(*), SAVR(*), WK(*), CJ, WGHT(*), &
+     &     WP(*), B(*), EPLIN, RPAR(*)
+
+      IER = 0
+      CALL KRYSOLVE(WP, IWP(1), IWP(NSTATE+2), IWP(2*NSTATE+2), B)
+
+      END SUBROUTINE PSOL
+
+!*******************************************************************
+      SUBROUTINE KRYSOLVE(WP, IA, DIAG, JA, B)
+
+      IMPLICIT NONE
+      INCLUDE 'reaction.fh'
+
+      INTEGER IA(NSTATE+1), DIAG(NSTATE), JA(*), I, K
+      DOUBLE PRECISION WP(*), B(NSTATE)
+
+!     L has a unit diagonal
+      DO I=1,NSTATE
+         DO K=IA(I),DIAG(I)-1
+            B(I) = B(I) - WP(K)*B(JA(K))
+         END DO
+      END DO
+      DO I=NSTATE,1,-1
+         DO K=DIAG(I)+1,IA(I+1)-1
+            B(I) = B(I) - WP(K)*B(JA(K))
+         END DO
+         B(I) = B(I)/WP(DIAG(I))
+      END DO
+
+      END SUBROUTINE KRYSOLVE
@@ -12,19 +12,6 @@
      $     TROEREACTIONSIZE+LINDEREACTIONSIZE+NSTATE-1)
 
 
-      do i=1,nstate
-         do j=1,nstate
-            jacobian(i,j) = 0
-         end do
-      end do
-
-      do i=1,nstate
-         do j=1,reactionsize+thirdbodyreactionsize+troereactionsize+
-     $        LINDEREACTIONSIZE+nstate-1
-            dgdk(i,j) = 0
-         end do
-      end do
-
       if (ires .eq. 0) then
          CALL GETFLUX(Y, DEL, RPAR)
 
@@ -34,6 +21,21 @@
 
       else if (ires .eq. 1) then
 
+c the dense work arrays are only needed for the sensitivities, so the
+c state residual (every residual of the Krylov mode) doesn't clear them
+         do i=1,nstate
+            do j=1,nstate
+               jacobian(i,j) = 0
+            end do
+         end do
+
+         do i=1,nstate
+            do j=1,reactionsize+thirdbodyreactionsize+troereactionsize+
+     $           LINDEREACTIONSIZE+nstate-1
+               dgdk(i,j) = 0
+            end do
+         end do
+
 c calculate the res for state variables
          CAll GETFlux(y, DEL, RPAR)
 
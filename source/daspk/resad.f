@@ -12,7 +12,7 @@ C     -   GENERATED: Wed Jan 31 02:02:16 2007
       integer neqmax
       parameter(neqmax=500*25000)
       integer spmax
-      parameter(spmax=500)
+      parameter(spmax=5000)
       integer rmax
       parameter(rmax=25000)
       integer tbrmax
@@ -169,7 +169,7 @@ C     Done
       integer neqmax
       parameter(neqmax=500*25000)
       integer spmax
-      parameter(spmax=500)
+      parameter(spmax=5000)
       integer rmax
       parameter(rmax=25000)
       integer tbrmax
@@ -1,3 +1,7 @@
+! RMG solver daemon: when run with the -daemon argument, the input is read
+! from stdin and the output written to stdout, in native-endian binary, and
+! the program loops over requests instead of solving once; the protocol is
+! described in jing/rxnSys/SolverDaemon.java
 ! 8-JUL-09 mrharper: added Lindemann reactions
 ! 6/25/08 gmagoon: removed comments for debugging/timing
 ! 5/14/08 gmagoon: filename: call_dasslAUTOdebug.f90 (includes output used
@@ -26,7 +30,9 @@
      &     REACTIONARRAY(10*RMAX), THIRDBODYREACTIONARRAY(21*TBRMAX), &
      &     TROEREACTIONARRAY(22*TROEMAX), I, J, IDID, impspecies, &
      &     AUTOFLAG, ESPECIES, EREACTIONSIZE, ConstantConcentration(SPMAX+1), &
-     &     LINDEREACTIONSIZE, LINDEREACTIONARRAY(21*LINDEMAX)
+     &     LINDEREACTIONSIZE, LINDEREACTIONARRAY(21*LINDEMAX), &
+     &     DAEMON, MAGIC, COMMAND
+      CHARACTER(LEN=16) ARG
 
       DOUBLE PRECISION Y(SPMAX), YPRIME(SPMAX), T, TOUT, RTOL, ATOL,&
      &     RWORK(51+10*SPMAX+SPMAX**2), TEMPERATURE, PRESSURE,&
@@ -48,40 +54,74 @@
      &     REACTIONARRAY, THIRDBODYREACTIONARRAY,&
      &     TROEREACTIONARRAY, ConstantConcentration, &
      &     LINDEREACTIONRATEARRAY, LINDEREACTIONARRAY
+
+      COMMON /SOLVERIO/ DAEMON
 !5/12/08 gmagoon: added timing (cf. http://beige.ucs.indiana.edu/B673/node105.html)
 !      integer count_0, count_1, count_rate, count_max
 !      double precision start, finish
 !      call system_clock(count_0, count_rate, count_max)
 !      start = count_0 * 1.0 / count_rate
 
+      DAEMON = 0
+      IF (COMMAND_ARGUMENT_COUNT() .GE. 1) THEN
+         CALL GET_COMMAND_ARGUMENT(1, ARG)
+         IF (ARG .EQ. '-daemon') DAEMON = 1
+      END IF
+      IF (DAEMON .EQ. 1) THEN
+         ! stdout carries the output, so messages go to stderr
+         OPEN(UNIT=6, FILE='/dev/stderr', ACTION='WRITE')
+         OPEN(UNIT=12, FILE='/dev/stdin', ACCESS='STREAM', &
+     &        FORM='UNFORMATTED', ACTION='READ', STATUS='OLD')
+         OPEN(UNIT=16, FILE='/dev/stdout', ACCESS='STREAM', &
+     &        FORM='UNFORMATTED', ACTION='WRITE', STATUS='OLD')
+         ! the greeting: the magic number and the protocol version
+         CALL PUTMAGIC()
+         CALL PUTINT(1)
+         FLUSH(16)
+      ELSE
+         OPEN (UNIT=12, FILE = 'SolverInput.dat', STATUS = 'OLD')
+      END IF
+
+! in daemon mode, each request starts with the magic number and a command:
+! 1 to solve, 0 to exit
+ 10   IF (DAEMON .EQ. 1) THEN
+         READ(12, END=900) MAGIC, COMMAND
+         IF (MAGIC .NE. 1381191500 .OR. COMMAND .NE. 1) GO TO 900
+      END IF
+
       IDID = 0 !gmagoon 1/25/10: initialize IDID to zero (no meaning in terms of DASSL idid outputs) to avoid a situation where dassl is never called (and hence IDID is never assigned) due to edge exceeding flux at t=0
-      OPEN (UNIT=12, FILE = 'SolverInput.dat', STATUS = 'OLD')
+      ESPECIES = 0
+      EREACTIONSIZE = 0
 
 ! READ THE NUMBER OF SPECIES; 4/24/08 gmagoon: added autoFlag,
 ! which will equal 1 for automatic (solve ODE until flux
 ! exceeds threshhold) or -1 for conventional operation
 ! (i.e. user-specification of time/conversion steps) 
-      READ(12,*) NSTATE, NEQ, IMPSPECIES, TARGETCONC, AUTOFLAG
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) NSTATE, NEQ, IMPSPECIES, TARGETCONC, AUTOFLAG
+      ELSE
+         READ(12,*) NSTATE, NEQ, IMPSPECIES, TARGETCONC, AUTOFLAG
+      END IF
       NSTATE = NSTATE+1
       
 !  READ THE CONCENTRATIONS
-      READ(12,*) (Y(I), i=1,nstate-1)
+      CALL GETDBLS(Y, NSTATE-1)
 
 ! READ THE RATE OF CHANGE OF CONCENTRATIONS
-      READ(12,*) (YPRIME(I), i=1,nstate-1)
+      CALL GETDBLS(YPRIME, NSTATE-1)
       YPRIME(NSTATE) = 0;
 
 ! READ THE TIME AND TOUT
-      READ(12,*) T, TOUT
+      CALL GETDBL2(T, TOUT)
 
 ! READ THE INFO ARRAY
-      READ(12,*) (INFO(I), I=1,30)
+      CALL GETINTS(INFO, 30)
 
 ! READ RTOL AND ATOL
-      READ(12,*) RTOL, ATOL
+      CALL GETDBL2(RTOL, ATOL)
 
 ! READ TEMPERATURE AND PRESSURE
-      READ(12,*) TEMPERATURE, PRESSURE
+      CALL GETDBL2(TEMPERATURE, PRESSURE)
 
       Y(NSTATE) = 8.314*temperature/pressure/1e-6;
       do i=1,nstate-1
@@ -92,25 +132,24 @@
 
 
 ! READ INFORMATION ABOUT REACTIONS
-      READ(12,*) REACTIONSIZE
-      READ(12,*) (REACTIONARRAY(I),I=1,10*REACTIONSIZE)
-      READ(12,*) (REACTIONRATEARRAY(I),I=1,5*REACTIONSIZE)
+      CALL GETINT(REACTIONSIZE)
+      CALL GETINTS(REACTIONARRAY, 10*REACTIONSIZE)
+      CALL GETDBLS(REACTIONRATEARRAY, 5*REACTIONSIZE)
 
 ! READ INFORMATION ABOUT THIRDBODYREACTIONS
-      READ(12,*) THIRDBODYREACTIONSIZE
-      READ(12,*)(THIRDBODYREACTIONARRAY(I),I=1,21*THIRDBODYREACTIONSIZE)
-      READ(12,*)(THIRDBODYREACTIONRATEARRAY(I),I=1, &
-    &  16*THIRDBODYREACTIONSIZE)
+      CALL GETINT(THIRDBODYREACTIONSIZE)
+      CALL GETINTS(THIRDBODYREACTIONARRAY, 21*THIRDBODYREACTIONSIZE)
+      CALL GETDBLS(THIRDBODYREACTIONRATEARRAY, 16*THIRDBODYREACTIONSIZE)
       
 ! READ INFORMATION ABOUT TROEREACTIONS
-      READ(12,*) TROEREACTIONSIZE
-      READ(12,*)(TROEREACTIONARRAY(I),I=1,22*TROEREACTIONSIZE)
-      READ(12,*)(TROEREACTIONRATEARRAY(I),I=1,21*TROEREACTIONSIZE)
+      CALL GETINT(TROEREACTIONSIZE)
+      CALL GETINTS(TROEREACTIONARRAY, 22*TROEREACTIONSIZE)
+      CALL GETDBLS(TROEREACTIONRATEARRAY, 21*TROEREACTIONSIZE)
 
 ! READ INFORMATION ABOUT LINDEMANNREACTIONS
-      READ(12,*) LINDEREACTIONSIZE
-      READ(12,*)(LINDEREACTIONARRAY(I),I=1,21*LINDEREACTIONSIZE)
-      READ(12,*)(LINDEREACTIONRATEARRAY(I),I=1,17*LINDEREACTIONSIZE)
+      CALL GETINT(LINDEREACTIONSIZE)
+      CALL GETINTS(LINDEREACTIONARRAY, 21*LINDEREACTIONSIZE)
+      CALL GETDBLS(LINDEREACTIONRATEARRAY, 17*LINDEREACTIONSIZE)
 
 ! 4/24/08 gmagoon: if autoFlag = 1, read in additional information 
 ! specific to automatic time stepping
@@ -120,9 +159,13 @@
             !CORETHRESH is the threshhold for moving something from edge to core,
             !whereas THRESH is the threshhold for terminating the run before the end
             !THRESH >= CORETHRESH
-        READ(12,*) THRESH, CORETHRESH
+        CALL GETDBL2(THRESH, CORETHRESH)
         ! read the number of edge species and edge reactions
-        READ(12,*) ESPECIES, EREACTIONSIZE
+        IF (DAEMON .EQ. 1) THEN
+            READ(12) ESPECIES, EREACTIONSIZE
+        ELSE
+            READ(12,*) ESPECIES, EREACTIONSIZE
+        END IF
         ! allocate memory for arrays
         ALLOCATE(NEREAC(EREACTIONSIZE), NEPROD(EREACTIONSIZE),&
     &       IDEREAC(EREACTIONSIZE,3), IDEPROD(EREACTIONSIZE,4),&
@@ -141,9 +184,15 @@
         ! requires assumption that system is isothermal
         ! (and isobaric for pressure dependence)
         DO I=1, EREACTIONSIZE
+          IF (DAEMON .EQ. 1) THEN
+            READ(12) NEREAC(I),NEPROD(I),IDEREAC(I,1), & 
+         &            IDEREAC(I,2),IDEREAC(I,3),IDEPROD(I,1), &
+         &            IDEPROD(I,2), IDEPROD(I,3), IDEPROD(I,4), KVEC(I)
+          ELSE
             READ(12,*) NEREAC(I),NEPROD(I),IDEREAC(I,1), & 
          &            IDEREAC(I,2),IDEREAC(I,3),IDEPROD(I,1), &
          &            IDEPROD(I,2), IDEPROD(I,3), IDEPROD(I,4), KVEC(I)
+          END IF
         ! alternative for reading Arrhenius parameters instead
         ! of k values; this allows easier extention to
         ! non-isothermal systems in the future
@@ -165,7 +214,7 @@
     
     ! read constantConcentration data (if flag = 1 then the concentration of that species will not be integrated)
     ! there is one integer for each species (up to nstate-1), then the last one is for the VOLUME
-    READ(12,*) (ConstantConcentration(I), i=1,nstate)
+    CALL GETINTS(ConstantConcentration, NSTATE)
 
 
 ! READ RWORK AND IWORK
@@ -175,6 +224,10 @@
 
          OPEN(UNIT=14, FILE = 'IWORK.DAT', FORM='UNFORMATTED')
          READ(14) (IWORK(I),I=1, 41+NSTATE)
+      ELSE IF (DAEMON .EQ. 1) THEN
+         ! start from the same work arrays as a fresh process would
+         RWORK = 0
+         IWORK = 0
       END IF
       !5/13/08 gmagoon: close 13 and 14 to avoid "File already opened
       ! in another unit" error when T.NE.0 (occurs when we want to
@@ -201,6 +254,9 @@
      &  IDEREAC, IDEPROD)
       END IF
 
+      IF (DAEMON .EQ. 1) GO TO 10
+ 900  CONTINUE
+
       !5/12/08 gmagoon: added timing (see above)
     !  call system_clock(count_1, count_rate, count_max)
     !  finish = count_1 * 1.0 / count_rate
@@ -255,6 +311,9 @@
      &     TROEREACTIONARRAY, ConstantConcentration, &
      &     LINDEREACTIONRATEARRAY, LINDEREACTIONARRAY
 
+      INTEGER DAEMON
+      COMMON /SOLVERIO/ DAEMON
+
       INTEGER  INFO(30), LIW, LRW, IWORK(41 + NSTATE), IPAR(1),IDID, iter, &
      &     IMPSPECIES, conc, ITER_OUTPT, IWORK_OUTPT(41 + NSTATE)
       DOUBLE PRECISION Y(NSTATE), YPRIME(NSTATE), Time, TOUT, RTOL, ATOL &
@@ -468,13 +527,17 @@
       IWORK_OUTPT = IWORK
       RWORK_OUTPT = RWORK
 
-      OPEN(UNIT=16, FILE='SolverOutput.dat')
+      IF (DAEMON .EQ. 1) THEN
+         CALL PUTMAGIC()
+      ELSE
+         OPEN(UNIT=16, FILE='SolverOutput.dat')
+      END IF
 
-      write(16,*) ITER_OUTPT
-      WRITE(16,*) NSTATE-1
-      write(16,*) TIME_OUTPT
+      CALL PUTINT(ITER_OUTPT)
+      CALL PUTINT(NSTATE-1)
+      CALL PUTDBL(TIME_OUTPT)
       DO I=1,NSTATE-1
-         WRITE(16,*) Y_OUTPT(I)/Y_OUTPT(NSTATE)
+         CALL PUTDBL(Y_OUTPT(I)/Y_OUTPT(NSTATE))
       END DO
       
 
@@ -482,28 +545,28 @@
    ! 5/9/08 gmagoon: these values are read by RMG as flux; corrected to
    ! include volume changing effects (dV/dt) using quotient rule
    !      WRITE(16,*) YPRIME(I)/Y(NSTATE)
-          WRITE(16,*) (Y_OUTPT(NSTATE)*YPRIME_OUTPT(I)-Y_OUTPT(I)*YPRIME_OUTPT(NSTATE))/(Y_OUTPT(NSTATE)**2)
+          CALL PUTDBL((Y_OUTPT(NSTATE)*YPRIME_OUTPT(I)-Y_OUTPT(I)*YPRIME_OUTPT(NSTATE))/(Y_OUTPT(NSTATE)**2))
       END DO
 
       DO I=1,REACTIONSIZE+THIRDBODYREACTIONSIZE+TROEREACTIONSIZE+LINDEREACTIONSIZE
-         WRITE(16,*) TOTALREACTIONFLUX_OUTPT(I)
+         CALL PUTDBL(TOTALREACTIONFLUX_OUTPT(I))
       END DO
       
-      write(16,*) Y_OUTPT(nstate)
+      CALL PUTDBL(Y_OUTPT(nstate))
       
       !for autoflag cases, display the edgeflag (if < 0, the ODE solver did not reach the target time/conversion),
       !, the final time integrated to,
       !along with pruning information
       IF (AUTOFLAG .EQ. 1) THEN
-      WRITE(16,*) EDGEFLAG
-      WRITE(16,*) TIME
+      CALL PUTINT(EDGEFLAG)
+      CALL PUTDBL(TIME)
       DO I=1, ESPECIES
-          WRITE(16,*) PRUNEVEC(I)
-          WRITE(16,*) MAXRATIO(I)
+          CALL PUTINT(PRUNEVEC(I))
+          CALL PUTDBL(MAXRATIO(I))
       END DO
       END IF
 
-      CLOSE(16)
+      IF (DAEMON .NE. 1) CLOSE(16)
 
       OPEN(UNIT=14, FILE='RWORK.DAT', FORM='UNFORMATTED')
       WRITE(14) (RWORK_OUTPT(I),I=1,LRW)
@@ -513,13 +576,97 @@
       WRITE(15) (IWORK_OUTPT(I),I=1,LIW)
       CLOSE(15)
       
-      if (idid .eq. 1 .or. idid .eq. 2 .or. idid .eq. 3 .or. idid .eq. 0) then
+      IF (DAEMON .EQ. 1) THEN
+         ! RMG checks IDID itself, and the magic number ends the output
+         CALL PUTINT(IDID)
+         CALL PUTMAGIC()
+         FLUSH(16)
+      else if (idid .eq. 1 .or. idid .eq. 2 .or. idid .eq. 3 .or. idid .eq. 0) then
          WRITE(*,*) "******ODESOLVER SUCCESSFUL: IDID=",idid
       else
          WRITE(*,*) "******ODESOLVER FAILED : IDID=", idid
       end if
 !      write(*,*) yprime(nstate)
       END SUBROUTINE SOLVEode
+
+! input and output helpers: list-directed I/O on SolverInput.dat and
+! SolverOutput.dat, or binary I/O on stdin and stdout in daemon mode;
+! each GET reads one line of SolverInput.dat
+      SUBROUTINE GETINT(N)
+      IMPLICIT NONE
+      INTEGER N, DAEMON
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) N
+      ELSE
+         READ(12,*) N
+      END IF
+      END SUBROUTINE GETINT
+
+      SUBROUTINE GETINTS(A, N)
+      IMPLICIT NONE
+      INTEGER N, A(*), I, DAEMON
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) (A(I), I=1,N)
+      ELSE
+         READ(12,*) (A(I), I=1,N)
+      END IF
+      END SUBROUTINE GETINTS
+
+      SUBROUTINE GETDBLS(A, N)
+      IMPLICIT NONE
+      INTEGER N, I, DAEMON
+      DOUBLE PRECISION A(*)
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) (A(I), I=1,N)
+      ELSE
+         READ(12,*) (A(I), I=1,N)
+      END IF
+      END SUBROUTINE GETDBLS
+
+      SUBROUTINE GETDBL2(X, Y)
+      IMPLICIT NONE
+      INTEGER DAEMON
+      DOUBLE PRECISION X, Y
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         READ(12) X, Y
+      ELSE
+         READ(12,*) X, Y
+      END IF
+      END SUBROUTINE GETDBL2
+
+      SUBROUTINE PUTINT(N)
+      IMPLICIT NONE
+      INTEGER N, DAEMON
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         WRITE(16) N
+      ELSE
+         WRITE(16,*) N
+      END IF
+      END SUBROUTINE PUTINT
+
+      SUBROUTINE PUTDBL(X)
+      IMPLICIT NONE
+      INTEGER DAEMON
+      DOUBLE PRECISION X
+      COMMON /SOLVERIO/ DAEMON
+      IF (DAEMON .EQ. 1) THEN
+         WRITE(16) X
+      ELSE
+         WRITE(16,*) X
+      END IF
+      END SUBROUTINE PUTDBL
+
+      SUBROUTINE PUTMAGIC()
+      IMPLICIT NONE
+      INTEGER MAGIC
+      PARAMETER (MAGIC = 1381191500)
+      WRITE(16) MAGIC
+      END SUBROUTINE PUTMAGIC
             
 
 ! 4/24/08 gmagoon: adding subroutines EDGEFLUX and RCHAR